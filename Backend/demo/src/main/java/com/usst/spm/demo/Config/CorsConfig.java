@@ -25,6 +25,8 @@ public class CorsConfig {
         // 允许的请求头和方法
         config.addAllowedHeader(CorsConfiguration.ALL);
         config.addAllowedMethod(CorsConfiguration.ALL);
+        // 允许前端读取的响应头（批改名单的下一页游标）
+        config.addExposedHeader("X-Next-Cursor");
         // 预检缓存时间
         config.setMaxAge(3600L);
 
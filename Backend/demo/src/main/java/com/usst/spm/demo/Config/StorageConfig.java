@@ -0,0 +1,30 @@
+package com.usst.spm.demo.Config;
+
+import com.usst.spm.demo.service.LocalStorageBackend;
+import com.usst.spm.demo.service.S3StorageBackend;
+import com.usst.spm.demo.service.StorageBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 文件存储后端选择：spm.storage.backend=local（默认，单机磁盘）或 s3（多节点共享的 S3 兼容存储）
+ */
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    public StorageBackend storageBackend(@Value("${spm.storage.backend:local}") String backend,
+                                         @Value("${spm.storage.local.root:uploads/}") String localRoot,
+                                         @Value("${spm.storage.s3.endpoint:}") String endpoint,
+                                         @Value("${spm.storage.s3.bucket:}") String bucket,
+                                         @Value("${spm.storage.s3.region:us-east-1}") String region,
+                                         @Value("${spm.storage.s3.access-key:}") String accessKey,
+                                         @Value("${spm.storage.s3.secret-key:}") String secretKey) {
+        return switch (backend.trim().toLowerCase()) {
+            case "local" -> new LocalStorageBackend(localRoot);
+            case "s3" -> new S3StorageBackend(endpoint, bucket, region, accessKey, secretKey);
+            default -> throw new IllegalArgumentException("未知的存储后端: " + backend);
+        };
+    }
+}
@@ -1,20 +1,34 @@
 package com.usst.spm.demo.Config;
 
 import com.usst.spm.demo.interceptor.AuthInterceptor;
+import com.usst.spm.demo.interceptor.AuthenticatedPrincipalArgumentResolver;
 import com.usst.spm.demo.interceptor.TeacherAuthInterceptor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
     private final AuthInterceptor authInterceptor;
     private final TeacherAuthInterceptor teacherAuthInterceptor;
+    private final AuthenticatedPrincipalArgumentResolver principalArgumentResolver;
 
-    public WebConfig(AuthInterceptor authInterceptor, TeacherAuthInterceptor teacherAuthInterceptor) {
+    public WebConfig(AuthInterceptor authInterceptor,
+                     TeacherAuthInterceptor teacherAuthInterceptor,
+                     AuthenticatedPrincipalArgumentResolver principalArgumentResolver) {
         this.authInterceptor = authInterceptor;
         this.teacherAuthInterceptor = teacherAuthInterceptor;
+        this.principalArgumentResolver = principalArgumentResolver;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        // Controller 方法参数中的 AuthenticatedPrincipal 由 AuthInterceptor 解析结果注入
+        resolvers.add(principalArgumentResolver);
     }
 
     @Override
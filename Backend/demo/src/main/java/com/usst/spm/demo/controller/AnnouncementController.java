@@ -1,10 +1,9 @@
 package com.usst.spm.demo.controller;
 
 import com.usst.spm.demo.dto.*;
-import com.usst.spm.demo.model.User;
-import com.usst.spm.demo.repository.UserRepository;
+import com.usst.spm.demo.interceptor.RequiresRole;
 import com.usst.spm.demo.service.AnnouncementService;
-import jakarta.servlet.http.HttpServletRequest;
+import com.usst.spm.demo.util.AuthenticatedPrincipal;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,23 +18,9 @@ import java.util.Map;
 public class AnnouncementController {
 
     private final AnnouncementService announcementService;
-    private final UserRepository userRepository;
 
-    public AnnouncementController(AnnouncementService announcementService, UserRepository userRepository) {
+    public AnnouncementController(AnnouncementService announcementService) {
         this.announcementService = announcementService;
-        this.userRepository = userRepository;
-    }
-    
-    /**
-     * 获取当前登录用户
-     */
-    private User requireLogin(HttpServletRequest request) {
-        String studentNo = (String) request.getAttribute("studentNo");
-        if (studentNo == null) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "未登录");
-        }
-        return userRepository.findByStudentNo(studentNo)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "用户不存在"));
     }
 
     /**
@@ -44,13 +29,13 @@ public class AnnouncementController {
      * Body: { "courseId": 1（或0表示全校公告）, "title": "...", "content": "...", "isPinned": false }
      */
     @PostMapping
+    @RequiresRole("TEACHER")
     public ResponseEntity<AnnouncementResponse> createAnnouncement(
-            HttpServletRequest httpRequest,
+            AuthenticatedPrincipal principal,
             @RequestBody AnnouncementCreateRequest createRequest) {
-        User currentUser = requireLogin(httpRequest);
         
         // 只有教师可以创建公告
-        if (!"TEACHER".equalsIgnoreCase(currentUser.getRole())) {
+        if (!principal.isTeacher()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "仅教师可以创建公告");
         }
         
@@ -66,7 +51,7 @@ public class AnnouncementController {
             createRequest.setCourseId(0L);
         }
 
-        AnnouncementResponse response = announcementService.createAnnouncement(currentUser.getId(), createRequest);
+        AnnouncementResponse response = announcementService.createAnnouncement(principal.userId(), createRequest);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
@@ -100,18 +85,18 @@ public class AnnouncementController {
      * Body: { "title": "...", "content": "...", "isPinned": false }
      */
     @PutMapping("/{id}")
+    @RequiresRole("TEACHER")
     public ResponseEntity<AnnouncementResponse> updateAnnouncement(
-            HttpServletRequest httpRequest,
+            AuthenticatedPrincipal principal,
             @PathVariable Long id,
             @RequestBody AnnouncementUpdateRequest updateRequest) {
-        User currentUser = requireLogin(httpRequest);
         
         // 只有教师可以更新公告
-        if (!"TEACHER".equalsIgnoreCase(currentUser.getRole())) {
+        if (!principal.isTeacher()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "仅教师可以更新公告");
         }
         
-        AnnouncementResponse response = announcementService.updateAnnouncement(id, currentUser.getId(), updateRequest);
+        AnnouncementResponse response = announcementService.updateAnnouncement(id, principal.userId(), updateRequest);
         return ResponseEntity.ok(response);
     }
 
@@ -120,17 +105,17 @@ public class AnnouncementController {
      * DELETE /api/announcements/{id}
      */
     @DeleteMapping("/{id}")
+    @RequiresRole("TEACHER")
     public ResponseEntity<Map<String, String>> deleteAnnouncement(
-            HttpServletRequest httpRequest,
+            AuthenticatedPrincipal principal,
             @PathVariable Long id) {
-        User currentUser = requireLogin(httpRequest);
         
         // 只有教师可以删除公告
-        if (!"TEACHER".equalsIgnoreCase(currentUser.getRole())) {
+        if (!principal.isTeacher()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "仅教师可以删除公告");
         }
         
-        announcementService.deleteAnnouncement(id, currentUser.getId());
+        announcementService.deleteAnnouncement(id, principal.userId());
         return ResponseEntity.ok(Map.of("message", "删除成功"));
     }
 }
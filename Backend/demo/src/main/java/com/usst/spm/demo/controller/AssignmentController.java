@@ -1,40 +1,40 @@
 package com.usst.spm.demo.controller;
 
 import com.usst.spm.demo.dto.*;
+import com.usst.spm.demo.interceptor.RequiresCourseTeacher;
+import com.usst.spm.demo.interceptor.RequiresRole;
 import com.usst.spm.demo.model.Assignment;
 import com.usst.spm.demo.model.AssignmentFile;
-import com.usst.spm.demo.model.File;
 import com.usst.spm.demo.model.Grade;
-import com.usst.spm.demo.model.Submission;
-import com.usst.spm.demo.model.SubmissionFile;
-import com.usst.spm.demo.model.User;
 import com.usst.spm.demo.repository.AssignmentFileRepository;
 import com.usst.spm.demo.repository.AssignmentRepository;
-import com.usst.spm.demo.repository.CourseRepository;
-import com.usst.spm.demo.repository.CourseEnrollmentRepository;
 import com.usst.spm.demo.repository.FileRepository;
 import com.usst.spm.demo.repository.GradeRepository;
 import com.usst.spm.demo.repository.SubmissionFileRepository;
 import com.usst.spm.demo.repository.SubmissionRepository;
-import com.usst.spm.demo.repository.UserRepository;
 import com.usst.spm.demo.service.AssignmentService;
+import com.usst.spm.demo.service.BulkGradingService;
+import com.usst.spm.demo.service.CourseMembershipService;
+import com.usst.spm.demo.service.GradeStatisticsEngine;
+import com.usst.spm.demo.service.SimilarityDetectionService;
+import com.usst.spm.demo.service.SubmissionArchiveService;
+import com.usst.spm.demo.service.SubmissionIntakeService;
 import com.usst.spm.demo.util.AssignmentStateMachine;
-import jakarta.servlet.http.HttpServletRequest;
+import com.usst.spm.demo.util.AuthenticatedPrincipal;
 
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Collections;
 
 @RestController
 @RequestMapping("/api/assignments")
@@ -45,78 +45,58 @@ public class AssignmentController {
     private final AssignmentService assignmentService;
     private final SubmissionRepository submissionRepository;
     private final GradeRepository gradeRepository;
-    private final UserRepository userRepository;
     private final AssignmentFileRepository assignmentFileRepository;
     private final SubmissionFileRepository submissionFileRepository;
     private final FileRepository fileRepository;
-    private final CourseEnrollmentRepository courseEnrollmentRepository;
-    private final CourseRepository courseRepository;
+    private final CourseMembershipService courseMembership;
+    private final BulkGradingService bulkGradingService;
+    private final SubmissionArchiveService submissionArchiveService;
+    private final SubmissionIntakeService submissionIntakeService;
+    private final GradeStatisticsEngine gradeStatistics;
+    private final SimilarityDetectionService similarityDetectionService;
 
     public AssignmentController(
             AssignmentRepository assignmentRepository,
             AssignmentService assignmentService,
             SubmissionRepository submissionRepository,
             GradeRepository gradeRepository,
-            UserRepository userRepository,
             AssignmentFileRepository assignmentFileRepository,
             SubmissionFileRepository submissionFileRepository,
             FileRepository fileRepository,
-            CourseEnrollmentRepository courseEnrollmentRepository,
-            CourseRepository courseRepository) {
+            CourseMembershipService courseMembership,
+            BulkGradingService bulkGradingService,
+            SubmissionArchiveService submissionArchiveService,
+            SubmissionIntakeService submissionIntakeService,
+            GradeStatisticsEngine gradeStatistics,
+            SimilarityDetectionService similarityDetectionService) {
         this.assignmentRepository = assignmentRepository;
         this.assignmentService = assignmentService;
         this.submissionRepository = submissionRepository;
         this.gradeRepository = gradeRepository;
-        this.userRepository = userRepository;
         this.assignmentFileRepository = assignmentFileRepository;
         this.submissionFileRepository = submissionFileRepository;
         this.fileRepository = fileRepository;
-        this.courseEnrollmentRepository = courseEnrollmentRepository;
-        this.courseRepository = courseRepository;
-    }
-
-    /**
-     * 获取当前用户ID（从JWT token中获取）
-     */
-    private Long getCurrentUserId(HttpServletRequest request) {
-        String studentNo = (String) request.getAttribute("studentNo");
-        if (studentNo == null) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "未登录");
-        }
-        Optional<User> userOpt = userRepository.findByStudentNo(studentNo);
-        if (userOpt.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "用户不存在");
-        }
-        return userOpt.get().getId();
-    }
-
-    /**
-     * 检查是否为教师
-     */
-    private boolean isTeacher(String studentNo) {
-        Optional<User> userOpt = userRepository.findByStudentNo(studentNo);
-        return userOpt.isPresent() && "TEACHER".equals(userOpt.get().getRole());
+        this.courseMembership = courseMembership;
+        this.bulkGradingService = bulkGradingService;
+        this.submissionArchiveService = submissionArchiveService;
+        this.submissionIntakeService = submissionIntakeService;
+        this.gradeStatistics = gradeStatistics;
+        this.similarityDetectionService = similarityDetectionService;
     }
 
     /**
      * 校验当前登录教师是否为该课程任课教师
      */
-    private void requireTeacherOfCourse(Long courseId, String studentNo) {
+    private void requireTeacherOfCourse(Long courseId, AuthenticatedPrincipal principal) {
         if (courseId == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "缺少课程ID");
         }
-        if (studentNo == null) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "未登录");
-        }
-        User teacher = userRepository.findByStudentNo(studentNo)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "用户不存在"));
-        if (!"TEACHER".equals(teacher.getRole())) {
+        if (!principal.isTeacher()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "只有教师可以操作该课程作业");
         }
-        Long teacherId = teacher.getId();
-        com.usst.spm.demo.model.Course course = courseRepository.findById(courseId)
+        courseMembership.get(courseId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "课程不存在"));
-        if (course.getTeacherId() == null || !course.getTeacherId().equals(teacherId)) {
+        if (!courseMembership.isTeacher(courseId, principal.userId())) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "您不是该课程的任课教师，无法操作此课程的作业");
         }
     }
@@ -128,11 +108,7 @@ public class AssignmentController {
         if (courseId == null || studentId == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "缺少课程或学生信息");
         }
-        boolean enrolled = courseEnrollmentRepository
-                .findByCourseIdAndStudentIdAndDeleted(courseId, studentId, 0)
-                .filter(en -> en.getStatus() == null || "ACTIVE".equals(en.getStatus()))
-                .isPresent();
-        if (!enrolled) {
+        if (!courseMembership.isMember(courseId, studentId)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "未加入该课程");
         }
     }
@@ -144,22 +120,17 @@ public class AssignmentController {
      * 返回：AssignmentResponse（状态默认为DRAFT）
      */
     @PostMapping
+    @RequiresRole("TEACHER")
     public ResponseEntity<AssignmentResponse> createAssignment(
             @RequestBody AssignmentCreateRequest request,
-            HttpServletRequest httpRequest) {
-        // 权限校验：只有教师可以创建作业
-        String studentNo = (String) httpRequest.getAttribute("studentNo");
-        if (studentNo == null || !isTeacher(studentNo)) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "只有教师可以创建作业");
-        }
+            AuthenticatedPrincipal principal) {
         if (request.getCourseId() == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "缺少课程ID");
         }
         // 确保当前教师就是该课程的任课教师
-        requireTeacherOfCourse(request.getCourseId(), studentNo);
+        requireTeacherOfCourse(request.getCourseId(), principal);
 
-        Long teacherId = getCurrentUserId(httpRequest);
-        AssignmentResponse response = assignmentService.createAssignment(request, teacherId);
+        AssignmentResponse response = assignmentService.createAssignment(request, principal.userId());
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
@@ -174,58 +145,15 @@ public class AssignmentController {
             @RequestParam(required = false) Long studentId,
             @RequestParam(required = false) String role,
             @RequestParam(required = false) Long courseId,
-            HttpServletRequest httpRequest) {
+            AuthenticatedPrincipal principal) {
         if (courseId == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "缺少课程ID参数");
         }
         // 如果是教师，返回所有作业（带统计信息）
         if ("TEACHER".equals(role)) {
             // 校验当前教师是否为该课程任课教师
-            String studentNo = (String) httpRequest.getAttribute("studentNo");
-            requireTeacherOfCourse(courseId, studentNo);
-            // 获取课程学生总数（enrollment）
-            long totalStudents = courseEnrollmentRepository.findByCourseIdAndDeleted(courseId, 0).stream()
-                    .filter(en -> en.getStatus() == null || "ACTIVE".equals(en.getStatus()))
-                    .count();
-
-            List<Assignment> assignments = assignmentRepository.findByCourseIdAndDeleted(courseId, 0);
-            List<AssignmentResponse> responses = assignments.stream()
-                    .map(assignment -> {
-                        AssignmentResponse response = new AssignmentResponse();
-                        response.setId(assignment.getId());
-                        response.setCourseId(assignment.getCourseId());
-                        response.setTitle(assignment.getTitle());
-                        response.setDescription(assignment.getDescription());
-                        response.setType(assignment.getType());
-                        response.setTotalScore(assignment.getTotalScore());
-                        response.setAllowResubmit(assignment.getAllowResubmit());
-                        response.setDueAt(assignment.getDueAt());
-                        response.setStatus(assignment.getStatus());
-                        response.setCreatedAt(assignment.getCreatedAt());
-                        response.setUpdatedAt(assignment.getUpdatedAt());
-                        
-                        // 设置学生总数
-                        response.setTotalStudents((int) totalStudents);
-                        
-                        // 计算提交人数（deleted 为 0 或 null 均视为有效）
-                        List<Submission> submissions = submissionRepository.findActiveByAssignmentId(assignment.getId());
-                        response.setSubmissionCount(submissions.size());
-                        
-                        // 计算已批改人数（有成绩且已发布的）
-                        long gradedCount = submissions.stream()
-                                .mapToLong(submission -> {
-                                    Optional<Grade> gradeOpt = gradeRepository.findBySubmissionIdAndDeleted(submission.getId(), 0);
-                                    if (gradeOpt.isPresent() && Boolean.TRUE.equals(gradeOpt.get().getReleased())) {
-                                        return 1;
-                                    }
-                                    return 0;
-                                })
-                                .sum();
-                        response.setGradedCount((int) gradedCount);
-                        
-                        return response;
-                    })
-                    .collect(java.util.stream.Collectors.toList());
+            requireTeacherOfCourse(courseId, principal);
+            List<AssignmentResponse> responses = assignmentService.getTeacherAssignments(courseId);
             return ResponseEntity.ok(responses);
         }
         
@@ -246,8 +174,7 @@ public class AssignmentController {
     public ResponseEntity<AssignmentResponse> getAssignmentById(
             @PathVariable Long id,
             @RequestParam(required = false) Long studentId,
-            @RequestParam(required = false) Long courseId,
-            @RequestAttribute(required = false) String studentNo) {
+            @RequestParam(required = false) Long courseId) {
         if (courseId == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "缺少课程ID参数");
         }
@@ -287,10 +214,13 @@ public class AssignmentController {
      * 提交作业
      * POST /api/assignments/{id}/submissions
      * Body: { "content": "...", "studentId": 1 }
+     * 开启收件模式（spm.submission.intake.enabled）时返回 202 与收件回执，
+     * 客户端重试时携带相同的 Idempotency-Key 请求头即可避免重复提交
      */
     @PostMapping("/{id}/submissions")
-    public ResponseEntity<SubmissionResponse> submitAssignment(
+    public ResponseEntity<?> submitAssignment(
             @PathVariable Long id,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody Map<String, Object> request) {
         Long studentId = null;
         Long courseId = null;
@@ -321,10 +251,25 @@ public class AssignmentController {
             submissionRequest.setAttachmentIds(attachmentIds);
         }
 
+        if (submissionIntakeService.isEnabled()) {
+            SubmissionReceipt receipt = submissionIntakeService.accept(id, studentId, submissionRequest, idempotencyKey);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(receipt);
+        }
         SubmissionResponse response = assignmentService.submitAssignment(id, studentId, submissionRequest);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * 查询收件回执（收件模式下提交的写库结果）
+     * GET /api/assignments/{id}/submissions/receipts/{ticketId}
+     */
+    @GetMapping("/{id}/submissions/receipts/{ticketId}")
+    public ResponseEntity<SubmissionReceipt> getSubmissionReceipt(
+            @PathVariable Long id,
+            @PathVariable String ticketId) {
+        return ResponseEntity.ok(submissionIntakeService.getReceipt(id, ticketId));
+    }
+
     /**
      * 查看我的提交
      * GET /api/assignments/{id}/submissions/me?studentId=1
@@ -351,6 +296,7 @@ public class AssignmentController {
      * Body: { "score": 92, "feedback": "...", "released": true, "teacherId": 1 }
      */
     @PostMapping("/{id}/submissions/{submissionId}/grade")
+    @RequiresRole("TEACHER")
     public ResponseEntity<Grade> gradeSubmission(
             @PathVariable Long id,
             @PathVariable Long submissionId,
@@ -378,6 +324,71 @@ public class AssignmentController {
         return ResponseEntity.ok(grade);
     }
 
+    /**
+     * 批量批改（教师）
+     * POST /api/assignments/{id}/grades/bulk
+     * Body: BulkGradeRequest { "changeReason": "...", "grades": [ { "submissionId": 1, "score": 90, "feedback": "...", "released": true } ] }
+     * 返回：BulkGradeResponse（逐行结果，单行失败不影响其他行）
+     */
+    @PostMapping("/{id}/grades/bulk")
+    @RequiresCourseTeacher(assignment = "id")
+    public ResponseEntity<BulkGradeResponse> bulkGrade(
+            @PathVariable Long id,
+            @RequestBody BulkGradeRequest request,
+            AuthenticatedPrincipal principal) {
+        Long teacherId = principal.userId();
+
+        BulkGradeResponse response = bulkGradingService.bulkGrade(id, request, teacherId, "TEACHER");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 作业成绩统计（教师）
+     * GET /api/assignments/{id}/stats
+     * 返回：人数、均值、中位数、标准差、最值、分位数与分数段直方图（含未发布成绩）
+     */
+    @GetMapping("/{id}/stats")
+    @RequiresCourseTeacher(assignment = "id")
+    public ResponseEntity<AssignmentGradeStatsResponse> getGradeStats(
+            @PathVariable Long id) {
+        Assignment assignment = assignmentRepository.findById(id)
+                .filter(a -> a.getDeleted() == null || a.getDeleted() == 0)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "作业不存在"));
+        return ResponseEntity.ok(gradeStatistics.get(assignment));
+    }
+
+    /**
+     * 启动提交相似度检测（教师，后台运行）
+     * POST /api/assignments/{id}/similarity
+     * 返回：202 与当前检测状态，已有检测在运行时不会重复启动
+     */
+    @PostMapping("/{id}/similarity")
+    @RequiresCourseTeacher(assignment = "id")
+    public ResponseEntity<SimilarityReportResponse> startSimilarityCheck(
+            @PathVariable Long id,
+            AuthenticatedPrincipal principal) {
+        assignmentRepository.findById(id)
+                .filter(a -> a.getDeleted() == null || a.getDeleted() == 0)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "作业不存在"));
+        Long teacherId = principal.userId();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(similarityDetectionService.start(id, teacherId));
+    }
+
+    /**
+     * 最近一次提交相似度检测结果（教师）
+     * GET /api/assignments/{id}/similarity
+     * 返回：检测状态与估计相似度不低于阈值的提交对（按相似度降序）
+     */
+    @GetMapping("/{id}/similarity")
+    @RequiresCourseTeacher(assignment = "id")
+    public ResponseEntity<SimilarityReportResponse> getSimilarity(
+            @PathVariable Long id) {
+        assignmentRepository.findById(id)
+                .filter(a -> a.getDeleted() == null || a.getDeleted() == 0)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "作业不存在"));
+        return ResponseEntity.ok(similarityDetectionService.getLatest(id));
+    }
+
     /**
      * 获取我的所有成绩
      * GET /api/grades/me?studentId=1
@@ -393,132 +404,57 @@ public class AssignmentController {
     }
 
     /**
-     * 获取作业的所有提交（教师端）
-     * GET /api/assignments/{id}/submissions
+     * 获取作业批改名单（教师端，仅本课程选课学生）
+     * GET /api/assignments/{id}/submissions?filter=ungraded&afterStudentId=123&size=100
+     * filter: all / submitted / ungraded / not_submitted；按学生ID keyset 分页，
+     * 若本页已满则在响应头 X-Next-Cursor 中返回下一页的 afterStudentId
      */
     @GetMapping("/{id}/submissions")
-    public ResponseEntity<List<Map<String, Object>>> getSubmissions(@PathVariable Long id) {
-        try {
-            // 验证作业是否存在
-            Optional<Assignment> assignmentOpt = assignmentRepository.findById(id);
-            if (assignmentOpt.isEmpty() || (assignmentOpt.get().getDeleted() != null && assignmentOpt.get().getDeleted() == 1)) {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "作业不存在");
-            }
-            
-            // 查询所有学生（用于展示未提交的学生状态）
-            List<User> allStudents = userRepository.findAll().stream()
-                    .filter(u -> "STUDENT".equals(u.getRole()) && (u.getDeleted() == null || u.getDeleted() == 0))
-                    .toList();
-            Map<Long, User> studentMap = new HashMap<>();
-            allStudents.forEach(s -> studentMap.put(s.getId(), s));
-            System.out.println("[DEBUG] getSubmissions - assignmentId=" + id + ", allStudents=" + allStudents.size());
-
-            // 查询该作业的所有提交（deleted 为 0 或 null 均视为有效）
-            List<Submission> submissions = submissionRepository.findActiveByAssignmentId(id);
-            System.out.println("[DEBUG] getSubmissions - submissions found=" + submissions.size());
-
-            List<Map<String, Object>> responses = new ArrayList<>();
-            Set<Long> submittedStudentIds = new HashSet<>();
-
-            // 先把已提交的学生填充
-            for (Submission submission : submissions) {
-                System.out.println("[DEBUG] submission id=" + submission.getId()
-                        + ", studentId=" + submission.getStudentId()
-                        + ", content=" + submission.getContent());
-                Map<String, Object> response = new HashMap<>();
-                User student = studentMap.get(submission.getStudentId());
-
-                response.put("studentId", submission.getStudentId());
-                response.put("studentName", student != null && student.getName() != null ? student.getName() : "");
-                response.put("studentNo", student != null && student.getStudentNo() != null ? student.getStudentNo() : "");
-
-                response.put("id", submission.getId());
-                response.put("assignmentId", submission.getAssignmentId());
-                response.put("content", submission.getContent() != null ? submission.getContent() : "");
-                response.put("status", submission.getStatus() != null ? submission.getStatus() : "SUBMITTED");
-                response.put("submittedAt", submission.getSubmittedAt());
-                response.put("createdAt", submission.getCreatedAt());
-                response.put("resubmitCount", submission.getResubmitCount() != null ? submission.getResubmitCount() : 0);
-
-                // 附件列表
-                List<SubmissionFile> submissionFiles = submissionFileRepository.findActiveBySubmissionId(submission.getId());
-                List<Map<String, Object>> attachmentList = new ArrayList<>();
-                for (SubmissionFile sf : submissionFiles) {
-                    fileRepository.findById(sf.getFileId()).ifPresent(f -> {
-                        if (f.getDeleted() == null || f.getDeleted() == 0) {
-                            Map<String, Object> fileInfo = new HashMap<>();
-                            fileInfo.put("fileId", f.getId());
-                            fileInfo.put("fileName", f.getFileName());
-                            fileInfo.put("originalName", f.getOriginalName());
-                            fileInfo.put("storagePath", f.getStoragePath());
-                            attachmentList.add(fileInfo);
-                        }
-                    });
-                }
-                System.out.println("[DEBUG] submission id=" + submission.getId()
-                        + ", attachment count=" + attachmentList.size());
-                response.put("attachments", attachmentList);
-
-                // 查询成绩
-                Optional<Grade> gradeOpt = gradeRepository.findBySubmissionIdAndDeleted(submission.getId(), 0);
-                if (gradeOpt.isPresent()) {
-                    Grade grade = gradeOpt.get();
-                    response.put("score", grade.getScore());
-                    response.put("feedback", grade.getFeedback() != null ? grade.getFeedback() : "");
-                    response.put("released", grade.getReleased() != null ? grade.getReleased() : false);
-                    response.put("graded", Boolean.TRUE.equals(grade.getReleased()));
-                } else {
-                    response.put("score", null);
-                    response.put("feedback", "");
-                    response.put("released", false);
-                    response.put("graded", false);
-                }
-
-                submittedStudentIds.add(submission.getStudentId());
-                responses.add(response);
-            }
-
-            // 再补充未提交的学生
-            for (User student : allStudents) {
-                if (submittedStudentIds.contains(student.getId())) {
-                    continue;
-                }
-                Map<String, Object> response = new HashMap<>();
-                response.put("studentId", student.getId());
-                response.put("studentName", student.getName() != null ? student.getName() : "");
-                response.put("studentNo", student.getStudentNo() != null ? student.getStudentNo() : "");
-                response.put("id", null);
-                response.put("assignmentId", id);
-                response.put("content", "");
-                response.put("status", "NOT_SUBMITTED");
-                response.put("submittedAt", null);
-                response.put("createdAt", null);
-                response.put("resubmitCount", 0);
-                response.put("score", null);
-                response.put("feedback", "");
-                response.put("released", false);
-                response.put("graded", false);
-                response.put("attachments", Collections.emptyList());
-                responses.add(response);
-            }
+    @RequiresCourseTeacher(assignment = "id")
+    public ResponseEntity<List<Map<String, Object>>> getSubmissions(
+            @PathVariable Long id,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) Long afterStudentId,
+            @RequestParam(defaultValue = "" + AssignmentService.MAX_ROSTER_PAGE_SIZE) int size) {
+        List<Map<String, Object>> roster = assignmentService.getSubmissionRoster(id, filter, afterStudentId, size);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (roster.size() == size) {
+            builder.header("X-Next-Cursor", String.valueOf(roster.get(roster.size() - 1).get("studentId")));
+        }
+        return builder.body(roster);
+    }
 
-            System.out.println("[DEBUG] getSubmissions - response size=" + responses.size());
-            if (!responses.isEmpty()) {
-                Map<String, Object> first = responses.get(0);
-                System.out.println("[DEBUG] first response sample: studentId=" + first.get("studentId")
-                        + ", status=" + first.get("status")
-                        + ", id=" + first.get("id")
-                        + ", attachments=" + first.get("attachments"));
-            }
+    /**
+     * 查看单个提交的完整内容（教师端批改详情）
+     * GET /api/assignments/{id}/submissions/{submissionId}
+     */
+    @GetMapping("/{id}/submissions/{submissionId:\\d+}")
+    @RequiresCourseTeacher(assignment = "id")
+    public ResponseEntity<SubmissionResponse> getSubmissionDetail(
+            @PathVariable Long id,
+            @PathVariable Long submissionId) {
+        return ResponseEntity.ok(assignmentService.getSubmissionDetail(id, submissionId));
+    }
 
-            return ResponseEntity.ok(responses);
-        } catch (ResponseStatusException e) {
-            throw e;
-        } catch (Exception e) {
-            System.err.println("获取提交列表时出错: " + e.getMessage());
-            e.printStackTrace();
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "获取提交列表失败: " + e.getMessage());
-        }
+    /**
+     * 打包下载作业的全部提交附件（教师端）
+     * GET /api/assignments/{id}/submissions/archive
+     * 压缩包边生成边输出，条目名为 学号_姓名/原始文件名
+     */
+    @GetMapping("/{id}/submissions/archive")
+    @RequiresCourseTeacher(assignment = "id")
+    public ResponseEntity<StreamingResponseBody> downloadSubmissionArchive(
+            @PathVariable Long id) {
+        Assignment assignment = assignmentRepository.findById(id)
+                .filter(a -> a.getDeleted() == null || a.getDeleted() == 0)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "作业不存在"));
+
+        String fileName = (assignment.getTitle() != null ? assignment.getTitle() : "assignment-" + id) + "-提交.zip";
+        StreamingResponseBody body = out -> submissionArchiveService.writeArchive(id, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString())
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
     }
 }
-
@@ -6,47 +6,23 @@ import com.usst.spm.demo.dto.AttendanceCheckinResponse;
 import com.usst.spm.demo.dto.AttendanceSessionCreateRequest;
 import com.usst.spm.demo.dto.AttendanceSessionResponse;
 import com.usst.spm.demo.dto.AttendanceStatsResponse;
-import com.usst.spm.demo.model.User;
-import com.usst.spm.demo.repository.UserRepository;
 import com.usst.spm.demo.service.AttendanceService;
-import jakarta.servlet.http.HttpServletRequest;
+import com.usst.spm.demo.util.AuthenticatedPrincipal;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.Optional;
-
 @RestController
 @RequestMapping("/api/attendance")
 @CrossOrigin(origins = "*")
 public class AttendanceController {
 
     private final AttendanceService attendanceService;
-    private final UserRepository userRepository;
 
-    public AttendanceController(AttendanceService attendanceService, UserRepository userRepository) {
+    public AttendanceController(AttendanceService attendanceService) {
         this.attendanceService = attendanceService;
-        this.userRepository = userRepository;
-    }
-
-    private User requireLogin(HttpServletRequest request) {
-        String studentNo = (String) request.getAttribute("studentNo");
-        if (studentNo == null) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "未登录");
-        }
-        Optional<User> userOpt = userRepository.findByStudentNo(studentNo);
-        if (userOpt.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "用户不存在");
-        }
-        return userOpt.get();
-    }
-
-    private boolean isTeacherOrAdmin(User user) {
-        if (user == null) return false;
-        String role = user.getRole();
-        return "TEACHER".equalsIgnoreCase(role) || "ADMIN".equalsIgnoreCase(role);
     }
 
     /**
@@ -56,12 +32,11 @@ public class AttendanceController {
     @PostMapping("/sessions")
     public ResponseEntity<AttendanceSessionResponse> createSession(
             @RequestBody AttendanceSessionCreateRequest request,
-            HttpServletRequest httpRequest) {
-        User user = requireLogin(httpRequest);
-        if (!isTeacherOrAdmin(user)) {
+            AuthenticatedPrincipal principal) {
+        if (!principal.isTeacherOrAdmin()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "无权限");
         }
-        AttendanceSessionResponse resp = attendanceService.createSession(user, request);
+        AttendanceSessionResponse resp = attendanceService.createSession(principal, request);
         return ResponseEntity.ok(resp);
     }
 
@@ -72,9 +47,8 @@ public class AttendanceController {
     @PostMapping("/sessions/{id}/end")
     public ResponseEntity<AttendanceSessionResponse> endSession(
             @PathVariable Long id,
-            HttpServletRequest httpRequest) {
-        User user = requireLogin(httpRequest);
-        AttendanceSessionResponse resp = attendanceService.endSession(user, id);
+            AuthenticatedPrincipal principal) {
+        AttendanceSessionResponse resp = attendanceService.endSession(principal, id);
         return ResponseEntity.ok(resp);
     }
 
@@ -87,15 +61,14 @@ public class AttendanceController {
             @RequestParam(required = false) Long courseId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            HttpServletRequest httpRequest) {
-        User user = requireLogin(httpRequest);
-        if (!isTeacherOrAdmin(user)) {
+            AuthenticatedPrincipal principal) {
+        if (!principal.isTeacherOrAdmin()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "无权限");
         }
         if (courseId == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "缺少课程ID参数");
         }
-        Page<AttendanceSessionResponse> resp = attendanceService.listSessions(user, courseId, page, size);
+        Page<AttendanceSessionResponse> resp = attendanceService.listSessions(principal, courseId, page, size);
         return ResponseEntity.ok(resp);
     }
 
@@ -108,12 +81,11 @@ public class AttendanceController {
             @PathVariable Long id,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            HttpServletRequest httpRequest) {
-        User user = requireLogin(httpRequest);
-        if (!isTeacherOrAdmin(user)) {
+            AuthenticatedPrincipal principal) {
+        if (!principal.isTeacherOrAdmin()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "无权限");
         }
-        Page<AttendanceRecordResponse> resp = attendanceService.listRecords(user, id, page, size);
+        Page<AttendanceRecordResponse> resp = attendanceService.listRecords(principal, id, page, size);
         return ResponseEntity.ok(resp);
     }
 
@@ -124,12 +96,11 @@ public class AttendanceController {
     @GetMapping("/sessions/{id}/stats")
     public ResponseEntity<AttendanceStatsResponse> stats(
             @PathVariable Long id,
-            HttpServletRequest httpRequest) {
-        User user = requireLogin(httpRequest);
-        if (!isTeacherOrAdmin(user)) {
+            AuthenticatedPrincipal principal) {
+        if (!principal.isTeacherOrAdmin()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "无权限");
         }
-        AttendanceStatsResponse resp = attendanceService.getStats(user, id);
+        AttendanceStatsResponse resp = attendanceService.getStats(principal, id);
         return ResponseEntity.ok(resp);
     }
 
@@ -140,9 +111,8 @@ public class AttendanceController {
     @PostMapping("/checkin")
     public ResponseEntity<AttendanceCheckinResponse> checkin(
             @RequestBody AttendanceCheckinRequest request,
-            HttpServletRequest httpRequest) {
-        User user = requireLogin(httpRequest);
-        AttendanceCheckinResponse resp = attendanceService.checkin(user, request.getCode(), request.getCourseId());
+            AuthenticatedPrincipal principal) {
+        AttendanceCheckinResponse resp = attendanceService.checkin(principal, request.getCode(), request.getCourseId());
         return ResponseEntity.ok(resp);
     }
 
@@ -154,12 +124,11 @@ public class AttendanceController {
     public ResponseEntity<Page<AttendanceRecordResponse>> myRecords(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            HttpServletRequest httpRequest) {
-        User user = requireLogin(httpRequest);
-        if (!"STUDENT".equalsIgnoreCase(user.getRole())) {
+            AuthenticatedPrincipal principal) {
+        if (!principal.isStudent()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "仅学生可查看");
         }
-        Page<AttendanceRecordResponse> resp = attendanceService.listMyRecords(user, page, size);
+        Page<AttendanceRecordResponse> resp = attendanceService.listMyRecords(principal, page, size);
         return ResponseEntity.ok(resp);
     }
 }
@@ -6,9 +6,11 @@ import com.usst.spm.demo.dto.RegisterRequest;
 import com.usst.spm.demo.model.User;
 import com.usst.spm.demo.repository.UserRepository;
 import com.usst.spm.demo.service.CourseService;
+import com.usst.spm.demo.service.UserSummaryCache;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import com.usst.spm.demo.util.AuthenticatedPrincipal;
 import com.usst.spm.demo.util.JwtUtil;
 
 @RestController
@@ -19,11 +21,14 @@ public class AuthController {
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
     private final CourseService courseService;
+    private final UserSummaryCache userSummaryCache;
 
-    public AuthController(UserRepository userRepository, JwtUtil jwtUtil, CourseService courseService) {
+    public AuthController(UserRepository userRepository, JwtUtil jwtUtil, CourseService courseService,
+                          UserSummaryCache userSummaryCache) {
         this.userRepository = userRepository;
         this.jwtUtil = jwtUtil;
         this.courseService = courseService;
+        this.userSummaryCache = userSummaryCache;
     }
 
     @PostMapping("/login")
@@ -60,7 +65,7 @@ public class AuthController {
             throw new RuntimeException("密码错误");
         }
 
-        String token = jwtUtil.generateToken(user.getStudentNo(), user.getRole());
+        String token = jwtUtil.generateToken(user.getId(), user.getStudentNo(), user.getRole());
 
         LoginResponse resp = new LoginResponse(user.getId(), user.getStudentNo(), user.getName(), user.getRole(),token);
 
@@ -88,14 +93,16 @@ public class AuthController {
 
         // 通过邀请码加入课程
         try {
-            courseService.joinByCode(user.getStudentNo(), req.getInviteCode());
+            courseService.joinByCode(new AuthenticatedPrincipal(user.getId(), user.getStudentNo(), user.getRole()),
+                    req.getInviteCode());
         } catch (Exception e) {
             // 如果邀请码无效，回滚用户注册（简单起见删除用户记录）
             userRepository.delete(user);
+            userSummaryCache.evict(user.getId());
             throw new RuntimeException("邀请码无效或已失效：" + e.getMessage());
         }
 
-        String token = jwtUtil.generateToken(user.getStudentNo(), user.getRole());
+        String token = jwtUtil.generateToken(user.getId(), user.getStudentNo(), user.getRole());
 
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(new LoginResponse(user.getId(), user.getStudentNo(), user.getName(), user.getRole(),token));
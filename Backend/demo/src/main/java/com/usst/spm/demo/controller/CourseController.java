@@ -3,15 +3,21 @@ package com.usst.spm.demo.controller;
 import com.usst.spm.demo.dto.CourseResponse;
 import com.usst.spm.demo.dto.InviteCreateRequest;
 import com.usst.spm.demo.dto.JoinCourseRequest;
+import com.usst.spm.demo.model.Course;
 import com.usst.spm.demo.service.CourseService;
-import jakarta.servlet.http.HttpServletRequest;
+import com.usst.spm.demo.service.GradebookExportService;
+import com.usst.spm.demo.util.AuthenticatedPrincipal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
@@ -21,27 +27,20 @@ import java.util.Map;
 public class CourseController {
 
     private final CourseService courseService;
+    private final GradebookExportService gradebookExportService;
     private static final Logger log = LoggerFactory.getLogger(CourseController.class);
 
-    public CourseController(CourseService courseService) {
+    public CourseController(CourseService courseService, GradebookExportService gradebookExportService) {
         this.courseService = courseService;
-    }
-
-    private String requireStudentNo(HttpServletRequest request) {
-        String studentNo = (String) request.getAttribute("studentNo");
-        if (studentNo == null) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "未登录");
-        }
-        return studentNo;
+        this.gradebookExportService = gradebookExportService;
     }
 
     /**
      * 获取我能访问的课程列表
      */
     @GetMapping
-    public ResponseEntity<List<CourseResponse>> listMyCourses(HttpServletRequest request) {
-        String studentNo = requireStudentNo(request);
-        List<CourseResponse> courses = courseService.listMyCourses(studentNo);
+    public ResponseEntity<List<CourseResponse>> listMyCourses(AuthenticatedPrincipal principal) {
+        List<CourseResponse> courses = courseService.listMyCourses(principal);
         return ResponseEntity.ok(courses);
     }
 
@@ -51,9 +50,8 @@ public class CourseController {
     @GetMapping("/{id}")
     public ResponseEntity<CourseResponse> getCourse(
             @PathVariable Long id,
-            HttpServletRequest request) {
-        String studentNo = requireStudentNo(request);
-        CourseResponse course = courseService.getCourse(studentNo, id);
+            AuthenticatedPrincipal principal) {
+        CourseResponse course = courseService.getCourse(principal, id);
         return ResponseEntity.ok(course);
     }
 
@@ -64,10 +62,9 @@ public class CourseController {
     public ResponseEntity<Map<String, Object>> createInvite(
             @PathVariable Long id,
             @RequestBody(required = false) InviteCreateRequest body,
-            HttpServletRequest request) {
-        String studentNo = requireStudentNo(request);
-        log.info("[invite-ctrl] create invite, studentNo={}, courseId={}, body={}", studentNo, id, body);
-        Map<String, Object> resp = courseService.generateInvite(studentNo, id, body == null ? new InviteCreateRequest() : body);
+            AuthenticatedPrincipal principal) {
+        log.info("[invite-ctrl] create invite, studentNo={}, courseId={}, body={}", principal.studentNo(), id, body);
+        Map<String, Object> resp = courseService.generateInvite(principal, id, body == null ? new InviteCreateRequest() : body);
         return ResponseEntity.status(HttpStatus.CREATED).body(resp);
     }
 
@@ -78,22 +75,62 @@ public class CourseController {
     public ResponseEntity<Void> revokeInvite(
             @PathVariable Long id,
             @PathVariable String code,
-            HttpServletRequest request) {
-        String studentNo = requireStudentNo(request);
-        courseService.revokeInvite(studentNo, id, code);
+            AuthenticatedPrincipal principal) {
+        courseService.revokeInvite(principal, id, code);
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * 教师设置课程单文件上传大小上限
+     * PUT /api/courses/{id}/upload-policy
+     * Body: { "maxUploadMb": 200 }，maxUploadMb 为 null 时恢复全局默认值
+     */
+    @PutMapping("/{id}/upload-policy")
+    public ResponseEntity<Map<String, Object>> updateUploadPolicy(
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> body,
+            AuthenticatedPrincipal principal) {
+        Object value = body == null ? null : body.get("maxUploadMb");
+        Long maxUploadMb;
+        try {
+            maxUploadMb = value == null ? null : Long.valueOf(value.toString());
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "maxUploadMb 必须为整数");
+        }
+        return ResponseEntity.ok(courseService.updateUploadPolicy(principal, id, maxUploadMb));
+    }
+
     /**
      * 学生/教师通过邀请码加入课程
      */
     @PostMapping("/join")
     public ResponseEntity<CourseResponse> joinCourse(
             @RequestBody JoinCourseRequest body,
-            HttpServletRequest request) {
-        String studentNo = requireStudentNo(request);
-        CourseResponse course = courseService.joinByCode(studentNo, body == null ? null : body.getCode());
+            AuthenticatedPrincipal principal) {
+        CourseResponse course = courseService.joinByCode(principal, body == null ? null : body.getCode());
         return ResponseEntity.ok(course);
     }
-}
 
+    /**
+     * 教师导出课程成绩册（学生 × 作业）
+     * GET /api/courses/{id}/gradebook/export?format=csv|xlsx&releasedOnly=false
+     */
+    @GetMapping("/{id}/gradebook/export")
+    public ResponseEntity<StreamingResponseBody> exportGradebook(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean releasedOnly,
+            AuthenticatedPrincipal principal) {
+        GradebookExportService.Format exportFormat = GradebookExportService.Format.parse(format);
+        Course course = gradebookExportService.requireCourseTeacher(principal, id);
+
+        String fileName = (course.getName() != null ? course.getName() : "course-" + id)
+                + "-成绩册." + exportFormat.getExtension();
+        StreamingResponseBody body = out -> gradebookExportService.export(course, exportFormat, releasedOnly, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString())
+                .contentType(exportFormat.getMediaType())
+                .body(body);
+    }
+}
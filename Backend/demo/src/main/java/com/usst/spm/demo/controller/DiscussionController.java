@@ -1,10 +1,8 @@
 package com.usst.spm.demo.controller;
 
 import com.usst.spm.demo.dto.*;
-import com.usst.spm.demo.model.User;
-import com.usst.spm.demo.repository.UserRepository;
 import com.usst.spm.demo.service.DiscussionService;
-import jakarta.servlet.http.HttpServletRequest;
+import com.usst.spm.demo.util.AuthenticatedPrincipal;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -20,35 +18,9 @@ import java.util.Optional;
 public class DiscussionController {
 
     private final DiscussionService discussionService;
-    private final UserRepository userRepository;
 
-    public DiscussionController(DiscussionService discussionService, UserRepository userRepository) {
+    public DiscussionController(DiscussionService discussionService) {
         this.discussionService = discussionService;
-        this.userRepository = userRepository;
-    }
-
-    private User requireLogin(HttpServletRequest request) {
-        String studentNo = (String) request.getAttribute("studentNo");
-        if (studentNo == null) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "未登录");
-        }
-        return userRepository.findByStudentNo(studentNo)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "用户不存在"));
-    }
-
-    private boolean isTeacherOrAdmin(User user) {
-        if (user == null) {
-            return false;
-        }
-        String role = user.getRole();
-        return "TEACHER".equalsIgnoreCase(role) || "ADMIN".equalsIgnoreCase(role);
-    }
-
-    /**
-     * 获取当前用户ID
-     */
-    private Long getCurrentUserId(HttpServletRequest request) {
-        return requireLogin(request).getId();
     }
 
     /**
@@ -58,10 +30,9 @@ public class DiscussionController {
      */
     @PostMapping
     public ResponseEntity<DiscussionResponse> createDiscussion(
-            HttpServletRequest request,
+            AuthenticatedPrincipal principal,
             @RequestBody DiscussionCreateRequest createRequest) {
-        User currentUser = requireLogin(request);
-        Long authorId = currentUser.getId();
+        Long authorId = principal.userId();
         
         if (createRequest.getTitle() == null || createRequest.getTitle().isBlank()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "标题不能为空");
@@ -72,13 +43,13 @@ public class DiscussionController {
         }
 
         // 学生创建时忽略管理字段
-        if (!isTeacherOrAdmin(currentUser)) {
+        if (!principal.isTeacherOrAdmin()) {
             createRequest.setPinned(false);
             createRequest.setAllowComment(true);
             createRequest.setStatus("OPEN");
         }
 
-        DiscussionResponse response = discussionService.createDiscussion(authorId, currentUser.getRole(), createRequest);
+        DiscussionResponse response = discussionService.createDiscussion(authorId, principal.role(), createRequest);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
@@ -91,15 +62,14 @@ public class DiscussionController {
      */
     @GetMapping
     public ResponseEntity<List<DiscussionResponse>> getDiscussions(
-            HttpServletRequest request,
+            AuthenticatedPrincipal principal,
             @RequestParam(required = true) Long courseId,
             @RequestParam(required = false, defaultValue = "false") boolean includeDeleted,
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) String status,
             @RequestParam(required = false, defaultValue = "1") int page,
             @RequestParam(required = false, defaultValue = "10") int size) {
-        User currentUser = requireLogin(request);
-        if (includeDeleted && !isTeacherOrAdmin(currentUser)) {
+        if (includeDeleted && !principal.isTeacherOrAdmin()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "无权限查看已删除内容");
         }
 
@@ -111,7 +81,7 @@ public class DiscussionController {
                 page,
                 size
         );
-        discussions.forEach(d -> applyDiscussionPermissions(d, currentUser));
+        discussions.forEach(d -> applyDiscussionPermissions(d, principal));
         return ResponseEntity.ok(discussions);
     }
 
@@ -121,18 +91,17 @@ public class DiscussionController {
      */
     @GetMapping("/{id}")
     public ResponseEntity<DiscussionResponse> getDiscussionById(
-            HttpServletRequest request,
+            AuthenticatedPrincipal principal,
             @PathVariable Long id,
             @RequestParam(required = false, defaultValue = "false") boolean includeDeleted) {
-        User currentUser = requireLogin(request);
-        if (includeDeleted && !isTeacherOrAdmin(currentUser)) {
+        if (includeDeleted && !principal.isTeacherOrAdmin()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "无权限查看已删除内容");
         }
 
         DiscussionResponse discussion = discussionService.getDiscussionById(id, includeDeleted);
-        applyDiscussionPermissions(discussion, currentUser);
+        applyDiscussionPermissions(discussion, principal);
         if (discussion.getComments() != null) {
-            applyCommentPermissions(discussion.getComments(), currentUser);
+            applyCommentPermissions(discussion.getComments(), principal);
         }
         return ResponseEntity.ok(discussion);
     }
@@ -143,17 +112,16 @@ public class DiscussionController {
      */
     @GetMapping("/{id}/replies")
     public ResponseEntity<List<CommentResponse>> getDiscussionReplies(
-            HttpServletRequest request,
+            AuthenticatedPrincipal principal,
             @PathVariable Long id,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "false") boolean includeDeleted) {
-        User currentUser = requireLogin(request);
-        if (includeDeleted && !isTeacherOrAdmin(currentUser)) {
+        if (includeDeleted && !principal.isTeacherOrAdmin()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "无权限查看已删除内容");
         }
         List<CommentResponse> replies = discussionService.getCommentsPaged(id, includeDeleted, page, size);
-        applyCommentPermissions(replies, currentUser);
+        applyCommentPermissions(replies, principal);
         return ResponseEntity.ok(replies);
     }
 
@@ -164,15 +132,14 @@ public class DiscussionController {
      */
     @PutMapping("/{id}")
     public ResponseEntity<DiscussionResponse> updateDiscussion(
-            HttpServletRequest request,
+            AuthenticatedPrincipal principal,
             @PathVariable Long id,
             @RequestBody DiscussionUpdateRequest updateRequest) {
-        User currentUser = requireLogin(request);
-        if (!isTeacherOrAdmin(currentUser)) {
+        if (!principal.isTeacherOrAdmin()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "仅教师或管理员可以修改讨论帖");
         }
 
-        DiscussionResponse response = discussionService.updateDiscussion(id, updateRequest, currentUser.getId());
+        DiscussionResponse response = discussionService.updateDiscussion(id, updateRequest, principal.userId());
         return ResponseEntity.ok(response);
     }
 
@@ -183,65 +150,60 @@ public class DiscussionController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, String>> deleteDiscussion(
-            HttpServletRequest request,
+            AuthenticatedPrincipal principal,
             @PathVariable Long id) {
-        User currentUser = requireLogin(request);
 
         DiscussionResponse existing = discussionService.getDiscussionById(id, true);
-        boolean isOwner = currentUser.getId().equals(existing.getAuthorId());
-        if (!isTeacherOrAdmin(currentUser) && !isOwner) {
+        boolean isOwner = principal.userId().equals(existing.getAuthorId());
+        if (!principal.isTeacherOrAdmin() && !isOwner) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "无权限删除此讨论帖");
         }
 
-        discussionService.deleteDiscussion(id, currentUser.getId());
+        discussionService.deleteDiscussion(id, principal.userId());
         return ResponseEntity.ok(Map.of("message", "删除成功"));
     }
 
     @PostMapping("/{id}/pin")
     public ResponseEntity<DiscussionResponse> pinDiscussion(
-            HttpServletRequest request,
+            AuthenticatedPrincipal principal,
             @PathVariable Long id) {
-        User currentUser = requireLogin(request);
-        if (!isTeacherOrAdmin(currentUser)) {
+        if (!principal.isTeacherOrAdmin()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "仅教师或管理员可以置顶讨论帖");
         }
-        DiscussionResponse response = discussionService.pinDiscussion(id, true, currentUser.getId());
+        DiscussionResponse response = discussionService.pinDiscussion(id, true, principal.userId());
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/{id}/unpin")
     public ResponseEntity<DiscussionResponse> unpinDiscussion(
-            HttpServletRequest request,
+            AuthenticatedPrincipal principal,
             @PathVariable Long id) {
-        User currentUser = requireLogin(request);
-        if (!isTeacherOrAdmin(currentUser)) {
+        if (!principal.isTeacherOrAdmin()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "仅教师或管理员可以取消置顶");
         }
-        DiscussionResponse response = discussionService.pinDiscussion(id, false, currentUser.getId());
+        DiscussionResponse response = discussionService.pinDiscussion(id, false, principal.userId());
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/{id}/close")
     public ResponseEntity<DiscussionResponse> closeDiscussion(
-            HttpServletRequest request,
+            AuthenticatedPrincipal principal,
             @PathVariable Long id) {
-        User currentUser = requireLogin(request);
-        if (!isTeacherOrAdmin(currentUser)) {
+        if (!principal.isTeacherOrAdmin()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "仅教师或管理员可以关闭评论");
         }
-        DiscussionResponse response = discussionService.switchComment(id, false, currentUser.getId());
+        DiscussionResponse response = discussionService.switchComment(id, false, principal.userId());
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/{id}/open")
     public ResponseEntity<DiscussionResponse> openDiscussion(
-            HttpServletRequest request,
+            AuthenticatedPrincipal principal,
             @PathVariable Long id) {
-        User currentUser = requireLogin(request);
-        if (!isTeacherOrAdmin(currentUser)) {
+        if (!principal.isTeacherOrAdmin()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "仅教师或管理员可以开启评论");
         }
-        DiscussionResponse response = discussionService.switchComment(id, true, currentUser.getId());
+        DiscussionResponse response = discussionService.switchComment(id, true, principal.userId());
         return ResponseEntity.ok(response);
     }
 
@@ -251,17 +213,16 @@ public class DiscussionController {
      */
     @PostMapping("/{discussionId}/comments")
     public ResponseEntity<CommentResponse> createComment(
-            HttpServletRequest request,
+            AuthenticatedPrincipal principal,
             @PathVariable Long discussionId,
             @RequestBody CommentCreateRequest createRequest) {
-        User currentUser = requireLogin(request);
-        Long authorId = currentUser.getId();
+        Long authorId = principal.userId();
         
         if (createRequest.getContent() == null || createRequest.getContent().isBlank()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "评论内容不能为空");
         }
 
-        CommentResponse response = discussionService.createComment(discussionId, authorId, currentUser.getRole(), createRequest);
+        CommentResponse response = discussionService.createComment(discussionId, authorId, principal.role(), createRequest);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
@@ -272,21 +233,20 @@ public class DiscussionController {
      */
     @PutMapping("/{discussionId}/comments/{commentId}")
     public ResponseEntity<CommentResponse> updateComment(
-            HttpServletRequest request,
+            AuthenticatedPrincipal principal,
             @PathVariable Long discussionId,
             @PathVariable Long commentId,
             @RequestBody CommentUpdateRequest updateRequest) {
-        User currentUser = requireLogin(request);
         
         // 获取评论信息以检查权限
         CommentResponse existingComment = discussionService.getCommentById(commentId);
         
         // 检查权限：教师/管理员可以修改任何，学生只能修改自己的
-        if (!isTeacherOrAdmin(currentUser) && !currentUser.getId().equals(existingComment.getAuthorId())) {
+        if (!principal.isTeacherOrAdmin() && !principal.userId().equals(existingComment.getAuthorId())) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "无权限修改此评论");
         }
 
-        CommentResponse response = discussionService.updateComment(commentId, updateRequest, currentUser.getId());
+        CommentResponse response = discussionService.updateComment(commentId, updateRequest, principal.userId());
         return ResponseEntity.ok(response);
     }
 
@@ -297,20 +257,19 @@ public class DiscussionController {
      */
     @DeleteMapping("/{discussionId}/comments/{commentId}")
     public ResponseEntity<Map<String, String>> deleteComment(
-            HttpServletRequest request,
+            AuthenticatedPrincipal principal,
             @PathVariable Long discussionId,
             @PathVariable Long commentId) {
-        User currentUser = requireLogin(request);
         
         // 获取评论信息以检查权限
         CommentResponse existingComment = discussionService.getCommentById(commentId);
         
         // 检查权限：教师/管理员可以删除任何，学生只能删除自己的
-        if (!isTeacherOrAdmin(currentUser) && !currentUser.getId().equals(existingComment.getAuthorId())) {
+        if (!principal.isTeacherOrAdmin() && !principal.userId().equals(existingComment.getAuthorId())) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "无权限删除此评论");
         }
 
-        discussionService.deleteComment(commentId, currentUser.getId());
+        discussionService.deleteComment(commentId, principal.userId());
         return ResponseEntity.ok(Map.of("message", "删除成功"));
     }
 
@@ -321,10 +280,9 @@ public class DiscussionController {
      */
     @GetMapping("/admin/all")
     public ResponseEntity<List<DiscussionResponse>> getAllDiscussionsForAdmin(
-            HttpServletRequest request,
+            AuthenticatedPrincipal principal,
             @RequestParam(required = true) Long courseId) {
-        User currentUser = requireLogin(request);
-        if (!isTeacherOrAdmin(currentUser)) {
+        if (!principal.isTeacherOrAdmin()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "仅教师或管理员可以访问此接口");
         }
 
@@ -339,9 +297,9 @@ public class DiscussionController {
         return ResponseEntity.ok(discussions);
     }
 
-    private void applyDiscussionPermissions(DiscussionResponse resp, User currentUser) {
-        boolean isTeacher = isTeacherOrAdmin(currentUser);
-        boolean isOwner = currentUser != null && currentUser.getId() != null && currentUser.getId().equals(resp.getAuthorId());
+    private void applyDiscussionPermissions(DiscussionResponse resp, AuthenticatedPrincipal principal) {
+        boolean isTeacher = principal.isTeacherOrAdmin();
+        boolean isOwner = principal.userId().equals(resp.getAuthorId());
         resp.setCanEdit(isTeacher);
         resp.setCanDelete(isTeacher || isOwner);
         boolean allowComment = resp.getAllowComment() == null || resp.getAllowComment() == 1;
@@ -351,15 +309,15 @@ public class DiscussionController {
         resp.setCanToggleComment(isTeacher);
     }
 
-    private void applyCommentPermissions(List<CommentResponse> comments, User currentUser) {
-        boolean isTeacher = isTeacherOrAdmin(currentUser);
-        Long uid = currentUser != null ? currentUser.getId() : null;
+    private void applyCommentPermissions(List<CommentResponse> comments, AuthenticatedPrincipal principal) {
+        boolean isTeacher = principal.isTeacherOrAdmin();
+        Long uid = principal.userId();
         for (CommentResponse c : comments) {
             boolean isOwner = uid != null && uid.equals(c.getAuthorId());
             c.setCanDelete(isTeacher || isOwner);
             c.setCanEdit(isTeacher || isOwner);
             if (c.getReplies() != null && !c.getReplies().isEmpty()) {
-                applyCommentPermissions(c.getReplies(), currentUser);
+                applyCommentPermissions(c.getReplies(), principal);
             }
         }
     }
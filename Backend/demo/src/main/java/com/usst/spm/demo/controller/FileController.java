@@ -1,45 +1,56 @@
 package com.usst.spm.demo.controller;
 
+import com.usst.spm.demo.dto.FileInspectionResponse;
+import com.usst.spm.demo.dto.HotFileCacheStats;
+import com.usst.spm.demo.dto.OrphanGcReport;
+import com.usst.spm.demo.dto.UploadInitRequest;
+import com.usst.spm.demo.dto.UploadSessionResponse;
+import com.usst.spm.demo.interceptor.RequiresRole;
 import com.usst.spm.demo.model.File;
-import com.usst.spm.demo.repository.FileRepository;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
+import com.usst.spm.demo.service.ChunkedUploadService;
+import com.usst.spm.demo.service.FileBlobStore;
+import com.usst.spm.demo.service.FileDownloadService;
+import com.usst.spm.demo.service.HotFileCache;
+import com.usst.spm.demo.service.OrphanFileCollector;
+import com.usst.spm.demo.service.UploadInspectionService;
+import com.usst.spm.demo.util.AuthenticatedPrincipal;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/files")
 @CrossOrigin(origins = "*")
 public class FileController {
 
-    private static final String UPLOAD_DIR = "uploads/";
-    private final FileRepository fileRepository;
-
-    public FileController(FileRepository fileRepository) {
-        this.fileRepository = fileRepository;
-        // 确保上传目录存在
-        try {
-            Path uploadPath = Paths.get(UPLOAD_DIR);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-        } catch (IOException e) {
-            System.err.println("无法创建上传目录: " + e.getMessage());
-        }
+    private final ChunkedUploadService chunkedUploadService;
+    private final FileBlobStore fileBlobStore;
+    private final FileDownloadService fileDownloadService;
+    private final HotFileCache hotFileCache;
+    private final UploadInspectionService uploadInspectionService;
+    private final OrphanFileCollector orphanFileCollector;
+
+    public FileController(ChunkedUploadService chunkedUploadService,
+                          FileBlobStore fileBlobStore,
+                          FileDownloadService fileDownloadService,
+                          HotFileCache hotFileCache,
+                          UploadInspectionService uploadInspectionService,
+                          OrphanFileCollector orphanFileCollector) {
+        this.chunkedUploadService = chunkedUploadService;
+        this.fileBlobStore = fileBlobStore;
+        this.fileDownloadService = fileDownloadService;
+        this.hotFileCache = hotFileCache;
+        this.uploadInspectionService = uploadInspectionService;
+        this.orphanFileCollector = orphanFileCollector;
     }
 
     /**
@@ -66,23 +77,10 @@ public class FileController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "不支持的文件类型，仅支持 PDF、DOC、DOCX、TXT 等格式");
         }
 
-        try {
-            // 生成唯一文件名
-            String fileName = UUID.randomUUID().toString() + "." + extension;
-            Path filePath = Paths.get(UPLOAD_DIR + fileName);
-            
-            // 保存文件
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-            // 保存文件记录到数据库
-            File fileEntity = new File();
-            fileEntity.setFileName(fileName);
-            fileEntity.setOriginalName(originalFilename);
-            fileEntity.setStoragePath(filePath.toString());
-            fileEntity.setMimeType(file.getContentType());
-            fileEntity.setFileSize(file.getSize());
-            fileEntity.setUploaderId(uploaderId);
-            fileEntity = fileRepository.save(fileEntity);
+        try (InputStream in = file.getInputStream()) {
+            // 边写边计算摘要，相同内容只保留一份数据
+            FileBlobStore.StoredBlob blob = fileBlobStore.write(in);
+            File fileEntity = fileBlobStore.createFile(blob, originalFilename, file.getContentType(), uploaderId);
 
             Map<String, Object> response = new HashMap<>();
             response.put("id", fileEntity.getId());
@@ -98,52 +96,117 @@ public class FileController {
     }
 
     /**
-     * 下载文件
+     * 分片上传：初始化
+     * POST /api/files/uploads
+     * Body: { "fileName": "report.pdf", "fileSize": 104857600, "mimeType": "application/pdf", "courseId": 1, "chunkSize": 4194304 }
+     * 返回 uploadId、实际分片大小与分片数；大小上限按课程配置
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<UploadSessionResponse> initUpload(
+            @RequestBody UploadInitRequest request,
+            AuthenticatedPrincipal principal) {
+        UploadSessionResponse response = chunkedUploadService.init(principal.userId(), request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    /**
+     * 分片上传：查询进度（断点续传时按 missingChunks / nextOffset 继续）
+     * GET /api/files/uploads/{uploadId}
+     */
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<UploadSessionResponse> getUploadStatus(
+            @PathVariable String uploadId,
+            AuthenticatedPrincipal principal) {
+        return ResponseEntity.ok(chunkedUploadService.getStatus(uploadId, principal.userId()));
+    }
+
+    /**
+     * 分片上传：写入 offset 处的分片
+     * PUT /api/files/uploads/{uploadId}?offset=0
+     * 请求体为分片原始字节（application/octet-stream），可选请求头 X-Chunk-Checksum 为分片的 CRC32C（十六进制）
+     */
+    @PutMapping("/uploads/{uploadId}")
+    public ResponseEntity<UploadSessionResponse> uploadChunk(
+            @PathVariable String uploadId,
+            @RequestParam long offset,
+            @RequestHeader(value = "X-Chunk-Checksum", required = false) String checksum,
+            AuthenticatedPrincipal principal,
+            HttpServletRequest httpRequest) {
+        try {
+            return ResponseEntity.ok(chunkedUploadService.writeChunk(
+                    uploadId, principal.userId(), offset, httpRequest.getInputStream(), checksum));
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "读取分片失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 分片上传：完成，返回的 fileId 可作为作业附件ID使用
+     * POST /api/files/uploads/{uploadId}/complete
+     */
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<UploadSessionResponse> completeUpload(
+            @PathVariable String uploadId,
+            AuthenticatedPrincipal principal) {
+        return ResponseEntity.ok(chunkedUploadService.complete(uploadId, principal.userId()));
+    }
+
+    /**
+     * 下载文件（支持 Range 断点续传与 ETag / If-Modified-Since 条件请求）
      * GET /api/files/{id}
+     * 文件记录与热点文件内容走 HotFileCache，命中时不查库、不读盘
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable Long id) {
-        File fileEntity = fileRepository.findById(id)
+    public void downloadFile(@PathVariable Long id,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        File fileEntity = hotFileCache.findFile(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "文件不存在"));
 
         if (fileEntity.getDeleted() != null && fileEntity.getDeleted() == 1) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "文件不存在");
         }
 
-        try {
-            Path filePath = Paths.get(fileEntity.getStoragePath());
-            Resource resource = new FileSystemResource(filePath);
-
-            if (!resource.exists()) {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "文件不存在");
-            }
-
-            String contentType = fileEntity.getMimeType();
-            if (contentType == null) {
-                contentType = "application/octet-stream";
-            }
-
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, 
-                            "attachment; filename=\"" + fileEntity.getOriginalName() + "\"")
-                    .body(resource);
-        } catch (Exception e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "文件下载失败: " + e.getMessage());
-        }
+        fileDownloadService.serve(fileEntity, request, response);
+    }
+
+    /**
+     * 上传后检查结果（类型比对与抽取的文本），检查在后台进行，刚上传时 status 为 PENDING
+     * GET /api/files/{id}/inspection
+     * 仅上传者、文件所在课程的任课教师与管理员可查看，其他人返回 404
+     */
+    @GetMapping("/{id}/inspection")
+    public ResponseEntity<FileInspectionResponse> getInspection(@PathVariable Long id,
+                                                                AuthenticatedPrincipal principal) {
+        return ResponseEntity.ok(uploadInspectionService.getInspection(id, principal));
+    }
+
+    /**
+     * 热点文件缓存统计（命中率、内存/磁盘发送字节数等），仅教师可查看
+     * GET /api/files/cache/stats
+     */
+    @GetMapping("/cache/stats")
+    @RequiresRole("TEACHER")
+    public ResponseEntity<HotFileCacheStats> getCacheStats() {
+        return ResponseEntity.ok(hotFileCache.stats());
+    }
+
+    /**
+     * 最近一轮孤儿文件回收报告（扫描数、软删除数、删除的数据块数与释放字节数），仅教师可查看
+     * GET /api/files/gc/report
+     */
+    @GetMapping("/gc/report")
+    @RequiresRole("TEACHER")
+    public ResponseEntity<OrphanGcReport> getGcReport() {
+        OrphanGcReport report = orphanFileCollector.getLastReport();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
     }
 
     /**
      * 检查文件类型是否允许
      */
     private boolean isAllowedFileType(String extension) {
-        String[] allowedTypes = {"pdf", "doc", "docx", "txt", "xls", "xlsx", "ppt", "pptx", "zip", "rar"};
-        for (String type : allowedTypes) {
-            if (type.equalsIgnoreCase(extension)) {
-                return true;
-            }
-        }
-        return false;
+        return ChunkedUploadService.isAllowedFileType(extension);
     }
 }
 
@@ -3,17 +3,14 @@ package com.usst.spm.demo.controller;
 import com.usst.spm.demo.dto.GradeHistoryResponse;
 import com.usst.spm.demo.dto.UpdateScoreRequest;
 import com.usst.spm.demo.model.Grade;
-import com.usst.spm.demo.model.User;
-import com.usst.spm.demo.repository.UserRepository;
 import com.usst.spm.demo.service.AssignmentService;
-import jakarta.servlet.http.HttpServletRequest;
+import com.usst.spm.demo.util.AuthenticatedPrincipal;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
-import java.util.Optional;
 
 /**
  * 成绩管理Controller
@@ -25,27 +22,9 @@ import java.util.Optional;
 public class ScoreController {
 
     private final AssignmentService assignmentService;
-    private final UserRepository userRepository;
 
-    public ScoreController(AssignmentService assignmentService, UserRepository userRepository) {
+    public ScoreController(AssignmentService assignmentService) {
         this.assignmentService = assignmentService;
-        this.userRepository = userRepository;
-    }
-
-    /**
-     * 获取当前用户ID和角色
-     */
-    private UserInfo getCurrentUserInfo(HttpServletRequest request) {
-        String studentNo = (String) request.getAttribute("studentNo");
-        if (studentNo == null) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "未登录");
-        }
-        Optional<User> userOpt = userRepository.findByStudentNo(studentNo);
-        if (userOpt.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "用户不存在");
-        }
-        User user = userOpt.get();
-        return new UserInfo(user.getId(), user.getRole());
     }
 
     /**
@@ -67,14 +46,13 @@ public class ScoreController {
     public ResponseEntity<Grade> updateScore(
             @PathVariable Long id,
             @RequestBody UpdateScoreRequest request,
-            HttpServletRequest httpRequest) {
+            AuthenticatedPrincipal principal) {
         // 权限校验：只有教师可以修改成绩
-        UserInfo userInfo = getCurrentUserInfo(httpRequest);
-        if (!"TEACHER".equals(userInfo.role) && !"ADMIN".equals(userInfo.role)) {
+        if (!principal.isTeacherOrAdmin()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "只有教师可以修改成绩");
         }
 
-        Grade grade = assignmentService.updateScore(id, request, userInfo.userId, userInfo.role);
+        Grade grade = assignmentService.updateScore(id, request, principal.userId(), principal.role());
         return ResponseEntity.ok(grade);
     }
 
@@ -92,25 +70,10 @@ public class ScoreController {
     @GetMapping("/{id}/score-history")
     public ResponseEntity<List<GradeHistoryResponse>> getScoreHistory(
             @PathVariable Long id,
-            HttpServletRequest httpRequest) {
-        UserInfo userInfo = getCurrentUserInfo(httpRequest);
+            AuthenticatedPrincipal principal) {
 
         List<GradeHistoryResponse> histories = assignmentService.getScoreHistory(
-                id, userInfo.userId, userInfo.role);
+                id, principal.userId(), principal.role());
         return ResponseEntity.ok(histories);
     }
-
-    /**
-     * 用户信息内部类
-     */
-    private static class UserInfo {
-        Long userId;
-        String role;
-
-        UserInfo(Long userId, String role) {
-            this.userId = userId;
-            this.role = role;
-        }
-    }
 }
-
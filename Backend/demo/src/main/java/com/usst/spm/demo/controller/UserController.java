@@ -1,9 +1,10 @@
 package com.usst.spm.demo.controller;
 
+import com.usst.spm.demo.dto.UserCacheStats;
 import com.usst.spm.demo.dto.UserProfileResponse;
-import com.usst.spm.demo.model.User;
-import com.usst.spm.demo.repository.UserRepository;
-import jakarta.servlet.http.HttpServletRequest;
+import com.usst.spm.demo.interceptor.RequiresRole;
+import com.usst.spm.demo.service.UserSummaryCache;
+import com.usst.spm.demo.util.AuthenticatedPrincipal;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -13,11 +14,11 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/users")
 public class UserController {
 
-    private final UserRepository userRepository;
+    private final UserSummaryCache userSummaryCache;
 
     // 依赖注入
-    public UserController(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public UserController(UserSummaryCache userSummaryCache) {
+        this.userSummaryCache = userSummaryCache;
     }
 
     /**
@@ -25,28 +26,31 @@ public class UserController {
      * 对应 API 文档中的 "获取当前用户" 接口
      */
     @GetMapping("/me")
-    public ResponseEntity<UserProfileResponse> getMe(HttpServletRequest request) {
+    public ResponseEntity<UserProfileResponse> getMe(AuthenticatedPrincipal principal) {
 
-        // 获取学号
-        String studentNo = (String) request.getAttribute("studentNo");
-
-        if (studentNo == null) {
-            throw new RuntimeException("Authentication context not found. Please ensure token is valid.");
-        }
-
-        // 根据学号查询完整的用户信息
-        User user = userRepository.findByStudentNo(studentNo)
+        // 根据用户ID查询用户摘要（命中缓存时不查库）
+        UserSummaryCache.UserSummary user = userSummaryCache.get(principal.userId())
                 .orElseThrow(() -> new RuntimeException("User data not found in database.")); // 用户数据丢失
 
         // 封装并返回响应 DTO (只包含非敏感信息)
         UserProfileResponse response = new UserProfileResponse(
-                user.getId(),
-                user.getStudentNo(),
-                user.getName(),
-                user.getRole(),
-                user.getStatus()
+                user.id(),
+                user.studentNo(),
+                user.name(),
+                user.role(),
+                user.status()
         );
 
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    /**
+     * 用户摘要缓存统计（条数、命中率、查库加载数、淘汰与失效次数），仅教师可查看
+     * GET /api/users/cache/stats
+     */
+    @GetMapping("/cache/stats")
+    @RequiresRole("TEACHER")
+    public ResponseEntity<UserCacheStats> getCacheStats() {
+        return ResponseEntity.ok(userSummaryCache.stats());
+    }
+}
@@ -0,0 +1,13 @@
+package com.usst.spm.demo.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 作业截止时间投影（截止调度器启动重建用）
+ */
+public interface AssignmentDeadline {
+
+    Long getId();
+
+    LocalDateTime getDueAt();
+}
@@ -0,0 +1,125 @@
+package com.usst.spm.demo.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 作业成绩统计（教师端），count 为 0 时各统计量为 null
+ */
+public class AssignmentGradeStatsResponse {
+
+    private Long assignmentId;
+    private Integer totalScore;
+    private Integer count;
+    private Double mean;
+    private Double median;
+    // 总体标准差
+    private Double stddev;
+    private Integer min;
+    private Integer max;
+    // p10 / p25 / p50 / p75 / p90（最近秩）
+    private Map<String, Integer> percentiles;
+    // 按总分等分为若干分数段
+    private List<Bucket> histogram;
+
+    public static class Bucket {
+        private int from;
+        private int to;
+        private int count;
+
+        public Bucket() {}
+
+        public Bucket(int from, int to, int count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        public int getFrom() { return from; }
+        public void setFrom(int from) { this.from = from; }
+        public int getTo() { return to; }
+        public void setTo(int to) { this.to = to; }
+        public int getCount() { return count; }
+        public void setCount(int count) { this.count = count; }
+    }
+
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public void setAssignmentId(Long assignmentId) {
+        this.assignmentId = assignmentId;
+    }
+
+    public Integer getTotalScore() {
+        return totalScore;
+    }
+
+    public void setTotalScore(Integer totalScore) {
+        this.totalScore = totalScore;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public void setCount(Integer count) {
+        this.count = count;
+    }
+
+    public Double getMean() {
+        return mean;
+    }
+
+    public void setMean(Double mean) {
+        this.mean = mean;
+    }
+
+    public Double getMedian() {
+        return median;
+    }
+
+    public void setMedian(Double median) {
+        this.median = median;
+    }
+
+    public Double getStddev() {
+        return stddev;
+    }
+
+    public void setStddev(Double stddev) {
+        this.stddev = stddev;
+    }
+
+    public Integer getMin() {
+        return min;
+    }
+
+    public void setMin(Integer min) {
+        this.min = min;
+    }
+
+    public Integer getMax() {
+        return max;
+    }
+
+    public void setMax(Integer max) {
+        this.max = max;
+    }
+
+    public Map<String, Integer> getPercentiles() {
+        return percentiles;
+    }
+
+    public void setPercentiles(Map<String, Integer> percentiles) {
+        this.percentiles = percentiles;
+    }
+
+    public List<Bucket> getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(List<Bucket> histogram) {
+        this.histogram = histogram;
+    }
+}
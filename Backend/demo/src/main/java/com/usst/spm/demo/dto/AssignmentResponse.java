@@ -29,11 +29,42 @@ public class AssignmentResponse {
     // 教师视角：统计信息
     private Integer totalStudents; // 学生总数
     private Integer submissionCount; // 提交人数
-    private Integer gradedCount; // 已批改人数
+    private Integer gradedCount; // 已批改人数（有成绩且已发布）
+    private Integer scoredCount; // 已打分人数（含未发布）
+    private Integer lateCount; // 逾期提交人数
 
     public AssignmentResponse() {
     }
 
+    /**
+     * 复制（字段均为不可变类型，浅复制即可），供缓存返回独立的副本
+     */
+    public AssignmentResponse(AssignmentResponse other) {
+        this.id = other.id;
+        this.courseId = other.courseId;
+        this.title = other.title;
+        this.description = other.description;
+        this.type = other.type;
+        this.totalScore = other.totalScore;
+        this.allowResubmit = other.allowResubmit;
+        this.dueAt = other.dueAt;
+        this.status = other.status;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.version = other.version;
+        this.originId = other.originId;
+        this.publishedAt = other.publishedAt;
+        this.submissionStatus = other.submissionStatus;
+        this.score = other.score;
+        this.feedback = other.feedback;
+        this.submittedAt = other.submittedAt;
+        this.totalStudents = other.totalStudents;
+        this.submissionCount = other.submissionCount;
+        this.gradedCount = other.gradedCount;
+        this.scoredCount = other.scoredCount;
+        this.lateCount = other.lateCount;
+    }
+
     public Long getId() {
         return id;
     }
@@ -178,6 +209,22 @@ public class AssignmentResponse {
         this.gradedCount = gradedCount;
     }
 
+    public Integer getScoredCount() {
+        return scoredCount;
+    }
+
+    public void setScoredCount(Integer scoredCount) {
+        this.scoredCount = scoredCount;
+    }
+
+    public Integer getLateCount() {
+        return lateCount;
+    }
+
+    public void setLateCount(Integer lateCount) {
+        this.lateCount = lateCount;
+    }
+
     public Integer getVersion() {
         return version;
     }
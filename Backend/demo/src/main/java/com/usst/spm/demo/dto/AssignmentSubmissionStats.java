@@ -0,0 +1,29 @@
+package com.usst.spm.demo.dto;
+
+/**
+ * 作业提交统计投影（按作业分组的一次聚合查询结果）
+ */
+public interface AssignmentSubmissionStats {
+
+    Long getAssignmentId();
+
+    /**
+     * 有效提交数
+     */
+    Long getSubmittedCount();
+
+    /**
+     * 已打分数（有成绩记录，不论是否发布）
+     */
+    Long getGradedCount();
+
+    /**
+     * 已发布成绩数
+     */
+    Long getReleasedCount();
+
+    /**
+     * 逾期提交数（submitted_at 晚于 due_at）
+     */
+    Long getLateCount();
+}
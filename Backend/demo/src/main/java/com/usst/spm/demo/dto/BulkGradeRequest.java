@@ -0,0 +1,44 @@
+package com.usst.spm.demo.dto;
+
+import java.util.List;
+
+/**
+ * 批量批改请求
+ * Body: { "changeReason": "期末统一录入", "grades": [ { "submissionId": 1, "score": 90, "feedback": "...", "released": true } ] }
+ */
+public class BulkGradeRequest {
+    private String changeReason; // 本批次的变更原因，写入成绩历史
+    private List<Item> grades;
+
+    public static class Item {
+        private Long submissionId;
+        private Integer score;
+        private String feedback;   // 为 null 时保留原评语
+        private Boolean released;  // 为 null 时保留原发布状态（新成绩默认未发布）
+
+        public Long getSubmissionId() { return submissionId; }
+        public void setSubmissionId(Long submissionId) { this.submissionId = submissionId; }
+        public Integer getScore() { return score; }
+        public void setScore(Integer score) { this.score = score; }
+        public String getFeedback() { return feedback; }
+        public void setFeedback(String feedback) { this.feedback = feedback; }
+        public Boolean getReleased() { return released; }
+        public void setReleased(Boolean released) { this.released = released; }
+    }
+
+    public String getChangeReason() {
+        return changeReason;
+    }
+
+    public void setChangeReason(String changeReason) {
+        this.changeReason = changeReason;
+    }
+
+    public List<Item> getGrades() {
+        return grades;
+    }
+
+    public void setGrades(List<Item> grades) {
+        this.grades = grades;
+    }
+}
@@ -0,0 +1,85 @@
+package com.usst.spm.demo.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量批改结果：逐行返回处理状态，顺序与请求一致
+ */
+public class BulkGradeResponse {
+    public static final String STATUS_CREATED = "CREATED";
+    public static final String STATUS_UPDATED = "UPDATED";
+    public static final String STATUS_UNCHANGED = "UNCHANGED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private int created;
+    private int updated;
+    private int unchanged;
+    private int failed;
+    private List<Result> results = new ArrayList<>();
+
+    public static class Result {
+        private Long submissionId;
+        private String status;
+        private Long gradeId;
+        private String message;
+
+        public Result() {}
+
+        public Result(Long submissionId, String status, Long gradeId, String message) {
+            this.submissionId = submissionId;
+            this.status = status;
+            this.gradeId = gradeId;
+            this.message = message;
+        }
+
+        public Long getSubmissionId() { return submissionId; }
+        public void setSubmissionId(Long submissionId) { this.submissionId = submissionId; }
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+        public Long getGradeId() { return gradeId; }
+        public void setGradeId(Long gradeId) { this.gradeId = gradeId; }
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public void setUnchanged(int unchanged) {
+        this.unchanged = unchanged;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    public void setResults(List<Result> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,81 @@
+package com.usst.spm.demo.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文件上传后检查结果，status 为 PENDING 时检查尚未完成
+ */
+public class FileInspectionResponse {
+    private Long fileId;
+    private String status;
+    private String detectedType;
+    private String message;
+    private Integer textLength;
+    private boolean textTruncated;
+    private String text;
+    private LocalDateTime inspectedAt;
+
+    public Long getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(Long fileId) {
+        this.fileId = fileId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getDetectedType() {
+        return detectedType;
+    }
+
+    public void setDetectedType(String detectedType) {
+        this.detectedType = detectedType;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Integer getTextLength() {
+        return textLength;
+    }
+
+    public void setTextLength(Integer textLength) {
+        this.textLength = textLength;
+    }
+
+    public boolean isTextTruncated() {
+        return textTruncated;
+    }
+
+    public void setTextTruncated(boolean textTruncated) {
+        this.textTruncated = textTruncated;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public LocalDateTime getInspectedAt() {
+        return inspectedAt;
+    }
+
+    public void setInspectedAt(LocalDateTime inspectedAt) {
+        this.inspectedAt = inspectedAt;
+    }
+}
@@ -0,0 +1,15 @@
+package com.usst.spm.demo.dto;
+
+/**
+ * 成绩分数投影（成绩统计引擎重建用）
+ */
+public interface GradeScoreRow {
+
+    Long getAssignmentId();
+
+    Integer getTotalScore();
+
+    Long getGradeId();
+
+    Integer getScore();
+}
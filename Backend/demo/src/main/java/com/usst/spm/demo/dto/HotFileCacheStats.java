@@ -0,0 +1,124 @@
+package com.usst.spm.demo.dto;
+
+/**
+ * 热点文件缓存统计（自进程启动以来的累计值）
+ */
+public class HotFileCacheStats {
+    private int entries;
+    private long cachedBytes;
+    private long maxBytes;
+    private long hits;
+    private long misses;
+    private double hitRate;
+    private long admissions;
+    private long rejections;
+    private long evictions;
+    private long bytesServedFromMemory;
+    private long bytesServedFromDisk;
+    private long metadataHits;
+    private long metadataMisses;
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public void setEntries(int entries) {
+        this.entries = entries;
+    }
+
+    public long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    public void setCachedBytes(long cachedBytes) {
+        this.cachedBytes = cachedBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public void setHitRate(double hitRate) {
+        this.hitRate = hitRate;
+    }
+
+    public long getAdmissions() {
+        return admissions;
+    }
+
+    public void setAdmissions(long admissions) {
+        this.admissions = admissions;
+    }
+
+    public long getRejections() {
+        return rejections;
+    }
+
+    public void setRejections(long rejections) {
+        this.rejections = rejections;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public long getBytesServedFromMemory() {
+        return bytesServedFromMemory;
+    }
+
+    public void setBytesServedFromMemory(long bytesServedFromMemory) {
+        this.bytesServedFromMemory = bytesServedFromMemory;
+    }
+
+    public long getBytesServedFromDisk() {
+        return bytesServedFromDisk;
+    }
+
+    public void setBytesServedFromDisk(long bytesServedFromDisk) {
+        this.bytesServedFromDisk = bytesServedFromDisk;
+    }
+
+    public long getMetadataHits() {
+        return metadataHits;
+    }
+
+    public void setMetadataHits(long metadataHits) {
+        this.metadataHits = metadataHits;
+    }
+
+    public long getMetadataMisses() {
+        return metadataMisses;
+    }
+
+    public void setMetadataMisses(long metadataMisses) {
+        this.metadataMisses = metadataMisses;
+    }
+}
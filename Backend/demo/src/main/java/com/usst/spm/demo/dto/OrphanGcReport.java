@@ -0,0 +1,129 @@
+package com.usst.spm.demo.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 孤儿文件回收单轮报告
+ * orphanedFiles 为本轮软删除的文件数，unreferencedBlobs 为其中引用数降为 0 的数据块数（进入隔离期）；
+ * purgedBlobs / purgedFiles 为本轮真正删除存储对象的数据块 / 早期文件数，reclaimedBytes 为释放的字节数；
+ * scanCompleted 表示本轮扫到了表尾（下一轮从头开始），totalReclaimedBytes 为进程启动以来的累计值
+ */
+public class OrphanGcReport {
+    private String action;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long scannedFiles;
+    private long orphanedFiles;
+    private long unreferencedBlobs;
+    private long purgedBlobs;
+    private long purgedFiles;
+    private long reclaimedBytes;
+    private long removedSessions;
+    private long failures;
+    private boolean scanCompleted;
+    private long totalReclaimedBytes;
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public long getScannedFiles() {
+        return scannedFiles;
+    }
+
+    public void setScannedFiles(long scannedFiles) {
+        this.scannedFiles = scannedFiles;
+    }
+
+    public long getOrphanedFiles() {
+        return orphanedFiles;
+    }
+
+    public void setOrphanedFiles(long orphanedFiles) {
+        this.orphanedFiles = orphanedFiles;
+    }
+
+    public long getUnreferencedBlobs() {
+        return unreferencedBlobs;
+    }
+
+    public void setUnreferencedBlobs(long unreferencedBlobs) {
+        this.unreferencedBlobs = unreferencedBlobs;
+    }
+
+    public long getPurgedBlobs() {
+        return purgedBlobs;
+    }
+
+    public void setPurgedBlobs(long purgedBlobs) {
+        this.purgedBlobs = purgedBlobs;
+    }
+
+    public long getPurgedFiles() {
+        return purgedFiles;
+    }
+
+    public void setPurgedFiles(long purgedFiles) {
+        this.purgedFiles = purgedFiles;
+    }
+
+    public long getReclaimedBytes() {
+        return reclaimedBytes;
+    }
+
+    public void setReclaimedBytes(long reclaimedBytes) {
+        this.reclaimedBytes = reclaimedBytes;
+    }
+
+    public long getRemovedSessions() {
+        return removedSessions;
+    }
+
+    public void setRemovedSessions(long removedSessions) {
+        this.removedSessions = removedSessions;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public void setFailures(long failures) {
+        this.failures = failures;
+    }
+
+    public boolean isScanCompleted() {
+        return scanCompleted;
+    }
+
+    public void setScanCompleted(boolean scanCompleted) {
+        this.scanCompleted = scanCompleted;
+    }
+
+    public long getTotalReclaimedBytes() {
+        return totalReclaimedBytes;
+    }
+
+    public void setTotalReclaimedBytes(long totalReclaimedBytes) {
+        this.totalReclaimedBytes = totalReclaimedBytes;
+    }
+}
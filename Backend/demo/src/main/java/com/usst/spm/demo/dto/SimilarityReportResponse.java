@@ -0,0 +1,144 @@
+package com.usst.spm.demo.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 作业相似度检测结果（最近一次），status 为 NONE 表示尚未检测
+ */
+public class SimilarityReportResponse {
+
+    private Long assignmentId;
+    private Long reportId;
+    private String status;
+    private Integer submissionCount;
+    private Integer candidatePairs;
+    private Integer reportedPairs;
+    // 判定为相似的最低估计 Jaccard 相似度
+    private Double threshold;
+    private String message;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private List<Pair> pairs;
+
+    public static class Pair {
+        private Long submissionIdA;
+        private Long studentIdA;
+        private String studentNoA;
+        private String studentNameA;
+        private Long submissionIdB;
+        private Long studentIdB;
+        private String studentNoB;
+        private String studentNameB;
+        private Double similarity;
+
+        public Pair() {}
+
+        public Long getSubmissionIdA() { return submissionIdA; }
+        public void setSubmissionIdA(Long submissionIdA) { this.submissionIdA = submissionIdA; }
+        public Long getStudentIdA() { return studentIdA; }
+        public void setStudentIdA(Long studentIdA) { this.studentIdA = studentIdA; }
+        public String getStudentNoA() { return studentNoA; }
+        public void setStudentNoA(String studentNoA) { this.studentNoA = studentNoA; }
+        public String getStudentNameA() { return studentNameA; }
+        public void setStudentNameA(String studentNameA) { this.studentNameA = studentNameA; }
+        public Long getSubmissionIdB() { return submissionIdB; }
+        public void setSubmissionIdB(Long submissionIdB) { this.submissionIdB = submissionIdB; }
+        public Long getStudentIdB() { return studentIdB; }
+        public void setStudentIdB(Long studentIdB) { this.studentIdB = studentIdB; }
+        public String getStudentNoB() { return studentNoB; }
+        public void setStudentNoB(String studentNoB) { this.studentNoB = studentNoB; }
+        public String getStudentNameB() { return studentNameB; }
+        public void setStudentNameB(String studentNameB) { this.studentNameB = studentNameB; }
+        public Double getSimilarity() { return similarity; }
+        public void setSimilarity(Double similarity) { this.similarity = similarity; }
+    }
+
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public void setAssignmentId(Long assignmentId) {
+        this.assignmentId = assignmentId;
+    }
+
+    public Long getReportId() {
+        return reportId;
+    }
+
+    public void setReportId(Long reportId) {
+        this.reportId = reportId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getSubmissionCount() {
+        return submissionCount;
+    }
+
+    public void setSubmissionCount(Integer submissionCount) {
+        this.submissionCount = submissionCount;
+    }
+
+    public Integer getCandidatePairs() {
+        return candidatePairs;
+    }
+
+    public void setCandidatePairs(Integer candidatePairs) {
+        this.candidatePairs = candidatePairs;
+    }
+
+    public Integer getReportedPairs() {
+        return reportedPairs;
+    }
+
+    public void setReportedPairs(Integer reportedPairs) {
+        this.reportedPairs = reportedPairs;
+    }
+
+    public Double getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(Double threshold) {
+        this.threshold = threshold;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public List<Pair> getPairs() {
+        return pairs;
+    }
+
+    public void setPairs(List<Pair> pairs) {
+        this.pairs = pairs;
+    }
+}
@@ -0,0 +1,45 @@
+package com.usst.spm.demo.dto;
+
+import com.usst.spm.demo.model.Assignment;
+
+import java.time.LocalDateTime;
+
+/**
+ * 学生视角作业列表行（作业 LEFT JOIN 提交 LEFT JOIN 成绩 的查询结果）
+ */
+public class StudentAssignmentRow {
+    private final Assignment assignment;
+    private final LocalDateTime submittedAt;
+    private final Integer score;
+    private final String feedback;
+    private final String submissionStatus; // progress, submitted, graded, ended
+
+    public StudentAssignmentRow(Assignment assignment, LocalDateTime submittedAt, Integer score,
+                                String feedback, String submissionStatus) {
+        this.assignment = assignment;
+        this.submittedAt = submittedAt;
+        this.score = score;
+        this.feedback = feedback;
+        this.submissionStatus = submissionStatus;
+    }
+
+    public Assignment getAssignment() {
+        return assignment;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public String getFeedback() {
+        return feedback;
+    }
+
+    public String getSubmissionStatus() {
+        return submissionStatus;
+    }
+}
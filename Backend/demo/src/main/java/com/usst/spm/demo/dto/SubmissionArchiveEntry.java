@@ -0,0 +1,13 @@
+package com.usst.spm.demo.dto;
+
+/**
+ * 提交打包下载用的提交行投影（不加载提交正文）
+ */
+public interface SubmissionArchiveEntry {
+
+    Long getSubmissionId();
+
+    String getStudentNo();
+
+    String getStudentName();
+}
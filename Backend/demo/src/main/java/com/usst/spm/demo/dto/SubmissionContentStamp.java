@@ -0,0 +1,15 @@
+package com.usst.spm.demo.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 提交版本戳投影（相似度检测判断签名缓存是否过期，不加载正文）
+ */
+public interface SubmissionContentStamp {
+
+    Long getId();
+
+    Long getStudentId();
+
+    LocalDateTime getUpdatedAt();
+}
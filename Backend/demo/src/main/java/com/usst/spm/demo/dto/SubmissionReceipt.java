@@ -0,0 +1,94 @@
+package com.usst.spm.demo.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 收件回执：提交写入本地日志后立即返回，写库完成后可按 ticketId 查询最终结果
+ */
+public class SubmissionReceipt {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_APPLIED = "APPLIED";
+    public static final String STATUS_REJECTED = "REJECTED";
+
+    private String ticketId;
+    private Long assignmentId;
+    private Long studentId;
+    private String status;
+    // 收件时刻，即最终写入的提交时间
+    private LocalDateTime submittedAt;
+    // 写库成功后的提交ID
+    private Long submissionId;
+    // 被拒绝时的原因
+    private String message;
+
+    public SubmissionReceipt() {
+    }
+
+    public SubmissionReceipt(String ticketId, Long assignmentId, Long studentId, String status,
+                             LocalDateTime submittedAt, Long submissionId, String message) {
+        this.ticketId = ticketId;
+        this.assignmentId = assignmentId;
+        this.studentId = studentId;
+        this.status = status;
+        this.submittedAt = submittedAt;
+        this.submissionId = submissionId;
+        this.message = message;
+    }
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public void setAssignmentId(Long assignmentId) {
+        this.assignmentId = assignmentId;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(Long studentId) {
+        this.studentId = studentId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(LocalDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public Long getSubmissionId() {
+        return submissionId;
+    }
+
+    public void setSubmissionId(Long submissionId) {
+        this.submissionId = submissionId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
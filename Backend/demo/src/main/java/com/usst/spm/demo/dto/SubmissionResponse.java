@@ -7,7 +7,11 @@ public class SubmissionResponse {
     private Long id;
     private Long assignmentId;
     private Long studentId;
+    // 教师端批改详情：学生姓名与学号
+    private String studentName;
+    private String studentNo;
     private String content;
+    private Integer contentLength;
     private String status;
     private LocalDateTime submittedAt;
     private LocalDateTime createdAt;
@@ -76,6 +80,30 @@ public class SubmissionResponse {
         this.studentId = studentId;
     }
 
+    public String getStudentName() {
+        return studentName;
+    }
+
+    public void setStudentName(String studentName) {
+        this.studentName = studentName;
+    }
+
+    public String getStudentNo() {
+        return studentNo;
+    }
+
+    public void setStudentNo(String studentNo) {
+        this.studentNo = studentNo;
+    }
+
+    public Integer getContentLength() {
+        return contentLength;
+    }
+
+    public void setContentLength(Integer contentLength) {
+        this.contentLength = contentLength;
+    }
+
     public String getContent() {
         return content;
     }
@@ -0,0 +1,45 @@
+package com.usst.spm.demo.dto;
+
+import com.usst.spm.demo.model.Grade;
+import com.usst.spm.demo.model.Submission;
+
+/**
+ * 批改名单行（选课学生 LEFT JOIN 提交 LEFT JOIN 成绩 的查询结果）
+ * 未提交的学生 submission/grade 为 null
+ */
+public class SubmissionRosterRow {
+    private final Long studentId;
+    private final String studentName;
+    private final String studentNo;
+    private final Submission submission;
+    private final Grade grade;
+
+    public SubmissionRosterRow(Long studentId, String studentName, String studentNo,
+                               Submission submission, Grade grade) {
+        this.studentId = studentId;
+        this.studentName = studentName;
+        this.studentNo = studentNo;
+        this.submission = submission;
+        this.grade = grade;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public String getStudentName() {
+        return studentName;
+    }
+
+    public String getStudentNo() {
+        return studentNo;
+    }
+
+    public Submission getSubmission() {
+        return submission;
+    }
+
+    public Grade getGrade() {
+        return grade;
+    }
+}
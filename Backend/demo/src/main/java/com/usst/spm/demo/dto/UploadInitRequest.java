@@ -0,0 +1,53 @@
+package com.usst.spm.demo.dto;
+
+/**
+ * 分片上传初始化请求
+ */
+public class UploadInitRequest {
+    private String fileName;
+    private Long fileSize;
+    private String mimeType;
+    private Long courseId;
+    // 期望的分片大小（字节），为空时使用服务端默认值
+    private Integer chunkSize;
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public Integer getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(Integer chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+}
@@ -0,0 +1,27 @@
+package com.usst.spm.demo.interceptor;
+
+import java.util.Set;
+
+/**
+ * 单个处理方法的访问策略：roles 为空表示登录即可；courseVariable / assignmentVariable 非空时还要求是任课教师
+ */
+record AccessPolicy(Set<String> roles, String courseVariable, String assignmentVariable) {
+
+    static final AccessPolicy NONE = new AccessPolicy(Set.of(), null, null);
+
+    boolean requiresCourseTeacher() {
+        return courseVariable != null || assignmentVariable != null;
+    }
+
+    boolean allowsRole(String role) {
+        if (roles.isEmpty()) {
+            return true;
+        }
+        for (String allowed : roles) {
+            if (allowed.equalsIgnoreCase(role)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
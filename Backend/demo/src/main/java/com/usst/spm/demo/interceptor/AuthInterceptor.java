@@ -1,7 +1,8 @@
 package com.usst.spm.demo.interceptor;
 
+import com.usst.spm.demo.util.AuthenticatedPrincipal;
 import com.usst.spm.demo.util.JwtUtil;
-import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -37,20 +38,15 @@ public class AuthInterceptor implements HandlerInterceptor {
         String token = authHeader.substring(7);
 
         try {
-            // 验证 Token
-            Claims claims = jwtUtil.extractAllClaims(token);
-            String studentNo = claims.getSubject();
-
-            if (jwtUtil.isTokenExpired(token)) {
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED); // 401
-                response.getWriter().write("Token expired.");
-                return false;
-            }
-
-            // Token 有效，将用户学号存入 Request 属性中，供后续 Controller 使用
-            request.setAttribute("studentNo", studentNo);
+            // 验证 Token（签名与有效期一次解析完成），解析出的用户放入 Request 属性，供后续拦截器与 Controller 使用
+            AuthenticatedPrincipal principal = jwtUtil.parsePrincipal(token);
+            request.setAttribute(AuthenticatedPrincipal.ATTRIBUTE, principal);
 
             return true;
+        } catch (ExpiredJwtException e) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED); // 401
+            response.getWriter().write("Token expired.");
+            return false;
         } catch (JwtException e) {
             // Token 解析失败
             response.setStatus(HttpServletResponse.SC_FORBIDDEN); // 403
@@ -0,0 +1,36 @@
+package com.usst.spm.demo.interceptor;
+
+import com.usst.spm.demo.util.AuthenticatedPrincipal;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Controller 方法声明 AuthenticatedPrincipal 参数时注入 AuthInterceptor 解析出的当前用户，未登录返回 401
+ */
+@Component
+public class AuthenticatedPrincipalArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return AuthenticatedPrincipal.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter,
+                                  ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest,
+                                  WebDataBinderFactory binderFactory) {
+        Object principal = webRequest.getAttribute(AuthenticatedPrincipal.ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (principal == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "未登录");
+        }
+        return principal;
+    }
+}
@@ -0,0 +1,28 @@
+package com.usst.spm.demo.interceptor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 当前用户必须是教师，且是路径中课程（或作业所属课程）的任课教师
+ * course 与 assignment 二选一，填写映射路径中的变量名，如 @RequiresCourseTeacher(assignment = "id")；
+ * 变量名在映射路径中不存在时启动失败
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequiresCourseTeacher {
+
+    /**
+     * 课程ID所在的路径变量名
+     */
+    String course() default "";
+
+    /**
+     * 作业ID所在的路径变量名，按作业所属课程校验
+     */
+    String assignment() default "";
+}
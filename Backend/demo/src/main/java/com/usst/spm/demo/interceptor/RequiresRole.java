@@ -0,0 +1,22 @@
+package com.usst.spm.demo.interceptor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 接口要求的角色（任一即可，取自 Token 中的角色），可标在 Controller 类上，方法上的标注优先
+ * 启动时由 RouteAuthorizationTable 汇总，TeacherAuthInterceptor 按处理方法查表校验
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequiresRole {
+
+    /**
+     * 角色，如 "TEACHER"、"ADMIN"
+     */
+    String[] value();
+}
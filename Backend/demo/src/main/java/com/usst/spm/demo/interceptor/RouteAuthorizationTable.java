@@ -0,0 +1,98 @@
+package com.usst.spm.demo.interceptor;
+
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 处理方法 → 访问策略表
+ * 容器启动完成时遍历所有 @RequestMapping 处理方法，读取 @RequiresRole / @RequiresCourseTeacher 编译成策略，
+ * 按 Method 对象建 IdentityHashMap；每个请求的 HandlerMethod 与启动时注册的共享同一个 Method 实例，
+ * 查表只是一次引用比较，不再按 URI 做正则匹配。
+ */
+@Component
+public class RouteAuthorizationTable {
+
+    private volatile Map<Method, AccessPolicy> policies = Collections.emptyMap();
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void build(ContextRefreshedEvent event) {
+        Map<Method, AccessPolicy> table = new IdentityHashMap<>();
+        for (RequestMappingHandlerMapping mapping
+                : event.getApplicationContext().getBeansOfType(RequestMappingHandlerMapping.class).values()) {
+            mapping.getHandlerMethods().forEach((info, handlerMethod) -> {
+                AccessPolicy policy = compile(handlerMethod, info);
+                if (policy != AccessPolicy.NONE) {
+                    table.put(handlerMethod.getMethod(), policy);
+                }
+            });
+        }
+        policies = table;
+    }
+
+    /**
+     * 处理方法的访问策略，未标注的返回 NONE
+     */
+    AccessPolicy policyFor(Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return AccessPolicy.NONE;
+        }
+        AccessPolicy policy = policies.get(handlerMethod.getMethod());
+        return policy != null ? policy : AccessPolicy.NONE;
+    }
+
+    /**
+     * 已登记策略的处理方法数
+     */
+    int size() {
+        return policies.size();
+    }
+
+    private static AccessPolicy compile(HandlerMethod handlerMethod, RequestMappingInfo info) {
+        RequiresRole requiresRole = handlerMethod.getMethodAnnotation(RequiresRole.class);
+        if (requiresRole == null) {
+            requiresRole = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), RequiresRole.class);
+        }
+        RequiresCourseTeacher courseTeacher = handlerMethod.getMethodAnnotation(RequiresCourseTeacher.class);
+        if (requiresRole == null && courseTeacher == null) {
+            return AccessPolicy.NONE;
+        }
+
+        Set<String> roles = requiresRole == null ? Set.of() : Arrays.stream(requiresRole.value())
+                .map(role -> role.toUpperCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        String courseVariable = null;
+        String assignmentVariable = null;
+        if (courseTeacher != null) {
+            boolean byCourse = !courseTeacher.course().isEmpty();
+            boolean byAssignment = !courseTeacher.assignment().isEmpty();
+            if (byCourse == byAssignment) {
+                throw new IllegalStateException("@RequiresCourseTeacher 需要且只能指定 course 或 assignment 之一: "
+                        + handlerMethod);
+            }
+            String variable = byCourse ? courseTeacher.course() : courseTeacher.assignment();
+            for (String pattern : info.getPatternValues()) {
+                if (!pattern.contains("{" + variable + "}") && !pattern.contains("{" + variable + ":")) {
+                    throw new IllegalStateException("@RequiresCourseTeacher 的路径变量 " + variable
+                            + " 不在映射路径 " + pattern + " 中: " + handlerMethod);
+                }
+            }
+            courseVariable = byCourse ? variable : null;
+            assignmentVariable = byAssignment ? variable : null;
+        }
+        return new AccessPolicy(roles, courseVariable, assignmentVariable);
+    }
+}
@@ -1,22 +1,35 @@
 package com.usst.spm.demo.interceptor;
 
-import com.usst.spm.demo.model.User;
-import com.usst.spm.demo.repository.UserRepository;
+import com.usst.spm.demo.repository.AssignmentRepository;
+import com.usst.spm.demo.service.CourseMembershipService;
+import com.usst.spm.demo.util.AuthenticatedPrincipal;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.io.IOException;
-import java.util.Optional;
+import java.util.Map;
 
+/**
+ * 角色与任课教师校验
+ * 处理方法上的 @RequiresRole / @RequiresCourseTeacher 在启动时由 RouteAuthorizationTable 编译成策略，
+ * 这里按已匹配到的处理方法查表，不再逐个请求对 URI 做正则匹配。
+ */
 @Component
 public class TeacherAuthInterceptor implements HandlerInterceptor {
 
-    private final UserRepository userRepository;
+    private final RouteAuthorizationTable authorizationTable;
+    private final AssignmentRepository assignmentRepository;
+    private final CourseMembershipService courseMembership;
 
-    public TeacherAuthInterceptor(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public TeacherAuthInterceptor(RouteAuthorizationTable authorizationTable,
+                                  AssignmentRepository assignmentRepository,
+                                  CourseMembershipService courseMembership) {
+        this.authorizationTable = authorizationTable;
+        this.assignmentRepository = assignmentRepository;
+        this.courseMembership = courseMembership;
     }
 
     @Override
@@ -26,59 +39,74 @@ public class TeacherAuthInterceptor implements HandlerInterceptor {
             return true;
         }
 
-        // 前置的 AuthInterceptor 会把 studentNo 放到 request attribute 中
-        String studentNo = (String) request.getAttribute("studentNo");
-        if (studentNo == null) {
+        // 前置的 AuthInterceptor 会把解析出的当前用户放到 request attribute 中，角色取自 Token，无需查库
+        AuthenticatedPrincipal principal = (AuthenticatedPrincipal) request.getAttribute(AuthenticatedPrincipal.ATTRIBUTE);
+        if (principal == null) {
             writeError(response, HttpServletResponse.SC_UNAUTHORIZED, "未登录");
             return false;
         }
 
-        Optional<User> userOpt = userRepository.findByStudentNo(studentNo);
-        if (userOpt.isEmpty()) {
-            writeError(response, HttpServletResponse.SC_UNAUTHORIZED, "用户不存在");
+        AccessPolicy policy = authorizationTable.policyFor(handler);
+        if (policy == AccessPolicy.NONE) {
+            return true;
+        }
+        if (!policy.allowsRole(principal.role())) {
+            writeError(response, HttpServletResponse.SC_FORBIDDEN, "需要教师权限");
             return false;
         }
-
-        User user = userOpt.get();
-
-        // 如果当前请求需要教师权限，则校验角色
-        if (requiresTeacher(request)) {
-            if (!"TEACHER".equalsIgnoreCase(user.getRole())) {
-                writeError(response, HttpServletResponse.SC_FORBIDDEN, "需要教师权限");
-                return false;
-            }
+        if (policy.requiresCourseTeacher()) {
+            return checkCourseTeacher(request, response, policy, principal);
         }
-
         return true;
     }
 
     /**
-     * 判断当前请求是否需要教师权限
+     * 校验当前用户是路径中课程（或作业所属课程）的任课教师
      */
-    private boolean requiresTeacher(HttpServletRequest request) {
-        String uri = request.getRequestURI();
-        String method = request.getMethod();
+    private boolean checkCourseTeacher(HttpServletRequest request, HttpServletResponse response,
+                                       AccessPolicy policy, AuthenticatedPrincipal principal) throws IOException {
+        if (!principal.isTeacher()) {
+            writeError(response, HttpServletResponse.SC_FORBIDDEN, "只有教师可以操作该课程作业");
+            return false;
+        }
 
-        // 作业：创建作业、查看提交列表、批改作业
-        if ("/api/assignments".equals(uri) && "POST".equalsIgnoreCase(method)) {
-            return true;
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String variable = policy.assignmentVariable() != null ? policy.assignmentVariable() : policy.courseVariable();
+        Long id = parseId(variables != null ? variables.get(variable) : null);
+        if (id == null) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST, "无效的ID");
+            return false;
         }
-        if (uri.matches("/api/assignments/\\d+/submissions") && "GET".equalsIgnoreCase(method)) {
-            return true;
+
+        Long courseId = id;
+        if (policy.assignmentVariable() != null) {
+            courseId = assignmentRepository.findCourseIdById(id).orElse(null);
+            if (courseId == null) {
+                writeError(response, HttpServletResponse.SC_NOT_FOUND, "作业不存在");
+                return false;
+            }
         }
-        if (uri.matches("/api/assignments/\\d+/submissions/\\d+/grade") && "POST".equalsIgnoreCase(method)) {
-            return true;
+        if (courseMembership.get(courseId).isEmpty()) {
+            writeError(response, HttpServletResponse.SC_NOT_FOUND, "课程不存在");
+            return false;
         }
-
-        // 公告：新增、修改、删除
-        if (uri.startsWith("/api/announcements")
-                && ("POST".equalsIgnoreCase(method)
-                || "PUT".equalsIgnoreCase(method)
-                || "DELETE".equalsIgnoreCase(method))) {
-            return true;
+        if (!courseMembership.isTeacher(courseId, principal.userId())) {
+            writeError(response, HttpServletResponse.SC_FORBIDDEN, "您不是该课程的任课教师，无法操作此课程的作业");
+            return false;
         }
+        return true;
+    }
 
-        return false;
+    private static Long parseId(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
     private void writeError(HttpServletResponse response, int status, String message) throws IOException {
@@ -87,4 +115,3 @@ public class TeacherAuthInterceptor implements HandlerInterceptor {
         response.getWriter().write(message);
     }
 }
-
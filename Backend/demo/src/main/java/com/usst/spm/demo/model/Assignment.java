@@ -5,7 +5,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "assignments")
+@Table(name = "assignments", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_assign_origin_version", columnNames = {"origin_id", "version"})
+})
 public class Assignment {
 
     @Id
@@ -0,0 +1,54 @@
+package com.usst.spm.demo.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 作业版本号计数器（每条作业链路一行）
+ * 重新发布时以 UPDATE current_version = current_version + 1 原子分配下一个版本号
+ */
+@Entity
+@Table(name = "assignment_version_counters")
+public class AssignmentVersionCounter {
+
+    /**
+     * 作业链路根ID（与 assignments.origin_id 一致）
+     */
+    @Id
+    @Column(name = "origin_id")
+    private Long originId;
+
+    /**
+     * 已分配的最大版本号
+     */
+    @Column(name = "current_version", nullable = false)
+    private Integer currentVersion;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public Long getOriginId() {
+        return originId;
+    }
+
+    public void setOriginId(Long originId) {
+        this.originId = originId;
+    }
+
+    public Integer getCurrentVersion() {
+        return currentVersion;
+    }
+
+    public void setCurrentVersion(Integer currentVersion) {
+        this.currentVersion = currentVersion;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,109 @@
+package com.usst.spm.demo.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 按内容摘要保存的检查结果：文件头识别出的类型，以及按某个扩展名抽取的文本
+ * 同一内容的重复上传直接复用，不再读取存储、不再抽取；与扩展名的比对仍按每条 files 记录各自进行。
+ * 数据块被孤儿回收删除时一并删除
+ */
+@Entity
+@Table(name = "blob_inspections")
+public class BlobInspection {
+
+    @Id
+    @Column(length = 64)
+    private String digest;
+
+    /**
+     * 文件头魔数识别出的类型（FileTypeSniffer.Family）
+     */
+    @Column(nullable = false, length = 16)
+    private String family;
+
+    /**
+     * 抽取文本时使用的扩展名，未抽取为空
+     */
+    @Column(name = "text_extension", length = 16)
+    private String textExtension;
+
+    /**
+     * 是否找到了该扩展名对应的主文档
+     */
+    private Boolean recognized;
+
+    @Column(columnDefinition = "LONGTEXT")
+    private String content;
+
+    private Boolean truncated;
+
+    @Column(name = "inspected_at")
+    private LocalDateTime inspectedAt;
+
+    public BlobInspection() {
+    }
+
+    public BlobInspection(String digest, String family) {
+        this.digest = digest;
+        this.family = family;
+        this.inspectedAt = LocalDateTime.now();
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    public void setDigest(String digest) {
+        this.digest = digest;
+    }
+
+    public String getFamily() {
+        return family;
+    }
+
+    public void setFamily(String family) {
+        this.family = family;
+    }
+
+    public String getTextExtension() {
+        return textExtension;
+    }
+
+    public void setTextExtension(String textExtension) {
+        this.textExtension = textExtension;
+    }
+
+    public Boolean getRecognized() {
+        return recognized;
+    }
+
+    public void setRecognized(Boolean recognized) {
+        this.recognized = recognized;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public Boolean getTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(Boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    public LocalDateTime getInspectedAt() {
+        return inspectedAt;
+    }
+
+    public void setInspectedAt(LocalDateTime inspectedAt) {
+        this.inspectedAt = inspectedAt;
+    }
+}
@@ -38,6 +38,12 @@ public class Course {
     @Column(name = "invite_expire_at")
     private LocalDateTime inviteExpireAt;
 
+    /**
+     * 本课程单个上传文件的大小上限（字节），为空时使用全局默认值
+     */
+    @Column(name = "max_upload_bytes")
+    private Long maxUploadBytes;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -151,5 +157,12 @@ public class Course {
     public void setDeleted(Integer deleted) {
         this.deleted = deleted;
     }
-}
 
+    public Long getMaxUploadBytes() {
+        return maxUploadBytes;
+    }
+
+    public void setMaxUploadBytes(Long maxUploadBytes) {
+        this.maxUploadBytes = maxUploadBytes;
+    }
+}
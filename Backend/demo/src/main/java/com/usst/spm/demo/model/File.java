@@ -8,6 +8,11 @@ import java.time.LocalDateTime;
 @Table(name = "files")
 public class File {
 
+    public static final String INSPECTION_PENDING = "PENDING";
+    public static final String INSPECTION_OK = "OK";
+    public static final String INSPECTION_MISMATCH = "MISMATCH";
+    public static final String INSPECTION_FAILED = "FAILED";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -30,6 +35,42 @@ public class File {
     @Column(name = "uploader_id")
     private Long uploaderId;
 
+    /**
+     * 内容的 SHA-256（十六进制），对应 file_blobs 中的数据块；早期按 UUID 存放的文件为空
+     */
+    @Column(name = "content_digest", length = 64)
+    private String contentDigest;
+
+    /**
+     * 上传后检查结果：PENDING 待检查 / OK / MISMATCH 内容与扩展名不符 / FAILED 无法读取或解析
+     */
+    @Column(name = "inspection_status", length = 16)
+    private String inspectionStatus;
+
+    /**
+     * 按文件头识别出的类型（pdf / ole / zip / docx / xlsx / pptx / rar / text / unknown）
+     */
+    @Column(name = "detected_type", length = 16)
+    private String detectedType;
+
+    @Column(name = "inspection_message")
+    private String inspectionMessage;
+
+    /**
+     * 抽取出的文本字数（文本本身按内容摘要存于 blob_inspections，或按文件存于 file_texts），未抽取为空
+     */
+    @Column(name = "text_length")
+    private Integer textLength;
+
+    @Column(name = "inspected_at")
+    private LocalDateTime inspectedAt;
+
+    /**
+     * 被孤儿文件回收判定为无人引用的时间（同时置 deleted = 1）；早期文件的存储对象删除后清空
+     */
+    @Column(name = "orphaned_at")
+    private LocalDateTime orphanedAt;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -123,5 +164,60 @@ public class File {
     public void setDeleted(Integer deleted) {
         this.deleted = deleted;
     }
-}
 
+    public LocalDateTime getOrphanedAt() {
+        return orphanedAt;
+    }
+
+    public void setOrphanedAt(LocalDateTime orphanedAt) {
+        this.orphanedAt = orphanedAt;
+    }
+
+    public String getContentDigest() {
+        return contentDigest;
+    }
+
+    public void setContentDigest(String contentDigest) {
+        this.contentDigest = contentDigest;
+    }
+
+    public String getInspectionStatus() {
+        return inspectionStatus;
+    }
+
+    public void setInspectionStatus(String inspectionStatus) {
+        this.inspectionStatus = inspectionStatus;
+    }
+
+    public String getDetectedType() {
+        return detectedType;
+    }
+
+    public void setDetectedType(String detectedType) {
+        this.detectedType = detectedType;
+    }
+
+    public String getInspectionMessage() {
+        return inspectionMessage;
+    }
+
+    public void setInspectionMessage(String inspectionMessage) {
+        this.inspectionMessage = inspectionMessage;
+    }
+
+    public Integer getTextLength() {
+        return textLength;
+    }
+
+    public void setTextLength(Integer textLength) {
+        this.textLength = textLength;
+    }
+
+    public LocalDateTime getInspectedAt() {
+        return inspectedAt;
+    }
+
+    public void setInspectedAt(LocalDateTime inspectedAt) {
+        this.inspectedAt = inspectedAt;
+    }
+}
@@ -0,0 +1,129 @@
+package com.usst.spm.demo.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 按内容寻址的文件数据块（SHA-256），同一内容只存一份
+ * refCount 为引用该数据块的 files 记录数；verifiedAt/status 由后台校验任务维护；
+ * 引用数降为 0 时记下 orphanedAt，隔离期满后由孤儿文件回收删除对象与本行，期间重新被引用则清空
+ */
+@Entity
+@Table(name = "file_blobs", indexes = {
+        @Index(name = "idx_blob_verified", columnList = "verified_at"),
+        @Index(name = "idx_blob_orphaned", columnList = "orphaned_at")
+})
+public class FileBlob {
+
+    public static final String STATUS_OK = "OK";
+    public static final String STATUS_CORRUPT = "CORRUPT";
+    public static final String STATUS_MISSING = "MISSING";
+
+    @Id
+    @Column(length = 64)
+    private String digest;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(name = "storage_path", nullable = false, length = 512)
+    private String storagePath;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(nullable = false, length = 16)
+    private String status;
+
+    @Column(name = "verified_at")
+    private LocalDateTime verifiedAt;
+
+    @Column(name = "orphaned_at")
+    private LocalDateTime orphanedAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public FileBlob() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = LocalDateTime.now();
+        this.status = STATUS_OK;
+        this.refCount = 0;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    public void setDigest(String digest) {
+        this.digest = digest;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public String getStoragePath() {
+        return storagePath;
+    }
+
+    public void setStoragePath(String storagePath) {
+        this.storagePath = storagePath;
+    }
+
+    public Integer getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(Integer refCount) {
+        this.refCount = refCount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getVerifiedAt() {
+        return verifiedAt;
+    }
+
+    public void setVerifiedAt(LocalDateTime verifiedAt) {
+        this.verifiedAt = verifiedAt;
+    }
+
+    public LocalDateTime getOrphanedAt() {
+        return orphanedAt;
+    }
+
+    public void setOrphanedAt(LocalDateTime orphanedAt) {
+        this.orphanedAt = orphanedAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
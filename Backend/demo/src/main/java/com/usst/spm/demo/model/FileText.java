@@ -0,0 +1,67 @@
+package com.usst.spm.demo.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 从上传文件中抽取的纯文本（与 files 分表存放，只在查看文本时读取）
+ */
+@Entity
+@Table(name = "file_texts")
+public class FileText {
+
+    @Id
+    @Column(name = "file_id")
+    private Long fileId;
+
+    @Column(columnDefinition = "LONGTEXT")
+    private String content;
+
+    private Boolean truncated;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public FileText() {
+    }
+
+    public FileText(Long fileId, String content, boolean truncated) {
+        this.fileId = fileId;
+        this.content = content;
+        this.truncated = truncated;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public Long getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(Long fileId) {
+        this.fileId = fileId;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public Boolean getTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(Boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
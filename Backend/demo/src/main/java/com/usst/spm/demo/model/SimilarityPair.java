@@ -0,0 +1,103 @@
+package com.usst.spm.demo.model;
+
+import jakarta.persistence.*;
+
+/**
+ * 相似度检测命中的一对提交（submissionA &lt; submissionB）
+ */
+@Entity
+@Table(name = "similarity_pairs")
+public class SimilarityPair {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "report_id", nullable = false)
+    private Long reportId;
+
+    @Column(name = "assignment_id", nullable = false)
+    private Long assignmentId;
+
+    @Column(name = "submission_a", nullable = false)
+    private Long submissionA;
+
+    @Column(name = "submission_b", nullable = false)
+    private Long submissionB;
+
+    @Column(name = "student_a", nullable = false)
+    private Long studentA;
+
+    @Column(name = "student_b", nullable = false)
+    private Long studentB;
+
+    /**
+     * MinHash 估计的 Jaccard 相似度 [0, 1]
+     */
+    @Column(nullable = false)
+    private Double similarity;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getReportId() {
+        return reportId;
+    }
+
+    public void setReportId(Long reportId) {
+        this.reportId = reportId;
+    }
+
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public void setAssignmentId(Long assignmentId) {
+        this.assignmentId = assignmentId;
+    }
+
+    public Long getSubmissionA() {
+        return submissionA;
+    }
+
+    public void setSubmissionA(Long submissionA) {
+        this.submissionA = submissionA;
+    }
+
+    public Long getSubmissionB() {
+        return submissionB;
+    }
+
+    public void setSubmissionB(Long submissionB) {
+        this.submissionB = submissionB;
+    }
+
+    public Long getStudentA() {
+        return studentA;
+    }
+
+    public void setStudentA(Long studentA) {
+        this.studentA = studentA;
+    }
+
+    public Long getStudentB() {
+        return studentB;
+    }
+
+    public void setStudentB(Long studentB) {
+        this.studentB = studentB;
+    }
+
+    public Double getSimilarity() {
+        return similarity;
+    }
+
+    public void setSimilarity(Double similarity) {
+        this.similarity = similarity;
+    }
+}
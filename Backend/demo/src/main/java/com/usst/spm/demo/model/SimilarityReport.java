@@ -0,0 +1,142 @@
+package com.usst.spm.demo.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 作业相似度检测任务
+ * 每次检测一行，状态 RUNNING -> COMPLETED / FAILED，命中的相似对存于 similarity_pairs
+ */
+@Entity
+@Table(name = "similarity_reports")
+public class SimilarityReport {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "assignment_id", nullable = false)
+    private Long assignmentId;
+
+    @Column(nullable = false, length = 16)
+    private String status;
+
+    /**
+     * 参与比对的提交数（内容为空的提交不参与）
+     */
+    @Column(name = "submission_count")
+    private Integer submissionCount;
+
+    /**
+     * LSH 分桶得到的候选对数
+     */
+    @Column(name = "candidate_pairs")
+    private Integer candidatePairs;
+
+    /**
+     * 相似度达到阈值并保存的对数
+     */
+    @Column(name = "reported_pairs")
+    private Integer reportedPairs;
+
+    private String message;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "created_by")
+    private Long createdBy;
+
+    public SimilarityReport() {
+        this.status = STATUS_RUNNING;
+        this.startedAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public void setAssignmentId(Long assignmentId) {
+        this.assignmentId = assignmentId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getSubmissionCount() {
+        return submissionCount;
+    }
+
+    public void setSubmissionCount(Integer submissionCount) {
+        this.submissionCount = submissionCount;
+    }
+
+    public Integer getCandidatePairs() {
+        return candidatePairs;
+    }
+
+    public void setCandidatePairs(Integer candidatePairs) {
+        this.candidatePairs = candidatePairs;
+    }
+
+    public Integer getReportedPairs() {
+        return reportedPairs;
+    }
+
+    public void setReportedPairs(Integer reportedPairs) {
+        this.reportedPairs = reportedPairs;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public Long getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(Long createdBy) {
+        this.createdBy = createdBy;
+    }
+}
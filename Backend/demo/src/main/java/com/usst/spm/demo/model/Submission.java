@@ -18,8 +18,14 @@ public class Submission {
     @Column(name = "student_id", nullable = false)
     private Long studentId;
 
-    @Column(columnDefinition = "LONGTEXT")
-    private String content;
+    /**
+     * 正文字数与摘要，正文本身在 submission_contents 表中（见 SubmissionContentStore）
+     */
+    @Column(name = "content_length")
+    private Integer contentLength;
+
+    @Column(name = "content_preview", length = 255)
+    private String contentPreview;
 
     private String status;
 
@@ -69,12 +75,20 @@ public class Submission {
         this.studentId = studentId;
     }
 
-    public String getContent() {
-        return content;
+    public Integer getContentLength() {
+        return contentLength;
+    }
+
+    public void setContentLength(Integer contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    public String getContentPreview() {
+        return contentPreview;
     }
 
-    public void setContent(String content) {
-        this.content = content;
+    public void setContentPreview(String contentPreview) {
+        this.contentPreview = contentPreview;
     }
 
     public String getStatus() {
@@ -0,0 +1,72 @@
+package com.usst.spm.demo.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 提交正文（与 submissions 分表存放，只在查看单个提交时读取）
+ * encoding 为 PLAIN 时 body 是 UTF-8 字节，为 DEFLATE 时是压缩后的 UTF-8 字节
+ */
+@Entity
+@Table(name = "submission_contents")
+public class SubmissionContent {
+
+    public static final String ENCODING_PLAIN = "PLAIN";
+    public static final String ENCODING_DEFLATE = "DEFLATE";
+
+    @Id
+    @Column(name = "submission_id")
+    private Long submissionId;
+
+    @Column(nullable = false, length = 16)
+    private String encoding;
+
+    @Column(columnDefinition = "LONGBLOB")
+    private byte[] body;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public SubmissionContent() {
+    }
+
+    public SubmissionContent(Long submissionId, String encoding, byte[] body) {
+        this.submissionId = submissionId;
+        this.encoding = encoding;
+        this.body = body;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public Long getSubmissionId() {
+        return submissionId;
+    }
+
+    public void setSubmissionId(Long submissionId) {
+        this.submissionId = submissionId;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public void setEncoding(String encoding) {
+        this.encoding = encoding;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public void setBody(byte[] body) {
+        this.body = body;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,114 @@
+package com.usst.spm.demo.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已写库的收件幂等键（作业ID:学生ID:Idempotency-Key）及其结果
+ * 与提交记录在同一事务中写入，唯一键保证同一幂等键在重启后、或被其他实例受理时也只写库一次
+ */
+@Entity
+@Table(name = "submission_idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idem_scoped_key", columnNames = "scoped_key"),
+        indexes = @Index(name = "idx_idem_created", columnList = "created_at"))
+public class SubmissionIdempotencyKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "scoped_key", nullable = false, length = 200)
+    private String scopedKey;
+
+    /**
+     * 首次受理时的回执ID
+     */
+    @Column(name = "ticket_id", nullable = false, length = 36)
+    private String ticketId;
+
+    /**
+     * APPLIED 或 REJECTED
+     */
+    @Column(nullable = false, length = 16)
+    private String status;
+
+    @Column(name = "submission_id")
+    private Long submissionId;
+
+    @Column(length = 255)
+    private String message;
+
+    @Column(name = "submitted_at", nullable = false)
+    private LocalDateTime submittedAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public SubmissionIdempotencyKey() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getScopedKey() {
+        return scopedKey;
+    }
+
+    public void setScopedKey(String scopedKey) {
+        this.scopedKey = scopedKey;
+    }
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getSubmissionId() {
+        return submissionId;
+    }
+
+    public void setSubmissionId(Long submissionId) {
+        this.submissionId = submissionId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(LocalDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,60 @@
+package com.usst.spm.demo.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 提交收件日志的写库进度（每个应用实例一行）
+ * 与提交记录在同一事务中更新，重启后只重放序号更大的日志记录
+ */
+@Entity
+@Table(name = "submission_intake_checkpoints")
+public class SubmissionIntakeCheckpoint {
+
+    @Id
+    @Column(name = "node_id", length = 64)
+    private String nodeId;
+
+    /**
+     * 已写入数据库的最大日志序号
+     */
+    @Column(name = "last_seq", nullable = false)
+    private Long lastSeq;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public SubmissionIntakeCheckpoint() {
+    }
+
+    public SubmissionIntakeCheckpoint(String nodeId, Long lastSeq) {
+        this.nodeId = nodeId;
+        this.lastSeq = lastSeq;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public Long getLastSeq() {
+        return lastSeq;
+    }
+
+    public void setLastSeq(Long lastSeq) {
+        this.lastSeq = lastSeq;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -2,7 +2,10 @@ package com.usst.spm.demo.repository;
 
 import com.usst.spm.demo.model.AssignmentFile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,5 +17,17 @@ public interface AssignmentFileRepository extends JpaRepository<AssignmentFile,
      * 根据作业ID查询附件列表
      */
     List<AssignmentFile> findByAssignmentIdAndDeleted(Long assignmentId, Integer deleted);
-}
 
+    /**
+     * 给定文件中仍有有效作业附件关联的文件ID
+     */
+    @Query("SELECT DISTINCT af.fileId FROM AssignmentFile af WHERE af.fileId IN :fileIds AND (af.deleted = 0 OR af.deleted IS NULL)")
+    List<Long> findLiveFileIds(@Param("fileIds") Collection<Long> fileIds);
+
+    /**
+     * 文件作为有效作业附件所在的课程ID（查看文件内容时的权限校验）
+     */
+    @Query("SELECT DISTINCT a.courseId FROM AssignmentFile af, Assignment a " +
+            "WHERE af.fileId = :fileId AND (af.deleted = 0 OR af.deleted IS NULL) AND a.id = af.assignmentId")
+    List<Long> findCourseIdsByFileId(@Param("fileId") Long fileId);
+}
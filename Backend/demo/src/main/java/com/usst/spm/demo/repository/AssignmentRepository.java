@@ -1,14 +1,39 @@
 package com.usst.spm.demo.repository;
 
+import com.usst.spm.demo.dto.AssignmentDeadline;
+import com.usst.spm.demo.dto.StudentAssignmentRow;
 import com.usst.spm.demo.model.Assignment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-
 import java.util.Optional;
 
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
+
+    /**
+     * 学生视角提交状态表达式（依赖别名 a/s/g 与参数 :now）
+     * 已发布作业的截止由 AssignmentDeadlineScheduler 按时写入 CLOSED；调度器不处理的早期数据
+     * （status 为空或 ONGOING 等）以及调度器尚未关闭的作业仍按 dueAt 判定已截止
+     */
+    String STUDENT_STATUS_EXPR = "CASE WHEN s.id IS NOT NULL AND g.released = true THEN 'graded' " +
+            "WHEN s.id IS NOT NULL THEN 'submitted' " +
+            "WHEN a.status = 'CLOSED' OR a.status = 'ARCHIVED' " +
+            "OR (a.dueAt IS NOT NULL AND a.dueAt < :now) THEN 'ended' " +
+            "ELSE 'progress' END";
+
     List<Assignment> findByCourseIdAndDeleted(Long courseId, Integer deleted);
+
+    /**
+     * 作业所属课程ID（只取一列，供权限校验）
+     */
+    @Query("SELECT a.courseId FROM Assignment a WHERE a.id = :id")
+    Optional<Long> findCourseIdById(@Param("id") Long id);
     
     /**
      * 根据origin_id查询同一作业链路的所有版本（按版本号排序）
@@ -24,5 +49,50 @@ public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
      * 查询原始作业（origin_id为null或等于id的作业）
      */
     List<Assignment> findByOriginIdIsNullAndDeletedOrderByCreatedAtDesc(Integer deleted);
-}
 
+    /**
+     * 学生视角作业列表：作业 LEFT JOIN 该学生的提交 LEFT JOIN 成绩，一条查询完成
+     * 提交状态在 SQL 中计算：graded（成绩已发布）、submitted、ended（未提交且已截止）、progress
+     * statusFilter 为 null 时不过滤
+     */
+    @Query("SELECT new com.usst.spm.demo.dto.StudentAssignmentRow(a, s.submittedAt, " +
+            "CASE WHEN g.released = true THEN g.score ELSE NULL END, " +
+            "CASE WHEN g.released = true THEN g.feedback ELSE NULL END, " +
+            STUDENT_STATUS_EXPR + ") " +
+            "FROM Assignment a " +
+            "LEFT JOIN Submission s ON s.assignmentId = a.id AND s.studentId = :studentId " +
+            "AND (s.deleted = 0 OR s.deleted IS NULL) " +
+            "LEFT JOIN Grade g ON g.submissionId = s.id AND g.deleted = 0 " +
+            "WHERE a.courseId = :courseId AND a.deleted = 0 " +
+            "AND (:statusFilter IS NULL OR " + STUDENT_STATUS_EXPR + " = :statusFilter) " +
+            "ORDER BY a.id")
+    List<StudentAssignmentRow> findStudentAssignmentRows(@Param("courseId") Long courseId,
+                                                        @Param("studentId") Long studentId,
+                                                        @Param("statusFilter") String statusFilter,
+                                                        @Param("now") LocalDateTime now);
+
+    /**
+     * 已发布且尚未截止的作业截止时间（截止调度器启动时重建队列）
+     */
+    @Query("SELECT a.id AS id, a.dueAt AS dueAt FROM Assignment a " +
+            "WHERE a.status = 'PUBLISHED' AND a.dueAt > :now AND a.deleted = 0")
+    List<AssignmentDeadline> findPublishedDeadlinesAfter(@Param("now") LocalDateTime now);
+
+    /**
+     * 将指定的已到期作业批量置为 CLOSED（仅 PUBLISHED 且 dueAt 已过的行生效，可重复执行）
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Assignment a SET a.status = 'CLOSED', a.updatedAt = :now " +
+            "WHERE a.id IN :ids AND a.status = 'PUBLISHED' AND a.dueAt <= :now AND a.deleted = 0")
+    int closeDueAssignments(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * 将所有已到期但仍为 PUBLISHED 的作业置为 CLOSED（启动与兜底巡检）
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Assignment a SET a.status = 'CLOSED', a.updatedAt = :now " +
+            "WHERE a.status = 'PUBLISHED' AND a.dueAt <= :now AND a.deleted = 0")
+    int closeAllOverdue(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,34 @@
+package com.usst.spm.demo.repository;
+
+import com.usst.spm.demo.model.AssignmentVersionCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface AssignmentVersionCounterRepository extends JpaRepository<AssignmentVersionCounter, Long> {
+
+    /**
+     * 原子递增版本号，返回受影响行数（0 表示该链路尚无计数器）
+     * 行锁持有到调用方事务结束，同一链路的并发分配在此串行
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE AssignmentVersionCounter c SET c.currentVersion = c.currentVersion + 1, c.updatedAt = :now " +
+            "WHERE c.originId = :originId")
+    int increment(@Param("originId") Long originId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT c.currentVersion FROM AssignmentVersionCounter c WHERE c.originId = :originId")
+    Integer findCurrentVersion(@Param("originId") Long originId);
+
+    /**
+     * 首次分配时按链路上已有的最大版本号（含已删除版本）初始化计数器；
+     * 并发初始化时 INSERT IGNORE 只会保留一行，不抛出主键冲突
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO assignment_version_counters (origin_id, current_version, updated_at) " +
+            "SELECT :originId, COALESCE(MAX(a.version), 1), :now FROM assignments a " +
+            "WHERE a.origin_id = :originId OR a.id = :originId", nativeQuery = true)
+    int seed(@Param("originId") Long originId, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,20 @@
+package com.usst.spm.demo.repository;
+
+import com.usst.spm.demo.model.BlobInspection;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface BlobInspectionRepository extends JpaRepository<BlobInspection, String> {
+
+    /**
+     * 加行锁读取，同一内容的两次检查并发写入抽取文本时串行
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BlobInspection b WHERE b.digest = :digest")
+    Optional<BlobInspection> findByIdForUpdate(@Param("digest") String digest);
+}
@@ -2,6 +2,8 @@ package com.usst.spm.demo.repository;
 
 import com.usst.spm.demo.model.CourseEnrollment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,5 +12,18 @@ public interface CourseEnrollmentRepository extends JpaRepository<CourseEnrollme
     Optional<CourseEnrollment> findByCourseIdAndStudentIdAndDeleted(Long courseId, Long studentId, Integer deleted);
     List<CourseEnrollment> findByStudentIdAndStatusAndDeleted(Long studentId, String status, Integer deleted);
     List<CourseEnrollment> findByCourseIdAndDeleted(Long courseId, Integer deleted);
-}
 
+    /**
+     * 统计课程有效学生数（status 为空或 ACTIVE 均视为有效）
+     */
+    @Query("SELECT COUNT(e) FROM CourseEnrollment e WHERE e.courseId = :courseId AND e.deleted = 0 " +
+            "AND (e.status IS NULL OR e.status = 'ACTIVE')")
+    long countActiveByCourseId(@Param("courseId") Long courseId);
+
+    /**
+     * 课程有效学生ID（口径同 countActiveByCourseId）
+     */
+    @Query("SELECT e.studentId FROM CourseEnrollment e WHERE e.courseId = :courseId AND e.deleted = 0 " +
+            "AND (e.status IS NULL OR e.status = 'ACTIVE')")
+    List<Long> findActiveStudentIds(@Param("courseId") Long courseId);
+}
@@ -0,0 +1,69 @@
+package com.usst.spm.demo.repository;
+
+import com.usst.spm.demo.model.FileBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+
+    /**
+     * 登记一次引用：数据块不存在时插入（引用数 1），已存在时引用数加 1；并发上传同一内容时由主键保证只有一行。
+     * 隔离中的数据块重新被引用时清掉 orphaned_at，不再被回收
+     */
+    @Modifying
+    @Query(value = "INSERT INTO file_blobs (digest, size, storage_path, ref_count, status, created_at, updated_at) " +
+            "VALUES (:digest, :size, :storagePath, 1, 'OK', :now, :now) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1, orphaned_at = NULL, updated_at = :now",
+            nativeQuery = true)
+    int addReference(@Param("digest") String digest,
+                     @Param("size") long size,
+                     @Param("storagePath") String storagePath,
+                     @Param("now") LocalDateTime now);
+
+    /**
+     * 释放一次引用，引用数降为 0 时记下 orphaned_at（orphaned_at 写在前面：MySQL 按顺序赋值，后面的 ref_count 已是新值）
+     */
+    @Modifying
+    @Query(value = "UPDATE file_blobs SET orphaned_at = CASE WHEN ref_count <= 1 THEN :now ELSE orphaned_at END, " +
+            "ref_count = ref_count - 1, updated_at = :now WHERE digest = :digest AND ref_count > 0", nativeQuery = true)
+    int releaseReference(@Param("digest") String digest, @Param("now") LocalDateTime now);
+
+    @Query("SELECT b.refCount FROM FileBlob b WHERE b.digest = :digest")
+    Optional<Integer> findRefCount(@Param("digest") String digest);
+
+    /**
+     * 加行锁读取数据块，删除对象与登记引用在此串行
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM FileBlob b WHERE b.digest = :digest")
+    Optional<FileBlob> findByIdForUpdate(@Param("digest") String digest);
+
+    /**
+     * 隔离期已满、仍无人引用的数据块
+     */
+    @Query("SELECT b FROM FileBlob b WHERE b.refCount = 0 AND b.orphanedAt <= :cutoff ORDER BY b.orphanedAt, b.digest")
+    List<FileBlob> findPurgeable(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    /**
+     * 待校验的数据块：从未校验过的优先，其余按上次校验时间从早到晚
+     */
+    @Query("SELECT b FROM FileBlob b ORDER BY b.verifiedAt ASC NULLS FIRST, b.digest ASC")
+    List<FileBlob> findVerifyBatch(Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileBlob b SET b.status = :status, b.verifiedAt = :now WHERE b.digest = :digest")
+    int markVerified(@Param("digest") String digest,
+                     @Param("status") String status,
+                     @Param("now") LocalDateTime now);
+}
@@ -1,8 +1,61 @@
 package com.usst.spm.demo.repository;
 
 import com.usst.spm.demo.model.File;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 public interface FileRepository extends JpaRepository<File, Long> {
-}
 
+    /**
+     * 待检查的文件ID，按ID keyset 分页（上传后检查的补漏扫描）
+     */
+    @Query("SELECT f.id FROM File f WHERE f.inspectionStatus = :status AND f.deleted = 0 AND f.id > :afterId " +
+            "ORDER BY f.id")
+    List<Long> findIdsByInspectionStatus(@Param("status") String status,
+                                         @Param("afterId") Long afterId,
+                                         Pageable pageable);
+
+    /**
+     * 孤儿文件回收的扫描批次：超过宽限期的有效文件ID，按ID keyset 分页（是否仍被引用由调用方另查）
+     */
+    @Query("SELECT f.id FROM File f WHERE f.id > :afterId AND f.deleted = 0 AND f.createdAt < :cutoff ORDER BY f.id")
+    List<Long> findGcScanBatch(@Param("afterId") Long afterId,
+                               @Param("cutoff") LocalDateTime cutoff,
+                               Pageable pageable);
+
+    /**
+     * 加行锁读取文件，孤儿回收与挂载附件在此串行
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM File f WHERE f.id = :id")
+    Optional<File> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * 把无人引用的文件标记为孤儿（软删除）；条件里重新确认没有有效的提交/作业附件关联，
+     * 与扫描之间新挂上的引用不会被误删。调用方须先用 findByIdForUpdate 锁住文件行，
+     * 挂载附件的事务持有同一把锁，提交前写入的关联在这里一定可见。返回 0 表示文件已被删除或又被引用
+     */
+    @Modifying
+    @Query(value = "UPDATE files SET deleted = 1, orphaned_at = :now, updated_at = updated_at " +
+            "WHERE id = :id AND deleted = 0 " +
+            "AND NOT EXISTS (SELECT 1 FROM submission_files sf WHERE sf.file_id = files.id AND (sf.deleted = 0 OR sf.deleted IS NULL)) " +
+            "AND NOT EXISTS (SELECT 1 FROM assignment_files af WHERE af.file_id = files.id AND (af.deleted = 0 OR af.deleted IS NULL))",
+            nativeQuery = true)
+    int markOrphaned(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * 隔离期已满、存储对象尚未删除的早期文件（不经数据块表，按 UUID 单独存放）
+     */
+    @Query("SELECT f FROM File f WHERE f.contentDigest IS NULL AND f.deleted = 1 AND f.orphanedAt <= :cutoff " +
+            "ORDER BY f.orphanedAt, f.id")
+    List<File> findPurgeableLegacy(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+}
@@ -0,0 +1,7 @@
+package com.usst.spm.demo.repository;
+
+import com.usst.spm.demo.model.FileText;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface FileTextRepository extends JpaRepository<FileText, Long> {
+}
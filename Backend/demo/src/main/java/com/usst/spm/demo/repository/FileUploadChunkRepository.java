@@ -0,0 +1,27 @@
+package com.usst.spm.demo.repository;
+
+import com.usst.spm.demo.model.FileUploadChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface FileUploadChunkRepository extends JpaRepository<FileUploadChunk, Long> {
+
+    @Query("SELECT c.chunkIndex FROM FileUploadChunk c WHERE c.uploadId = :uploadId ORDER BY c.chunkIndex")
+    List<Integer> findChunkIndexes(@Param("uploadId") String uploadId);
+
+    @Query("SELECT c.checksum FROM FileUploadChunk c WHERE c.uploadId = :uploadId ORDER BY c.chunkIndex")
+    List<String> findChecksums(@Param("uploadId") String uploadId);
+
+    Optional<FileUploadChunk> findByUploadIdAndChunkIndex(String uploadId, Integer chunkIndex);
+
+    long countByUploadId(String uploadId);
+
+    @Modifying
+    @Query("DELETE FROM FileUploadChunk c WHERE c.uploadId = :uploadId")
+    int deleteByUploadId(@Param("uploadId") String uploadId);
+}
@@ -0,0 +1,35 @@
+package com.usst.spm.demo.repository;
+
+import com.usst.spm.demo.model.FileUploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface FileUploadSessionRepository extends JpaRepository<FileUploadSession, String> {
+
+    /**
+     * 加行锁读取会话，complete 与分片登记在此串行
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM FileUploadSession s WHERE s.id = :id")
+    Optional<FileUploadSession> findByIdForUpdate(@Param("id") String id);
+
+    @Query("SELECT s FROM FileUploadSession s WHERE s.status = 'UPLOADING' AND s.expiresAt < :now")
+    List<FileUploadSession> findExpired(@Param("now") LocalDateTime now);
+
+    /**
+     * 删除早于 cutoff 完成的上传会话（文件已交给调用方，会话只用于断点续传查询）
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FileUploadSession s WHERE s.status = 'COMPLETED' AND s.updatedAt < :cutoff")
+    int deleteCompletedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,14 +1,35 @@
 package com.usst.spm.demo.repository;
 
+import com.usst.spm.demo.dto.GradeScoreRow;
 import com.usst.spm.demo.model.Grade;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface GradeRepository extends JpaRepository<Grade, Long> {
+
+    String SCORE_ROW_SELECT = "SELECT s.assignmentId AS assignmentId, a.totalScore AS totalScore, " +
+            "g.id AS gradeId, g.score AS score " +
+            "FROM Grade g JOIN Submission s ON s.id = g.submissionId " +
+            "JOIN Assignment a ON a.id = s.assignmentId " +
+            "WHERE g.deleted = 0 AND g.score IS NOT NULL AND (s.deleted = 0 OR s.deleted IS NULL) AND a.deleted = 0";
+
     Optional<Grade> findBySubmissionIdAndDeleted(Long submissionId, Integer deleted);
     
     List<Grade> findBySubmissionIdInAndDeleted(List<Long> submissionIds, Integer deleted);
-}
 
+    /**
+     * 所有有效成绩的分数（启动时重建成绩统计）
+     */
+    @Query(SCORE_ROW_SELECT)
+    List<GradeScoreRow> findAllScoreRows();
+
+    /**
+     * 某作业下所有有效成绩的分数
+     */
+    @Query(SCORE_ROW_SELECT + " AND s.assignmentId = :assignmentId")
+    List<GradeScoreRow> findScoreRowsByAssignmentId(@Param("assignmentId") Long assignmentId);
+}
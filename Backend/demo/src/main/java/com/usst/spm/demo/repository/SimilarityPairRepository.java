@@ -0,0 +1,22 @@
+package com.usst.spm.demo.repository;
+
+import com.usst.spm.demo.model.SimilarityPair;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface SimilarityPairRepository extends JpaRepository<SimilarityPair, Long> {
+
+    List<SimilarityPair> findByReportIdOrderBySimilarityDesc(Long reportId);
+
+    /**
+     * 删除作业历次检测中除指定报告外的相似对（只保留最新结果）
+     */
+    @Modifying
+    @Query("DELETE FROM SimilarityPair p WHERE p.assignmentId = :assignmentId AND p.reportId <> :keepReportId")
+    int deleteByAssignmentIdExceptReport(@Param("assignmentId") Long assignmentId,
+                                         @Param("keepReportId") Long keepReportId);
+}
@@ -0,0 +1,28 @@
+package com.usst.spm.demo.repository;
+
+import com.usst.spm.demo.model.SimilarityReport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface SimilarityReportRepository extends JpaRepository<SimilarityReport, Long> {
+
+    /**
+     * 作业最近一次检测
+     */
+    Optional<SimilarityReport> findFirstByAssignmentIdOrderByIdDesc(Long assignmentId);
+
+    /**
+     * 启动时把上次进程中断的任务标记为失败
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SimilarityReport r SET r.status = 'FAILED', r.message = :message, r.finishedAt = :now " +
+            "WHERE r.status = 'RUNNING'")
+    int failRunning(@Param("message") String message, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,7 @@
+package com.usst.spm.demo.repository;
+
+import com.usst.spm.demo.model.SubmissionContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SubmissionContentRepository extends JpaRepository<SubmissionContent, Long> {
+}
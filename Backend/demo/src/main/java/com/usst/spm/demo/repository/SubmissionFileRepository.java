@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface SubmissionFileRepository extends JpaRepository<SubmissionFile, Long> {
@@ -16,5 +17,24 @@ public interface SubmissionFileRepository extends JpaRepository<SubmissionFile,
     List<SubmissionFile> findActiveBySubmissionId(@Param("submissionId") Long submissionId);
 
     List<SubmissionFile> findBySubmissionIdAndDeleted(Long submissionId, Integer deleted);
-}
 
+    /**
+     * 批量查询多个提交的有效附件关联
+     */
+    @Query("SELECT sf FROM SubmissionFile sf WHERE sf.submissionId IN :submissionIds AND (sf.deleted = 0 OR sf.deleted IS NULL)")
+    List<SubmissionFile> findActiveBySubmissionIdIn(@Param("submissionIds") Collection<Long> submissionIds);
+
+    /**
+     * 给定文件中仍有有效提交附件关联的文件ID
+     */
+    @Query("SELECT DISTINCT sf.fileId FROM SubmissionFile sf WHERE sf.fileId IN :fileIds AND (sf.deleted = 0 OR sf.deleted IS NULL)")
+    List<Long> findLiveFileIds(@Param("fileIds") Collection<Long> fileIds);
+
+    /**
+     * 文件作为有效提交附件所在的课程ID（查看文件内容时的权限校验）
+     */
+    @Query("SELECT DISTINCT a.courseId FROM SubmissionFile sf, Submission s, Assignment a " +
+            "WHERE sf.fileId = :fileId AND (sf.deleted = 0 OR sf.deleted IS NULL) " +
+            "AND s.id = sf.submissionId AND (s.deleted = 0 OR s.deleted IS NULL) AND a.id = s.assignmentId")
+    List<Long> findCourseIdsByFileId(@Param("fileId") Long fileId);
+}
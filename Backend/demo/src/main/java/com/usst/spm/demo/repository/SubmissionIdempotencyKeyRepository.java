@@ -0,0 +1,28 @@
+package com.usst.spm.demo.repository;
+
+import com.usst.spm.demo.model.SubmissionIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface SubmissionIdempotencyKeyRepository extends JpaRepository<SubmissionIdempotencyKey, Long> {
+
+    Optional<SubmissionIdempotencyKey> findByScopedKey(String scopedKey);
+
+    List<SubmissionIdempotencyKey> findByScopedKeyIn(Collection<String> scopedKeys);
+
+    /**
+     * 删除超过保留期的幂等键
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SubmissionIdempotencyKey k WHERE k.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,7 @@
+package com.usst.spm.demo.repository;
+
+import com.usst.spm.demo.model.SubmissionIntakeCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SubmissionIntakeCheckpointRepository extends JpaRepository<SubmissionIntakeCheckpoint, String> {
+}
@@ -1,10 +1,16 @@
 package com.usst.spm.demo.repository;
 
+import com.usst.spm.demo.dto.AssignmentSubmissionStats;
+import com.usst.spm.demo.dto.SubmissionArchiveEntry;
+import com.usst.spm.demo.dto.SubmissionContentStamp;
+import com.usst.spm.demo.dto.SubmissionRosterRow;
 import com.usst.spm.demo.model.Submission;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,10 +29,72 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     Optional<Submission> findActiveByAssignmentIdAndStudentId(@Param("assignmentId") Long assignmentId,
                                                               @Param("studentId") Long studentId);
 
+    /**
+     * 作业下有效提交的版本戳（不加载正文）
+     */
+    @Query("SELECT s.id AS id, s.studentId AS studentId, s.updatedAt AS updatedAt FROM Submission s " +
+            "WHERE s.assignmentId = :assignmentId AND (s.deleted = 0 OR s.deleted IS NULL) ORDER BY s.id")
+    List<SubmissionContentStamp> findContentStampsByAssignmentId(@Param("assignmentId") Long assignmentId);
+
+    /**
+     * 批量查询若干作业 × 若干学生的有效提交（收件批量写库时使用，调用方按 (作业, 学生) 过滤）
+     */
+    @Query("SELECT s FROM Submission s WHERE s.assignmentId IN :assignmentIds AND s.studentId IN :studentIds " +
+            "AND (s.deleted = 0 OR s.deleted IS NULL)")
+    List<Submission> findActiveByAssignmentIdInAndStudentIdIn(@Param("assignmentIds") Collection<Long> assignmentIds,
+                                                              @Param("studentIds") Collection<Long> studentIds);
+
     /**
      * 查找学生的提交，deleted 为空或为 0 均视为有效
      */
     @Query("SELECT s FROM Submission s WHERE s.studentId = :studentId AND (s.deleted = 0 OR s.deleted IS NULL)")
     List<Submission> findActiveByStudentId(@Param("studentId") Long studentId);
-}
 
+    /**
+     * 按作业分组统计课程下所有作业的提交、打分、发布、逾期人数（一次分组查询）
+     */
+    @Query("SELECT s.assignmentId AS assignmentId, COUNT(s.id) AS submittedCount, " +
+            "SUM(CASE WHEN g.id IS NOT NULL THEN 1 ELSE 0 END) AS gradedCount, " +
+            "SUM(CASE WHEN g.released = true THEN 1 ELSE 0 END) AS releasedCount, " +
+            "SUM(CASE WHEN a.dueAt IS NOT NULL AND s.submittedAt > a.dueAt THEN 1 ELSE 0 END) AS lateCount " +
+            "FROM Submission s JOIN Assignment a ON a.id = s.assignmentId " +
+            "LEFT JOIN Grade g ON g.submissionId = s.id AND g.deleted = 0 " +
+            "WHERE a.courseId = :courseId AND a.deleted = 0 AND (s.deleted = 0 OR s.deleted IS NULL) " +
+            "GROUP BY s.assignmentId")
+    List<AssignmentSubmissionStats> countStatsByCourseId(@Param("courseId") Long courseId);
+
+    /**
+     * 作业批改名单：以课程选课记录为主表，LEFT JOIN 提交与成绩
+     * 按学生ID做 keyset 分页（studentId > afterStudentId），filter 取值：
+     * all / submitted / ungraded（已提交未打分）/ not_submitted
+     */
+    @Query("SELECT new com.usst.spm.demo.dto.SubmissionRosterRow(u.id, u.name, u.studentNo, s, g) " +
+            "FROM CourseEnrollment e JOIN User u ON u.id = e.studentId " +
+            "LEFT JOIN Submission s ON s.assignmentId = :assignmentId AND s.studentId = u.id " +
+            "AND (s.deleted = 0 OR s.deleted IS NULL) " +
+            "LEFT JOIN Grade g ON g.submissionId = s.id AND g.deleted = 0 " +
+            "WHERE e.courseId = :courseId AND e.deleted = 0 AND (e.status IS NULL OR e.status = 'ACTIVE') " +
+            "AND u.role = 'STUDENT' AND (u.deleted = 0 OR u.deleted IS NULL) " +
+            "AND u.id > :afterStudentId " +
+            "AND (:filter = 'all' " +
+            "OR (:filter = 'submitted' AND s.id IS NOT NULL) " +
+            "OR (:filter = 'ungraded' AND s.id IS NOT NULL AND g.id IS NULL) " +
+            "OR (:filter = 'not_submitted' AND s.id IS NULL)) " +
+            "ORDER BY u.id")
+    List<SubmissionRosterRow> findRoster(@Param("courseId") Long courseId,
+                                         @Param("assignmentId") Long assignmentId,
+                                         @Param("afterStudentId") Long afterStudentId,
+                                         @Param("filter") String filter,
+                                         Pageable pageable);
+
+    /**
+     * 作业的有效提交及学生学号姓名，按提交ID keyset 分页（打包下载分批读取）
+     */
+    @Query("SELECT s.id AS submissionId, u.studentNo AS studentNo, u.name AS studentName " +
+            "FROM Submission s JOIN User u ON u.id = s.studentId " +
+            "WHERE s.assignmentId = :assignmentId AND (s.deleted = 0 OR s.deleted IS NULL) " +
+            "AND s.id > :afterId ORDER BY s.id")
+    List<SubmissionArchiveEntry> findArchiveEntries(@Param("assignmentId") Long assignmentId,
+                                                   @Param("afterId") Long afterId,
+                                                   Pageable pageable);
+}
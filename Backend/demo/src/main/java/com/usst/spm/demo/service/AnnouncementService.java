@@ -2,9 +2,7 @@ package com.usst.spm.demo.service;
 
 import com.usst.spm.demo.dto.*;
 import com.usst.spm.demo.model.Announcement;
-import com.usst.spm.demo.model.User;
 import com.usst.spm.demo.repository.AnnouncementRepository;
-import com.usst.spm.demo.repository.UserRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,11 +20,11 @@ public class AnnouncementService {
     private static final Long DEFAULT_COURSE_ID = 1L;
 
     private final AnnouncementRepository announcementRepository;
-    private final UserRepository userRepository;
+    private final UserSummaryCache userSummaryCache;
 
-    public AnnouncementService(AnnouncementRepository announcementRepository, UserRepository userRepository) {
+    public AnnouncementService(AnnouncementRepository announcementRepository, UserSummaryCache userSummaryCache) {
         this.announcementRepository = announcementRepository;
-        this.userRepository = userRepository;
+        this.userSummaryCache = userSummaryCache;
     }
 
     /**
@@ -124,7 +122,9 @@ public class AnnouncementService {
                     return b.getCreatedAt().compareTo(a.getCreatedAt());
                 })
                 .collect(Collectors.toList());
-        
+
+        // 本页作者一次批量加载，逐条转换时直接命中缓存
+        userSummaryCache.getAll(distinctAnnouncements.stream().map(Announcement::getAuthorId).collect(Collectors.toSet()));
         return distinctAnnouncements.stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
@@ -198,11 +198,11 @@ public class AnnouncementService {
         response.setCreatedAt(announcement.getCreatedAt());
         response.setUpdatedAt(announcement.getUpdatedAt());
 
-        Optional<User> authorOpt = userRepository.findById(announcement.getAuthorId());
+        Optional<UserSummaryCache.UserSummary> authorOpt = userSummaryCache.get(announcement.getAuthorId());
         if (authorOpt.isPresent()) {
-            User author = authorOpt.get();
-            response.setAuthorName(author.getName());
-            response.setAuthorNo(author.getStudentNo());
+            UserSummaryCache.UserSummary author = authorOpt.get();
+            response.setAuthorName(author.name());
+            response.setAuthorNo(author.studentNo());
         } else {
             response.setAuthorName("未知用户");
             response.setAuthorNo("");
@@ -0,0 +1,227 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.AssignmentDeadline;
+import com.usst.spm.demo.model.Assignment;
+import com.usst.spm.demo.repository.AssignmentRepository;
+import com.usst.spm.demo.util.AssignmentStateMachine;
+import com.usst.spm.demo.util.TransactionHooks;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 作业截止调度器
+ * 内存中按截止时间维护已发布作业的小顶堆，只为堆顶设置一个定时任务；
+ * 到点后把所有到期作业用批量 UPDATE 置为 CLOSED。启动时先关闭已过期的作业再从 assignments 表重建队列，
+ * 另有低频兜底巡检处理其他实例写入或调度遗漏的作业。
+ */
+@Component
+public class AssignmentDeadlineScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(AssignmentDeadlineScheduler.class);
+
+    private static final int BATCH_SIZE = 500;
+    private static final long RETRY_DELAY_MS = 30_000L;
+    private static final long SWEEP_INTERVAL_MINUTES = 10L;
+
+    private final AssignmentRepository assignmentRepository;
+    private final StudentGradesCache studentGradesCache;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "assignment-deadline");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Object lock = new Object();
+    // 按截止时间排序的队列；作业改期或撤回后旧条目保留在堆中，出堆时与 deadlines 比对后丢弃
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    // assignmentId -> 当前有效的截止时间（毫秒）
+    private final Map<Long, Long> deadlines = new HashMap<>();
+    private ScheduledFuture<?> armed;
+    private long armedAt = Long.MAX_VALUE;
+
+    public AssignmentDeadlineScheduler(AssignmentRepository assignmentRepository,
+                                       StudentGradesCache studentGradesCache) {
+        this.assignmentRepository = assignmentRepository;
+        this.studentGradesCache = studentGradesCache;
+    }
+
+    private record Entry(long dueAtMillis, long assignmentId) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry o) {
+            return Long.compare(dueAtMillis, o.dueAtMillis);
+        }
+    }
+
+    /**
+     * 启动时重建：先关闭已过期的作业，再加载所有未来的截止时间
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        int closed = closeAllOverdue(now);
+        List<AssignmentDeadline> upcoming = assignmentRepository.findPublishedDeadlinesAfter(now);
+        synchronized (lock) {
+            queue.clear();
+            deadlines.clear();
+            for (AssignmentDeadline d : upcoming) {
+                long dueAt = toMillis(d.getDueAt());
+                deadlines.put(d.getId(), dueAt);
+                queue.add(new Entry(dueAt, d.getId()));
+            }
+            rearm();
+        }
+        executor.scheduleWithFixedDelay(this::sweep, SWEEP_INTERVAL_MINUTES, SWEEP_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        log.info("[deadline] rebuilt queue with {} upcoming assignments, closed {} overdue", upcoming.size(), closed);
+    }
+
+    /**
+     * 作业发布、改期、撤回、删除后调用（事务提交后生效）：
+     * PUBLISHED 且有截止时间的加入/更新队列，其余移出队列
+     */
+    public void track(Assignment assignment) {
+        if (assignment == null || assignment.getId() == null) {
+            return;
+        }
+        Long id = assignment.getId();
+        boolean schedulable = AssignmentStateMachine.STATUS_PUBLISHED.equals(assignment.getStatus())
+                && assignment.getDueAt() != null
+                && (assignment.getDeleted() == null || assignment.getDeleted() == 0);
+        Long dueAt = schedulable ? toMillis(assignment.getDueAt()) : null;
+        TransactionHooks.afterCommit(() -> {
+            if (dueAt != null) {
+                schedule(id, dueAt);
+            } else {
+                cancel(id);
+            }
+        });
+    }
+
+    private void schedule(long assignmentId, long dueAtMillis) {
+        synchronized (lock) {
+            Long previous = deadlines.put(assignmentId, dueAtMillis);
+            if (previous != null && previous == dueAtMillis) {
+                return;
+            }
+            queue.add(new Entry(dueAtMillis, assignmentId));
+            if (dueAtMillis < armedAt) {
+                rearm();
+            }
+        }
+    }
+
+    private void cancel(long assignmentId) {
+        synchronized (lock) {
+            deadlines.remove(assignmentId);
+        }
+    }
+
+    /**
+     * 为堆顶设置定时任务（调用方持有 lock）
+     */
+    private void rearm() {
+        while (!queue.isEmpty() && !isCurrent(queue.peek())) {
+            queue.poll();
+        }
+        if (armed != null) {
+            armed.cancel(false);
+            armed = null;
+        }
+        if (queue.isEmpty()) {
+            armedAt = Long.MAX_VALUE;
+            return;
+        }
+        armedAt = queue.peek().dueAtMillis();
+        long delay = Math.max(0L, armedAt - System.currentTimeMillis());
+        armed = executor.schedule(this::fire, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private boolean isCurrent(Entry entry) {
+        Long current = deadlines.get(entry.assignmentId());
+        return current != null && current == entry.dueAtMillis();
+    }
+
+    /**
+     * 取出所有到期作业，分批 UPDATE 为 CLOSED
+     */
+    private void fire() {
+        List<Long> due = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (lock) {
+            while (!queue.isEmpty() && queue.peek().dueAtMillis() <= now) {
+                Entry entry = queue.poll();
+                if (isCurrent(entry)) {
+                    deadlines.remove(entry.assignmentId());
+                    due.add(entry.assignmentId());
+                }
+            }
+            armed = null;
+            armedAt = Long.MAX_VALUE;
+            rearm();
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        LocalDateTime closedAt = LocalDateTime.now();
+        int closed = 0;
+        for (int from = 0; from < due.size(); from += BATCH_SIZE) {
+            List<Long> batch = due.subList(from, Math.min(from + BATCH_SIZE, due.size()));
+            try {
+                closed += assignmentRepository.closeDueAssignments(batch, closedAt);
+            } catch (RuntimeException e) {
+                log.warn("[deadline] failed to close {} assignments, retry in {}ms", batch.size(), RETRY_DELAY_MS, e);
+                long retryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+                for (Long id : batch) {
+                    schedule(id, retryAt);
+                }
+            }
+        }
+        if (closed > 0) {
+            studentGradesCache.evictAll();
+        }
+        log.info("[deadline] closed {} of {} due assignments", closed, due.size());
+    }
+
+    private void sweep() {
+        try {
+            if (closeAllOverdue(LocalDateTime.now()) > 0) {
+                log.info("[deadline] sweep closed overdue assignments");
+            }
+        } catch (RuntimeException e) {
+            log.warn("[deadline] sweep failed", e);
+        }
+    }
+
+    private int closeAllOverdue(LocalDateTime now) {
+        int closed = assignmentRepository.closeAllOverdue(now);
+        if (closed > 0) {
+            studentGradesCache.evictAll();
+        }
+        return closed;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -7,7 +7,9 @@ import com.usst.spm.demo.dto.GradeHistoryResponse;
 import com.usst.spm.demo.dto.GradeRequest;
 import com.usst.spm.demo.dto.RepublishRequest;
 import com.usst.spm.demo.dto.RepublishResponse;
+import com.usst.spm.demo.dto.StudentAssignmentRow;
 import com.usst.spm.demo.dto.SubmissionRequest;
+import com.usst.spm.demo.dto.SubmissionRosterRow;
 import com.usst.spm.demo.dto.SubmissionResponse;
 import com.usst.spm.demo.dto.UpdateScoreRequest;
 import com.usst.spm.demo.model.Assignment;
@@ -17,7 +19,6 @@ import com.usst.spm.demo.model.Grade;
 import com.usst.spm.demo.model.GradeHistory;
 import com.usst.spm.demo.model.Submission;
 import com.usst.spm.demo.model.SubmissionFile;
-import com.usst.spm.demo.model.User;
 import com.usst.spm.demo.repository.AssignmentFileRepository;
 import com.usst.spm.demo.repository.AssignmentRepository;
 import com.usst.spm.demo.repository.FileRepository;
@@ -25,16 +26,23 @@ import com.usst.spm.demo.repository.GradeHistoryRepository;
 import com.usst.spm.demo.repository.GradeRepository;
 import com.usst.spm.demo.repository.SubmissionFileRepository;
 import com.usst.spm.demo.repository.SubmissionRepository;
-import com.usst.spm.demo.repository.UserRepository;
 import com.usst.spm.demo.util.AssignmentStateMachine;
+import com.usst.spm.demo.util.LongObjectMap;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -47,7 +55,18 @@ public class AssignmentService {
     private final SubmissionFileRepository submissionFileRepository;
     private final AssignmentFileRepository assignmentFileRepository;
     private final GradeHistoryRepository gradeHistoryRepository;
-    private final UserRepository userRepository;
+    private final UserSummaryCache userSummaryCache;
+    private final AssignmentStatsCache assignmentStatsCache;
+    private final StudentGradesCache studentGradesCache;
+    private final AssignmentDeadlineScheduler deadlineScheduler;
+    private final AssignmentVersionAllocator versionAllocator;
+    private final GradeStatisticsEngine gradeStatistics;
+    private final SimilarityDetectionService similarityDetectionService;
+    private final SubmissionContentStore contentStore;
+    private final FileBlobStore fileBlobStore;
+
+    private static final Set<String> ROSTER_FILTERS = Set.of("all", "submitted", "ungraded", "not_submitted");
+    public static final int MAX_ROSTER_PAGE_SIZE = 500;
 
     public AssignmentService(
             AssignmentRepository assignmentRepository,
@@ -57,7 +76,15 @@ public class AssignmentService {
             SubmissionFileRepository submissionFileRepository,
             AssignmentFileRepository assignmentFileRepository,
             GradeHistoryRepository gradeHistoryRepository,
-            UserRepository userRepository) {
+            UserSummaryCache userSummaryCache,
+            AssignmentStatsCache assignmentStatsCache,
+            StudentGradesCache studentGradesCache,
+            AssignmentDeadlineScheduler deadlineScheduler,
+            AssignmentVersionAllocator versionAllocator,
+            GradeStatisticsEngine gradeStatistics,
+            SimilarityDetectionService similarityDetectionService,
+            SubmissionContentStore contentStore,
+            FileBlobStore fileBlobStore) {
         this.assignmentRepository = assignmentRepository;
         this.submissionRepository = submissionRepository;
         this.gradeRepository = gradeRepository;
@@ -65,56 +92,65 @@ public class AssignmentService {
         this.submissionFileRepository = submissionFileRepository;
         this.assignmentFileRepository = assignmentFileRepository;
         this.gradeHistoryRepository = gradeHistoryRepository;
-        this.userRepository = userRepository;
+        this.userSummaryCache = userSummaryCache;
+        this.assignmentStatsCache = assignmentStatsCache;
+        this.studentGradesCache = studentGradesCache;
+        this.deadlineScheduler = deadlineScheduler;
+        this.versionAllocator = versionAllocator;
+        this.gradeStatistics = gradeStatistics;
+        this.similarityDetectionService = similarityDetectionService;
+        this.contentStore = contentStore;
+        this.fileBlobStore = fileBlobStore;
     }
 
     /**
-     * 获取作业列表（学生视角，包含提交状态和成绩）
+     * 获取作业列表（教师视角，带提交/批改统计）
+     * 统计数据来自按课程缓存的一次分组查询，不再逐作业、逐提交查询
      */
-    public List<AssignmentResponse> getAssignments(Long courseId, Long studentId, String statusFilter) {
+    public List<AssignmentResponse> getTeacherAssignments(Long courseId) {
         if (courseId == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "缺少课程ID");
         }
+        AssignmentStatsCache.CourseStats stats = assignmentStatsCache.get(courseId);
         List<Assignment> assignments = assignmentRepository.findByCourseIdAndDeleted(courseId, 0);
-        
+
         return assignments.stream()
                 .map(assignment -> {
                     AssignmentResponse response = convertToResponse(assignment);
-                    
-                    // 查询学生的提交记录
-                    Optional<Submission> submissionOpt = submissionRepository
-                            .findActiveByAssignmentIdAndStudentId(assignment.getId(), studentId);
-                    
-                    if (submissionOpt.isPresent()) {
-                        Submission submission = submissionOpt.get();
-                        response.setSubmittedAt(submission.getSubmittedAt());
-                        
-                        // 查询成绩
-                        Optional<Grade> gradeOpt = gradeRepository.findBySubmissionIdAndDeleted(submission.getId(), 0);
-                        if (gradeOpt.isPresent() && Boolean.TRUE.equals(gradeOpt.get().getReleased())) {
-                            Grade grade = gradeOpt.get();
-                            response.setScore(grade.getScore());
-                            response.setFeedback(grade.getFeedback());
-                            response.setSubmissionStatus("graded");
-                        } else {
-                            response.setSubmissionStatus("submitted");
-                        }
-                    } else {
-                        // 判断是否已截止
-                        if (assignment.getDueAt() != null && assignment.getDueAt().isBefore(LocalDateTime.now())) {
-                            response.setSubmissionStatus("ended");
-                        } else {
-                            response.setSubmissionStatus("progress");
-                        }
-                    }
-                    
+                    response.setTotalStudents(stats.getTotalStudents());
+                    response.setSubmissionCount(stats.getSubmittedCount(assignment.getId()));
+                    // 已批改人数：有成绩且已发布的
+                    response.setGradedCount(stats.getReleasedCount(assignment.getId()));
+                    response.setScoredCount(stats.getGradedCount(assignment.getId()));
+                    response.setLateCount(stats.getLateCount(assignment.getId()));
                     return response;
                 })
-                .filter(response -> {
-                    if (statusFilter == null || statusFilter.equals("all")) {
-                        return true;
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 获取作业列表（学生视角，包含提交状态和成绩）
+     */
+    public List<AssignmentResponse> getAssignments(Long courseId, Long studentId, String statusFilter) {
+        if (courseId == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "缺少课程ID");
+        }
+        // 状态计算与筛选都在 SQL 中完成，查询次数与作业数量无关
+        String filter = (statusFilter == null || statusFilter.isBlank() || "all".equals(statusFilter))
+                ? null : statusFilter;
+        List<StudentAssignmentRow> rows = assignmentRepository
+                .findStudentAssignmentRows(courseId, studentId, filter, LocalDateTime.now());
+
+        return rows.stream()
+                .map(row -> {
+                    AssignmentResponse response = convertToResponse(row.getAssignment());
+                    response.setSubmittedAt(row.getSubmittedAt());
+                    response.setSubmissionStatus(row.getSubmissionStatus());
+                    if ("graded".equals(row.getSubmissionStatus())) {
+                        response.setScore(row.getScore());
+                        response.setFeedback(row.getFeedback());
                     }
-                    return statusFilter.equals(response.getSubmissionStatus());
+                    return response;
                 })
                 .collect(Collectors.toList());
     }
@@ -194,15 +230,21 @@ public class AssignmentService {
             }
             
             // 更新现有提交
-            submission.setContent(request.getContent());
             submission.setSubmittedAt(LocalDateTime.now());
             submission.setUpdatedAt(LocalDateTime.now());
             submission.setStatus("SUBMITTED");
             submission.setResubmitCount(currentResubmitCount + 1); // 增加重提交次数
+            contentStore.write(submission, request.getContent());
             submission = submissionRepository.save(submission);
+            assignmentStatsCache.evictCourse(assignment.getCourseId());
+            studentGradesCache.evictStudent(studentId);
+            // 内容已变化，相似度签名需重算
+            similarityDetectionService.evictSignature(assignmentId, submission.getId());
             
             // 处理文件关联
             if (request.getAttachmentIds() != null && !request.getAttachmentIds().isEmpty()) {
+                // 锁住附件并恢复已被孤儿回收的文件，数据已清除时 409
+                fileBlobStore.requireAttachable(request.getAttachmentIds());
                 // 删除旧的关联
                 List<SubmissionFile> oldFiles = submissionFileRepository.findBySubmissionIdAndDeleted(submission.getId(), 0);
                 for (SubmissionFile oldFile : oldFiles) {
@@ -219,19 +261,23 @@ public class AssignmentService {
                 }
             }
             
-            return convertToSubmissionResponse(submission);
+            return convertToSubmissionResponse(submission, request.getContent());
         } else {
             // 创建新提交
             Submission submission = new Submission();
             submission.setAssignmentId(assignmentId);
             submission.setStudentId(studentId);
-            submission.setContent(request.getContent());
             submission.setSubmittedAt(LocalDateTime.now());
             submission.setStatus("SUBMITTED");
             submission = submissionRepository.save(submission);
+            // 正文以提交ID为主键，新提交需先保存拿到ID；字数与摘要在事务提交时随实体一并写回
+            contentStore.write(submission, request.getContent());
+            assignmentStatsCache.evictCourse(assignment.getCourseId());
+            studentGradesCache.evictStudent(studentId);
             
             // 处理文件关联
             if (request.getAttachmentIds() != null && !request.getAttachmentIds().isEmpty()) {
+                fileBlobStore.requireAttachable(request.getAttachmentIds());
                 for (Long fileId : request.getAttachmentIds()) {
                     SubmissionFile submissionFile = new SubmissionFile();
                     submissionFile.setSubmissionId(submission.getId());
@@ -240,7 +286,7 @@ public class AssignmentService {
                 }
             }
             
-            return convertToSubmissionResponse(submission);
+            return convertToSubmissionResponse(submission, request.getContent());
         }
     }
 
@@ -252,7 +298,7 @@ public class AssignmentService {
                 .findActiveByAssignmentIdAndStudentId(assignmentId, studentId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "未找到提交记录"));
         
-        SubmissionResponse response = convertToSubmissionResponse(submission);
+        SubmissionResponse response = convertToSubmissionResponse(submission, contentStore.read(submission.getId()));
         
         // 查询成绩
         Optional<Grade> gradeOpt = gradeRepository.findBySubmissionIdAndDeleted(submission.getId(), 0);
@@ -266,6 +312,28 @@ public class AssignmentService {
         return response;
     }
 
+    /**
+     * 查看单个提交的完整内容（教师端批改详情，含学生姓名与学号、成绩），批改名单中只有字数与摘要
+     */
+    public SubmissionResponse getSubmissionDetail(Long assignmentId, Long submissionId) {
+        Submission submission = submissionRepository.findById(submissionId)
+                .filter(s -> assignmentId.equals(s.getAssignmentId()))
+                .filter(s -> s.getDeleted() == null || s.getDeleted() == 0)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "未找到提交记录"));
+
+        SubmissionResponse response = convertToSubmissionResponse(submission, contentStore.read(submissionId));
+        userSummaryCache.get(submission.getStudentId()).ifPresent(student -> {
+            response.setStudentName(student.name());
+            response.setStudentNo(student.studentNo());
+        });
+        gradeRepository.findBySubmissionIdAndDeleted(submissionId, 0).ifPresent(grade -> {
+            response.setScore(grade.getScore());
+            response.setFeedback(grade.getFeedback());
+            response.setReleased(Boolean.TRUE.equals(grade.getReleased()));
+        });
+        return response;
+    }
+
     /**
      * 教师批改作业（兼容旧接口，内部调用updateGrade）
      */
@@ -275,45 +343,160 @@ public class AssignmentService {
     }
 
     /**
-     * 获取我的所有成绩
+     * 作业批改名单（教师端）
+     * 以作业所属课程的选课学生为主，按学生ID keyset 分页：
+     * 1 条名单查询（选课 + 提交 + 成绩）+ 1 条附件关联 IN 查询 + 1 条文件 IN 查询
+     *
+     * @param filter         all / submitted / ungraded / not_submitted，为空视为 all
+     * @param afterStudentId 上一页最后一个学生ID，首页传 null
+     * @param size           每页条数
+     */
+    public List<Map<String, Object>> getSubmissionRoster(Long assignmentId, String filter,
+                                                         Long afterStudentId, int size) {
+        Assignment assignment = assignmentRepository.findById(assignmentId)
+                .filter(a -> a.getDeleted() == null || a.getDeleted() == 0)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "作业不存在"));
+
+        String normalizedFilter = filter == null || filter.isBlank() ? "all" : filter.trim().toLowerCase();
+        if (!ROSTER_FILTERS.contains(normalizedFilter)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "不支持的筛选条件: " + filter);
+        }
+        if (size <= 0 || size > MAX_ROSTER_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "分页大小需在 1~" + MAX_ROSTER_PAGE_SIZE + " 之间");
+        }
+
+        List<SubmissionRosterRow> rows = submissionRepository.findRoster(
+                assignment.getCourseId(), assignmentId,
+                afterStudentId != null ? afterStudentId : 0L,
+                normalizedFilter, PageRequest.of(0, size));
+
+        // 批量加载本页所有提交的附件
+        List<Long> submissionIds = rows.stream()
+                .filter(r -> r.getSubmission() != null)
+                .map(r -> r.getSubmission().getId())
+                .collect(Collectors.toList());
+        Map<Long, List<Map<String, Object>>> attachmentsBySubmission = new HashMap<>();
+        if (!submissionIds.isEmpty()) {
+            List<SubmissionFile> links = submissionFileRepository.findActiveBySubmissionIdIn(submissionIds);
+            Map<Long, File> files = new HashMap<>();
+            fileRepository.findAllById(links.stream().map(SubmissionFile::getFileId).collect(Collectors.toSet()))
+                    .forEach(f -> files.put(f.getId(), f));
+            for (SubmissionFile sf : links) {
+                File f = files.get(sf.getFileId());
+                if (f == null || (f.getDeleted() != null && f.getDeleted() != 0)) {
+                    continue;
+                }
+                Map<String, Object> fileInfo = new HashMap<>();
+                fileInfo.put("fileId", f.getId());
+                fileInfo.put("fileName", f.getFileName());
+                fileInfo.put("originalName", f.getOriginalName());
+                fileInfo.put("storagePath", f.getStoragePath());
+                attachmentsBySubmission.computeIfAbsent(sf.getSubmissionId(), k -> new ArrayList<>()).add(fileInfo);
+            }
+        }
+
+        List<Map<String, Object>> responses = new ArrayList<>(rows.size());
+        for (SubmissionRosterRow row : rows) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("studentId", row.getStudentId());
+            response.put("studentName", row.getStudentName() != null ? row.getStudentName() : "");
+            response.put("studentNo", row.getStudentNo() != null ? row.getStudentNo() : "");
+            response.put("assignmentId", assignmentId);
+
+            Submission submission = row.getSubmission();
+            if (submission != null) {
+                response.put("id", submission.getId());
+                // 列表只返回字数与摘要，完整内容通过提交详情接口获取
+                response.put("contentLength", submission.getContentLength() != null ? submission.getContentLength() : 0);
+                response.put("contentPreview", submission.getContentPreview() != null ? submission.getContentPreview() : "");
+                response.put("status", submission.getStatus() != null ? submission.getStatus() : "SUBMITTED");
+                response.put("submittedAt", submission.getSubmittedAt());
+                response.put("createdAt", submission.getCreatedAt());
+                response.put("resubmitCount", submission.getResubmitCount() != null ? submission.getResubmitCount() : 0);
+                response.put("attachments", attachmentsBySubmission.getOrDefault(submission.getId(), Collections.emptyList()));
+            } else {
+                response.put("id", null);
+                response.put("contentLength", 0);
+                response.put("contentPreview", "");
+                response.put("status", "NOT_SUBMITTED");
+                response.put("submittedAt", null);
+                response.put("createdAt", null);
+                response.put("resubmitCount", 0);
+                response.put("attachments", Collections.emptyList());
+            }
+
+            Grade grade = row.getGrade();
+            if (grade != null) {
+                response.put("score", grade.getScore());
+                response.put("feedback", grade.getFeedback() != null ? grade.getFeedback() : "");
+                response.put("released", grade.getReleased() != null ? grade.getReleased() : false);
+                response.put("graded", Boolean.TRUE.equals(grade.getReleased()));
+            } else {
+                response.put("score", null);
+                response.put("feedback", "");
+                response.put("released", false);
+                response.put("graded", false);
+            }
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    /**
+     * 获取我的所有成绩（按学生缓存，成绩变更/发布或提交后失效）
      */
     public List<AssignmentResponse> getMyGrades(Long studentId) {
+        return studentGradesCache.get(studentId, this::loadMyGrades);
+    }
+
+    /**
+     * 三条查询：学生提交、相关作业（findAllById）、成绩（IN），再按ID在内存中关联
+     */
+    private List<AssignmentResponse> loadMyGrades(Long studentId) {
         List<Submission> submissions = submissionRepository.findActiveByStudentId(studentId);
-        List<Long> submissionIds = submissions.stream()
-                .map(Submission::getId)
-                .collect(Collectors.toList());
-        
-        List<Grade> grades = gradeRepository.findBySubmissionIdInAndDeleted(submissionIds, 0);
-        
-        return submissions.stream()
-                .map(submission -> {
-                    Assignment assignment = assignmentRepository.findById(submission.getAssignmentId())
-                            .orElse(null);
-                    if (assignment == null) {
-                        return null;
-                    }
-                    
-                    AssignmentResponse response = convertToResponse(assignment);
-                    response.setSubmittedAt(submission.getSubmittedAt());
-                    
-                    Grade grade = grades.stream()
-                            .filter(g -> g.getSubmissionId().equals(submission.getId()))
-                            .filter(g -> Boolean.TRUE.equals(g.getReleased()))
-                            .findFirst()
-                            .orElse(null);
-                    
-                    if (grade != null) {
-                        response.setScore(grade.getScore());
-                        response.setFeedback(grade.getFeedback());
-                        response.setSubmissionStatus("graded");
-                    } else {
-                        response.setSubmissionStatus("submitted");
-                    }
-                    
-                    return response;
-                })
-                .filter(response -> response != null)
-                .collect(Collectors.toList());
+        if (submissions.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> assignmentIds = new HashSet<>();
+        List<Long> submissionIds = new ArrayList<>(submissions.size());
+        for (Submission submission : submissions) {
+            assignmentIds.add(submission.getAssignmentId());
+            submissionIds.add(submission.getId());
+        }
+
+        LongObjectMap<Assignment> assignmentById = new LongObjectMap<>(assignmentIds.size());
+        for (Assignment assignment : assignmentRepository.findAllById(assignmentIds)) {
+            assignmentById.put(assignment.getId(), assignment);
+        }
+        // 只关联已发布的成绩
+        LongObjectMap<Grade> releasedGradeBySubmission = new LongObjectMap<>(submissions.size());
+        for (Grade grade : gradeRepository.findBySubmissionIdInAndDeleted(submissionIds, 0)) {
+            if (Boolean.TRUE.equals(grade.getReleased())) {
+                releasedGradeBySubmission.put(grade.getSubmissionId(), grade);
+            }
+        }
+
+        List<AssignmentResponse> responses = new ArrayList<>(submissions.size());
+        for (Submission submission : submissions) {
+            Assignment assignment = assignmentById.get(submission.getAssignmentId());
+            if (assignment == null) {
+                continue;
+            }
+            AssignmentResponse response = convertToResponse(assignment);
+            response.setSubmittedAt(submission.getSubmittedAt());
+
+            Grade grade = releasedGradeBySubmission.get(submission.getId());
+            if (grade != null) {
+                response.setScore(grade.getScore());
+                response.setFeedback(grade.getFeedback());
+                response.setSubmissionStatus("graded");
+            } else {
+                response.setSubmissionStatus("submitted");
+            }
+            responses.add(response);
+        }
+        return responses;
     }
 
     /**
@@ -342,12 +525,13 @@ public class AssignmentService {
     /**
      * 转换 Submission 为 SubmissionResponse
      */
-    private SubmissionResponse convertToSubmissionResponse(Submission submission) {
+    private SubmissionResponse convertToSubmissionResponse(Submission submission, String content) {
         SubmissionResponse response = new SubmissionResponse();
         response.setId(submission.getId());
         response.setAssignmentId(submission.getAssignmentId());
         response.setStudentId(submission.getStudentId());
-        response.setContent(submission.getContent());
+        response.setContent(content);
+        response.setContentLength(submission.getContentLength());
         response.setStatus(submission.getStatus());
         response.setSubmittedAt(submission.getSubmittedAt());
         response.setCreatedAt(submission.getCreatedAt());
@@ -416,6 +600,7 @@ public class AssignmentService {
 
         // 处理附件
         if (request.getAttachmentIds() != null && !request.getAttachmentIds().isEmpty()) {
+            fileBlobStore.requireAttachable(request.getAttachmentIds());
             for (Long fileId : request.getAttachmentIds()) {
                 AssignmentFile assignmentFile = new AssignmentFile();
                 assignmentFile.setAssignmentId(assignment.getId());
@@ -512,9 +697,13 @@ public class AssignmentService {
         assignment.setUpdatedBy(teacherId);
         assignment.setUpdatedAt(LocalDateTime.now());
         assignment = assignmentRepository.save(assignment);
+        studentGradesCache.evictAll();
+        deadlineScheduler.track(assignment);
+        gradeStatistics.invalidate(assignment.getId());
 
         // 处理附件
         if (request.getAttachmentIds() != null) {
+            fileBlobStore.requireAttachable(request.getAttachmentIds());
             // 删除旧的附件关联
             List<AssignmentFile> oldFiles = assignmentFileRepository.findByAssignmentIdAndDeleted(assignmentId, 0);
             for (AssignmentFile oldFile : oldFiles) {
@@ -559,6 +748,9 @@ public class AssignmentService {
             assignment.setUpdatedBy(teacherId);
             assignment.setUpdatedAt(LocalDateTime.now());
             assignmentRepository.save(assignment);
+            studentGradesCache.evictAll();
+            deadlineScheduler.track(assignment);
+            gradeStatistics.invalidate(assignment.getId());
             return;
         }
         
@@ -576,6 +768,9 @@ public class AssignmentService {
             assignment.setUpdatedBy(teacherId);
             assignment.setUpdatedAt(LocalDateTime.now());
             assignmentRepository.save(assignment);
+            studentGradesCache.evictAll();
+            deadlineScheduler.track(assignment);
+            gradeStatistics.invalidate(assignment.getId());
             return;
         }
         
@@ -592,6 +787,9 @@ public class AssignmentService {
             assignment.setUpdatedBy(teacherId);
             assignment.setUpdatedAt(LocalDateTime.now());
             assignmentRepository.save(assignment);
+            studentGradesCache.evictAll();
+            deadlineScheduler.track(assignment);
+            gradeStatistics.invalidate(assignment.getId());
             return;
         }
         
@@ -677,6 +875,8 @@ public class AssignmentService {
         assignment.setUpdatedBy(teacherId); // 记录更新人
         assignment.setUpdatedAt(LocalDateTime.now());
         assignment = assignmentRepository.save(assignment);
+        studentGradesCache.evictAll();
+        deadlineScheduler.track(assignment);
 
         return convertToResponse(assignment);
     }
@@ -705,6 +905,8 @@ public class AssignmentService {
         assignment.setUpdatedBy(teacherId); // 记录更新人
         assignment.setUpdatedAt(LocalDateTime.now());
         assignment = assignmentRepository.save(assignment);
+        studentGradesCache.evictAll();
+        deadlineScheduler.track(assignment);
 
         return convertToResponse(assignment);
     }
@@ -717,7 +919,7 @@ public class AssignmentService {
      * 1. 原作业必须是PUBLISHED或CLOSED状态（DRAFT不需要重新发布）
      * 2. 如果原作业未截止但要重新发布，需要记录原因
      * 3. 创建新记录：origin_id = 原作业的origin_id（如果原作业已有origin_id，则沿用；否则origin_id = 原作业id）
-     * 4. version = 同一origin_id下的最大version + 1
+     * 4. version 由 AssignmentVersionAllocator 按链路计数器原子分配（首次为链路上最大 version + 1）
      * 5. 状态设为DRAFT或PUBLISHED（取决于publishImmediately参数）
      * 6. 旧版本的提交记录保留且仍关联旧assignment_id
      */
@@ -750,17 +952,8 @@ public class AssignmentService {
         // 4. 确定origin_id：如果原作业已有origin_id，则沿用；否则origin_id = 原作业id
         Long originId = original.getOriginId() != null ? original.getOriginId() : original.getId();
 
-        // 5. 查询同一origin_id下的最大版本号（并发安全：在事务中查询并+1）
-        List<Assignment> existingVersions = assignmentRepository.findByOriginIdAndDeletedOrderByVersionDesc(originId, 0);
-        int newVersionNumber = 1;
-        if (!existingVersions.isEmpty()) {
-            // 找到最大版本号
-            int maxVersion = existingVersions.stream()
-                    .mapToInt(a -> a.getVersion() != null ? a.getVersion() : 1)
-                    .max()
-                    .orElse(1);
-            newVersionNumber = maxVersion + 1;
-        }
+        // 5. 分配版本号：计数器行原子 +1，并发重新发布串行于该行锁，不会拿到重复版本
+        int newVersionNumber = versionAllocator.nextVersion(originId);
 
         // 6. 创建新版本的作业
         Assignment newVersionAssignment = new Assignment();
@@ -805,6 +998,7 @@ public class AssignmentService {
         newVersionAssignment.setUpdatedBy(teacherId);
 
         newVersionAssignment = assignmentRepository.save(newVersionAssignment);
+        deadlineScheduler.track(newVersionAssignment);
 
         // 7. 处理附件
         if (Boolean.TRUE.equals(request.getInheritAttachments())) {
@@ -818,6 +1012,7 @@ public class AssignmentService {
             }
         } else if (request.getAttachmentIds() != null && !request.getAttachmentIds().isEmpty()) {
             // 使用新的附件列表
+            fileBlobStore.requireAttachable(request.getAttachmentIds());
             for (Long fileId : request.getAttachmentIds()) {
                 AssignmentFile newFile = new AssignmentFile();
                 newFile.setAssignmentId(newVersionAssignment.getId());
@@ -866,6 +1061,8 @@ public class AssignmentService {
         }
 
         Optional<Grade> gradeOpt = gradeRepository.findBySubmissionIdAndDeleted(submissionId, 0);
+        assignmentStatsCache.evictCourse(assignment.getCourseId());
+        studentGradesCache.evictStudent(submission.getStudentId());
         Grade grade;
         if (gradeOpt.isPresent()) {
             grade = gradeOpt.get();
@@ -913,6 +1110,7 @@ public class AssignmentService {
             history.setOperatorRole(operatorRole != null ? operatorRole : "TEACHER");
             gradeHistoryRepository.save(history);
         }
+        gradeStatistics.recordScore(assignment.getId(), grade.getId(), grade.getScore());
 
         return grade;
     }
@@ -935,6 +1133,8 @@ public class AssignmentService {
 
         List<GradeHistory> histories = gradeHistoryRepository
                 .findBySubmissionIdAndDeletedOrderByChangedAtDesc(submissionId, 0);
+        Map<Long, UserSummaryCache.UserSummary> operators = userSummaryCache.getAll(
+                histories.stream().map(GradeHistory::getOperatorId).collect(Collectors.toSet()));
 
         return histories.stream().map(h -> {
             GradeHistoryResponse r = new GradeHistoryResponse();
@@ -949,8 +1149,8 @@ public class AssignmentService {
             r.setOperatorId(h.getOperatorId());
             r.setOperatorRole(h.getOperatorRole());
             r.setChangedAt(h.getChangedAt());
-            Optional<User> op = userRepository.findById(h.getOperatorId());
-            r.setOperatorName(op.map(User::getName).orElse("未知"));
+            UserSummaryCache.UserSummary op = operators.get(h.getOperatorId());
+            r.setOperatorName(op != null ? op.name() : "未知");
             return r;
         }).collect(Collectors.toList());
     }
@@ -973,6 +1173,8 @@ public class AssignmentService {
 
         // 查找现有成绩
         Optional<Grade> existingGradeOpt = gradeRepository.findBySubmissionIdAndDeleted(submissionId, 0);
+        assignmentStatsCache.evictByAssignment(assignmentId);
+        studentGradesCache.evictStudent(submission.getStudentId());
 
         if (existingGradeOpt.isPresent()) {
             // 更新现有成绩，记录历史
@@ -990,9 +1192,9 @@ public class AssignmentService {
             history.setChangeReason(request.getChangeReason() != null ? request.getChangeReason() : "成绩修改");
             history.setOperatorId(teacherId);
             // 获取操作人角色
-            Optional<User> operatorOpt = userRepository.findById(teacherId);
+            Optional<UserSummaryCache.UserSummary> operatorOpt = userSummaryCache.get(teacherId);
             if (operatorOpt.isPresent()) {
-                history.setOperatorRole(operatorOpt.get().getRole());
+                history.setOperatorRole(operatorOpt.get().role());
             } else {
                 history.setOperatorRole("TEACHER"); // 默认
             }
@@ -1005,7 +1207,9 @@ public class AssignmentService {
             grade.setChangeReason(request.getChangeReason());
             grade.setUpdatedAt(LocalDateTime.now());
             // 注意：Grade实体如果有updated_by字段，也需要设置
-            return gradeRepository.save(grade);
+            grade = gradeRepository.save(grade);
+            gradeStatistics.recordScore(assignmentId, grade.getId(), grade.getScore());
+            return grade;
         } else {
             // 创建新成绩（首次批改）
             Grade grade = new Grade();
@@ -1015,7 +1219,9 @@ public class AssignmentService {
             grade.setFeedback(request.getFeedback());
             grade.setReleased(Boolean.TRUE.equals(request.getReleased()));
             grade.setChangeReason(request.getChangeReason());
-            return gradeRepository.save(grade);
+            grade = gradeRepository.save(grade);
+            gradeStatistics.recordScore(assignmentId, grade.getId(), grade.getScore());
+            return grade;
         }
     }
 
@@ -0,0 +1,117 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.AssignmentSubmissionStats;
+import com.usst.spm.demo.repository.CourseEnrollmentRepository;
+import com.usst.spm.demo.repository.SubmissionRepository;
+import com.usst.spm.demo.util.TransactionHooks;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 教师端作业统计缓存（按课程）
+ * 一门课程的所有作业统计由一次分组查询加载，提交或批改后按课程失效
+ */
+@Component
+public class AssignmentStatsCache {
+
+    private final SubmissionRepository submissionRepository;
+    private final CourseEnrollmentRepository courseEnrollmentRepository;
+
+    // courseId -> 课程统计快照
+    private final ConcurrentHashMap<Long, CourseStats> cache = new ConcurrentHashMap<>();
+    // assignmentId -> courseId，用于只知道作业ID的写路径定位要失效的课程
+    private final ConcurrentHashMap<Long, Long> assignmentCourse = new ConcurrentHashMap<>();
+
+    public AssignmentStatsCache(SubmissionRepository submissionRepository,
+                                CourseEnrollmentRepository courseEnrollmentRepository) {
+        this.submissionRepository = submissionRepository;
+        this.courseEnrollmentRepository = courseEnrollmentRepository;
+    }
+
+    /**
+     * 获取课程统计，未命中时加载（2 条查询：选课人数 + 分组统计）
+     */
+    public CourseStats get(Long courseId) {
+        return cache.computeIfAbsent(courseId, this::load);
+    }
+
+    /**
+     * 按课程失效（事务提交后执行，避免并发读把未提交前的旧数据重新写回缓存）
+     */
+    public void evictCourse(Long courseId) {
+        if (courseId == null) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> cache.remove(courseId));
+    }
+
+    /**
+     * 按作业失效其所属课程
+     */
+    public void evictByAssignment(Long assignmentId) {
+        if (assignmentId == null) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            Long courseId = assignmentCourse.get(assignmentId);
+            if (courseId != null) {
+                cache.remove(courseId);
+            }
+        });
+    }
+
+    private CourseStats load(Long courseId) {
+        long totalStudents = courseEnrollmentRepository.countActiveByCourseId(courseId);
+        Map<Long, AssignmentSubmissionStats> byAssignment = new HashMap<>();
+        for (AssignmentSubmissionStats stats : submissionRepository.countStatsByCourseId(courseId)) {
+            byAssignment.put(stats.getAssignmentId(), stats);
+            assignmentCourse.put(stats.getAssignmentId(), courseId);
+        }
+        return new CourseStats((int) totalStudents, Collections.unmodifiableMap(byAssignment));
+    }
+
+    /**
+     * 课程统计快照（不可变）
+     */
+    public static class CourseStats {
+        private final int totalStudents;
+        private final Map<Long, AssignmentSubmissionStats> byAssignment;
+
+        CourseStats(int totalStudents, Map<Long, AssignmentSubmissionStats> byAssignment) {
+            this.totalStudents = totalStudents;
+            this.byAssignment = byAssignment;
+        }
+
+        public int getTotalStudents() {
+            return totalStudents;
+        }
+
+        public int getSubmittedCount(Long assignmentId) {
+            AssignmentSubmissionStats stats = byAssignment.get(assignmentId);
+            return stats != null ? toInt(stats.getSubmittedCount()) : 0;
+        }
+
+        public int getGradedCount(Long assignmentId) {
+            AssignmentSubmissionStats stats = byAssignment.get(assignmentId);
+            return stats != null ? toInt(stats.getGradedCount()) : 0;
+        }
+
+        public int getReleasedCount(Long assignmentId) {
+            AssignmentSubmissionStats stats = byAssignment.get(assignmentId);
+            return stats != null ? toInt(stats.getReleasedCount()) : 0;
+        }
+
+        public int getLateCount(Long assignmentId) {
+            AssignmentSubmissionStats stats = byAssignment.get(assignmentId);
+            return stats != null ? toInt(stats.getLateCount()) : 0;
+        }
+
+        private static int toInt(Long value) {
+            return value != null ? value.intValue() : 0;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.repository.AssignmentVersionCounterRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * 作业版本号分配器
+ * 每条链路一行计数器，常规路径一条 UPDATE（+1）加一条按主键读取，与链路上已有版本数量无关；
+ * 计数器行锁保证并发重新发布拿到不同的版本号，assignments(origin_id, version) 唯一索引兜底。
+ */
+@Component
+public class AssignmentVersionAllocator {
+
+    private final AssignmentVersionCounterRepository counterRepository;
+
+    public AssignmentVersionAllocator(AssignmentVersionCounterRepository counterRepository) {
+        this.counterRepository = counterRepository;
+    }
+
+    /**
+     * 为作业链路分配下一个版本号，需在调用方事务内执行（行锁随事务提交释放）
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int nextVersion(Long originId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (counterRepository.increment(originId, now) == 0) {
+            counterRepository.seed(originId, now);
+            counterRepository.increment(originId, now);
+        }
+        return counterRepository.findCurrentVersion(originId);
+    }
+}
@@ -8,12 +8,9 @@ import com.usst.spm.demo.dto.AttendanceCheckinResponse;
 import com.usst.spm.demo.dto.AttendanceCheckinRequest;
 import com.usst.spm.demo.model.AttendanceRecord;
 import com.usst.spm.demo.model.AttendanceSession;
-import com.usst.spm.demo.model.User;
 import com.usst.spm.demo.repository.AttendanceRecordRepository;
 import com.usst.spm.demo.repository.AttendanceSessionRepository;
-import com.usst.spm.demo.repository.UserRepository;
-import com.usst.spm.demo.repository.CourseEnrollmentRepository;
-import com.usst.spm.demo.repository.CourseRepository;
+import com.usst.spm.demo.util.AuthenticatedPrincipal;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -30,27 +27,22 @@ public class AttendanceService {
 
     private final AttendanceSessionRepository sessionRepository;
     private final AttendanceRecordRepository recordRepository;
-    private final UserRepository userRepository;
-    private final CourseEnrollmentRepository courseEnrollmentRepository;
-    private final CourseRepository courseRepository;
+    private final UserSummaryCache userSummaryCache;
+    private final CourseMembershipService courseMembership;
     private final Random random = new Random();
 
     public AttendanceService(AttendanceSessionRepository sessionRepository,
                              AttendanceRecordRepository recordRepository,
-                             UserRepository userRepository,
-                             CourseEnrollmentRepository courseEnrollmentRepository,
-                             CourseRepository courseRepository) {
+                             UserSummaryCache userSummaryCache,
+                             CourseMembershipService courseMembership) {
         this.sessionRepository = sessionRepository;
         this.recordRepository = recordRepository;
-        this.userRepository = userRepository;
-        this.courseEnrollmentRepository = courseEnrollmentRepository;
-        this.courseRepository = courseRepository;
+        this.userSummaryCache = userSummaryCache;
+        this.courseMembership = courseMembership;
     }
 
-    private boolean isTeacherOrAdmin(User user) {
-        if (user == null) return false;
-        String role = user.getRole();
-        return "TEACHER".equalsIgnoreCase(role) || "ADMIN".equalsIgnoreCase(role);
+    private boolean isTeacherOrAdmin(AuthenticatedPrincipal user) {
+        return user != null && user.isTeacherOrAdmin();
     }
 
     private String generateCode(Long courseId) {
@@ -66,7 +58,7 @@ public class AttendanceService {
         return String.format("%04d", random.nextInt(10000));
     }
 
-    private void requireTeacherOfCourse(User currentUser, Long courseId) {
+    private void requireTeacherOfCourse(AuthenticatedPrincipal currentUser, Long courseId) {
         if (currentUser == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "未登录");
         }
@@ -76,17 +68,17 @@ public class AttendanceService {
         if (courseId == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "缺少课程ID");
         }
-        if ("ADMIN".equalsIgnoreCase(currentUser.getRole())) {
+        if ("ADMIN".equalsIgnoreCase(currentUser.role())) {
             return; // 管理员放行
         }
-        courseRepository.findById(courseId).ifPresent(c -> {
-            if (c.getTeacherId() != null && !c.getTeacherId().equals(currentUser.getId())) {
+        courseMembership.get(courseId).ifPresent(members -> {
+            if (members.getTeacherId() != null && !courseMembership.isTeacher(courseId, currentUser.userId())) {
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN, "只能管理自己负责的课程");
             }
         });
     }
 
-    public AttendanceSessionResponse createSession(User currentUser, AttendanceSessionCreateRequest request) {
+    public AttendanceSessionResponse createSession(AuthenticatedPrincipal currentUser, AttendanceSessionCreateRequest request) {
         if (!isTeacherOrAdmin(currentUser)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "无权限");
         }
@@ -126,7 +118,7 @@ public class AttendanceService {
 
         AttendanceSession session = new AttendanceSession();
         session.setCourseId(courseId);
-        session.setTeacherId(currentUser.getId());
+        session.setTeacherId(currentUser.userId());
         session.setTitle(request.getTitle());
         session.setCode(code);
         session.setStatus("ACTIVE");
@@ -137,7 +129,7 @@ public class AttendanceService {
         return toSessionResponse(saved);
     }
 
-    public AttendanceSessionResponse endSession(User currentUser, Long sessionId) {
+    public AttendanceSessionResponse endSession(AuthenticatedPrincipal currentUser, Long sessionId) {
         AttendanceSession session = sessionRepository.findById(sessionId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "签到不存在"));
         // 校验教师是否为该课程任课教师
@@ -150,7 +142,7 @@ public class AttendanceService {
         return toSessionResponse(saved);
     }
 
-    public Page<AttendanceSessionResponse> listSessions(User currentUser, Long courseId, int page, int size) {
+    public Page<AttendanceSessionResponse> listSessions(AuthenticatedPrincipal currentUser, Long courseId, int page, int size) {
         if (courseId == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "缺少课程ID");
         }
@@ -160,16 +152,18 @@ public class AttendanceService {
         return data.map(this::toSessionResponse);
     }
 
-    public Page<AttendanceRecordResponse> listRecords(User currentUser, Long sessionId, int page, int size) {
+    public Page<AttendanceRecordResponse> listRecords(AuthenticatedPrincipal currentUser, Long sessionId, int page, int size) {
         AttendanceSession session = sessionRepository.findById(sessionId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "签到不存在"));
         requireTeacherOfCourse(currentUser, session.getCourseId());
         Page<AttendanceRecord> data = recordRepository.findBySessionIdOrderByCheckinAtDesc(
                 sessionId, PageRequest.of(page, size));
+        // 本页学生一次批量加载，逐条转换时直接命中缓存
+        userSummaryCache.getAll(data.map(AttendanceRecord::getStudentId).getContent());
         return data.map(this::toRecordResponse);
     }
 
-    public AttendanceStatsResponse getStats(User currentUser, Long sessionId) {
+    public AttendanceStatsResponse getStats(AuthenticatedPrincipal currentUser, Long sessionId) {
         AttendanceSession session = sessionRepository.findById(sessionId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "签到不存在"));
         requireTeacherOfCourse(currentUser, session.getCourseId());
@@ -180,12 +174,12 @@ public class AttendanceService {
         return resp;
     }
 
-    public Page<AttendanceRecordResponse> listMyRecords(User student, int page, int size) {
+    public Page<AttendanceRecordResponse> listMyRecords(AuthenticatedPrincipal student, int page, int size) {
         if (student == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "未登录");
         }
         Page<AttendanceRecord> data = recordRepository.findByStudentIdOrderByCheckinAtDesc(
-                student.getId(), PageRequest.of(page, size));
+                student.userId(), PageRequest.of(page, size));
         return data.map(this::toRecordResponse);
     }
 
@@ -212,9 +206,9 @@ public class AttendanceService {
         resp.setResult(record.getResult());
         resp.setRemark(record.getRemark());
 
-        userRepository.findById(record.getStudentId()).ifPresent(user -> {
-            resp.setStudentName(user.getName());
-            resp.setStudentNo(user.getStudentNo());
+        userSummaryCache.get(record.getStudentId()).ifPresent(user -> {
+            resp.setStudentName(user.name());
+            resp.setStudentNo(user.studentNo());
         });
         return resp;
     }
@@ -222,11 +216,11 @@ public class AttendanceService {
     /**
      * 学生签到
      */
-    public AttendanceCheckinResponse checkin(User student, String code, Long courseId) {
+    public AttendanceCheckinResponse checkin(AuthenticatedPrincipal student, String code, Long courseId) {
         if (student == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "未登录");
         }
-        if (!"STUDENT".equalsIgnoreCase(student.getRole())) {
+        if (!"STUDENT".equalsIgnoreCase(student.role())) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "仅学生可签到");
         }
         if (code == null || !code.matches("^\\d{4}$")) {
@@ -235,11 +229,7 @@ public class AttendanceService {
         if (courseId == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "缺少课程ID");
         }
-        boolean enrolled = courseEnrollmentRepository
-                .findByCourseIdAndStudentIdAndDeleted(courseId, student.getId(), 0)
-                .filter(en -> en.getStatus() == null || "ACTIVE".equals(en.getStatus()))
-                .isPresent();
-        if (!enrolled) {
+        if (!courseMembership.isMember(courseId, student.userId())) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "未加入该课程");
         }
 
@@ -259,14 +249,14 @@ public class AttendanceService {
         }
 
         // 防重复
-        boolean exists = recordRepository.findBySessionIdAndStudentId(session.getId(), student.getId()).isPresent();
+        boolean exists = recordRepository.findBySessionIdAndStudentId(session.getId(), student.userId()).isPresent();
         if (exists) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "重复签到");
         }
 
         AttendanceRecord record = new AttendanceRecord();
         record.setSessionId(session.getId());
-        record.setStudentId(student.getId());
+        record.setStudentId(student.userId());
         record.setStatus("PRESENT");
         record.setResult("SUCCESS");
         record.setCheckinAt(now);
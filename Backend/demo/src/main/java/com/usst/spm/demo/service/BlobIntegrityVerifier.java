@@ -0,0 +1,131 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.model.FileBlob;
+import com.usst.spm.demo.repository.FileBlobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据块完整性后台校验
+ * 每轮按上次校验时间从早到晚取数据块重新计算 SHA-256，读满本轮字节预算即停，下轮接着校验，
+ * 全部数据块依次轮转；摘要不符标记为 CORRUPT，文件丢失标记为 MISSING。
+ */
+@Component
+public class BlobIntegrityVerifier {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobIntegrityVerifier.class);
+
+    private static final int BATCH_SIZE = 50;
+
+    private final FileBlobRepository blobRepository;
+    private final StorageBackend storage;
+    private final long intervalMinutes;
+    private final long bytesPerRun;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "blob-verifier");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public BlobIntegrityVerifier(FileBlobRepository blobRepository,
+                                 StorageBackend storage,
+                                 @Value("${spm.storage.verify-interval-minutes:10}") long intervalMinutes,
+                                 @Value("${spm.storage.verify-bytes-per-run:256MB}") DataSize bytesPerRun) {
+        this.blobRepository = blobRepository;
+        this.storage = storage;
+        this.intervalMinutes = intervalMinutes;
+        this.bytesPerRun = bytesPerRun.toBytes();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (intervalMinutes > 0) {
+            executor.scheduleWithFixedDelay(this::runSafely, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void runSafely() {
+        try {
+            verifyBatch(bytesPerRun);
+        } catch (Exception e) {
+            log.warn("[blob-verify] run failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 校验一轮，返回本轮校验的数据块数
+     */
+    public int verifyBatch(long byteBudget) {
+        long bytes = 0;
+        int verified = 0;
+        int total = (int) Math.min(Integer.MAX_VALUE, blobRepository.count());
+        while (bytes < byteBudget && verified < total) {
+            List<FileBlob> batch = blobRepository.findVerifyBatch(PageRequest.of(0, BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (FileBlob blob : batch) {
+                if (bytes >= byteBudget || verified >= total) {
+                    break;
+                }
+                String status = check(blob);
+                blobRepository.markVerified(blob.getDigest(), status, LocalDateTime.now());
+                if (!FileBlob.STATUS_OK.equals(status)) {
+                    log.warn("[blob-verify] blob {} at {} is {}", blob.getDigest(), blob.getStoragePath(), status);
+                }
+                bytes += blob.getSize() != null ? blob.getSize() : 0;
+                verified++;
+            }
+        }
+        if (verified > 0) {
+            log.debug("[blob-verify] verified {} blobs, {} bytes", verified, bytes);
+        }
+        return verified;
+    }
+
+    private String check(FileBlob blob) {
+        String key = blob.getStoragePath();
+        try {
+            Optional<StorageBackend.ObjectStat> stat = storage.stat(key);
+            if (stat.isEmpty()) {
+                return FileBlob.STATUS_MISSING;
+            }
+            if (stat.get().size() != blob.getSize()) {
+                return FileBlob.STATUS_CORRUPT;
+            }
+            String digest;
+            try (InputStream in = storage.get(key)) {
+                digest = FileBlobStore.digestOf(in);
+            }
+            return blob.getDigest().equals(digest) ? FileBlob.STATUS_OK : FileBlob.STATUS_CORRUPT;
+        } catch (NoSuchFileException e) {
+            return FileBlob.STATUS_MISSING;
+        } catch (IOException e) {
+            log.warn("[blob-verify] cannot read {}: {}", key, e.getMessage());
+            return FileBlob.STATUS_CORRUPT;
+        }
+    }
+}
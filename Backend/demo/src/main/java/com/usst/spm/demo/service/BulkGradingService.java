@@ -0,0 +1,292 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.BulkGradeRequest;
+import com.usst.spm.demo.dto.BulkGradeResponse;
+import com.usst.spm.demo.model.Assignment;
+import com.usst.spm.demo.model.Grade;
+import com.usst.spm.demo.model.Submission;
+import com.usst.spm.demo.repository.AssignmentRepository;
+import com.usst.spm.demo.repository.GradeRepository;
+import com.usst.spm.demo.repository.SubmissionRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 批量批改
+ * 校验只做集合查询（提交、现有成绩各一次），成绩与成绩历史用 JDBC 批量写入，整批在同一事务中完成
+ */
+@Service
+public class BulkGradingService {
+
+    public static final int MAX_BULK_SIZE = 1000;
+
+    private static final String INSERT_GRADE_SQL =
+            "INSERT INTO grades (submission_id, scorer_id, score, feedback, change_reason, released, "
+            + "created_at, updated_at, deleted) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String UPDATE_GRADE_SQL =
+            "UPDATE grades SET score = ?, feedback = ?, change_reason = ?, released = ?, updated_at = ? WHERE id = ?";
+
+    private static final String INSERT_HISTORY_SQL =
+            "INSERT INTO grade_history (grade_id, submission_id, scorer_id, old_score, new_score, old_feedback, "
+            + "new_feedback, change_reason, operator_id, operator_role, changed_at, created_at, deleted) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AssignmentRepository assignmentRepository;
+    private final SubmissionRepository submissionRepository;
+    private final GradeRepository gradeRepository;
+    private final AssignmentStatsCache assignmentStatsCache;
+    private final StudentGradesCache studentGradesCache;
+    private final GradeStatisticsEngine gradeStatistics;
+
+    public BulkGradingService(JdbcTemplate jdbcTemplate,
+                              AssignmentRepository assignmentRepository,
+                              SubmissionRepository submissionRepository,
+                              GradeRepository gradeRepository,
+                              AssignmentStatsCache assignmentStatsCache,
+                              StudentGradesCache studentGradesCache,
+                              GradeStatisticsEngine gradeStatistics) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.assignmentRepository = assignmentRepository;
+        this.submissionRepository = submissionRepository;
+        this.gradeRepository = gradeRepository;
+        this.assignmentStatsCache = assignmentStatsCache;
+        this.studentGradesCache = studentGradesCache;
+        this.gradeStatistics = gradeStatistics;
+    }
+
+    /**
+     * 待写入的一行成绩（existing 为 null 表示新建）
+     */
+    private static class PendingGrade {
+        final Long submissionId;
+        final Grade existing;
+        final Integer score;
+        final String feedback;
+        final boolean released;
+        final BulkGradeResponse.Result result;
+        Long gradeId;
+
+        PendingGrade(Long submissionId, Grade existing, Integer score, String feedback, boolean released,
+                     BulkGradeResponse.Result result) {
+            this.submissionId = submissionId;
+            this.existing = existing;
+            this.score = score;
+            this.feedback = feedback;
+            this.released = released;
+            this.result = result;
+            this.gradeId = existing != null ? existing.getId() : null;
+        }
+    }
+
+    /**
+     * 批量批改某作业下的提交，单行校验失败不影响其他行
+     */
+    @Transactional
+    public BulkGradeResponse bulkGrade(Long assignmentId, BulkGradeRequest request, Long operatorId, String operatorRole) {
+        if (request == null || request.getGrades() == null || request.getGrades().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "成绩列表不能为空");
+        }
+        if (request.getGrades().size() > MAX_BULK_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "单次最多批改 " + MAX_BULK_SIZE + " 条");
+        }
+        Assignment assignment = assignmentRepository.findById(assignmentId)
+                .filter(a -> a.getDeleted() == null || a.getDeleted() == 0)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "作业不存在"));
+        int totalScore = assignment.getTotalScore() != null ? assignment.getTotalScore() : 100;
+        String reason = request.getChangeReason() != null && !request.getChangeReason().isBlank()
+                ? request.getChangeReason() : "批量批改";
+        String role = operatorRole != null ? operatorRole : "TEACHER";
+
+        // 集合校验：一次查提交，一次查现有成绩
+        Set<Long> submissionIds = new HashSet<>();
+        for (BulkGradeRequest.Item item : request.getGrades()) {
+            if (item != null && item.getSubmissionId() != null) {
+                submissionIds.add(item.getSubmissionId());
+            }
+        }
+        Map<Long, Submission> submissions = new HashMap<>();
+        submissionRepository.findAllById(submissionIds).forEach(s -> submissions.put(s.getId(), s));
+        Map<Long, Grade> existingGrades = new HashMap<>();
+        if (!submissionIds.isEmpty()) {
+            for (Grade grade : gradeRepository.findBySubmissionIdInAndDeleted(new ArrayList<>(submissionIds), 0)) {
+                existingGrades.put(grade.getSubmissionId(), grade);
+            }
+        }
+
+        BulkGradeResponse response = new BulkGradeResponse();
+        List<PendingGrade> inserts = new ArrayList<>();
+        List<PendingGrade> updates = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (BulkGradeRequest.Item item : request.getGrades()) {
+            Long submissionId = item != null ? item.getSubmissionId() : null;
+            BulkGradeResponse.Result result = new BulkGradeResponse.Result(submissionId, null, null, null);
+            response.getResults().add(result);
+
+            String error = validate(item, assignmentId, totalScore, submissions, seen);
+            if (error != null) {
+                result.setStatus(BulkGradeResponse.STATUS_FAILED);
+                result.setMessage(error);
+                response.setFailed(response.getFailed() + 1);
+                continue;
+            }
+
+            Grade existing = existingGrades.get(submissionId);
+            if (existing == null) {
+                inserts.add(new PendingGrade(submissionId, null, item.getScore(), item.getFeedback(),
+                        Boolean.TRUE.equals(item.getReleased()), result));
+                result.setStatus(BulkGradeResponse.STATUS_CREATED);
+                response.setCreated(response.getCreated() + 1);
+                continue;
+            }
+
+            String feedback = item.getFeedback() != null ? item.getFeedback() : existing.getFeedback();
+            boolean released = item.getReleased() != null
+                    ? item.getReleased() : Boolean.TRUE.equals(existing.getReleased());
+            result.setGradeId(existing.getId());
+            if (Objects.equals(existing.getScore(), item.getScore())
+                    && Objects.equals(existing.getFeedback(), feedback)
+                    && Boolean.TRUE.equals(existing.getReleased()) == released) {
+                result.setStatus(BulkGradeResponse.STATUS_UNCHANGED);
+                response.setUnchanged(response.getUnchanged() + 1);
+                continue;
+            }
+            updates.add(new PendingGrade(submissionId, existing, item.getScore(), feedback, released, result));
+            result.setStatus(BulkGradeResponse.STATUS_UPDATED);
+            response.setUpdated(response.getUpdated() + 1);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        insertGrades(inserts, operatorId, reason, now);
+        updateGrades(updates, reason, now);
+        List<PendingGrade> changed = new ArrayList<>(inserts.size() + updates.size());
+        changed.addAll(inserts);
+        changed.addAll(updates);
+        insertHistory(changed, operatorId, role, reason, now);
+
+        if (!changed.isEmpty()) {
+            assignmentStatsCache.evictCourse(assignment.getCourseId());
+            Set<Long> studentIds = new HashSet<>();
+            for (PendingGrade p : changed) {
+                studentIds.add(submissions.get(p.submissionId).getStudentId());
+                gradeStatistics.recordScore(assignmentId, p.gradeId, p.score);
+            }
+            studentGradesCache.evictStudents(studentIds);
+        }
+        return response;
+    }
+
+    private String validate(BulkGradeRequest.Item item, Long assignmentId, int totalScore,
+                            Map<Long, Submission> submissions, Set<Long> seen) {
+        if (item == null || item.getSubmissionId() == null) {
+            return "缺少提交ID";
+        }
+        if (!seen.add(item.getSubmissionId())) {
+            return "提交ID重复";
+        }
+        Submission submission = submissions.get(item.getSubmissionId());
+        if (submission == null || (submission.getDeleted() != null && submission.getDeleted() == 1)) {
+            return "提交记录不存在";
+        }
+        if (!submission.getAssignmentId().equals(assignmentId)) {
+            return "提交记录与作业不匹配";
+        }
+        if (item.getScore() == null || item.getScore() < 0 || item.getScore() > totalScore) {
+            return "分数必须在 [0, " + totalScore + "] 范围内";
+        }
+        return null;
+    }
+
+    private void insertGrades(List<PendingGrade> inserts, Long operatorId, String reason, Timestamp now) {
+        if (inserts.isEmpty()) {
+            return;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_GRADE_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        PendingGrade p = inserts.get(i);
+                        ps.setLong(1, p.submissionId);
+                        ps.setLong(2, operatorId);
+                        ps.setInt(3, p.score);
+                        ps.setString(4, p.feedback);
+                        ps.setString(5, reason);
+                        ps.setBoolean(6, p.released);
+                        ps.setTimestamp(7, now);
+                        ps.setTimestamp(8, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return inserts.size();
+                    }
+                }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < inserts.size(); i++) {
+            PendingGrade p = inserts.get(i);
+            p.gradeId = ((Number) keys.get(i).values().iterator().next()).longValue();
+            p.result.setGradeId(p.gradeId);
+        }
+    }
+
+    private void updateGrades(List<PendingGrade> updates, String reason, Timestamp now) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_GRADE_SQL, updates, updates.size(), (ps, p) -> {
+            ps.setInt(1, p.score);
+            ps.setString(2, p.feedback);
+            ps.setString(3, reason);
+            ps.setBoolean(4, p.released);
+            ps.setTimestamp(5, now);
+            ps.setLong(6, p.gradeId);
+        });
+    }
+
+    private void insertHistory(List<PendingGrade> changed, Long operatorId, String role, String reason, Timestamp now) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_HISTORY_SQL, changed, changed.size(), (ps, p) -> {
+            Grade old = p.existing;
+            ps.setLong(1, p.gradeId);
+            ps.setLong(2, p.submissionId);
+            Long scorerId = old != null && old.getScorerId() != null ? old.getScorerId() : operatorId;
+            ps.setLong(3, scorerId);
+            if (old != null && old.getScore() != null) {
+                ps.setInt(4, old.getScore());
+            } else {
+                ps.setNull(4, Types.INTEGER);
+            }
+            ps.setInt(5, p.score);
+            ps.setString(6, old != null ? old.getFeedback() : null);
+            ps.setString(7, p.feedback);
+            ps.setString(8, reason);
+            ps.setLong(9, operatorId);
+            ps.setString(10, role);
+            ps.setTimestamp(11, now);
+            ps.setTimestamp(12, now);
+        });
+    }
+}
@@ -0,0 +1,412 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.UploadInitRequest;
+import com.usst.spm.demo.dto.UploadSessionResponse;
+import com.usst.spm.demo.model.Course;
+import com.usst.spm.demo.model.FileUploadSession;
+import com.usst.spm.demo.repository.CourseRepository;
+import com.usst.spm.demo.repository.FileUploadChunkRepository;
+import com.usst.spm.demo.repository.FileUploadSessionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * 分片断点续传
+ * 初始化时按声明大小预分配临时文件（{暂存目录}/partial/{uploadId}.part）。每个分片先经固定大小的缓冲区流式写入
+ * 独立的暂存文件并计算 CRC32C，长度与校验和都通过后才用 FileChannel 按偏移拷入临时文件，
+ * 校验失败的重传不会覆盖已登记分片的数据；单次上传占用的内存与文件大小无关；
+ * 分片可乱序、重复上传，客户端断线后查询会话状态从缺失的分片继续。
+ * 单文件大小上限按课程配置（course.max_upload_bytes），未配置时使用全局默认值，且不超过全局硬上限。
+ * 临时文件在本机暂存目录（spm.upload.staging-dir）：多节点部署时同一 uploadId 的请求须落在同一节点，
+ * 或把暂存目录放在共享卷上。
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+
+    private static final Set<String> ALLOWED_EXTENSIONS =
+            Set.of("pdf", "doc", "docx", "txt", "xls", "xlsx", "ppt", "pptx", "zip", "rar");
+
+    private static final int MIN_CHUNK_SIZE = 256 * 1024;
+    private static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+    private static final long CLEANUP_INTERVAL_MINUTES = 30L;
+
+    private final FileUploadSessionRepository sessionRepository;
+    private final FileUploadChunkRepository chunkRepository;
+    private final CourseRepository courseRepository;
+    private final CourseMembershipService courseMembership;
+    private final FileUploadSessionWriter writer;
+    private final FileBlobStore fileBlobStore;
+    private final Path partialDir;
+    private final int defaultChunkSize;
+    private final long defaultMaxBytes;
+    private final long hardMaxBytes;
+    private final long sessionTtlHours;
+
+    private final ScheduledExecutorService cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "upload-cleaner");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ChunkedUploadService(FileUploadSessionRepository sessionRepository,
+                                FileUploadChunkRepository chunkRepository,
+                                CourseRepository courseRepository,
+                                CourseMembershipService courseMembership,
+                                FileUploadSessionWriter writer,
+                                FileBlobStore fileBlobStore,
+                                @Value("${spm.upload.staging-dir:${spm.storage.local.root:uploads}/.staging}") String stagingDir,
+                                @Value("${spm.upload.chunk-size:4MB}") DataSize defaultChunkSize,
+                                @Value("${spm.upload.default-max-size:20MB}") DataSize defaultMaxSize,
+                                @Value("${spm.upload.max-file-size:2GB}") DataSize hardMaxSize,
+                                @Value("${spm.upload.session-ttl-hours:24}") long sessionTtlHours) {
+        this.sessionRepository = sessionRepository;
+        this.chunkRepository = chunkRepository;
+        this.courseRepository = courseRepository;
+        this.courseMembership = courseMembership;
+        this.writer = writer;
+        this.fileBlobStore = fileBlobStore;
+        this.partialDir = Paths.get(stagingDir, "partial");
+        this.defaultChunkSize = clampChunkSize(defaultChunkSize.toBytes());
+        this.hardMaxBytes = hardMaxSize.toBytes();
+        this.defaultMaxBytes = Math.min(defaultMaxSize.toBytes(), hardMaxBytes);
+        this.sessionTtlHours = sessionTtlHours;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            Files.createDirectories(partialDir);
+        } catch (IOException e) {
+            log.error("[upload] cannot create {}: {}", partialDir, e.getMessage());
+        }
+        cleaner.scheduleWithFixedDelay(this::cleanExpired, CLEANUP_INTERVAL_MINUTES, CLEANUP_INTERVAL_MINUTES,
+                TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        cleaner.shutdownNow();
+    }
+
+    public static boolean isAllowedFileType(String extension) {
+        return extension != null && ALLOWED_EXTENSIONS.contains(extension.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 全局硬上限（课程配置不能超过该值）
+     */
+    public long getHardMaxBytes() {
+        return hardMaxBytes;
+    }
+
+    /**
+     * 课程的单文件大小上限；courseId 为空时使用全局默认值
+     */
+    public long maxUploadBytes(Long courseId) {
+        if (courseId == null) {
+            return defaultMaxBytes;
+        }
+        return courseRepository.findById(courseId)
+                .map(Course::getMaxUploadBytes)
+                .map(limit -> Math.min(limit, hardMaxBytes))
+                .orElse(defaultMaxBytes);
+    }
+
+    /**
+     * 初始化上传会话并预分配临时文件
+     */
+    public UploadSessionResponse init(Long uploaderId, UploadInitRequest request) {
+        if (request == null || request.getFileName() == null || request.getFileName().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "文件名不能为空");
+        }
+        if (request.getFileSize() == null || request.getFileSize() <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "文件不能为空");
+        }
+        String extension = extensionOf(request.getFileName());
+        if (!isAllowedFileType(extension)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "不支持的文件类型，仅支持 PDF、DOC、DOCX、TXT 等格式");
+        }
+        Long courseId = request.getCourseId();
+        if (courseId != null) {
+            requireCourseMember(courseId, uploaderId);
+        }
+        long limit = maxUploadBytes(courseId);
+        if (request.getFileSize() > limit) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "文件大小超过限制: 最大 " + DataSize.ofBytes(limit).toMegabytes() + "MB");
+        }
+
+        int chunkSize = request.getChunkSize() != null ? clampChunkSize(request.getChunkSize()) : defaultChunkSize;
+        long chunkCount = (request.getFileSize() + chunkSize - 1) / chunkSize;
+
+        FileUploadSession session = new FileUploadSession();
+        session.setId(UUID.randomUUID().toString().replace("-", ""));
+        session.setUploaderId(uploaderId);
+        session.setCourseId(courseId);
+        session.setOriginalName(request.getFileName());
+        session.setMimeType(request.getMimeType());
+        session.setTotalSize(request.getFileSize());
+        session.setChunkSize(chunkSize);
+        session.setChunkCount((int) chunkCount);
+        session.setExpiresAt(LocalDateTime.now().plusHours(sessionTtlHours));
+
+        Path part = partPath(session.getId());
+        try {
+            Files.createDirectories(part.getParent());
+            try (RandomAccessFile raf = new RandomAccessFile(part.toFile(), "rw")) {
+                raf.setLength(request.getFileSize());
+            }
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "无法创建上传文件: " + e.getMessage());
+        }
+        session = sessionRepository.save(session);
+        return toResponse(session, List.of());
+    }
+
+    /**
+     * 查询会话状态（断点续传时先调用）
+     */
+    public UploadSessionResponse getStatus(String uploadId, Long uploaderId) {
+        FileUploadSession session = requireSession(uploadId, uploaderId);
+        return toResponse(session, chunkRepository.findChunkIndexes(uploadId));
+    }
+
+    /**
+     * 写入 offset 处的分片；offset 必须是分片大小的整数倍，请求体长度必须等于该分片的长度。
+     * expectedChecksum 为客户端计算的 CRC32C（十六进制），不一致时分片不登记、临时文件不变，客户端重传即可
+     */
+    public UploadSessionResponse writeChunk(String uploadId, Long uploaderId, long offset,
+                                            InputStream body, String expectedChecksum) {
+        FileUploadSession session = requireSession(uploadId, uploaderId);
+        if (!FileUploadSession.STATUS_UPLOADING.equals(session.getStatus())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "上传已完成");
+        }
+        long total = session.getTotalSize();
+        int chunkSize = session.getChunkSize();
+        if (offset < 0 || offset >= total || offset % chunkSize != 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "分片偏移不合法: " + offset);
+        }
+        int chunkIndex = (int) (offset / chunkSize);
+        long expected = Math.min(chunkSize, total - offset);
+
+        // 先写暂存文件，校验通过后再拷入临时文件；每个请求一个暂存文件，同一分片的并发重传互不影响
+        Path scratch = partialDir.resolve(uploadId + "." + chunkIndex + "."
+                + UUID.randomUUID().toString().replace("-", "") + ".chunk");
+        try {
+            CRC32C crc = new CRC32C();
+            long written = 0;
+            try (FileChannel channel = FileChannel.open(scratch, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER_SIZE);
+                byte[] array = buffer.array();
+                int n;
+                while ((n = body.read(array)) != -1) {
+                    if (written + n > expected) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "分片大小超出: 期望 " + expected + " 字节");
+                    }
+                    crc.update(array, 0, n);
+                    buffer.clear().limit(n);
+                    while (buffer.hasRemaining()) {
+                        written += channel.write(buffer);
+                    }
+                }
+            }
+            if (written != expected) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "分片不完整: 期望 " + expected + " 字节，收到 " + written + " 字节");
+            }
+            String checksum = String.format("%08x", crc.getValue());
+            if (expectedChecksum != null && !expectedChecksum.isBlank()
+                    && !expectedChecksum.trim().equalsIgnoreCase(checksum)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "分片校验失败: 服务端 CRC32C 为 " + checksum);
+            }
+
+            try (FileChannel source = FileChannel.open(scratch, StandardOpenOption.READ);
+                 FileChannel target = FileChannel.open(partPath(uploadId), StandardOpenOption.WRITE)) {
+                long copied = 0;
+                while (copied < expected) {
+                    copied += source.transferTo(copied, expected - copied, target.position(offset + copied));
+                }
+            }
+            writer.recordChunk(uploadId, chunkIndex, (int) expected, checksum);
+        } catch (NoSuchFileException e) {
+            throw new ResponseStatusException(HttpStatus.GONE, "上传会话已过期，请重新上传");
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "分片写入失败: " + e.getMessage());
+        } finally {
+            deleteQuietly(scratch);
+        }
+        return toResponse(session, chunkRepository.findChunkIndexes(uploadId));
+    }
+
+    /**
+     * 完成上传（数据进入内容寻址存储），返回包含 fileId 的会话状态
+     */
+    public UploadSessionResponse complete(String uploadId, Long uploaderId) {
+        FileUploadSession session = requireSession(uploadId, uploaderId);
+        if (FileUploadSession.STATUS_COMPLETED.equals(session.getStatus())) {
+            return toResponse(session, List.of());
+        }
+        List<String> checksums = chunkRepository.findChecksums(uploadId);
+        if (checksums.size() != session.getChunkCount()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "分片未全部上传: 已收到 " + checksums.size() + "/" + session.getChunkCount());
+        }
+
+        // 分片乱序到达，摘要只能在合并完成后顺序读一遍计算；大文件计算和存储耗时长，不占会话行锁
+        Path partFile = partPath(uploadId);
+        FileBlobStore.StoredBlob blob;
+        try {
+            if (Files.size(partFile) != session.getTotalSize()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "临时文件大小与声明不符");
+            }
+            blob = fileBlobStore.adopt(partFile);
+        } catch (NoSuchFileException e) {
+            // 并发的完成请求已提交并删除了临时文件
+            FileUploadSession current = requireSession(uploadId, uploaderId);
+            if (FileUploadSession.STATUS_COMPLETED.equals(current.getStatus())) {
+                return toResponse(current, List.of());
+            }
+            throw new ResponseStatusException(HttpStatus.GONE, "上传会话已过期，请重新上传");
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "文件合并失败: " + e.getMessage());
+        }
+        return toResponse(writer.complete(uploadId, checksums, blob, partFile), List.of());
+    }
+
+    /**
+     * 清理过期未完成的会话及其临时文件
+     */
+    void cleanExpired() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int removed = 0;
+            for (FileUploadSession session : sessionRepository.findExpired(now)) {
+                if (writer.discardIfExpired(session.getId(), now)) {
+                    Files.deleteIfExists(partPath(session.getId()));
+                    deleteScratchFiles(session.getId());
+                    removed++;
+                }
+            }
+            if (removed > 0) {
+                log.info("[upload] removed {} expired upload sessions", removed);
+            }
+        } catch (Exception e) {
+            log.warn("[upload] cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 删除会话残留的分片暂存文件（写入过程中进程退出时留下）
+     */
+    private void deleteScratchFiles(String uploadId) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(partialDir, uploadId + ".*.chunk")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("[upload] cannot delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private FileUploadSession requireSession(String uploadId, Long uploaderId) {
+        return sessionRepository.findById(uploadId)
+                .filter(s -> Objects.equals(s.getUploaderId(), uploaderId))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "上传会话不存在"));
+    }
+
+    private void requireCourseMember(Long courseId, Long userId) {
+        courseMembership.get(courseId)
+                .filter(m -> !m.isDeleted())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "课程不存在"));
+        if (!courseMembership.isTeacherOrMember(courseId, userId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "未加入该课程");
+        }
+    }
+
+    private UploadSessionResponse toResponse(FileUploadSession session, List<Integer> receivedChunks) {
+        UploadSessionResponse response = new UploadSessionResponse();
+        response.setUploadId(session.getId());
+        response.setStatus(session.getStatus());
+        response.setFileName(session.getOriginalName());
+        response.setFileSize(session.getTotalSize());
+        response.setChunkSize(session.getChunkSize());
+        response.setChunkCount(session.getChunkCount());
+        response.setExpiresAt(session.getExpiresAt());
+        response.setFileId(session.getFileId());
+
+        List<Integer> missing = new ArrayList<>();
+        if (FileUploadSession.STATUS_UPLOADING.equals(session.getStatus())) {
+            int next = 0;
+            for (Integer received : receivedChunks) {
+                while (next < received) {
+                    missing.add(next++);
+                }
+                next = received + 1;
+            }
+            while (next < session.getChunkCount()) {
+                missing.add(next++);
+            }
+        }
+        response.setMissingChunks(missing);
+        response.setNextOffset(missing.isEmpty()
+                ? session.getTotalSize()
+                : (long) missing.get(0) * session.getChunkSize());
+        return response;
+    }
+
+    Path partPath(String uploadId) {
+        return partialDir.resolve(uploadId + ".part");
+    }
+
+    private static String extensionOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 ? fileName.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static int clampChunkSize(long requested) {
+        return (int) Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, requested));
+    }
+}
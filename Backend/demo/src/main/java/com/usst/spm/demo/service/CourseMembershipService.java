@@ -0,0 +1,198 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.model.Course;
+import com.usst.spm.demo.repository.CourseEnrollmentRepository;
+import com.usst.spm.demo.repository.CourseRepository;
+import com.usst.spm.demo.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * 课程成员关系（按课程缓存）
+ * 每门课程保存任课教师ID与有效学生ID的有序 long[]，选课校验、任课教师校验都走这里，不再每个请求查
+ * course_enrollments / courses。首次访问时按课程加载（2 条查询），本实例上加入课程后在事务提交时增量插入。
+ * 其他实例上的加入、库里直接修改的任课教师/删除标记/选课状态不会通知到这里，靠两种方式收敛：
+ * 快照超过 ttl-seconds 后下次访问重新加载；校验不通过（不是成员/不是任课教师）且快照已超过 recheck-interval-ms 时
+ * 立即重新加载再判断一次，其他实例上刚加入的学生第一次请求就能通过，非成员的反复请求每个间隔最多触发一次加载。
+ */
+@Service
+public class CourseMembershipService {
+
+    private final CourseRepository courseRepository;
+    private final CourseEnrollmentRepository courseEnrollmentRepository;
+    private final long ttlNanos;
+    private final long recheckNanos;
+
+    // courseId -> 成员快照（不可变，更新时整体替换）；课程不存在时不缓存
+    private final ConcurrentHashMap<Long, CourseMembers> cache = new ConcurrentHashMap<>();
+
+    public CourseMembershipService(CourseRepository courseRepository,
+                                   CourseEnrollmentRepository courseEnrollmentRepository,
+                                   @Value("${spm.course.membership.ttl-seconds:60}") long ttlSeconds,
+                                   @Value("${spm.course.membership.recheck-interval-ms:1000}") long recheckIntervalMs) {
+        this.courseRepository = courseRepository;
+        this.courseEnrollmentRepository = courseEnrollmentRepository;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(0, ttlSeconds));
+        this.recheckNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, recheckIntervalMs));
+    }
+
+    /**
+     * 课程成员快照，课程不存在时为空（已删除的课程仍返回，由调用方按 isDeleted 决定）；过期的快照先重新加载
+     */
+    public Optional<CourseMembers> get(Long courseId) {
+        if (courseId == null) {
+            return Optional.empty();
+        }
+        CourseMembers members = cache.computeIfAbsent(courseId, this::load);
+        if (members != null && members.ageNanos() > ttlNanos) {
+            members = reload(members);
+        }
+        return Optional.ofNullable(members);
+    }
+
+    /**
+     * 是否为课程的有效学生（已选课、未删除、状态为空或 ACTIVE）
+     */
+    public boolean isMember(Long courseId, Long userId) {
+        return check(courseId, members -> members.isMember(userId));
+    }
+
+    /**
+     * 是否为课程的任课教师
+     */
+    public boolean isTeacher(Long courseId, Long userId) {
+        return check(courseId, members -> members.isTeacher(userId));
+    }
+
+    /**
+     * 是否为课程的任课教师或有效学生
+     */
+    public boolean isTeacherOrMember(Long courseId, Long userId) {
+        return check(courseId, members -> members.isTeacher(userId) || members.isMember(userId));
+    }
+
+    /**
+     * 学生加入课程（事务提交后生效）；该课程尚未加载时不做处理，下次访问会从库里读到
+     */
+    public void addStudent(Long courseId, Long studentId) {
+        if (courseId == null || studentId == null) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> cache.computeIfPresent(courseId, (id, members) -> members.with(studentId)));
+    }
+
+    /**
+     * 校验不通过时，若快照已超过重查间隔则重新加载再判断一次（可能是其他实例上刚发生的变更）
+     */
+    private boolean check(Long courseId, Predicate<CourseMembers> test) {
+        CourseMembers members = get(courseId).orElse(null);
+        if (members == null) {
+            return false;
+        }
+        if (test.test(members)) {
+            return true;
+        }
+        if (members.ageNanos() <= recheckNanos) {
+            return false;
+        }
+        members = reload(members);
+        return members != null && test.test(members);
+    }
+
+    /**
+     * 用新加载的快照替换 stale；其他线程已替换过时直接用它的结果
+     */
+    private CourseMembers reload(CourseMembers stale) {
+        return cache.compute(stale.getCourseId(), (id, current) -> current == null || current == stale
+                ? load(id) : current);
+    }
+
+    private CourseMembers load(Long courseId) {
+        Course course = courseRepository.findById(courseId).orElse(null);
+        if (course == null) {
+            return null;
+        }
+        List<Long> ids = courseEnrollmentRepository.findActiveStudentIds(courseId);
+        long[] students = new long[ids.size()];
+        int n = 0;
+        for (Long id : ids) {
+            if (id != null) {
+                students[n++] = id;
+            }
+        }
+        students = Arrays.copyOf(students, n);
+        Arrays.sort(students);
+        return new CourseMembers(courseId, course.getTeacherId(),
+                course.getDeleted() != null && course.getDeleted() == 1, students, System.nanoTime());
+    }
+
+    /**
+     * 课程成员快照（不可变）
+     */
+    public static final class CourseMembers {
+        private final Long courseId;
+        private final Long teacherId;
+        private final boolean deleted;
+        // 有序、无重复
+        private final long[] students;
+        // 从库里加载的时刻（System.nanoTime），增量插入不刷新
+        private final long loadedAt;
+
+        CourseMembers(Long courseId, Long teacherId, boolean deleted, long[] students, long loadedAt) {
+            this.courseId = courseId;
+            this.teacherId = teacherId;
+            this.deleted = deleted;
+            this.students = students;
+            this.loadedAt = loadedAt;
+        }
+
+        public Long getCourseId() {
+            return courseId;
+        }
+
+        public Long getTeacherId() {
+            return teacherId;
+        }
+
+        public boolean isDeleted() {
+            return deleted;
+        }
+
+        public int getStudentCount() {
+            return students.length;
+        }
+
+        public boolean isTeacher(Long userId) {
+            return teacherId != null && Objects.equals(teacherId, userId);
+        }
+
+        public boolean isMember(Long userId) {
+            return userId != null && Arrays.binarySearch(students, userId) >= 0;
+        }
+
+        CourseMembers with(long studentId) {
+            int index = Arrays.binarySearch(students, studentId);
+            if (index >= 0) {
+                return this;
+            }
+            int insertAt = -index - 1;
+            long[] next = new long[students.length + 1];
+            System.arraycopy(students, 0, next, 0, insertAt);
+            next[insertAt] = studentId;
+            System.arraycopy(students, insertAt, next, insertAt + 1, students.length - insertAt);
+            return new CourseMembers(courseId, teacherId, deleted, next, loadedAt);
+        }
+
+        long ageNanos() {
+            return System.nanoTime() - loadedAt;
+        }
+    }
+}
@@ -5,11 +5,10 @@ import com.usst.spm.demo.dto.InviteCreateRequest;
 import com.usst.spm.demo.model.Course;
 import com.usst.spm.demo.model.CourseEnrollment;
 import com.usst.spm.demo.model.CourseInviteCode;
-import com.usst.spm.demo.model.User;
 import com.usst.spm.demo.repository.CourseEnrollmentRepository;
 import com.usst.spm.demo.repository.CourseInviteCodeRepository;
 import com.usst.spm.demo.repository.CourseRepository;
-import com.usst.spm.demo.repository.UserRepository;
+import com.usst.spm.demo.util.AuthenticatedPrincipal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -29,28 +28,23 @@ public class CourseService {
     private final CourseRepository courseRepository;
     private final CourseEnrollmentRepository courseEnrollmentRepository;
     private final CourseInviteCodeRepository courseInviteCodeRepository;
-    private final UserRepository userRepository;
+    private final AssignmentStatsCache assignmentStatsCache;
+    private final ChunkedUploadService chunkedUploadService;
+    private final CourseMembershipService courseMembership;
 
     public CourseService(
             CourseRepository courseRepository,
             CourseEnrollmentRepository courseEnrollmentRepository,
             CourseInviteCodeRepository courseInviteCodeRepository,
-            UserRepository userRepository) {
+            AssignmentStatsCache assignmentStatsCache,
+            ChunkedUploadService chunkedUploadService,
+            CourseMembershipService courseMembership) {
         this.courseRepository = courseRepository;
         this.courseEnrollmentRepository = courseEnrollmentRepository;
         this.courseInviteCodeRepository = courseInviteCodeRepository;
-        this.userRepository = userRepository;
-    }
-
-    private User requireUser(String studentNo) {
-        return userRepository.findByStudentNo(studentNo)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "用户不存在"));
-    }
-
-    private boolean isTeacherOrAdmin(User user) {
-        if (user == null) return false;
-        String role = user.getRole();
-        return "TEACHER".equalsIgnoreCase(role) || "ADMIN".equalsIgnoreCase(role);
+        this.assignmentStatsCache = assignmentStatsCache;
+        this.chunkedUploadService = chunkedUploadService;
+        this.courseMembership = courseMembership;
     }
 
     private CourseResponse toResponse(Course course, String roleInCourse) {
@@ -69,13 +63,12 @@ public class CourseService {
         return resp;
     }
 
-    public List<CourseResponse> listMyCourses(String studentNo) {
-        User user = requireUser(studentNo);
+    public List<CourseResponse> listMyCourses(AuthenticatedPrincipal user) {
         List<CourseResponse> responses = new ArrayList<>();
 
         // 教师：我管理的课程
-        if (isTeacherOrAdmin(user)) {
-            List<Course> teaching = courseRepository.findByTeacherIdAndDeleted(user.getId(), 0);
+        if (user.isTeacherOrAdmin()) {
+            List<Course> teaching = courseRepository.findByTeacherIdAndDeleted(user.userId(), 0);
             responses.addAll(teaching.stream()
                     .map(c -> toResponse(c, "TEACHER"))
                     .collect(Collectors.toList()));
@@ -83,7 +76,7 @@ public class CourseService {
 
         // 学生/TA：我加入的课程
         List<CourseEnrollment> enrollments = courseEnrollmentRepository
-                .findByStudentIdAndStatusAndDeleted(user.getId(), "ACTIVE", 0);
+                .findByStudentIdAndStatusAndDeleted(user.userId(), "ACTIVE", 0);
         if (!enrollments.isEmpty()) {
             List<Long> courseIds = enrollments.stream()
                     .map(CourseEnrollment::getCourseId)
@@ -108,8 +101,7 @@ public class CourseService {
         return new ArrayList<>(unique.values());
     }
 
-    public CourseResponse getCourse(String studentNo, Long courseId) {
-        User user = requireUser(studentNo);
+    public CourseResponse getCourse(AuthenticatedPrincipal user, Long courseId) {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "课程不存在"));
         if (course.getDeleted() != null && course.getDeleted() == 1) {
@@ -117,24 +109,19 @@ public class CourseService {
         }
 
         String roleInCourse = "UNKNOWN";
-        if (Objects.equals(course.getTeacherId(), user.getId())) {
+        if (Objects.equals(course.getTeacherId(), user.userId())) {
             roleInCourse = "TEACHER";
-        } else {
-            Optional<CourseEnrollment> enrollment = courseEnrollmentRepository
-                    .findByCourseIdAndStudentIdAndDeleted(courseId, user.getId(), 0);
-            if (enrollment.isPresent()) {
-                roleInCourse = enrollment.get().getRole();
-            }
+        } else if (courseMembership.isMember(courseId, user.userId())) {
+            roleInCourse = "STUDENT";
         }
         return toResponse(course, roleInCourse);
     }
 
     @Transactional
-    public Map<String, Object> generateInvite(String studentNo, Long courseId, InviteCreateRequest request) {
-        User user = requireUser(studentNo);
+    public Map<String, Object> generateInvite(AuthenticatedPrincipal user, Long courseId, InviteCreateRequest request) {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "课程不存在"));
-        if (!Objects.equals(course.getTeacherId(), user.getId()) && !isTeacherOrAdmin(user)) {
+        if (!Objects.equals(course.getTeacherId(), user.userId()) && !user.isTeacherOrAdmin()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "无权限生成邀请码");
         }
 
@@ -143,7 +130,7 @@ public class CourseService {
         LocalDateTime expireAt = LocalDateTime.now().plusDays(expireDays);
         String code = randomCode(6);
 
-        log.info("[invite] generate request studentNo={} courseId={} expireDays={} maxUse={}", studentNo, courseId, expireDays, maxUse);
+        log.info("[invite] generate request studentNo={} courseId={} expireDays={} maxUse={}", user.studentNo(), courseId, expireDays, maxUse);
 
         CourseInviteCode invite = new CourseInviteCode();
         invite.setCourseId(courseId);
@@ -169,11 +156,10 @@ public class CourseService {
     }
 
     @Transactional
-    public void revokeInvite(String studentNo, Long courseId, String code) {
-        User user = requireUser(studentNo);
+    public void revokeInvite(AuthenticatedPrincipal user, Long courseId, String code) {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "课程不存在"));
-        if (!Objects.equals(course.getTeacherId(), user.getId()) && !isTeacherOrAdmin(user)) {
+        if (!Objects.equals(course.getTeacherId(), user.userId()) && !user.isTeacherOrAdmin()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "无权限操作");
         }
 
@@ -191,13 +177,43 @@ public class CourseService {
         }
     }
 
+    /**
+     * 设置课程的单文件上传大小上限（MB），传 null 恢复为全局默认值
+     */
+    @Transactional
+    public Map<String, Object> updateUploadPolicy(AuthenticatedPrincipal user, Long courseId, Long maxUploadMb) {
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "课程不存在"));
+        if (!Objects.equals(course.getTeacherId(), user.userId()) && !user.isTeacherOrAdmin()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "无权限操作");
+        }
+        Long maxBytes = null;
+        if (maxUploadMb != null) {
+            if (maxUploadMb <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "上传大小上限必须大于0");
+            }
+            maxBytes = maxUploadMb * 1024 * 1024;
+            if (maxBytes > chunkedUploadService.getHardMaxBytes()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "上传大小上限不能超过 " + chunkedUploadService.getHardMaxBytes() / (1024 * 1024) + "MB");
+            }
+        }
+        course.setMaxUploadBytes(maxBytes);
+        course.setUpdatedAt(LocalDateTime.now());
+        courseRepository.save(course);
+
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("courseId", courseId);
+        resp.put("maxUploadBytes", chunkedUploadService.maxUploadBytes(courseId));
+        return resp;
+    }
+
     @Transactional
-    public CourseResponse joinByCode(String studentNo, String code) {
+    public CourseResponse joinByCode(AuthenticatedPrincipal user, String code) {
         if (code == null || code.isBlank()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "邀请码不能为空");
         }
-        log.info("[invite] join attempt studentNo={} code={}", studentNo, code);
-        User user = requireUser(studentNo);
+        log.info("[invite] join attempt studentNo={} code={}", user.studentNo(), code);
 
         // 先查激活的邀请码表
         Optional<CourseInviteCode> inviteOpt = courseInviteCodeRepository.findByCodeAndActive(code, 1);
@@ -220,26 +236,29 @@ public class CourseService {
 
         // 已加入则直接返回
         Optional<CourseEnrollment> exist = courseEnrollmentRepository
-                .findByCourseIdAndStudentIdAndDeleted(course.getId(), user.getId(), 0);
+                .findByCourseIdAndStudentIdAndDeleted(course.getId(), user.userId(), 0);
         if (exist.isPresent()) {
             return toResponse(course, exist.get().getRole());
         }
 
         CourseEnrollment enrollment = new CourseEnrollment();
         enrollment.setCourseId(course.getId());
-        enrollment.setStudentId(user.getId());
+        enrollment.setStudentId(user.userId());
         enrollment.setRole("STUDENT");
         enrollment.setStatus("ACTIVE");
         courseEnrollmentRepository.save(enrollment);
+        courseMembership.addStudent(course.getId(), user.userId());
+        // 课程学生总数变化，失效教师端统计
+        assignmentStatsCache.evictCourse(course.getId());
 
         if (invite != null) {
             Integer used = invite.getUsedCount() == null ? 0 : invite.getUsedCount();
             invite.setUsedCount(used + 1);
             invite.setUpdatedAt(LocalDateTime.now());
             courseInviteCodeRepository.save(invite);
-            log.info("[invite] join success studentNo={} courseId={} code={} usedCount={}", studentNo, course.getId(), code, invite.getUsedCount());
+            log.info("[invite] join success studentNo={} courseId={} code={} usedCount={}", user.studentNo(), course.getId(), code, invite.getUsedCount());
         } else {
-            log.info("[invite] join success studentNo={} courseId={} code={} (from course current code)", studentNo, course.getId(), code);
+            log.info("[invite] join success studentNo={} courseId={} code={} (from course current code)", user.studentNo(), course.getId(), code);
         }
 
         return toResponse(course, "STUDENT");
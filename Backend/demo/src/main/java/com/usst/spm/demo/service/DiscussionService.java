@@ -2,13 +2,9 @@ package com.usst.spm.demo.service;
 
 import com.usst.spm.demo.dto.*;
 import com.usst.spm.demo.model.Comment;
-import com.usst.spm.demo.model.CourseEnrollment;
 import com.usst.spm.demo.model.Discussion;
-import com.usst.spm.demo.model.User;
 import com.usst.spm.demo.repository.CommentRepository;
-import com.usst.spm.demo.repository.CourseEnrollmentRepository;
 import com.usst.spm.demo.repository.DiscussionRepository;
-import com.usst.spm.demo.repository.UserRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,18 +21,18 @@ public class DiscussionService {
 
     private final DiscussionRepository discussionRepository;
     private final CommentRepository commentRepository;
-    private final UserRepository userRepository;
-    private final CourseEnrollmentRepository courseEnrollmentRepository;
+    private final UserSummaryCache userSummaryCache;
+    private final CourseMembershipService courseMembership;
 
     public DiscussionService(
             DiscussionRepository discussionRepository,
             CommentRepository commentRepository,
-            UserRepository userRepository,
-            CourseEnrollmentRepository courseEnrollmentRepository) {
+            UserSummaryCache userSummaryCache,
+            CourseMembershipService courseMembership) {
         this.discussionRepository = discussionRepository;
         this.commentRepository = commentRepository;
-        this.userRepository = userRepository;
-        this.courseEnrollmentRepository = courseEnrollmentRepository;
+        this.userSummaryCache = userSummaryCache;
+        this.courseMembership = courseMembership;
     }
     
     /**
@@ -46,11 +42,7 @@ public class DiscussionService {
         if (courseId == null || userId == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "缺少课程或用户信息");
         }
-        Optional<CourseEnrollment> enrollment = courseEnrollmentRepository
-                .findByCourseIdAndStudentIdAndDeleted(courseId, userId, 0);
-        boolean enrolled = enrollment.isPresent() 
-                && (enrollment.get().getStatus() == null || "ACTIVE".equals(enrollment.get().getStatus()));
-        if (!enrolled) {
+        if (!courseMembership.isMember(courseId, userId)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "未加入该课程");
         }
     }
@@ -161,6 +153,8 @@ public class DiscussionService {
         int toIndex = Math.min(fromIndex + pageSize, discussions.size());
         List<Discussion> pageList = discussions.subList(fromIndex, toIndex);
 
+        // 本页作者一次批量加载，逐条转换时直接命中缓存
+        userSummaryCache.getAll(pageList.stream().map(Discussion::getAuthorId).collect(Collectors.toSet()));
         return pageList.stream()
                 .map(d -> convertToResponse(d, false))
                 .collect(Collectors.toList());
@@ -412,11 +406,11 @@ public class DiscussionService {
         response.setUpdatedAt(discussion.getUpdatedAt());
 
         // 获取作者信息
-        Optional<User> authorOpt = userRepository.findById(discussion.getAuthorId());
+        Optional<UserSummaryCache.UserSummary> authorOpt = userSummaryCache.get(discussion.getAuthorId());
         if (authorOpt.isPresent()) {
-            User author = authorOpt.get();
-            response.setAuthorName(author.getName());
-            response.setAuthorStudentNo(author.getStudentNo());
+            UserSummaryCache.UserSummary author = authorOpt.get();
+            response.setAuthorName(author.name());
+            response.setAuthorStudentNo(author.studentNo());
         }
 
         // 获取评论
@@ -451,6 +445,7 @@ public class DiscussionService {
         }
         int toIndex = Math.min(fromIndex + pageSize, comments.size());
         List<Comment> pageList = comments.subList(fromIndex, toIndex);
+        userSummaryCache.getAll(pageList.stream().map(Comment::getAuthorId).collect(Collectors.toSet()));
         return pageList.stream().map(this::convertCommentToResponse).collect(Collectors.toList());
     }
 
@@ -458,6 +453,9 @@ public class DiscussionService {
      * 构建评论树结构
      */
     private List<CommentResponse> buildCommentTree(List<Comment> comments) {
+        // 评论作者一次批量加载
+        userSummaryCache.getAll(comments.stream().map(Comment::getAuthorId).collect(Collectors.toSet()));
+
         // 找出所有顶级评论（parentId为null）
         List<Comment> topLevelComments = comments.stream()
                 .filter(c -> c.getParentId() == null)
@@ -511,11 +509,11 @@ public class DiscussionService {
         response.setDeleted(comment.getDeleted());
 
         // 获取作者信息
-        Optional<User> authorOpt = userRepository.findById(comment.getAuthorId());
+        Optional<UserSummaryCache.UserSummary> authorOpt = userSummaryCache.get(comment.getAuthorId());
         if (authorOpt.isPresent()) {
-            User author = authorOpt.get();
-            response.setAuthorName(author.getName());
-            response.setAuthorStudentNo(author.getStudentNo());
+            UserSummaryCache.UserSummary author = authorOpt.get();
+            response.setAuthorName(author.name());
+            response.setAuthorStudentNo(author.studentNo());
         }
 
         return response;
@@ -0,0 +1,265 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.model.File;
+import com.usst.spm.demo.repository.FileBlobRepository;
+import com.usst.spm.demo.repository.FileRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * 按内容寻址的文件存储
+ * 上传内容边写本地临时文件边计算 SHA-256，写完后存入存储后端的 blobs/{前2位}/{3-4位}/{完整摘要}；
+ * 对象已存在说明是重复内容，直接丢弃临时文件。每条 files 记录引用一个数据块，
+ * 数据块的引用数记录在 file_blobs 表，重复上传只增加一条 files 记录。
+ */
+@Service
+public class FileBlobStore {
+
+    public static final String BLOB_PREFIX = "blobs/";
+
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private final FileBlobRepository blobRepository;
+    private final FileRepository fileRepository;
+    private final StorageBackend storage;
+    private final UploadInspectionService inspectionService;
+    // 本机暂存目录，写完并算出摘要后才交给存储后端；与分片上传临时文件同在暂存目录下，收编时可建硬链接
+    private final Path tmpDir;
+
+    public FileBlobStore(FileBlobRepository blobRepository,
+                         FileRepository fileRepository,
+                         StorageBackend storage,
+                         UploadInspectionService inspectionService,
+                         @Value("${spm.upload.staging-dir:${spm.storage.local.root:uploads}/.staging}") String stagingDir) {
+        this.blobRepository = blobRepository;
+        this.fileRepository = fileRepository;
+        this.storage = storage;
+        this.inspectionService = inspectionService;
+        this.tmpDir = Paths.get(stagingDir, "tmp");
+    }
+
+    /**
+     * 已存入存储后端的数据块，key 为对象键
+     */
+    public record StoredBlob(String digest, long size, String key) {
+    }
+
+    /**
+     * 流式写入：边写临时文件边计算摘要，写完后按摘要存入存储后端
+     */
+    public StoredBlob write(InputStream in) throws IOException {
+        Files.createDirectories(tmpDir);
+        Path temp = Files.createTempFile(tmpDir, "blob-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            byte[] buffer = new byte[IO_BUFFER_SIZE];
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, n);
+                    out.write(buffer, 0, n);
+                    size += n;
+                }
+            }
+            return place(temp, HexFormat.of().formatHex(digest.digest()), size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 收编已完整写好的文件（分片上传的临时文件）：顺序读一遍计算摘要后存入存储后端。
+     * 源文件保留，由调用方在文件记录提交后删除
+     */
+    public StoredBlob adopt(Path source) throws IOException {
+        String digest = digestOf(source);
+        long size = Files.size(source);
+        // 本地后端会把 put 的源文件移走：交出硬链接（跨文件系统时退化为副本），源文件原样保留
+        Files.createDirectories(tmpDir);
+        Path handoff = tmpDir.resolve("adopt-" + UUID.randomUUID() + ".tmp");
+        try {
+            try {
+                Files.createLink(handoff, source);
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(source, handoff, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return place(handoff, digest, size);
+        } finally {
+            Files.deleteIfExists(handoff);
+        }
+    }
+
+    /**
+     * 为数据块登记一条文件记录并增加引用数（与调用方事务一起提交），提交后进入上传后检查队列
+     */
+    @Transactional
+    public File createFile(StoredBlob blob, String originalName, String mimeType, Long uploaderId) {
+        LocalDateTime now = LocalDateTime.now();
+        blobRepository.addReference(blob.digest(), blob.size(), blob.key(), now);
+        // 引用数为 1 说明是新数据块，或者孤儿回收刚删掉旧行：place() 看到对象存在后对象可能已被回收删除，再确认一次
+        if (blobRepository.findRefCount(blob.digest()).orElse(0) == 1 && !objectExists(blob.key())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "文件存储正在清理，请重新上传");
+        }
+
+        File file = new File();
+        file.setFileName(blob.digest() + extensionSuffix(originalName));
+        file.setOriginalName(originalName);
+        file.setStoragePath(blob.key());
+        file.setMimeType(mimeType);
+        file.setFileSize(blob.size());
+        file.setUploaderId(uploaderId);
+        file.setContentDigest(blob.digest());
+        file.setInspectionStatus(File.INSPECTION_PENDING);
+        File saved = fileRepository.save(file);
+        inspectionService.enqueue(saved.getId());
+        return saved;
+    }
+
+    /**
+     * 挂载附件（提交附件、作业附件）前调用，须与写入关联在同一事务中。
+     * 按ID顺序给文件行加锁，与孤儿回收串行：已被判为孤儿、数据尚未清除的文件恢复为有效并重新登记数据块引用。
+     * 返回无法挂载的文件ID（不存在，或数据已被清除）
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Set<Long> lockForAttach(Collection<Long> fileIds) {
+        Set<Long> unavailable = new HashSet<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Long fileId : new TreeSet<>(fileIds)) {
+            File file = fileRepository.findByIdForUpdate(fileId).orElse(null);
+            if (file == null) {
+                unavailable.add(fileId);
+            } else if (file.getDeleted() != null && file.getDeleted() == 1 && !revive(file, now)) {
+                unavailable.add(fileId);
+            }
+        }
+        return unavailable;
+    }
+
+    /**
+     * 同 lockForAttach，有无法挂载的文件时返回 409
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void requireAttachable(Collection<Long> fileIds) {
+        if (fileIds == null || fileIds.isEmpty()) {
+            return;
+        }
+        if (!lockForAttach(fileIds).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "附件不存在或已过期被清理，请重新上传");
+        }
+    }
+
+    /**
+     * 恢复被孤儿回收软删除的文件（调用方已持有文件行锁）；数据已被清除时返回 false
+     */
+    private boolean revive(File file, LocalDateTime now) {
+        // orphaned_at 为空说明早期文件的存储对象已删除
+        if (file.getOrphanedAt() == null) {
+            return false;
+        }
+        String digest = file.getContentDigest();
+        if (digest != null) {
+            // 锁住数据块行：隔离期满的删除要么已完成（行不存在），要么等本事务结束后看到引用数已恢复
+            if (blobRepository.findByIdForUpdate(digest).isEmpty()) {
+                return false;
+            }
+            long size = file.getFileSize() != null ? file.getFileSize() : 0L;
+            blobRepository.addReference(digest, size, file.getStoragePath(), now);
+        }
+        file.setDeleted(0);
+        file.setOrphanedAt(null);
+        fileRepository.save(file);
+        return true;
+    }
+
+    /**
+     * 数据块的对象键
+     */
+    public static String blobKey(String digest) {
+        return BLOB_PREFIX + digest.substring(0, 2) + "/" + digest.substring(2, 4) + "/" + digest;
+    }
+
+    /**
+     * 顺序读取文件计算 SHA-256（十六进制）
+     */
+    public static String digestOf(Path path) throws IOException {
+        MessageDigest digest = sha256();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 顺序读取流计算 SHA-256（十六进制），返回时流已读完，由调用方关闭
+     */
+    public static String digestOf(InputStream in) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[IO_BUFFER_SIZE];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, n);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private StoredBlob place(Path source, String digest, long size) throws IOException {
+        String key = blobKey(digest);
+        // 并发上传相同内容时两边都可能写入，内容相同，覆盖无害
+        if (storage.stat(key).isEmpty()) {
+            storage.put(key, source);
+        }
+        return new StoredBlob(digest, size, key);
+    }
+
+    private boolean objectExists(String key) {
+        try {
+            return storage.stat(key).isPresent();
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "文件存储暂不可用");
+        }
+    }
+
+    private static String extensionSuffix(String originalName) {
+        int dot = originalName != null ? originalName.lastIndexOf('.') : -1;
+        return dot >= 0 ? originalName.substring(dot).toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.model.File;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 文件下载：条件请求与断点续传
+ * ETag / Last-Modified 只由 files 记录生成（有内容摘要时用摘要作强校验值，否则用 ID+大小+更新时间作弱校验值），
+ * 命中 If-None-Match / If-Modified-Since 时直接返回 304，不访问磁盘。
+ * 支持单段与多段 Range（多段以 multipart/byteranges 返回）和 If-Range。
+ * 本地存储的数据通过 FileChannel.transferTo 输出；运行在支持 sendfile 的 Tomcat 上时，单段与整文件响应交给容器用 sendfile 发送。
+ * 远程存储按区间读取对象转发；被 HotFileCache 缓存的热点文件直接从内存发送，不访问存储。
+ */
+@Service
+public class FileDownloadService {
+
+    private static final int MAX_RANGES = 16;
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 字节区间 [start, end]（含两端）
+     */
+    record ByteRange(long start, long end) {
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    /**
+     * 数据来源，三者按优先级取其一：内存缓存、本地文件、存储后端对象
+     */
+    private record Source(String key, Path localPath, ByteBuffer cached) {
+    }
+
+    private final HotFileCache hotFileCache;
+    private final StorageBackend storage;
+
+    public FileDownloadService(HotFileCache hotFileCache, StorageBackend storage) {
+        this.hotFileCache = hotFileCache;
+        this.storage = storage;
+    }
+
+    public void serve(File file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String etag = etagOf(file);
+        long lastModified = lastModifiedOf(file);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (lastModified > 0) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        String key = file.getStoragePath();
+        ByteBuffer cached = hotFileCache.getContent(file);
+        Path localPath = cached == null ? storage.localPath(key).orElse(null) : null;
+        Source source = new Source(key, localPath, cached);
+        long size;
+        if (cached != null) {
+            size = cached.remaining();
+        } else if (localPath != null) {
+            try {
+                size = Files.size(localPath);
+            } catch (NoSuchFileException e) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "文件不存在");
+            }
+        } else {
+            size = storage.stat(key)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "文件不存在"))
+                    .size();
+        }
+        String contentType = file.getMimeType() != null ? file.getMimeType() : "application/octet-stream";
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(file.getOriginalName() != null ? file.getOriginalName() : file.getFileName(),
+                        StandardCharsets.UTF_8)
+                .build().toString());
+
+        List<ByteRange> ranges = null;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request, etag, lastModified)) {
+            ranges = parseRanges(rangeHeader, size);
+            if (ranges != null && ranges.isEmpty()) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+        }
+
+        if (ranges == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType);
+            response.setContentLengthLong(size);
+            send(source, 0, size, request, response);
+        } else if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start() + "-" + range.end() + "/" + size);
+            response.setContentLengthLong(range.length());
+            send(source, range.start(), range.length(), request, response);
+        } else {
+            sendMultipart(source, contentType, size, ranges, response);
+        }
+    }
+
+    /**
+     * 有内容摘要时为强校验值，否则为弱校验值
+     */
+    static String etagOf(File file) {
+        if (file.getContentDigest() != null) {
+            return "\"" + file.getContentDigest() + "\"";
+        }
+        long updated = lastModifiedOf(file);
+        return "W/\"" + file.getId() + "-" + (file.getFileSize() != null ? file.getFileSize() : 0) + "-" + updated + "\"";
+    }
+
+    /**
+     * 以秒为精度（HTTP 日期的精度），没有时间信息时返回 0
+     */
+    static long lastModifiedOf(File file) {
+        LocalDateTime time = file.getUpdatedAt() != null ? file.getUpdatedAt() : file.getCreatedAt();
+        if (time == null) {
+            return 0;
+        }
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond() * 1000;
+    }
+
+    /**
+     * If-None-Match 优先（弱比较）；没有时再看 If-Modified-Since
+     */
+    private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            String opaque = opaqueTag(etag);
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if ("*".equals(tag) || opaque.equals(opaqueTag(tag))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (lastModified > 0) {
+            long since = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+            return since >= 0 && lastModified <= since;
+        }
+        return false;
+    }
+
+    /**
+     * 没有 If-Range 时按 Range 处理；有时只有强校验值相同或日期一致才按 Range 返回，否则返回整个文件
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return !etag.startsWith("W/") && etag.equals(ifRange);
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified > 0 && lastModified == date;
+    }
+
+    /**
+     * 解析 Range 头：返回 null 表示忽略该头（格式不支持或分段过多），返回空列表表示无法满足（416）。
+     * 结果按起点排序，重叠或相邻的区间合并为一段（RFC 7233 §6.1），响应总量不超过文件大小
+     */
+    static List<ByteRange> parseRanges(String header, long size) {
+        if (!header.startsWith("bytes=")) {
+            return null;
+        }
+        String[] specs = header.substring("bytes=".length()).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+        List<ByteRange> ranges = new ArrayList<>(specs.length);
+        for (String raw : specs) {
+            String spec = raw.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                long start;
+                long end;
+                if (dash == 0) {
+                    // 后缀区间：最后 N 个字节
+                    long suffix = Long.parseLong(spec.substring(1));
+                    if (suffix <= 0) {
+                        continue;
+                    }
+                    start = Math.max(0, size - suffix);
+                    end = size - 1;
+                } else {
+                    start = Long.parseLong(spec.substring(0, dash));
+                    if (dash == spec.length() - 1) {
+                        end = size - 1;
+                    } else {
+                        end = Long.parseLong(spec.substring(dash + 1));
+                        if (end < start) {
+                            return null;
+                        }
+                        end = Math.min(end, size - 1);
+                    }
+                }
+                if (start < size && start <= end) {
+                    ranges.add(new ByteRange(start, end));
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return coalesce(ranges);
+    }
+
+    private static List<ByteRange> coalesce(List<ByteRange> ranges) {
+        if (ranges.size() < 2) {
+            return ranges;
+        }
+        ranges.sort(Comparator.comparingLong(ByteRange::start));
+        List<ByteRange> merged = new ArrayList<>(ranges.size());
+        ByteRange current = ranges.get(0);
+        for (int i = 1; i < ranges.size(); i++) {
+            ByteRange next = ranges.get(i);
+            if (next.start() <= current.end() + 1) {
+                current = new ByteRange(current.start(), Math.max(current.end(), next.end()));
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
+    private void send(Source source, long position, long count,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (source.cached() != null) {
+            write(source.cached(), position, count, Channels.newChannel(response.getOutputStream()));
+            hotFileCache.recordServed(count, true);
+            return;
+        }
+        hotFileCache.recordServed(count, false);
+        Path path = source.localPath();
+        if (path == null) {
+            copyRange(source.key(), position, count, response.getOutputStream());
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // 由 Tomcat 在请求结束后用 sendfile 发送，数据不经过用户态
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, position);
+            request.setAttribute(SENDFILE_END, position + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            transfer(channel, position, count, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    private void sendMultipart(Source source, String contentType, long size, List<ByteRange> ranges,
+                                      HttpServletResponse response) throws IOException {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long length = 0;
+        for (ByteRange range : ranges) {
+            byte[] header = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": bytes " + range.start() + "-" + range.end() + "/" + size + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            length += header.length + range.length();
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        length += closing.length;
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(length);
+        ServletOutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        long body = 0;
+        for (ByteRange range : ranges) {
+            body += range.length();
+        }
+        if (source.cached() != null) {
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders.get(i));
+                write(source.cached(), ranges.get(i).start(), ranges.get(i).length(), target);
+            }
+        } else if (source.localPath() == null) {
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders.get(i));
+                copyRange(source.key(), ranges.get(i).start(), ranges.get(i).length(), out);
+            }
+        } else {
+            try (FileChannel channel = FileChannel.open(source.localPath(), StandardOpenOption.READ)) {
+                for (int i = 0; i < ranges.size(); i++) {
+                    out.write(partHeaders.get(i));
+                    transfer(channel, ranges.get(i).start(), ranges.get(i).length(), target);
+                }
+            }
+        }
+        out.write(closing);
+        hotFileCache.recordServed(body, source.cached() != null);
+    }
+
+    /**
+     * 从缓存的内容发送 [position, position + count)，cached 本身是共享的，只操作其副本
+     */
+    private static void write(ByteBuffer cached, long position, long count, WritableByteChannel target)
+            throws IOException {
+        ByteBuffer slice = cached.duplicate();
+        slice.position((int) position).limit((int) (position + count));
+        while (slice.hasRemaining()) {
+            target.write(slice);
+        }
+    }
+
+    /**
+     * 从存储后端读取区间转发，对象比记录的短时视为截断
+     */
+    private void copyRange(String key, long position, long count, OutputStream out) throws IOException {
+        try (InputStream in = storage.getRange(key, position, count)) {
+            if (in.transferTo(out) != count) {
+                throw new IOException("文件在发送过程中被截断");
+            }
+        }
+    }
+
+    private static void transfer(FileChannel channel, long position, long count, WritableByteChannel target)
+            throws IOException {
+        long sent = 0;
+        while (sent < count) {
+            long n = channel.transferTo(position + sent, count - sent, target);
+            if (n <= 0) {
+                throw new IOException("文件在发送过程中被截断");
+            }
+            sent += n;
+        }
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static String opaqueTag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
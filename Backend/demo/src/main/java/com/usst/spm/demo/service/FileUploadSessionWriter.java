@@ -0,0 +1,115 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.model.File;
+import com.usst.spm.demo.model.FileUploadChunk;
+import com.usst.spm.demo.model.FileUploadSession;
+import com.usst.spm.demo.repository.FileUploadChunkRepository;
+import com.usst.spm.demo.repository.FileUploadSessionRepository;
+import com.usst.spm.demo.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 分片上传会话的短事务：分片数据写盘、合并后的摘要计算和存储都在事务外完成，这里只加会话行锁登记分片或完成上传
+ */
+@Component
+class FileUploadSessionWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(FileUploadSessionWriter.class);
+
+    private final FileUploadSessionRepository sessionRepository;
+    private final FileUploadChunkRepository chunkRepository;
+    private final FileBlobStore fileBlobStore;
+
+    FileUploadSessionWriter(FileUploadSessionRepository sessionRepository,
+                            FileUploadChunkRepository chunkRepository,
+                            FileBlobStore fileBlobStore) {
+        this.sessionRepository = sessionRepository;
+        this.chunkRepository = chunkRepository;
+        this.fileBlobStore = fileBlobStore;
+    }
+
+    /**
+     * 登记一个已写入的分片；同一分片重传时覆盖原校验值
+     */
+    @Transactional
+    public void recordChunk(String uploadId, int chunkIndex, int size, String checksum) {
+        FileUploadSession session = lockUploading(uploadId);
+        FileUploadChunk chunk = chunkRepository.findByUploadIdAndChunkIndex(uploadId, chunkIndex)
+                .orElseGet(FileUploadChunk::new);
+        chunk.setUploadId(uploadId);
+        chunk.setChunkIndex(chunkIndex);
+        chunk.setSize(size);
+        chunk.setChecksum(checksum);
+        chunk.setCreatedAt(LocalDateTime.now());
+        chunkRepository.save(chunk);
+        session.setUpdatedAt(LocalDateTime.now());
+    }
+
+    /**
+     * 数据块已在事务外收编进存储后端，这里加会话行锁登记引用、生成文件记录并标记完成；
+     * 合并期间分片被重传改写（校验值与收编前不一致）时返回 409，临时文件保留可重试。
+     * 临时文件在提交后才删除，登记失败或回滚时会话仍可再次完成。重复调用返回同一会话
+     */
+    @Transactional
+    public FileUploadSession complete(String uploadId, List<String> adoptedChecksums,
+                                      FileBlobStore.StoredBlob blob, Path partFile) {
+        FileUploadSession session = sessionRepository.findByIdForUpdate(uploadId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "上传会话不存在"));
+        if (FileUploadSession.STATUS_COMPLETED.equals(session.getStatus())) {
+            return session;
+        }
+        if (!chunkRepository.findChecksums(uploadId).equals(adoptedChecksums)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "合并期间分片被改写，请重新完成上传");
+        }
+        File file = fileBlobStore.createFile(blob, session.getOriginalName(), session.getMimeType(),
+                session.getUploaderId());
+
+        session.setStatus(FileUploadSession.STATUS_COMPLETED);
+        session.setFileId(file.getId());
+        session.setUpdatedAt(LocalDateTime.now());
+        chunkRepository.deleteByUploadId(uploadId);
+        TransactionHooks.afterCommit(() -> {
+            try {
+                Files.deleteIfExists(partFile);
+            } catch (IOException e) {
+                log.warn("[upload] cannot delete {}: {}", partFile, e.getMessage());
+            }
+        });
+        return session;
+    }
+
+    /**
+     * 删除过期会话及其分片记录（临时文件由调用方删除）
+     */
+    @Transactional
+    public boolean discardIfExpired(String uploadId, LocalDateTime now) {
+        FileUploadSession session = sessionRepository.findByIdForUpdate(uploadId).orElse(null);
+        if (session == null || !FileUploadSession.STATUS_UPLOADING.equals(session.getStatus())
+                || session.getExpiresAt() == null || !session.getExpiresAt().isBefore(now)) {
+            return false;
+        }
+        chunkRepository.deleteByUploadId(uploadId);
+        sessionRepository.delete(session);
+        return true;
+    }
+
+    private FileUploadSession lockUploading(String uploadId) {
+        FileUploadSession session = sessionRepository.findByIdForUpdate(uploadId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "上传会话不存在"));
+        if (!FileUploadSession.STATUS_UPLOADING.equals(session.getStatus())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "上传已完成");
+        }
+        return session;
+    }
+}
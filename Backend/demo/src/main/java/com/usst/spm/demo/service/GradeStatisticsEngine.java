@@ -0,0 +1,210 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.AssignmentGradeStatsResponse;
+import com.usst.spm.demo.dto.GradeScoreRow;
+import com.usst.spm.demo.model.Assignment;
+import com.usst.spm.demo.repository.GradeRepository;
+import com.usst.spm.demo.util.LongObjectMap;
+import com.usst.spm.demo.util.TransactionHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 作业成绩统计引擎
+ * 每个作业维护一份累加器：按分值计数的 int[] 直方图（长度 totalScore + 1）与累计和/平方和，
+ * 批改、改分、批量批改提交后按成绩ID增量更新；均值、标准差、中位数与分位数由直方图算出并缓存，
+ * 读取耗时只与总分有关，与班级人数无关。启动时从 grades 表一次性重建。
+ */
+@Component
+public class GradeStatisticsEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(GradeStatisticsEngine.class);
+
+    private static final int HISTOGRAM_BUCKETS = 10;
+    private static final int[] PERCENTILES = {10, 25, 50, 75, 90};
+
+    private final GradeRepository gradeRepository;
+
+    // assignmentId -> 累加器
+    private final ConcurrentHashMap<Long, Accumulator> stats = new ConcurrentHashMap<>();
+
+    public GradeStatisticsEngine(GradeRepository gradeRepository) {
+        this.gradeRepository = gradeRepository;
+    }
+
+    /**
+     * 启动时按所有有效成绩重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, Accumulator> loaded = new HashMap<>();
+        for (GradeScoreRow row : gradeRepository.findAllScoreRows()) {
+            loaded.computeIfAbsent(row.getAssignmentId(), id -> new Accumulator(row.getTotalScore()))
+                    .set(row.getGradeId(), row.getScore());
+        }
+        loaded.forEach(stats::putIfAbsent);
+        log.info("[grade-stats] rebuilt statistics for {} assignments", loaded.size());
+    }
+
+    /**
+     * 获取作业成绩统计，未加载时按该作业的成绩加载一次
+     */
+    public AssignmentGradeStatsResponse get(Assignment assignment) {
+        Accumulator accumulator = stats.computeIfAbsent(assignment.getId(), id -> load(id, assignment.getTotalScore()));
+        return accumulator.snapshot(assignment.getId());
+    }
+
+    /**
+     * 成绩写入后调用（事务提交后生效）。按成绩ID覆盖旧分数，重复调用结果不变
+     */
+    public void recordScore(Long assignmentId, Long gradeId, Integer score) {
+        if (assignmentId == null || gradeId == null) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> stats.computeIfPresent(assignmentId, (id, accumulator) -> {
+            accumulator.set(gradeId, score);
+            return accumulator;
+        }));
+    }
+
+    /**
+     * 作业总分变化或作业删除后调用，下次读取时重新加载
+     */
+    public void invalidate(Long assignmentId) {
+        if (assignmentId == null) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> stats.remove(assignmentId));
+    }
+
+    private Accumulator load(Long assignmentId, Integer totalScore) {
+        Accumulator accumulator = new Accumulator(totalScore);
+        for (GradeScoreRow row : gradeRepository.findScoreRowsByAssignmentId(assignmentId)) {
+            accumulator.set(row.getGradeId(), row.getScore());
+        }
+        return accumulator;
+    }
+
+    /**
+     * 单个作业的累加器：分数超出 [0, totalScore] 时直方图按边界计入，累计和仍用原始分数
+     */
+    private static final class Accumulator {
+        private final int totalScore;
+        private final int[] histogram;
+        // gradeId -> 当前计入的分数
+        private final LongObjectMap<Integer> scores = new LongObjectMap<>();
+        private int count;
+        private long sum;
+        private long sumOfSquares;
+        private volatile AssignmentGradeStatsResponse snapshot;
+
+        Accumulator(Integer totalScore) {
+            this.totalScore = totalScore != null && totalScore > 0 ? totalScore : 100;
+            this.histogram = new int[this.totalScore + 1];
+        }
+
+        synchronized void set(long gradeId, Integer score) {
+            Integer previous = scores.get(gradeId);
+            if (Objects.equals(previous, score)) {
+                return;
+            }
+            if (previous != null) {
+                histogram[bucketOf(previous)]--;
+                count--;
+                sum -= previous;
+                sumOfSquares -= (long) previous * previous;
+            }
+            if (score != null) {
+                histogram[bucketOf(score)]++;
+                count++;
+                sum += score;
+                sumOfSquares += (long) score * score;
+            }
+            scores.put(gradeId, score);
+            snapshot = null;
+        }
+
+        AssignmentGradeStatsResponse snapshot(Long assignmentId) {
+            AssignmentGradeStatsResponse current = snapshot;
+            if (current != null) {
+                return current;
+            }
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = compute(assignmentId);
+                }
+                return snapshot;
+            }
+        }
+
+        private int bucketOf(int score) {
+            return Math.max(0, Math.min(totalScore, score));
+        }
+
+        private AssignmentGradeStatsResponse compute(Long assignmentId) {
+            AssignmentGradeStatsResponse response = new AssignmentGradeStatsResponse();
+            response.setAssignmentId(assignmentId);
+            response.setTotalScore(totalScore);
+            response.setCount(count);
+
+            int width = (totalScore + HISTOGRAM_BUCKETS) / HISTOGRAM_BUCKETS;
+            List<AssignmentGradeStatsResponse.Bucket> buckets = new ArrayList<>(HISTOGRAM_BUCKETS);
+            for (int from = 0; from <= totalScore; from += width) {
+                int to = Math.min(totalScore, from + width - 1);
+                int n = 0;
+                for (int s = from; s <= to; s++) {
+                    n += histogram[s];
+                }
+                buckets.add(new AssignmentGradeStatsResponse.Bucket(from, to, n));
+            }
+            response.setHistogram(buckets);
+            if (count == 0) {
+                return response;
+            }
+
+            double mean = (double) sum / count;
+            double variance = Math.max(0, (double) sumOfSquares / count - mean * mean);
+            response.setMean(mean);
+            response.setStddev(Math.sqrt(variance));
+            response.setMin(scoreAtRank(1));
+            response.setMax(scoreAtRank(count));
+            if (count % 2 == 1) {
+                response.setMedian((double) scoreAtRank(count / 2 + 1));
+            } else {
+                response.setMedian((scoreAtRank(count / 2) + scoreAtRank(count / 2 + 1)) / 2.0);
+            }
+            Map<String, Integer> percentiles = new LinkedHashMap<>();
+            for (int p : PERCENTILES) {
+                int rank = Math.max(1, (int) Math.ceil(p / 100.0 * count));
+                percentiles.put("p" + p, scoreAtRank(rank));
+            }
+            response.setPercentiles(percentiles);
+            return response;
+        }
+
+        /**
+         * 第 rank 小的分数（rank 从 1 开始）
+         */
+        private int scoreAtRank(int rank) {
+            int seen = 0;
+            for (int s = 0; s <= totalScore; s++) {
+                seen += histogram[s];
+                if (seen >= rank) {
+                    return s;
+                }
+            }
+            return totalScore;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.HotFileCacheStats;
+import com.usst.spm.demo.model.File;
+import com.usst.spm.demo.repository.FileRepository;
+import com.usst.spm.demo.util.FrequencySketch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热点文件缓存：全班在几分钟内下载同一份作业附件时，避免每次都查 files 表和读磁盘
+ * - 元数据：按文件ID缓存 files 记录（LRU，最多 METADATA_ENTRIES 条）
+ * - 内容：不超过 max-file-size 的文件整份读入只读的直接内存 ByteBuffer，总字节数不超过 max-size
+ * 准入采用 TinyLFU：空间不足时，候选文件的访问频率必须高于要淘汰的 LRU 文件才会被缓存，
+ * 一次性的冷门下载不会把热点挤出去。文件内容按存储路径校验（内容寻址，同一路径内容不变），
+ * 删除文件时调用 evict 失效。
+ */
+@Component
+public class HotFileCache {
+
+    private static final Logger log = LoggerFactory.getLogger(HotFileCache.class);
+
+    private static final int METADATA_ENTRIES = 4096;
+
+    private final FileRepository fileRepository;
+    private final StorageBackend storage;
+    private final long maxBytes;
+    private final long maxFileBytes;
+    private final FrequencySketch sketch;
+
+    // fileId -> files 记录，访问顺序 LRU
+    private final Map<Long, File> metadata = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, File> eldest) {
+            return size() > METADATA_ENTRIES;
+        }
+    };
+
+    // 以下三项由 this 锁保护：fileId -> 内容（访问顺序，最旧的在前）、正在加载的文件、已占用（含预留）字节数
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Set<Long> loading = new HashSet<>();
+    private long usedBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder admissions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder bytesFromMemory = new LongAdder();
+    private final LongAdder bytesFromDisk = new LongAdder();
+    private final LongAdder metadataHits = new LongAdder();
+    private final LongAdder metadataMisses = new LongAdder();
+
+    private record Entry(String storagePath, ByteBuffer buffer) {
+    }
+
+    public HotFileCache(FileRepository fileRepository,
+                        StorageBackend storage,
+                        @Value("${spm.download.cache.max-size:256MB}") DataSize maxSize,
+                        @Value("${spm.download.cache.max-file-size:4MB}") DataSize maxFileSize) {
+        this.fileRepository = fileRepository;
+        this.storage = storage;
+        this.maxBytes = Math.max(0, maxSize.toBytes());
+        this.maxFileBytes = Math.min(Integer.MAX_VALUE, Math.max(0, maxFileSize.toBytes()));
+        // 频率表按能缓存的小文件数估算宽度（假设平均 64KB），至少覆盖元数据缓存的条数
+        long expected = maxBytes / (64 * 1024);
+        this.sketch = new FrequencySketch((int) Math.max(METADATA_ENTRIES, Math.min(1 << 20, expected)));
+    }
+
+    /**
+     * 按ID查文件记录，命中时不访问数据库；已删除的记录不缓存
+     */
+    public Optional<File> findFile(Long fileId) {
+        synchronized (metadata) {
+            File cached = metadata.get(fileId);
+            if (cached != null) {
+                metadataHits.increment();
+                return Optional.of(cached);
+            }
+        }
+        metadataMisses.increment();
+        Optional<File> loaded = fileRepository.findById(fileId);
+        loaded.ifPresent(file -> {
+            if (file.getDeleted() == null || file.getDeleted() == 0) {
+                synchronized (metadata) {
+                    metadata.put(fileId, file);
+                }
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * 获取文件内容（只读，position = 0）；未缓存且未被准入、文件过大或读取失败时返回 null，由调用方从存储发送
+     * 每次调用都计入访问频率
+     */
+    public ByteBuffer getContent(File file) {
+        if (maxBytes == 0 || file.getId() == null || file.getStoragePath() == null) {
+            return null;
+        }
+        long id = file.getId();
+        sketch.increment(id);
+        long size = file.getFileSize() != null ? file.getFileSize() : -1;
+        synchronized (this) {
+            Entry entry = entries.get(id);
+            if (entry != null) {
+                if (entry.storagePath().equals(file.getStoragePath())) {
+                    hits.increment();
+                    return entry.buffer().duplicate();
+                }
+                remove(id);
+            }
+            misses.increment();
+            // 同一文件已有请求在加载时，本次直接读存储，不重复占用内存
+            if (size <= 0 || size > maxFileBytes || size > maxBytes || loading.contains(id)) {
+                return null;
+            }
+            if (!admit(id, size)) {
+                rejections.increment();
+                return null;
+            }
+            loading.add(id);
+            usedBytes += size;
+        }
+
+        // 读存储不持锁
+        ByteBuffer buffer = load(file.getStoragePath(), (int) size);
+        synchronized (this) {
+            loading.remove(id);
+            if (buffer == null) {
+                usedBytes -= size;
+                return null;
+            }
+            entries.put(id, new Entry(file.getStoragePath(), buffer));
+            admissions.increment();
+        }
+        return buffer.duplicate();
+    }
+
+    /**
+     * 记录一次下载实际发送的字节数
+     */
+    public void recordServed(long bytes, boolean fromMemory) {
+        (fromMemory ? bytesFromMemory : bytesFromDisk).add(bytes);
+    }
+
+    /**
+     * 文件删除或替换后失效
+     */
+    public void evict(Long fileId) {
+        synchronized (metadata) {
+            metadata.remove(fileId);
+        }
+        synchronized (this) {
+            remove(fileId);
+        }
+    }
+
+    public HotFileCacheStats stats() {
+        HotFileCacheStats stats = new HotFileCacheStats();
+        synchronized (this) {
+            stats.setEntries(entries.size());
+            stats.setCachedBytes(usedBytes);
+        }
+        stats.setMaxBytes(maxBytes);
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        stats.setHits(hitCount);
+        stats.setMisses(missCount);
+        stats.setHitRate(hitCount + missCount == 0 ? 0 : (double) hitCount / (hitCount + missCount));
+        stats.setAdmissions(admissions.sum());
+        stats.setRejections(rejections.sum());
+        stats.setEvictions(evictions.sum());
+        stats.setBytesServedFromMemory(bytesFromMemory.sum());
+        stats.setBytesServedFromDisk(bytesFromDisk.sum());
+        stats.setMetadataHits(metadataHits.sum());
+        stats.setMetadataMisses(metadataMisses.sum());
+        return stats;
+    }
+
+    /**
+     * 空间不足时从最久未访问的文件开始挑选淘汰对象，任一淘汰对象的频率不低于候选文件则拒绝准入
+     * 调用方持有 this 锁
+     */
+    private boolean admit(long id, long size) {
+        long needed = usedBytes + size - maxBytes;
+        if (needed <= 0) {
+            return true;
+        }
+        int candidateFrequency = sketch.frequency(id);
+        List<Long> victims = new ArrayList<>();
+        long freed = 0;
+        for (Map.Entry<Long, Entry> victim : entries.entrySet()) {
+            if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                return false;
+            }
+            victims.add(victim.getKey());
+            freed += victim.getValue().buffer().capacity();
+            if (freed >= needed) {
+                break;
+            }
+        }
+        // 其余空间被正在加载的文件预留
+        if (freed < needed) {
+            return false;
+        }
+        for (Long victim : victims) {
+            remove(victim);
+            evictions.increment();
+        }
+        return true;
+    }
+
+    private void remove(long id) {
+        Entry removed = entries.remove(id);
+        if (removed != null) {
+            // 直接内存在 ByteBuffer 被回收时释放
+            usedBytes -= removed.buffer().capacity();
+        }
+    }
+
+    /**
+     * 整份读入直接内存；实际大小与记录不符时不缓存
+     */
+    private ByteBuffer load(String key, int size) {
+        try (InputStream in = storage.get(key); ReadableByteChannel channel = Channels.newChannel(in)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return null;
+                }
+            }
+            // 对象比记录的长
+            if (in.read() != -1) {
+                return null;
+            }
+            buffer.flip();
+            return buffer.asReadOnlyBuffer();
+        } catch (IOException e) {
+            log.debug("读取文件 {} 到缓存失败: {}", key, e.getMessage());
+            return null;
+        }
+    }
+}
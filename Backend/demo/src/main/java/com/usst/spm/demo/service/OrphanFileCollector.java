@@ -0,0 +1,276 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.OrphanGcReport;
+import com.usst.spm.demo.model.File;
+import com.usst.spm.demo.model.FileBlob;
+import com.usst.spm.demo.repository.AssignmentFileRepository;
+import com.usst.spm.demo.repository.FileBlobRepository;
+import com.usst.spm.demo.repository.FileRepository;
+import com.usst.spm.demo.repository.FileUploadSessionRepository;
+import com.usst.spm.demo.repository.SubmissionFileRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 孤儿文件回收
+ * 上传后从未挂到提交或作业上（或关联已被删除）的文件会一直占着存储。后台任务按ID keyset 分批扫描超过宽限期的文件，
+ * 没有任何有效 submission_files / assignment_files 关联的软删除并释放数据块引用；每轮最多扫描 max-files-per-run 个，
+ * 下一轮从上次的位置接着扫，扫到表尾再从头开始。写操作按 max-ops-per-second 限速，避免和业务请求抢数据库与存储。
+ * 引用数降为 0 的数据块：action=delete 时本轮即删除对象；action=quarantine 时先隔离（对象保留，期间可把 files.deleted
+ * 改回 0 并补回引用数来恢复，同一内容再次上传也会自动复活），隔离期满后再删除。
+ * 宽限期同时覆盖上传完成到提交之间的空档（含提交收件日志尚未写库的附件），已完成超过宽限期的上传会话一并清理。
+ */
+@Service
+public class OrphanFileCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(OrphanFileCollector.class);
+
+    public static final String ACTION_DELETE = "delete";
+    public static final String ACTION_QUARANTINE = "quarantine";
+
+    private final FileRepository fileRepository;
+    private final FileBlobRepository blobRepository;
+    private final SubmissionFileRepository submissionFileRepository;
+    private final AssignmentFileRepository assignmentFileRepository;
+    private final FileUploadSessionRepository sessionRepository;
+    private final OrphanFileWriter writer;
+    private final long intervalMinutes;
+    private final long graceHours;
+    private final int batchSize;
+    private final int maxFilesPerRun;
+    private final long opIntervalNanos;
+    private final String action;
+    private final long quarantineDays;
+
+    // keyset 扫描位置，跨轮次保留
+    private long cursor = 0L;
+    private long nextOpAt = 0L;
+    private final AtomicLong totalReclaimedBytes = new AtomicLong();
+    private volatile OrphanGcReport lastReport;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "orphan-file-gc");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public OrphanFileCollector(FileRepository fileRepository,
+                               FileBlobRepository blobRepository,
+                               SubmissionFileRepository submissionFileRepository,
+                               AssignmentFileRepository assignmentFileRepository,
+                               FileUploadSessionRepository sessionRepository,
+                               OrphanFileWriter writer,
+                               @Value("${spm.storage.gc.interval-minutes:60}") long intervalMinutes,
+                               @Value("${spm.storage.gc.grace-hours:24}") long graceHours,
+                               @Value("${spm.storage.gc.batch-size:200}") int batchSize,
+                               @Value("${spm.storage.gc.max-files-per-run:5000}") int maxFilesPerRun,
+                               @Value("${spm.storage.gc.max-ops-per-second:20}") int maxOpsPerSecond,
+                               @Value("${spm.storage.gc.action:quarantine}") String action,
+                               @Value("${spm.storage.gc.quarantine-days:7}") long quarantineDays) {
+        this.fileRepository = fileRepository;
+        this.blobRepository = blobRepository;
+        this.submissionFileRepository = submissionFileRepository;
+        this.assignmentFileRepository = assignmentFileRepository;
+        this.sessionRepository = sessionRepository;
+        this.writer = writer;
+        this.intervalMinutes = intervalMinutes;
+        this.graceHours = Math.max(1, graceHours);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxFilesPerRun = Math.max(this.batchSize, maxFilesPerRun);
+        this.opIntervalNanos = maxOpsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxOpsPerSecond : 0L;
+        this.action = ACTION_DELETE.equalsIgnoreCase(action) ? ACTION_DELETE : ACTION_QUARANTINE;
+        this.quarantineDays = Math.max(0, quarantineDays);
+        if (!this.action.equalsIgnoreCase(action.trim())) {
+            log.warn("[gc] unknown action '{}', using {}", action, this.action);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (intervalMinutes > 0) {
+            executor.scheduleWithFixedDelay(this::collectSafely, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 最近一轮的报告，尚未运行过时为 null
+     */
+    public OrphanGcReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * 执行一轮回收：标记孤儿文件、删除到期的数据块与早期文件、清理已完成的上传会话
+     */
+    public synchronized OrphanGcReport collect() {
+        OrphanGcReport report = new OrphanGcReport();
+        report.setAction(action);
+        report.setStartedAt(LocalDateTime.now());
+
+        markOrphans(report.getStartedAt().minusHours(graceHours), report);
+
+        LocalDateTime purgeCutoff = ACTION_DELETE.equals(action)
+                ? LocalDateTime.now()
+                : LocalDateTime.now().minusDays(quarantineDays);
+        purgeBlobs(purgeCutoff, report);
+        purgeLegacyFiles(purgeCutoff, report);
+
+        report.setRemovedSessions(sessionRepository.deleteCompletedBefore(report.getStartedAt().minusHours(graceHours)));
+        report.setTotalReclaimedBytes(totalReclaimedBytes.addAndGet(report.getReclaimedBytes()));
+        report.setFinishedAt(LocalDateTime.now());
+        lastReport = report;
+
+        if (report.getOrphanedFiles() > 0 || report.getPurgedBlobs() > 0 || report.getPurgedFiles() > 0
+                || report.getFailures() > 0) {
+            log.info("[gc] scanned {} files, orphaned {} ({} blobs unreferenced), purged {} blobs + {} files, "
+                            + "reclaimed {} bytes, {} failures ({})",
+                    report.getScannedFiles(), report.getOrphanedFiles(), report.getUnreferencedBlobs(),
+                    report.getPurgedBlobs(), report.getPurgedFiles(), report.getReclaimedBytes(),
+                    report.getFailures(), action);
+        }
+        return report;
+    }
+
+    private void collectSafely() {
+        try {
+            collect();
+        } catch (Exception e) {
+            log.warn("[gc] run failed: {}", e.getMessage());
+        }
+    }
+
+    private void markOrphans(LocalDateTime cutoff, OrphanGcReport report) {
+        while (report.getScannedFiles() < maxFilesPerRun) {
+            List<Long> ids = fileRepository.findGcScanBatch(cursor, cutoff, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                cursor = 0L;
+                report.setScanCompleted(true);
+                return;
+            }
+            report.setScannedFiles(report.getScannedFiles() + ids.size());
+
+            Set<Long> live = new HashSet<>(submissionFileRepository.findLiveFileIds(ids));
+            live.addAll(assignmentFileRepository.findLiveFileIds(ids));
+            for (Long id : ids) {
+                if (live.contains(id)) {
+                    continue;
+                }
+                throttle();
+                try {
+                    OrphanFileWriter.Collected collected = writer.collect(id, LocalDateTime.now());
+                    if (collected != null) {
+                        report.setOrphanedFiles(report.getOrphanedFiles() + 1);
+                        if (collected.blobUnreferenced()) {
+                            report.setUnreferencedBlobs(report.getUnreferencedBlobs() + 1);
+                        }
+                        log.debug("[gc] file {} orphaned ({} bytes, blob {})", id, collected.size(), collected.digest());
+                    }
+                } catch (Exception e) {
+                    report.setFailures(report.getFailures() + 1);
+                    log.warn("[gc] file {} failed: {}", id, e.getMessage());
+                }
+            }
+            cursor = ids.get(ids.size() - 1);
+            if (ids.size() < batchSize) {
+                cursor = 0L;
+                report.setScanCompleted(true);
+                return;
+            }
+        }
+    }
+
+    private void purgeBlobs(LocalDateTime cutoff, OrphanGcReport report) {
+        int processed = 0;
+        long failures = report.getFailures();
+        while (processed < maxFilesPerRun) {
+            List<FileBlob> blobs = blobRepository.findPurgeable(cutoff, PageRequest.of(0, batchSize));
+            boolean progressed = false;
+            for (FileBlob blob : blobs) {
+                processed++;
+                throttle();
+                try {
+                    long freed = writer.purgeBlob(blob.getDigest(), cutoff);
+                    if (freed >= 0) {
+                        progressed = true;
+                        report.setPurgedBlobs(report.getPurgedBlobs() + 1);
+                        report.setReclaimedBytes(report.getReclaimedBytes() + freed);
+                    }
+                } catch (Exception e) {
+                    report.setFailures(report.getFailures() + 1);
+                    log.warn("[gc] blob {} failed: {}", blob.getDigest(), e.getMessage());
+                }
+            }
+            // 本批有删除失败的会在下一批重复出现，不再继续，留到下一轮
+            if (blobs.size() < batchSize || !progressed || report.getFailures() > failures) {
+                return;
+            }
+        }
+    }
+
+    private void purgeLegacyFiles(LocalDateTime cutoff, OrphanGcReport report) {
+        int processed = 0;
+        long failures = report.getFailures();
+        while (processed < maxFilesPerRun) {
+            List<File> files = fileRepository.findPurgeableLegacy(cutoff, PageRequest.of(0, batchSize));
+            boolean progressed = false;
+            for (File file : files) {
+                processed++;
+                throttle();
+                try {
+                    long freed = writer.purgeLegacyFile(file.getId(), cutoff);
+                    if (freed >= 0) {
+                        progressed = true;
+                        report.setPurgedFiles(report.getPurgedFiles() + 1);
+                        report.setReclaimedBytes(report.getReclaimedBytes() + freed);
+                    }
+                } catch (Exception e) {
+                    report.setFailures(report.getFailures() + 1);
+                    log.warn("[gc] legacy file {} failed: {}", file.getId(), e.getMessage());
+                }
+            }
+            if (files.size() < batchSize || !progressed || report.getFailures() > failures) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 写操作限速：相邻两次至少间隔 1 / max-ops-per-second 秒
+     */
+    private void throttle() {
+        if (opIntervalNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (nextOpAt - now > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nextOpAt - now);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("orphan file collection interrupted", e);
+            }
+            now = nextOpAt;
+        }
+        nextOpAt = now + opIntervalNanos;
+    }
+}
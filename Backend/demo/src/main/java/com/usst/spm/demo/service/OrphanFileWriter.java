@@ -0,0 +1,101 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.model.File;
+import com.usst.spm.demo.model.FileBlob;
+import com.usst.spm.demo.repository.BlobInspectionRepository;
+import com.usst.spm.demo.repository.FileBlobRepository;
+import com.usst.spm.demo.repository.FileRepository;
+import com.usst.spm.demo.util.TransactionHooks;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * 孤儿文件回收的单条事务：每个文件、每个数据块各自一个短事务，失败只影响这一条
+ */
+@Component
+class OrphanFileWriter {
+
+    private final FileRepository fileRepository;
+    private final FileBlobRepository blobRepository;
+    private final BlobInspectionRepository blobInspectionRepository;
+    private final StorageBackend storage;
+    private final HotFileCache hotFileCache;
+
+    OrphanFileWriter(FileRepository fileRepository,
+                     FileBlobRepository blobRepository,
+                     BlobInspectionRepository blobInspectionRepository,
+                     StorageBackend storage,
+                     HotFileCache hotFileCache) {
+        this.fileRepository = fileRepository;
+        this.blobRepository = blobRepository;
+        this.blobInspectionRepository = blobInspectionRepository;
+        this.storage = storage;
+        this.hotFileCache = hotFileCache;
+    }
+
+    /**
+     * 判定为孤儿的文件；blobUnreferenced 表示它是数据块的最后一个引用
+     */
+    record Collected(Long fileId, String digest, long size, boolean blobUnreferenced) {
+    }
+
+    /**
+     * 软删除无人引用的文件并释放数据块引用；文件已删除或又被引用时返回 null
+     */
+    @Transactional
+    public Collected collect(Long fileId, LocalDateTime now) {
+        // 先锁文件行：正在挂载该文件的事务提交后才继续，随后的检查能看到它写入的关联
+        File file = fileRepository.findByIdForUpdate(fileId).orElse(null);
+        if (file == null || fileRepository.markOrphaned(fileId, now) == 0) {
+            return null;
+        }
+        String digest = file.getContentDigest();
+        boolean unreferenced = false;
+        if (digest != null) {
+            blobRepository.releaseReference(digest, now);
+            unreferenced = blobRepository.findRefCount(digest).map(count -> count == 0).orElse(false);
+        }
+        TransactionHooks.afterCommit(() -> hotFileCache.evict(fileId));
+        long size = file.getFileSize() != null ? file.getFileSize() : 0L;
+        return new Collected(fileId, digest, size, unreferenced);
+    }
+
+    /**
+     * 删除隔离期已满的数据块：加行锁确认仍无人引用，先删对象再删行（连同按内容摘要保存的检查结果）。
+     * 同一内容的上传登记引用会等到本事务结束，之后发现对象已不在时由上传方报错重传。
+     * 返回释放的字节数，数据块已被重新引用或已删除时返回 -1
+     */
+    @Transactional
+    public long purgeBlob(String digest, LocalDateTime cutoff) throws IOException {
+        FileBlob blob = blobRepository.findByIdForUpdate(digest).orElse(null);
+        if (blob == null || blob.getRefCount() > 0
+                || blob.getOrphanedAt() == null || blob.getOrphanedAt().isAfter(cutoff)) {
+            return -1;
+        }
+        storage.delete(blob.getStoragePath());
+        blobInspectionRepository.deleteById(digest);
+        blobRepository.delete(blob);
+        return blob.getSize();
+    }
+
+    /**
+     * 删除隔离期已满的早期文件（按 UUID 单独存放，不经数据块表）的存储对象，清空 orphaned_at 表示已回收。
+     * 返回释放的字节数，文件已恢复时返回 -1
+     */
+    @Transactional
+    public long purgeLegacyFile(Long fileId, LocalDateTime cutoff) throws IOException {
+        // 加行锁，与挂载附件时的恢复串行
+        File file = fileRepository.findByIdForUpdate(fileId).orElse(null);
+        if (file == null || file.getContentDigest() != null || file.getDeleted() == null || file.getDeleted() == 0
+                || file.getOrphanedAt() == null || file.getOrphanedAt().isAfter(cutoff)) {
+            return -1;
+        }
+        storage.delete(file.getStoragePath());
+        file.setOrphanedAt(null);
+        fileRepository.save(file);
+        return file.getFileSize() != null ? file.getFileSize() : 0L;
+    }
+}
@@ -0,0 +1,227 @@
+package com.usst.spm.demo.service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * S3 兼容对象存储（AWS S3、MinIO 等），使用 JDK HttpClient 与 AWS Signature V4，不引入 SDK
+ * 采用路径风格地址 {endpoint}/{bucket}/{key}；请求体不参与签名（UNSIGNED-PAYLOAD），上传时直接流式发送文件。
+ */
+public class S3StorageBackend implements StorageBackend {
+
+    private static final String SERVICE = "s3";
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final DateTimeFormatter AMZ_DATE =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(10);
+
+    private final URI endpoint;
+    private final String bucket;
+    private final String region;
+    private final String accessKey;
+    private final String secretKey;
+    private final HttpClient client;
+
+    public S3StorageBackend(String endpoint, String bucket, String region, String accessKey, String secretKey) {
+        if (endpoint == null || endpoint.isBlank() || bucket == null || bucket.isBlank()) {
+            throw new IllegalArgumentException("S3 存储需要配置 spm.storage.s3.endpoint 与 spm.storage.s3.bucket");
+        }
+        this.endpoint = URI.create(endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint);
+        this.bucket = bucket;
+        this.region = region;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        HttpResponse<Void> response = send("PUT", key, Map.of(),
+                HttpRequest.BodyPublishers.ofFile(source), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("S3 PUT " + key + " 失败: HTTP " + response.statusCode());
+        }
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return open(key, Map.of(), 200);
+    }
+
+    @Override
+    public InputStream getRange(String key, long offset, long length) throws IOException {
+        if (length <= 0) {
+            return InputStream.nullInputStream();
+        }
+        return open(key, Map.of("range", "bytes=" + offset + "-" + (offset + length - 1)), 206);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpResponse<Void> response = send("DELETE", key, Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.discarding());
+        int status = response.statusCode();
+        if (status / 100 != 2 && status != 404) {
+            throw new IOException("S3 DELETE " + key + " 失败: HTTP " + status);
+        }
+    }
+
+    @Override
+    public Optional<ObjectStat> stat(String key) throws IOException {
+        HttpResponse<Void> response = send("HEAD", key, Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return Optional.empty();
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("S3 HEAD " + key + " 失败: HTTP " + response.statusCode());
+        }
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(0);
+        Instant lastModified = response.headers().firstValue("Last-Modified")
+                .map(S3StorageBackend::parseHttpDate)
+                .orElse(null);
+        return Optional.of(new ObjectStat(size, lastModified));
+    }
+
+    private InputStream open(String key, Map<String, String> headers, int expectedStatus) throws IOException {
+        HttpResponse<InputStream> response = send("GET", key, headers,
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream());
+        int status = response.statusCode();
+        if (status == expectedStatus) {
+            return response.body();
+        }
+        response.body().close();
+        if (status == 404) {
+            throw new NoSuchFileException(key);
+        }
+        throw new IOException("S3 GET " + key + " 失败: HTTP " + status);
+    }
+
+    private <T> HttpResponse<T> send(String method, String key, Map<String, String> extraHeaders,
+                                     HttpRequest.BodyPublisher body, HttpResponse.BodyHandler<T> handler)
+            throws IOException {
+        String canonicalUri = endpoint.getRawPath() + "/" + encodePath(bucket) + "/" + encodePath(key);
+        String host = endpoint.getPort() != -1 ? endpoint.getHost() + ":" + endpoint.getPort() : endpoint.getHost();
+
+        TreeMap<String, String> headers = new TreeMap<>(extraHeaders);
+        headers.put("host", host);
+        headers.put("x-amz-content-sha256", UNSIGNED_PAYLOAD);
+        headers.put("x-amz-date", AMZ_DATE.format(Instant.now()));
+        String authorization = authorization(method, canonicalUri, "", headers, UNSIGNED_PAYLOAD,
+                region, accessKey, secretKey);
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(
+                        URI.create(endpoint.getScheme() + "://" + endpoint.getRawAuthority() + canonicalUri))
+                .timeout(REQUEST_TIMEOUT)
+                .method(method, body)
+                .header("Authorization", authorization);
+        // host 由 HttpClient 按 URI 生成，不能手动设置
+        headers.forEach((name, value) -> {
+            if (!"host".equals(name)) {
+                builder.header(name, value);
+            }
+        });
+        try {
+            return client.send(builder.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("S3 请求被中断", e);
+        }
+    }
+
+    /**
+     * AWS Signature V4 的 Authorization 头；headers 为参与签名的请求头（键为小写，须含 host 与 x-amz-date）
+     */
+    static String authorization(String method, String canonicalUri, String canonicalQuery,
+                                TreeMap<String, String> headers, String payloadHash,
+                                String region, String accessKey, String secretKey) {
+        String amzDate = headers.get("x-amz-date");
+        String date = amzDate.substring(0, 8);
+        StringBuilder canonicalHeaders = new StringBuilder();
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            canonicalHeaders.append(header.getKey()).append(':').append(header.getValue().trim()).append('\n');
+        }
+        String signedHeaders = String.join(";", headers.keySet());
+        String canonicalRequest = method + "\n" + canonicalUri + "\n" + canonicalQuery + "\n"
+                + canonicalHeaders + "\n" + signedHeaders + "\n" + payloadHash;
+
+        String scope = date + "/" + region + "/" + SERVICE + "/aws4_request";
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n" + sha256Hex(canonicalRequest);
+
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        key = hmac(key, region);
+        key = hmac(key, SERVICE);
+        key = hmac(key, "aws4_request");
+        String signature = HexFormat.of().formatHex(hmac(key, stringToSign));
+        return "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature;
+    }
+
+    /**
+     * 按 RFC 3986 逐段编码，保留 /
+     */
+    static String encodePath(String path) {
+        StringBuilder out = new StringBuilder();
+        for (byte b : path.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || c == '/') {
+                out.append(c);
+            } else {
+                out.append('%').append(Character.toUpperCase(Character.forDigit((b >> 4) & 0xF, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(b & 0xF, 16)));
+            }
+        }
+        return out.toString();
+    }
+
+    private static Instant parseHttpDate(String value) {
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256Hex(String data) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.SimilarityReportResponse;
+import com.usst.spm.demo.dto.SubmissionContentStamp;
+import com.usst.spm.demo.model.SimilarityPair;
+import com.usst.spm.demo.model.SimilarityReport;
+import com.usst.spm.demo.repository.SimilarityPairRepository;
+import com.usst.spm.demo.repository.SimilarityReportRepository;
+import com.usst.spm.demo.repository.SubmissionRepository;
+import com.usst.spm.demo.util.MinHasher;
+import com.usst.spm.demo.util.TransactionHooks;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 作业提交相似度检测
+ * 在独立的 ForkJoinPool 上以后台任务运行：MinHash 签名按提交并行计算（缓存，提交内容变化后才重算），
+ * LSH 分带找出候选对后再并行估计相似度，达到阈值的相似对落库，GET 接口读取最近一次结果。
+ * 同一作业同时只运行一个任务。
+ */
+@Service
+public class SimilarityDetectionService {
+
+    private static final Logger log = LoggerFactory.getLogger(SimilarityDetectionService.class);
+
+    public static final double SIMILARITY_THRESHOLD = 0.5;
+    public static final String STATUS_NONE = "NONE";
+
+    private static final int MAX_REPORTED_PAIRS = 5000;
+    private static final int CONTENT_LOAD_CHUNK = 200;
+    // 缓存签名的作业数上限（按最近使用淘汰）
+    private static final int MAX_CACHED_ASSIGNMENTS = 64;
+    private static final int SIGNATURE_TASK_THRESHOLD = 8;
+    private static final int PAIR_TASK_THRESHOLD = 4096;
+
+    private final SubmissionRepository submissionRepository;
+    private final SubmissionContentStore contentStore;
+    private final SimilarityReportRepository reportRepository;
+    private final SimilarityPairRepository pairRepository;
+    private final UserSummaryCache userSummaryCache;
+    private final SimilarityReportWriter writer;
+
+    private final ForkJoinPool pool = new ForkJoinPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+            p -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                t.setName("similarity-" + t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            }, null, false);
+
+    // assignmentId -> (submissionId -> 签名)
+    private final Map<Long, ConcurrentHashMap<Long, CachedSignature>> signatures = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, ConcurrentHashMap<Long, CachedSignature>> eldest) {
+                    return size() > MAX_CACHED_ASSIGNMENTS;
+                }
+            });
+    // assignmentId -> 正在运行的 reportId
+    private final ConcurrentHashMap<Long, Long> running = new ConcurrentHashMap<>();
+
+    public SimilarityDetectionService(SubmissionRepository submissionRepository,
+                                      SubmissionContentStore contentStore,
+                                      SimilarityReportRepository reportRepository,
+                                      SimilarityPairRepository pairRepository,
+                                      UserSummaryCache userSummaryCache,
+                                      SimilarityReportWriter writer) {
+        this.submissionRepository = submissionRepository;
+        this.contentStore = contentStore;
+        this.reportRepository = reportRepository;
+        this.pairRepository = pairRepository;
+        this.userSummaryCache = userSummaryCache;
+        this.writer = writer;
+    }
+
+    /**
+     * 签名及其对应的提交版本（updatedAt），null 签名表示内容为空
+     */
+    private record CachedSignature(LocalDateTime updatedAt, int[] signature) {
+    }
+
+    /**
+     * 启动时把上次进程中断的任务标记为失败
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterrupted() {
+        int failed = reportRepository.failRunning("服务重启，检测中断", LocalDateTime.now());
+        if (failed > 0) {
+            log.info("[similarity] marked {} interrupted reports as failed", failed);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 为作业启动一次检测；已有任务在运行时直接返回其状态
+     */
+    public SimilarityReportResponse start(Long assignmentId, Long operatorId) {
+        if (running.putIfAbsent(assignmentId, -1L) != null) {
+            return getLatest(assignmentId);
+        }
+        try {
+            SimilarityReport report = new SimilarityReport();
+            report.setAssignmentId(assignmentId);
+            report.setCreatedBy(operatorId);
+            report = reportRepository.save(report);
+            Long reportId = report.getId();
+            running.put(assignmentId, reportId);
+            pool.execute(() -> run(assignmentId, reportId));
+        } catch (RuntimeException e) {
+            running.remove(assignmentId);
+            throw e;
+        }
+        return getLatest(assignmentId);
+    }
+
+    /**
+     * 最近一次检测结果（含相似对及双方学生信息）
+     */
+    public SimilarityReportResponse getLatest(Long assignmentId) {
+        SimilarityReportResponse response = new SimilarityReportResponse();
+        response.setAssignmentId(assignmentId);
+        response.setThreshold(SIMILARITY_THRESHOLD);
+        SimilarityReport report = reportRepository.findFirstByAssignmentIdOrderByIdDesc(assignmentId).orElse(null);
+        if (report == null) {
+            response.setStatus(STATUS_NONE);
+            response.setPairs(List.of());
+            return response;
+        }
+        response.setReportId(report.getId());
+        response.setStatus(report.getStatus());
+        response.setSubmissionCount(report.getSubmissionCount());
+        response.setCandidatePairs(report.getCandidatePairs());
+        response.setReportedPairs(report.getReportedPairs());
+        response.setMessage(report.getMessage());
+        response.setStartedAt(report.getStartedAt());
+        response.setFinishedAt(report.getFinishedAt());
+
+        List<SimilarityPair> pairs = SimilarityReport.STATUS_COMPLETED.equals(report.getStatus())
+                ? pairRepository.findByReportIdOrderBySimilarityDesc(report.getId()) : List.of();
+        Set<Long> studentIds = new HashSet<>();
+        for (SimilarityPair pair : pairs) {
+            studentIds.add(pair.getStudentA());
+            studentIds.add(pair.getStudentB());
+        }
+        Map<Long, UserSummaryCache.UserSummary> users = userSummaryCache.getAll(studentIds);
+        List<SimilarityReportResponse.Pair> items = new ArrayList<>(pairs.size());
+        for (SimilarityPair pair : pairs) {
+            SimilarityReportResponse.Pair item = new SimilarityReportResponse.Pair();
+            UserSummaryCache.UserSummary a = users.get(pair.getStudentA());
+            UserSummaryCache.UserSummary b = users.get(pair.getStudentB());
+            item.setSubmissionIdA(pair.getSubmissionA());
+            item.setStudentIdA(pair.getStudentA());
+            item.setStudentNoA(a != null ? a.studentNo() : null);
+            item.setStudentNameA(a != null ? a.name() : null);
+            item.setSubmissionIdB(pair.getSubmissionB());
+            item.setStudentIdB(pair.getStudentB());
+            item.setStudentNoB(b != null ? b.studentNo() : null);
+            item.setStudentNameB(b != null ? b.name() : null);
+            item.setSimilarity(pair.getSimilarity());
+            items.add(item);
+        }
+        response.setPairs(items);
+        return response;
+    }
+
+    /**
+     * 提交内容变化后调用（事务提交后生效），下次检测时重算该提交的签名
+     */
+    public void evictSignature(Long assignmentId, Long submissionId) {
+        if (assignmentId == null || submissionId == null) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            ConcurrentHashMap<Long, CachedSignature> cache = signatures.get(assignmentId);
+            if (cache != null) {
+                cache.remove(submissionId);
+            }
+        });
+    }
+
+    private void run(Long assignmentId, Long reportId) {
+        long startedAt = System.currentTimeMillis();
+        try {
+            List<SubmissionContentStamp> stamps = submissionRepository.findContentStampsByAssignmentId(assignmentId);
+            ConcurrentHashMap<Long, CachedSignature> cache =
+                    signatures.computeIfAbsent(assignmentId, id -> new ConcurrentHashMap<>());
+            int computed = refreshSignatures(stamps, cache);
+
+            List<Long> ids = new ArrayList<>(stamps.size());
+            List<Long> studentIds = new ArrayList<>(stamps.size());
+            List<int[]> sigs = new ArrayList<>(stamps.size());
+            for (SubmissionContentStamp stamp : stamps) {
+                CachedSignature cached = cache.get(stamp.getId());
+                if (cached != null && cached.signature() != null) {
+                    ids.add(stamp.getId());
+                    studentIds.add(stamp.getStudentId());
+                    sigs.add(cached.signature());
+                }
+            }
+
+            long[] candidates = candidatePairs(sigs);
+            List<SimilarityReportWriter.Match> matches =
+                    pool.invoke(new PairTask(candidates, 0, candidates.length, sigs, ids, studentIds));
+            matches.sort(Comparator.comparingDouble(SimilarityReportWriter.Match::similarity).reversed());
+            if (matches.size() > MAX_REPORTED_PAIRS) {
+                matches = new ArrayList<>(matches.subList(0, MAX_REPORTED_PAIRS));
+            }
+            writer.complete(reportId, sigs.size(), candidates.length, matches);
+            log.info("[similarity] assignment={} submissions={} signaturesComputed={} candidates={} reported={} in {} ms",
+                    assignmentId, sigs.size(), computed, candidates.length, matches.size(),
+                    System.currentTimeMillis() - startedAt);
+        } catch (RuntimeException e) {
+            log.error("[similarity] job failed, assignment={} report={}", assignmentId, reportId, e);
+            try {
+                writer.fail(reportId, "检测失败: " + e.getMessage());
+            } catch (RuntimeException ignored) {
+                // 数据库不可用时留给下次启动标记
+            }
+        } finally {
+            running.remove(assignmentId, reportId);
+        }
+    }
+
+    /**
+     * 为缓存缺失或版本过期的提交加载正文并并行计算签名，返回重算的数量
+     */
+    private int refreshSignatures(List<SubmissionContentStamp> stamps, ConcurrentHashMap<Long, CachedSignature> cache) {
+        Map<Long, LocalDateTime> stale = new LinkedHashMap<>();
+        Set<Long> live = new HashSet<>(stamps.size());
+        for (SubmissionContentStamp stamp : stamps) {
+            live.add(stamp.getId());
+            CachedSignature cached = cache.get(stamp.getId());
+            if (cached == null || !Objects.equals(cached.updatedAt(), stamp.getUpdatedAt())) {
+                stale.put(stamp.getId(), stamp.getUpdatedAt());
+            }
+        }
+        // 已删除的提交不再保留签名
+        cache.keySet().retainAll(live);
+
+        List<Long> staleIds = new ArrayList<>(stale.keySet());
+        for (int from = 0; from < staleIds.size(); from += CONTENT_LOAD_CHUNK) {
+            List<Long> chunk = staleIds.subList(from, Math.min(staleIds.size(), from + CONTENT_LOAD_CHUNK));
+            Map<Long, String> loaded = contentStore.readAll(chunk);
+            String[] contents = new String[chunk.size()];
+            for (int i = 0; i < contents.length; i++) {
+                contents[i] = loaded.get(chunk.get(i));
+            }
+            int[][] computed = new int[contents.length][];
+            pool.invoke(new SignatureTask(contents, computed, 0, contents.length));
+            for (int i = 0; i < contents.length; i++) {
+                Long id = chunk.get(i);
+                cache.put(id, new CachedSignature(stale.get(id), computed[i]));
+            }
+        }
+        return staleIds.size();
+    }
+
+    /**
+     * LSH 分带：每段相同的提交两两成为候选对，候选对编码为 (i << 32) | j，i < j
+     */
+    private static long[] candidatePairs(List<int[]> sigs) {
+        Set<Long> pairs = new HashSet<>();
+        for (int band = 0; band < MinHasher.BANDS; band++) {
+            Map<Long, List<Integer>> buckets = new HashMap<>();
+            for (int i = 0; i < sigs.size(); i++) {
+                buckets.computeIfAbsent(MinHasher.bandKey(sigs.get(i), band), k -> new ArrayList<>(2)).add(i);
+            }
+            for (List<Integer> bucket : buckets.values()) {
+                for (int x = 0; x < bucket.size(); x++) {
+                    for (int y = x + 1; y < bucket.size(); y++) {
+                        pairs.add(((long) bucket.get(x) << 32) | bucket.get(y));
+                    }
+                }
+            }
+        }
+        long[] result = new long[pairs.size()];
+        int n = 0;
+        for (Long pair : pairs) {
+            result[n++] = pair;
+        }
+        return result;
+    }
+
+    /**
+     * 并行计算一段提交的签名
+     */
+    private static final class SignatureTask extends RecursiveAction {
+        private final String[] contents;
+        private final int[][] out;
+        private final int from;
+        private final int to;
+
+        SignatureTask(String[] contents, int[][] out, int from, int to) {
+            this.contents = contents;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SIGNATURE_TASK_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    out[i] = MinHasher.signature(contents[i]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SignatureTask(contents, out, from, mid), new SignatureTask(contents, out, mid, to));
+        }
+    }
+
+    /**
+     * 并行估计一段候选对的相似度，返回达到阈值的对
+     */
+    private static final class PairTask extends RecursiveTask<List<SimilarityReportWriter.Match>> {
+        private final long[] candidates;
+        private final int from;
+        private final int to;
+        private final List<int[]> sigs;
+        private final List<Long> ids;
+        private final List<Long> studentIds;
+
+        PairTask(long[] candidates, int from, int to, List<int[]> sigs, List<Long> ids, List<Long> studentIds) {
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+            this.sigs = sigs;
+            this.ids = ids;
+            this.studentIds = studentIds;
+        }
+
+        @Override
+        protected List<SimilarityReportWriter.Match> compute() {
+            if (to - from <= PAIR_TASK_THRESHOLD) {
+                List<SimilarityReportWriter.Match> matches = new ArrayList<>();
+                for (int k = from; k < to; k++) {
+                    int i = (int) (candidates[k] >>> 32);
+                    int j = (int) candidates[k];
+                    double similarity = MinHasher.estimate(sigs.get(i), sigs.get(j));
+                    if (similarity >= SIMILARITY_THRESHOLD) {
+                        matches.add(new SimilarityReportWriter.Match(ids.get(i), studentIds.get(i),
+                                ids.get(j), studentIds.get(j), similarity));
+                    }
+                }
+                return matches;
+            }
+            int mid = (from + to) >>> 1;
+            PairTask left = new PairTask(candidates, from, mid, sigs, ids, studentIds);
+            left.fork();
+            List<SimilarityReportWriter.Match> right =
+                    new PairTask(candidates, mid, to, sigs, ids, studentIds).compute();
+            List<SimilarityReportWriter.Match> merged = left.join();
+            merged.addAll(right);
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.model.SimilarityReport;
+import com.usst.spm.demo.repository.SimilarityPairRepository;
+import com.usst.spm.demo.repository.SimilarityReportRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 相似度检测结果落库：相似对用 JDBC 批量写入，并清理该作业旧报告的相似对
+ */
+@Component
+class SimilarityReportWriter {
+
+    private static final String INSERT_PAIR_SQL =
+            "INSERT INTO similarity_pairs (report_id, assignment_id, submission_a, submission_b, student_a, student_b, "
+            + "similarity) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SimilarityReportRepository reportRepository;
+    private final SimilarityPairRepository pairRepository;
+
+    SimilarityReportWriter(JdbcTemplate jdbcTemplate,
+                           SimilarityReportRepository reportRepository,
+                           SimilarityPairRepository pairRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reportRepository = reportRepository;
+        this.pairRepository = pairRepository;
+    }
+
+    /**
+     * 待保存的一对提交
+     */
+    record Match(long submissionA, long studentA, long submissionB, long studentB, double similarity) {
+    }
+
+    @Transactional
+    public void complete(Long reportId, int submissionCount, int candidatePairs, List<Match> matches) {
+        SimilarityReport report = reportRepository.findById(reportId).orElseThrow();
+        if (!matches.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_PAIR_SQL, matches, 1000, (ps, m) -> {
+                ps.setLong(1, reportId);
+                ps.setLong(2, report.getAssignmentId());
+                ps.setLong(3, m.submissionA());
+                ps.setLong(4, m.submissionB());
+                ps.setLong(5, m.studentA());
+                ps.setLong(6, m.studentB());
+                ps.setDouble(7, m.similarity());
+            });
+        }
+        pairRepository.deleteByAssignmentIdExceptReport(report.getAssignmentId(), reportId);
+        report.setStatus(SimilarityReport.STATUS_COMPLETED);
+        report.setSubmissionCount(submissionCount);
+        report.setCandidatePairs(candidatePairs);
+        report.setReportedPairs(matches.size());
+        report.setFinishedAt(LocalDateTime.now());
+        reportRepository.save(report);
+    }
+
+    @Transactional
+    public void fail(Long reportId, String message) {
+        reportRepository.findById(reportId).ifPresent(report -> {
+            report.setStatus(SimilarityReport.STATUS_FAILED);
+            report.setMessage(message != null && message.length() > 255 ? message.substring(0, 255) : message);
+            report.setFinishedAt(LocalDateTime.now());
+            reportRepository.save(report);
+        });
+    }
+}
@@ -0,0 +1,51 @@
+package com.usst.spm.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * 文件存储后端：按对象键存取文件内容
+ * 对象键是以 / 分隔的相对路径（如 blobs/ab/cd/{摘要}），保存在 files.storage_path 与 file_blobs.storage_path 中，
+ * 与具体后端无关；多个后端节点配置同一个 S3 兼容存储即可共享文件。
+ * 对象不存在时 get / getRange 抛出 NoSuchFileException，stat 返回空。
+ */
+public interface StorageBackend {
+
+    /**
+     * 对象元数据
+     */
+    record ObjectStat(long size, Instant lastModified) {
+    }
+
+    /**
+     * 写入对象（同键对象被覆盖）；source 是本地已写完的临时文件，可能被移动走，调用方之后应 deleteIfExists
+     */
+    void put(String key, Path source) throws IOException;
+
+    /**
+     * 读取整个对象
+     */
+    InputStream get(String key) throws IOException;
+
+    /**
+     * 读取 [offset, offset + length) 区间
+     */
+    InputStream getRange(String key, long offset, long length) throws IOException;
+
+    /**
+     * 删除对象，不存在时忽略
+     */
+    void delete(String key) throws IOException;
+
+    Optional<ObjectStat> stat(String key) throws IOException;
+
+    /**
+     * 对象在本机磁盘上的路径（可用 FileChannel / sendfile 零拷贝发送）；远程存储返回空
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+}
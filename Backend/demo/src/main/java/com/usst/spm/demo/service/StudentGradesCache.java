@@ -0,0 +1,101 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.AssignmentResponse;
+import com.usst.spm.demo.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 学生“我的成绩”结果缓存（按学生）
+ * 成绩发布/修改、学生提交时按学生失效；作业本身变更时整体清空。按访问顺序 LRU 淘汰，条数有上限。
+ * AssignmentResponse 是可变对象：存入与取出时都复制一份，调用方修改返回值不会影响缓存；
+ * 失效之前已开始的加载结果不再写入，避免把旧数据放回缓存。
+ */
+@Component
+public class StudentGradesCache {
+
+    private final int maxEntries;
+
+    // 以下两项由 this 锁保护：studentId -> 我的成绩列表（访问顺序，最旧的在前）、失效代数
+    private final LinkedHashMap<Long, List<AssignmentResponse>> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private long generation;
+
+    public StudentGradesCache(@Value("${spm.grades.cache.max-entries:5000}") int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    public List<AssignmentResponse> get(Long studentId, Function<Long, List<AssignmentResponse>> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            List<AssignmentResponse> cached = cache.get(studentId);
+            if (cached != null) {
+                return copyOf(cached);
+            }
+            loadGeneration = generation;
+        }
+        List<AssignmentResponse> loaded = copyOf(loader.apply(studentId));
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                cache.put(studentId, loaded);
+                trim();
+            }
+        }
+        return copyOf(loaded);
+    }
+
+    /**
+     * 按学生失效（事务提交后执行）
+     */
+    public void evictStudent(Long studentId) {
+        if (studentId == null) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> invalidate(List.of(studentId)));
+    }
+
+    public void evictStudents(Collection<Long> studentIds) {
+        if (studentIds == null || studentIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(studentIds);
+        TransactionHooks.afterCommit(() -> invalidate(ids));
+    }
+
+    /**
+     * 作业信息（状态、截止时间等）变化时整体清空
+     */
+    public void evictAll() {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                generation++;
+                cache.clear();
+            }
+        });
+    }
+
+    private synchronized void invalidate(Collection<Long> studentIds) {
+        generation++;
+        studentIds.forEach(cache::remove);
+    }
+
+    /**
+     * 超出上限时淘汰最久未访问的学生（调用方持有 this 锁）
+     */
+    private void trim() {
+        Iterator<List<AssignmentResponse>> eldest = cache.values().iterator();
+        while (cache.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private static List<AssignmentResponse> copyOf(List<AssignmentResponse> responses) {
+        return responses.stream().map(AssignmentResponse::new).toList();
+    }
+}
@@ -0,0 +1,177 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.model.Submission;
+import com.usst.spm.demo.model.SubmissionContent;
+import com.usst.spm.demo.repository.SubmissionContentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 提交正文的读写
+ * 正文存放在 submission_contents 表，submissions 表只保留字数与摘要供列表展示；
+ * UTF-8 长度超过阈值的正文用 Deflater 压缩后存储（压缩后不变小则仍存原文）。
+ */
+@Component
+public class SubmissionContentStore {
+
+    public static final int PREVIEW_LENGTH = 120;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final SubmissionContentRepository contentRepository;
+    private final int compressThreshold;
+
+    public SubmissionContentStore(SubmissionContentRepository contentRepository,
+                                  @Value("${spm.submission.content.compress-threshold:2048}") int compressThreshold) {
+        this.contentRepository = contentRepository;
+        this.compressThreshold = compressThreshold;
+    }
+
+    /**
+     * 编码后的正文及列表字段
+     */
+    record Encoded(String encoding, byte[] body, int length, String preview) {
+    }
+
+    /**
+     * 写入提交正文，同时更新提交的字数与摘要（调用方负责保存 submission）
+     */
+    public void write(Submission submission, String content) {
+        Encoded encoded = encode(content);
+        submission.setContentLength(encoded.length());
+        submission.setContentPreview(encoded.preview());
+        SubmissionContent entity = contentRepository.findById(submission.getId())
+                .orElseGet(() -> new SubmissionContent(submission.getId(), null, null));
+        entity.setEncoding(encoded.encoding());
+        entity.setBody(encoded.body());
+        entity.setUpdatedAt(LocalDateTime.now());
+        contentRepository.save(entity);
+    }
+
+    /**
+     * 读取单个提交的正文，没有正文时返回 null
+     */
+    public String read(Long submissionId) {
+        return contentRepository.findById(submissionId).map(SubmissionContentStore::decode).orElse(null);
+    }
+
+    /**
+     * 批量读取正文，返回 submissionId -> 正文（没有正文的提交不在结果中）
+     */
+    public Map<Long, String> readAll(Collection<Long> submissionIds) {
+        Map<Long, String> result = new HashMap<>(submissionIds.size() * 2);
+        for (SubmissionContent content : contentRepository.findAllById(submissionIds)) {
+            result.put(content.getSubmissionId(), decode(content));
+        }
+        return result;
+    }
+
+    Encoded encode(String content) {
+        if (content == null) {
+            return new Encoded(SubmissionContent.ENCODING_PLAIN, null, 0, null);
+        }
+        byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        String encoding = SubmissionContent.ENCODING_PLAIN;
+        byte[] body = raw;
+        if (raw.length > compressThreshold) {
+            byte[] compressed = deflate(raw);
+            if (compressed.length < raw.length) {
+                encoding = SubmissionContent.ENCODING_DEFLATE;
+                body = compressed;
+            }
+        }
+        return new Encoded(encoding, body, content.codePointCount(0, content.length()), preview(content));
+    }
+
+    /**
+     * 列表摘要：前 PREVIEW_LENGTH 个字符，空白折叠为单个空格
+     */
+    static String preview(String content) {
+        if (content == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(Math.min(content.length(), PREVIEW_LENGTH));
+        int count = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < content.length() && count < PREVIEW_LENGTH; ) {
+            int cp = content.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.isWhitespace(cp)) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                count++;
+                pendingSpace = false;
+                if (count >= PREVIEW_LENGTH) {
+                    break;
+                }
+            }
+            sb.appendCodePoint(cp);
+            count++;
+        }
+        return sb.toString();
+    }
+
+    private static String decode(SubmissionContent content) {
+        byte[] body = content.getBody();
+        if (body == null) {
+            return null;
+        }
+        if (SubmissionContent.ENCODING_DEFLATE.equals(content.getEncoding())) {
+            body = inflate(body);
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 3);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("truncated deflate stream");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "提交内容已损坏", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.usst.spm.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * 提交收件的本地追加日志
+ * 每条记录为 [长度][CRC32][内容]，写入后 fsync 才算受理成功；并发写入共享一次 fsync（组提交）。
+ * 启动时顺序读取，遇到不完整或校验失败的尾部记录即截断（崩溃时写了一半的记录不会被受理）。
+ */
+class SubmissionIntakeLog {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionIntakeLog.class);
+
+    private static final int HEADER_BYTES = 8;
+
+    private final Path file;
+    private final FileChannel channel;
+
+    private final Object writeLock = new Object();
+    private final Object forceLock = new Object();
+    // 已分配的最大序号 / 已写入通道的最大序号 / 已落盘的最大序号
+    private long lastSeq;
+    private long writtenSeq;
+    private volatile long forcedSeq;
+
+    /**
+     * 日志中的一条提交
+     */
+    record Entry(long seq, String ticketId, String idempotencyKey, long assignmentId, long studentId,
+                 long submittedAtMillis, String content, List<Long> attachmentIds) {
+    }
+
+    SubmissionIntakeLog(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        this.file = dir.resolve("submissions.log");
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    /**
+     * 读取全部有效记录并截断损坏的尾部，之后新记录的序号从 max(日志最大序号, minSeq) + 1 开始
+     */
+    List<Entry> recover(long minSeq) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        long position = 0;
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(header, position);
+            header.flip();
+            int length = header.getInt();
+            long crc = header.getInt() & 0xFFFFFFFFL;
+            if (length <= 0 || position + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(body, position + HEADER_BYTES);
+            CRC32 check = new CRC32();
+            check.update(body.array());
+            if (check.getValue() != crc) {
+                break;
+            }
+            entries.add(decode(body.array()));
+            position += HEADER_BYTES + length;
+        }
+        if (position < size) {
+            log.warn("[intake] truncating torn tail of {} at offset {} ({} bytes)", file, position, size - position);
+            channel.truncate(position);
+            channel.force(true);
+        }
+        channel.position(channel.size());
+
+        long maxSeq = minSeq;
+        for (Entry entry : entries) {
+            maxSeq = Math.max(maxSeq, entry.seq());
+        }
+        synchronized (writeLock) {
+            lastSeq = maxSeq;
+            writtenSeq = maxSeq;
+            forcedSeq = maxSeq;
+        }
+        return entries;
+    }
+
+    /**
+     * 追加一条记录并等待其落盘；onWritten 在写锁内回调，保证消费方按序号顺序收到记录
+     */
+    Entry append(String ticketId, String idempotencyKey, long assignmentId, long studentId,
+                 long submittedAtMillis, String content, List<Long> attachmentIds,
+                 Consumer<Entry> onWritten) throws IOException {
+        Entry entry;
+        synchronized (writeLock) {
+            entry = new Entry(lastSeq + 1, ticketId, idempotencyKey, assignmentId, studentId,
+                    submittedAtMillis, content, attachmentIds);
+            byte[] body = encode(entry);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + body.length);
+            buffer.putInt(body.length).putInt((int) crc.getValue()).put(body).flip();
+            long start = channel.position();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                // 回退写了一半的记录，避免后续记录接在损坏数据之后无法恢复
+                channel.truncate(start);
+                channel.position(start);
+                throw e;
+            }
+            lastSeq = entry.seq();
+            writtenSeq = entry.seq();
+            onWritten.accept(entry);
+        }
+        sync(entry.seq());
+        return entry;
+    }
+
+    /**
+     * 组提交：等待中的线程只有一个执行 fsync，它会把此前所有已写入的记录一并落盘
+     */
+    void sync(long seq) throws IOException {
+        if (forcedSeq >= seq) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (forcedSeq >= seq) {
+                return;
+            }
+            long target;
+            synchronized (writeLock) {
+                target = writtenSeq;
+            }
+            channel.force(false);
+            forcedSeq = target;
+        }
+    }
+
+    /**
+     * 所有记录都已写入数据库时清空日志（drainedSeq 之后又有新记录则保留）
+     */
+    void truncateIfDrained(long drainedSeq) throws IOException {
+        synchronized (writeLock) {
+            if (lastSeq != drainedSeq || channel.size() == 0) {
+                return;
+            }
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+        }
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) {
+                throw new IOException("unexpected end of " + file);
+            }
+        }
+    }
+
+    private static byte[] encode(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(entry.seq());
+        writeString(out, entry.ticketId());
+        writeString(out, entry.idempotencyKey());
+        out.writeLong(entry.assignmentId());
+        out.writeLong(entry.studentId());
+        out.writeLong(entry.submittedAtMillis());
+        writeString(out, entry.content());
+        List<Long> attachmentIds = entry.attachmentIds();
+        out.writeInt(attachmentIds == null ? -1 : attachmentIds.size());
+        if (attachmentIds != null) {
+            for (Long id : attachmentIds) {
+                out.writeLong(id);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Entry decode(byte[] body) {
+        ByteBuffer in = ByteBuffer.wrap(body);
+        long seq = in.getLong();
+        String ticketId = readString(in);
+        String idempotencyKey = readString(in);
+        long assignmentId = in.getLong();
+        long studentId = in.getLong();
+        long submittedAt = in.getLong();
+        String content = readString(in);
+        int count = in.getInt();
+        List<Long> attachmentIds = null;
+        if (count >= 0) {
+            attachmentIds = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                attachmentIds.add(in.getLong());
+            }
+        }
+        return new Entry(seq, ticketId, idempotencyKey, assignmentId, studentId, submittedAt, content, attachmentIds);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,378 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.SubmissionReceipt;
+import com.usst.spm.demo.dto.SubmissionRequest;
+import com.usst.spm.demo.model.Assignment;
+import com.usst.spm.demo.model.SubmissionIdempotencyKey;
+import com.usst.spm.demo.model.SubmissionIntakeCheckpoint;
+import com.usst.spm.demo.repository.AssignmentRepository;
+import com.usst.spm.demo.repository.SubmissionIdempotencyKeyRepository;
+import com.usst.spm.demo.repository.SubmissionIntakeCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 截止高峰提交收件
+ * 开启后提交请求只做作业校验并写入本地追加日志（fsync 后即返回回执），提交时间取收件时刻；
+ * 单个后台线程按序从队列取出记录，每批最多 BATCH_SIZE 条交给 SubmissionIntakeWriter 一次事务写库。
+ * 同一学生对同一作业携带相同 Idempotency-Key 的重试返回同一张回执，不会重复提交：
+ * 本实例内存中的回执优先；未命中时查已写库的幂等键（重启前或其他实例受理的提交），
+ * 写库事务中再按幂等键唯一约束去重，两个实例同时受理同一幂等键也只会写入一次。
+ * 重启时从数据库中的写库进度之后重放日志，未写库的提交不会丢失。
+ */
+@Service
+public class SubmissionIntakeService {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionIntakeService.class);
+
+    public static final int MAX_IDEMPOTENCY_KEY_LENGTH = 128;
+
+    private static final int BATCH_SIZE = 200;
+    // 已受理但未写库的记录上限，超出时拒绝新的提交（客户端稍后重试）
+    private static final int MAX_PENDING = 10_000;
+    private static final long RETRY_DELAY_MS = 5_000L;
+    // 已完成回执与已写库幂等键的保留时间（期间相同幂等键的重试仍返回原回执）
+    private static final long RECEIPT_RETENTION_MS = TimeUnit.HOURS.toMillis(24);
+    private static final long SWEEP_INTERVAL_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private final boolean enabled;
+    private final String logDir;
+    private final String nodeId;
+    private final AssignmentRepository assignmentRepository;
+    private final SubmissionIntakeCheckpointRepository checkpointRepository;
+    private final SubmissionIdempotencyKeyRepository idempotencyKeyRepository;
+    private final SubmissionIntakeWriter writer;
+
+    // ticketId -> 回执状态
+    private final ConcurrentHashMap<String, Ticket> tickets = new ConcurrentHashMap<>();
+    // assignmentId:studentId:Idempotency-Key -> 回执
+    private final ConcurrentHashMap<String, Ticket> idempotency = new ConcurrentHashMap<>();
+    // 按日志序号排列的待写库记录
+    private final LinkedBlockingQueue<SubmissionIntakeLog.Entry> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private SubmissionIntakeLog intakeLog;
+    private Thread worker;
+    private volatile boolean running;
+    private long nextSweepAt;
+
+    public SubmissionIntakeService(@Value("${spm.submission.intake.enabled:false}") boolean enabled,
+                                   @Value("${spm.submission.intake.dir:intake}") String logDir,
+                                   @Value("${spm.submission.intake.node-id:local}") String nodeId,
+                                   AssignmentRepository assignmentRepository,
+                                   SubmissionIntakeCheckpointRepository checkpointRepository,
+                                   SubmissionIdempotencyKeyRepository idempotencyKeyRepository,
+                                   SubmissionIntakeWriter writer) {
+        this.enabled = enabled;
+        this.logDir = logDir;
+        this.nodeId = nodeId;
+        this.assignmentRepository = assignmentRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.writer = writer;
+    }
+
+    private static final class Ticket {
+        final String id;
+        final String idempotencyKey;
+        final long assignmentId;
+        final long studentId;
+        final LocalDateTime submittedAt;
+        volatile String status = SubmissionReceipt.STATUS_PENDING;
+        volatile Long submissionId;
+        volatile String message;
+        volatile long completedAt;
+
+        Ticket(String id, String idempotencyKey, long assignmentId, long studentId, LocalDateTime submittedAt) {
+            this.id = id;
+            this.idempotencyKey = idempotencyKey;
+            this.assignmentId = assignmentId;
+            this.studentId = studentId;
+            this.submittedAt = submittedAt;
+        }
+
+        void complete(String status, Long submissionId, String message) {
+            this.submissionId = submissionId;
+            this.message = message;
+            this.completedAt = System.currentTimeMillis();
+            this.status = status;
+        }
+
+        SubmissionReceipt toReceipt() {
+            return new SubmissionReceipt(id, assignmentId, studentId, status, submittedAt, submissionId, message);
+        }
+    }
+
+    /**
+     * 打开日志并重放未写库的记录，然后启动写库线程
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        long checkpoint = checkpointRepository.findById(nodeId)
+                .map(SubmissionIntakeCheckpoint::getLastSeq)
+                .orElse(0L);
+        intakeLog = new SubmissionIntakeLog(Paths.get(logDir));
+        int replayed = 0;
+        for (SubmissionIntakeLog.Entry entry : intakeLog.recover(checkpoint)) {
+            Ticket ticket = register(entry.ticketId(), entry.idempotencyKey(), entry.assignmentId(),
+                    entry.studentId(), toLocalDateTime(entry.submittedAtMillis()));
+            if (entry.seq() <= checkpoint) {
+                ticket.complete(SubmissionReceipt.STATUS_APPLIED, null, null);
+            } else {
+                pending.incrementAndGet();
+                queue.add(entry);
+                replayed++;
+            }
+        }
+        running = true;
+        nextSweepAt = System.currentTimeMillis() + SWEEP_INTERVAL_MS;
+        worker = new Thread(this::drainLoop, "submission-intake");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("[intake] started from checkpoint {}, replaying {} submissions", checkpoint, replayed);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (!running) {
+            return;
+        }
+        // 不中断写库线程（中断会关闭 FileChannel），等它完成当前批次后退出，剩余记录下次启动重放
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(30));
+        intakeLog.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 受理一次提交：校验作业、写入日志并落盘后返回回执
+     *
+     * @param idempotencyKey 客户端生成的幂等键，可为空（为空时每次请求都是新提交）
+     */
+    public SubmissionReceipt accept(Long assignmentId, Long studentId, SubmissionRequest request,
+                                    String idempotencyKey) {
+        if (!running) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "提交收件未开启");
+        }
+        LocalDateTime submittedAt = LocalDateTime.now();
+        String scopedKey = null;
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Idempotency-Key 长度不能超过 " + MAX_IDEMPOTENCY_KEY_LENGTH);
+            }
+            scopedKey = assignmentId + ":" + studentId + ":" + idempotencyKey;
+            Ticket previous = idempotency.get(scopedKey);
+            if (previous != null) {
+                return previous.toReceipt();
+            }
+            SubmissionIdempotencyKey applied = idempotencyKeyRepository.findByScopedKey(scopedKey).orElse(null);
+            if (applied != null) {
+                return registerApplied(applied, assignmentId, studentId).toReceipt();
+            }
+        }
+
+        Assignment assignment = assignmentRepository.findById(assignmentId)
+                .filter(a -> a.getDeleted() == null || a.getDeleted() == 0)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "作业不存在"));
+        if (assignment.getDueAt() != null && assignment.getDueAt().isBefore(submittedAt)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "作业已截止，无法提交");
+        }
+
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), scopedKey, assignmentId, studentId, submittedAt);
+        if (scopedKey != null) {
+            Ticket raced = idempotency.putIfAbsent(scopedKey, ticket);
+            if (raced != null) {
+                return raced.toReceipt();
+            }
+        }
+        if (pending.incrementAndGet() > MAX_PENDING) {
+            pending.decrementAndGet();
+            forget(ticket);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "提交排队已满，请稍后重试");
+        }
+        tickets.put(ticket.id, ticket);
+        boolean[] enqueued = {false};
+        try {
+            intakeLog.append(ticket.id, scopedKey, assignmentId, studentId, toMillis(submittedAt),
+                    request.getContent(), request.getAttachmentIds(), entry -> {
+                        queue.add(entry);
+                        enqueued[0] = true;
+                    });
+        } catch (IOException e) {
+            if (enqueued[0]) {
+                // 记录已写入并入队，仅 fsync 失败：写库线程写库前会再次 fsync，按已受理处理
+                log.warn("[intake] fsync failed after append, ticket={}", ticket.id, e);
+                return ticket.toReceipt();
+            }
+            // 写了一半的记录已回退
+            pending.decrementAndGet();
+            ticket.complete(SubmissionReceipt.STATUS_REJECTED, null, "收件失败，请重试");
+            forget(ticket);
+            log.error("[intake] append failed, assignmentId={} studentId={}", assignmentId, studentId, e);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "收件失败，请重试");
+        }
+        return ticket.toReceipt();
+    }
+
+    /**
+     * 查询回执（写库完成前为 PENDING）
+     */
+    public SubmissionReceipt getReceipt(Long assignmentId, String ticketId) {
+        Ticket ticket = ticketId != null ? tickets.get(ticketId) : null;
+        if (ticket == null || ticket.assignmentId != assignmentId) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "回执不存在或已过期");
+        }
+        return ticket.toReceipt();
+    }
+
+    private Ticket register(String ticketId, String scopedKey, long assignmentId, long studentId,
+                            LocalDateTime submittedAt) {
+        Ticket ticket = new Ticket(ticketId, scopedKey, assignmentId, studentId, submittedAt);
+        tickets.put(ticketId, ticket);
+        if (scopedKey != null) {
+            idempotency.put(scopedKey, ticket);
+        }
+        return ticket;
+    }
+
+    /**
+     * 把已写库的幂等键登记为本实例的已完成回执，之后可按原 ticketId 查询
+     */
+    private Ticket registerApplied(SubmissionIdempotencyKey applied, long assignmentId, long studentId) {
+        Ticket ticket = new Ticket(applied.getTicketId(), applied.getScopedKey(), assignmentId, studentId,
+                applied.getSubmittedAt());
+        ticket.complete(applied.getStatus(), applied.getSubmissionId(), applied.getMessage());
+        Ticket raced = idempotency.putIfAbsent(applied.getScopedKey(), ticket);
+        if (raced != null) {
+            return raced;
+        }
+        tickets.putIfAbsent(ticket.id, ticket);
+        return ticket;
+    }
+
+    private void forget(Ticket ticket) {
+        if (ticket.idempotencyKey != null) {
+            idempotency.remove(ticket.idempotencyKey, ticket);
+        }
+    }
+
+    private void drainLoop() {
+        List<SubmissionIntakeLog.Entry> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    SubmissionIntakeLog.Entry first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        queue.drainTo(batch, BATCH_SIZE - 1);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    if (writeBatch(batch)) {
+                        batch.clear();
+                    } else if (running) {
+                        Thread.sleep(RETRY_DELAY_MS);
+                    } else {
+                        return;
+                    }
+                }
+                sweepIfDue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private boolean writeBatch(List<SubmissionIntakeLog.Entry> batch) {
+        long lastSeq = batch.get(batch.size() - 1).seq();
+        List<SubmissionIntakeWriter.Outcome> outcomes;
+        try {
+            // 写库前确保本批记录已落盘：数据库里出现的提交一定能从日志重放
+            intakeLog.sync(lastSeq);
+            outcomes = writer.write(batch, nodeId);
+        } catch (IOException | RuntimeException e) {
+            log.error("[intake] failed to write batch of {} (seq {}..{}), will retry", batch.size(),
+                    batch.get(0).seq(), lastSeq, e);
+            return false;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Ticket ticket = tickets.get(batch.get(i).ticketId());
+            SubmissionIntakeWriter.Outcome outcome = outcomes.get(i);
+            if (ticket == null) {
+                continue;
+            }
+            if (outcome.submissionId() != null) {
+                ticket.complete(SubmissionReceipt.STATUS_APPLIED, outcome.submissionId(), null);
+            } else {
+                ticket.complete(SubmissionReceipt.STATUS_REJECTED, null, outcome.message());
+            }
+        }
+        pending.addAndGet(-batch.size());
+        try {
+            intakeLog.truncateIfDrained(lastSeq);
+        } catch (IOException e) {
+            log.warn("[intake] failed to truncate drained log", e);
+        }
+        return true;
+    }
+
+    /**
+     * 清理超过保留期的已完成回执
+     */
+    private void sweepIfDue() {
+        long now = System.currentTimeMillis();
+        if (now < nextSweepAt) {
+            return;
+        }
+        nextSweepAt = now + SWEEP_INTERVAL_MS;
+        tickets.values().removeIf(ticket -> {
+            boolean expired = ticket.completedAt > 0 && now - ticket.completedAt > RECEIPT_RETENTION_MS;
+            if (expired) {
+                forget(ticket);
+            }
+            return expired;
+        });
+        try {
+            idempotencyKeyRepository.deleteCreatedBefore(
+                    LocalDateTime.now().minus(RECEIPT_RETENTION_MS, ChronoUnit.MILLIS));
+        } catch (RuntimeException e) {
+            log.warn("[intake] failed to purge expired idempotency keys", e);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,388 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.SubmissionReceipt;
+import com.usst.spm.demo.model.Assignment;
+import com.usst.spm.demo.model.Submission;
+import com.usst.spm.demo.model.SubmissionIdempotencyKey;
+import com.usst.spm.demo.model.SubmissionIntakeCheckpoint;
+import com.usst.spm.demo.repository.AssignmentRepository;
+import com.usst.spm.demo.repository.SubmissionIdempotencyKeyRepository;
+import com.usst.spm.demo.repository.SubmissionIntakeCheckpointRepository;
+import com.usst.spm.demo.repository.SubmissionRepository;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 收件批量写库
+ * 一批日志记录在同一事务中完成：作业、现有提交各一次集合查询，提交与附件关联用 JDBC 批量写入，
+ * 写库进度（checkpoint）随同一事务提交，崩溃重放不会重复计入重提交次数。
+ * 带幂等键的记录先查 submission_idempotency_keys：该键已写库（重启前或由其他实例受理）则直接返回首次结果；
+ * 否则随本批写入该键，唯一键冲突（其他实例同时写入同一键）时整批回滚，重试时即按已写库处理。
+ * 附件与直接提交一样先经 FileBlobStore.lockForAttach 加锁确认可用。
+ * 校验规则与 AssignmentService.submitAssignment 一致，但提交时间取收件时刻，不会因排队被判迟交。
+ */
+@Component
+class SubmissionIntakeWriter {
+
+    private static final String INSERT_SUBMISSION_SQL =
+            "INSERT INTO submissions (assignment_id, student_id, content_length, content_preview, status, submitted_at, "
+            + "resubmit_count, created_at, updated_at, deleted) VALUES (?, ?, ?, ?, 'SUBMITTED', ?, ?, ?, ?, 0)";
+
+    private static final String UPDATE_SUBMISSION_SQL =
+            "UPDATE submissions SET content_length = ?, content_preview = ?, status = 'SUBMITTED', submitted_at = ?, "
+            + "resubmit_count = ?, updated_at = ? WHERE id = ?";
+
+    private static final String DELETE_CONTENT_SQL = "DELETE FROM submission_contents WHERE submission_id = ?";
+
+    private static final String INSERT_CONTENT_SQL =
+            "INSERT INTO submission_contents (submission_id, encoding, body, updated_at) VALUES (?, ?, ?, ?)";
+
+    private static final String DELETE_SUBMISSION_FILES_SQL =
+            "UPDATE submission_files SET deleted = 1 WHERE submission_id = ? AND deleted = 0";
+
+    private static final String INSERT_SUBMISSION_FILE_SQL =
+            "INSERT INTO submission_files (submission_id, file_id, created_at, deleted) VALUES (?, ?, ?, 0)";
+
+    private static final String INSERT_IDEMPOTENCY_KEY_SQL =
+            "INSERT INTO submission_idempotency_keys (scoped_key, ticket_id, status, submission_id, message, "
+            + "submitted_at, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AssignmentRepository assignmentRepository;
+    private final SubmissionRepository submissionRepository;
+    private final SubmissionIntakeCheckpointRepository checkpointRepository;
+    private final SubmissionIdempotencyKeyRepository idempotencyKeyRepository;
+    private final AssignmentStatsCache assignmentStatsCache;
+    private final StudentGradesCache studentGradesCache;
+    private final SubmissionContentStore contentStore;
+    private final FileBlobStore fileBlobStore;
+    private final SimilarityDetectionService similarityDetectionService;
+
+    SubmissionIntakeWriter(JdbcTemplate jdbcTemplate,
+                           AssignmentRepository assignmentRepository,
+                           SubmissionRepository submissionRepository,
+                           SubmissionIntakeCheckpointRepository checkpointRepository,
+                           SubmissionIdempotencyKeyRepository idempotencyKeyRepository,
+                           AssignmentStatsCache assignmentStatsCache,
+                           StudentGradesCache studentGradesCache,
+                           SubmissionContentStore contentStore,
+                           FileBlobStore fileBlobStore,
+                           SimilarityDetectionService similarityDetectionService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.assignmentRepository = assignmentRepository;
+        this.submissionRepository = submissionRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.assignmentStatsCache = assignmentStatsCache;
+        this.studentGradesCache = studentGradesCache;
+        this.contentStore = contentStore;
+        this.fileBlobStore = fileBlobStore;
+        this.similarityDetectionService = similarityDetectionService;
+    }
+
+    /**
+     * 单条记录的写库结果（submissionId 为 null 表示被拒绝，message 为原因）
+     */
+    record Outcome(Long submissionId, String message) {
+    }
+
+    /**
+     * 同一 (作业, 学生) 在本批中的最终状态；同一学生在一批内多次提交时依次折叠为一次写入
+     */
+    private static class PendingSubmission {
+        final long assignmentId;
+        final long studentId;
+        final boolean existing;
+        Long id;
+        SubmissionContentStore.Encoded content;
+        Timestamp submittedAt;
+        int resubmitCount;
+        List<Long> attachmentIds;
+        boolean replaceAttachments;
+        final List<Integer> entryIndexes = new ArrayList<>();
+
+        PendingSubmission(long assignmentId, long studentId, Submission existing) {
+            this.assignmentId = assignmentId;
+            this.studentId = studentId;
+            this.existing = existing != null;
+            this.id = existing != null ? existing.getId() : null;
+            this.resubmitCount = existing != null && existing.getResubmitCount() != null
+                    ? existing.getResubmitCount() : 0;
+        }
+    }
+
+    /**
+     * 写入一批日志记录，返回与入参一一对应的结果
+     */
+    @Transactional
+    public List<Outcome> write(List<SubmissionIntakeLog.Entry> batch, String nodeId) {
+        Set<Long> assignmentIds = new HashSet<>();
+        Set<Long> studentIds = new HashSet<>();
+        Set<String> scopedKeys = new HashSet<>();
+        Set<Long> fileIds = new HashSet<>();
+        for (SubmissionIntakeLog.Entry entry : batch) {
+            assignmentIds.add(entry.assignmentId());
+            studentIds.add(entry.studentId());
+            if (entry.idempotencyKey() != null) {
+                scopedKeys.add(entry.idempotencyKey());
+            }
+            if (entry.attachmentIds() != null) {
+                fileIds.addAll(entry.attachmentIds());
+            }
+        }
+        // 锁住本批要挂载的附件并恢复已被孤儿回收的文件；数据已清除的附件只拒绝对应的记录，不影响整批
+        Set<Long> unavailableFiles = fileIds.isEmpty() ? Set.of() : fileBlobStore.lockForAttach(fileIds);
+        Map<String, SubmissionIdempotencyKey> appliedKeys = new HashMap<>();
+        if (!scopedKeys.isEmpty()) {
+            idempotencyKeyRepository.findByScopedKeyIn(scopedKeys).forEach(k -> appliedKeys.put(k.getScopedKey(), k));
+        }
+        Map<Long, Assignment> assignments = new HashMap<>();
+        assignmentRepository.findAllById(assignmentIds).forEach(a -> assignments.put(a.getId(), a));
+        Map<String, Submission> existing = new HashMap<>();
+        for (Submission s : submissionRepository.findActiveByAssignmentIdInAndStudentIdIn(assignmentIds, studentIds)) {
+            existing.put(key(s.getAssignmentId(), s.getStudentId()), s);
+        }
+
+        List<Outcome> outcomes = new ArrayList<>(batch.size());
+        Map<String, PendingSubmission> pending = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            SubmissionIntakeLog.Entry entry = batch.get(i);
+            outcomes.add(null);
+            SubmissionIdempotencyKey applied = entry.idempotencyKey() != null
+                    ? appliedKeys.get(entry.idempotencyKey()) : null;
+            if (applied != null) {
+                outcomes.set(i, new Outcome(applied.getSubmissionId(), applied.getMessage()));
+                continue;
+            }
+            Assignment assignment = assignments.get(entry.assignmentId());
+            if (assignment == null || (assignment.getDeleted() != null && assignment.getDeleted() == 1)) {
+                outcomes.set(i, new Outcome(null, "作业不存在"));
+                continue;
+            }
+            if (entry.attachmentIds() != null && entry.attachmentIds().stream().anyMatch(unavailableFiles::contains)) {
+                outcomes.set(i, new Outcome(null, "附件不存在或已过期被清理，请重新上传"));
+                continue;
+            }
+            String key = key(entry.assignmentId(), entry.studentId());
+            PendingSubmission p = pending.get(key);
+            boolean hasPrevious = p != null || existing.containsKey(key);
+            if (hasPrevious) {
+                if (!Boolean.TRUE.equals(assignment.getAllowResubmit())) {
+                    outcomes.set(i, new Outcome(null, "该作业不允许重复提交"));
+                    continue;
+                }
+                int current = p != null ? p.resubmitCount : countOf(existing.get(key));
+                int max = assignment.getMaxResubmitCount() != null ? assignment.getMaxResubmitCount() : 0;
+                if (max > 0 && current >= max) {
+                    outcomes.set(i, new Outcome(null, "已达到最大重提交次数限制: " + max));
+                    continue;
+                }
+            }
+            if (p == null) {
+                p = new PendingSubmission(entry.assignmentId(), entry.studentId(), existing.get(key));
+                pending.put(key, p);
+            }
+            if (hasPrevious) {
+                p.resubmitCount++;
+            }
+            p.content = contentStore.encode(entry.content());
+            p.submittedAt = new Timestamp(entry.submittedAtMillis());
+            // 与直接提交一致：附件列表为空时保留原有附件
+            if (entry.attachmentIds() != null && !entry.attachmentIds().isEmpty()) {
+                p.attachmentIds = entry.attachmentIds();
+                p.replaceAttachments = true;
+            }
+            p.entryIndexes.add(i);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<PendingSubmission> inserts = new ArrayList<>();
+        List<PendingSubmission> updates = new ArrayList<>();
+        for (PendingSubmission p : pending.values()) {
+            (p.existing ? updates : inserts).add(p);
+        }
+        insertSubmissions(inserts, now);
+        updateSubmissions(updates, now);
+        writeContents(updates, inserts, now);
+        replaceAttachments(updates, inserts, now);
+
+        Set<Long> courseIds = new HashSet<>();
+        Set<Long> touchedStudents = new HashSet<>();
+        for (PendingSubmission p : pending.values()) {
+            for (int index : p.entryIndexes) {
+                outcomes.set(index, new Outcome(p.id, null));
+            }
+            courseIds.add(assignments.get(p.assignmentId).getCourseId());
+            touchedStudents.add(p.studentId);
+        }
+
+        recordIdempotencyKeys(batch, outcomes, appliedKeys, now);
+
+        long lastSeq = batch.get(batch.size() - 1).seq();
+        checkpointRepository.save(new SubmissionIntakeCheckpoint(nodeId, lastSeq));
+
+        for (Long courseId : courseIds) {
+            assignmentStatsCache.evictCourse(courseId);
+        }
+        studentGradesCache.evictStudents(touchedStudents);
+        return outcomes;
+    }
+
+    private void insertSubmissions(List<PendingSubmission> inserts, Timestamp now) {
+        if (inserts.isEmpty()) {
+            return;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SUBMISSION_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        PendingSubmission p = inserts.get(i);
+                        ps.setLong(1, p.assignmentId);
+                        ps.setLong(2, p.studentId);
+                        ps.setInt(3, p.content.length());
+                        ps.setString(4, p.content.preview());
+                        ps.setTimestamp(5, p.submittedAt);
+                        ps.setInt(6, p.resubmitCount);
+                        ps.setTimestamp(7, now);
+                        ps.setTimestamp(8, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return inserts.size();
+                    }
+                }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < inserts.size(); i++) {
+            inserts.get(i).id = ((Number) keys.get(i).values().iterator().next()).longValue();
+        }
+    }
+
+    private void updateSubmissions(List<PendingSubmission> updates, Timestamp now) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_SUBMISSION_SQL, updates, updates.size(), (ps, p) -> {
+            ps.setInt(1, p.content.length());
+            ps.setString(2, p.content.preview());
+            ps.setTimestamp(3, p.submittedAt);
+            ps.setInt(4, p.resubmitCount);
+            ps.setTimestamp(5, now);
+            ps.setLong(6, p.id);
+        });
+    }
+
+    /**
+     * 正文整行替换：更新的提交先删旧正文，再与新提交一起批量插入；
+     * 更新的提交内容已变化，与直接提交一致清掉其相似度签名（事务提交后生效）
+     */
+    private void writeContents(List<PendingSubmission> updates, List<PendingSubmission> inserts, Timestamp now) {
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_CONTENT_SQL, updates, updates.size(), (ps, p) -> ps.setLong(1, p.id));
+            for (PendingSubmission p : updates) {
+                similarityDetectionService.evictSignature(p.assignmentId, p.id);
+            }
+        }
+        List<PendingSubmission> all = new ArrayList<>(updates.size() + inserts.size());
+        all.addAll(updates);
+        all.addAll(inserts);
+        if (all.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_CONTENT_SQL, all, all.size(), (ps, p) -> {
+            ps.setLong(1, p.id);
+            ps.setString(2, p.content.encoding());
+            ps.setBytes(3, p.content.body());
+            ps.setTimestamp(4, now);
+        });
+    }
+
+    private void replaceAttachments(List<PendingSubmission> updates, List<PendingSubmission> inserts, Timestamp now) {
+        List<PendingSubmission> cleared = new ArrayList<>();
+        List<long[]> links = new ArrayList<>();
+        for (PendingSubmission p : updates) {
+            if (p.replaceAttachments) {
+                cleared.add(p);
+            }
+        }
+        for (List<PendingSubmission> group : List.of(updates, inserts)) {
+            for (PendingSubmission p : group) {
+                if (p.replaceAttachments) {
+                    for (Long fileId : p.attachmentIds) {
+                        links.add(new long[]{p.id, fileId});
+                    }
+                }
+            }
+        }
+        if (!cleared.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_SUBMISSION_FILES_SQL, cleared, cleared.size(),
+                    (ps, p) -> ps.setLong(1, p.id));
+        }
+        if (!links.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SUBMISSION_FILE_SQL, links, links.size(), (ps, link) -> {
+                ps.setLong(1, link[0]);
+                ps.setLong(2, link[1]);
+                ps.setTimestamp(3, now);
+            });
+        }
+    }
+
+    /**
+     * 记录本批新写库的幂等键及其结果（已写库过的键跳过）
+     */
+    private void recordIdempotencyKeys(List<SubmissionIntakeLog.Entry> batch, List<Outcome> outcomes,
+                                       Map<String, SubmissionIdempotencyKey> appliedKeys, Timestamp now) {
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            String scopedKey = batch.get(i).idempotencyKey();
+            if (scopedKey != null && !appliedKeys.containsKey(scopedKey)) {
+                indexes.add(i);
+            }
+        }
+        if (indexes.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_IDEMPOTENCY_KEY_SQL, indexes, indexes.size(), (ps, i) -> {
+            SubmissionIntakeLog.Entry entry = batch.get(i);
+            Outcome outcome = outcomes.get(i);
+            ps.setString(1, entry.idempotencyKey());
+            ps.setString(2, entry.ticketId());
+            ps.setString(3, outcome.submissionId() != null
+                    ? SubmissionReceipt.STATUS_APPLIED : SubmissionReceipt.STATUS_REJECTED);
+            if (outcome.submissionId() != null) {
+                ps.setLong(4, outcome.submissionId());
+            } else {
+                ps.setNull(4, Types.BIGINT);
+            }
+            ps.setString(5, outcome.message());
+            ps.setTimestamp(6, new Timestamp(entry.submittedAtMillis()));
+            ps.setTimestamp(7, now);
+        });
+    }
+
+    private static int countOf(Submission submission) {
+        return submission != null && submission.getResubmitCount() != null ? submission.getResubmitCount() : 0;
+    }
+
+    private static String key(long assignmentId, long studentId) {
+        return assignmentId + ":" + studentId;
+    }
+}
@@ -0,0 +1,364 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.FileInspectionResponse;
+import com.usst.spm.demo.model.BlobInspection;
+import com.usst.spm.demo.model.File;
+import com.usst.spm.demo.model.FileText;
+import com.usst.spm.demo.repository.AssignmentFileRepository;
+import com.usst.spm.demo.repository.BlobInspectionRepository;
+import com.usst.spm.demo.repository.FileRepository;
+import com.usst.spm.demo.repository.FileTextRepository;
+import com.usst.spm.demo.repository.SubmissionFileRepository;
+import com.usst.spm.demo.util.AuthenticatedPrincipal;
+import com.usst.spm.demo.util.DocumentTextExtractor;
+import com.usst.spm.demo.util.FileTypeSniffer;
+import com.usst.spm.demo.util.TransactionHooks;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 上传后检查流水线
+ * 文件存入存储、记录提交后把文件ID放入有界队列，由固定数量的后台线程检查：
+ * 文件头魔数与扩展名比对，txt / docx / xlsx / pptx 抽取纯文本，结果写回 files 记录。
+ * 识别出的类型与抽取的文本按内容摘要存于 blob_inspections：同一内容再次上传时不再读取存储、不再抽取，
+ * 只按各自的扩展名重新比对；同一内容以另一种扩展名上传时抽取的文本按文件存于 file_texts。
+ * 上传请求只负责入队，不等待检查；队列满时既不阻塞请求线程也不丢任务——文件保持 PENDING，
+ * 由定时补漏扫描在队列有空位时重新入队（进程重启前没处理完的文件同样由补漏扫描接上）。
+ */
+@Service
+public class UploadInspectionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadInspectionService.class);
+
+    private static final int SWEEP_BATCH = 200;
+
+    private final FileRepository fileRepository;
+    private final FileTextRepository fileTextRepository;
+    private final BlobInspectionRepository blobInspectionRepository;
+    private final SubmissionFileRepository submissionFileRepository;
+    private final AssignmentFileRepository assignmentFileRepository;
+    private final CourseMembershipService courseMembership;
+    private final StorageBackend storage;
+    private final UploadInspectionWriter writer;
+    private final int maxTextChars;
+    private final long maxInflatedBytes;
+    private final long sweepIntervalMinutes;
+
+    private final ThreadPoolExecutor executor;
+    // 已入队或正在检查的文件，避免补漏扫描重复入队
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "upload-inspection-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public UploadInspectionService(FileRepository fileRepository,
+                                   FileTextRepository fileTextRepository,
+                                   BlobInspectionRepository blobInspectionRepository,
+                                   SubmissionFileRepository submissionFileRepository,
+                                   AssignmentFileRepository assignmentFileRepository,
+                                   CourseMembershipService courseMembership,
+                                   StorageBackend storage,
+                                   UploadInspectionWriter writer,
+                                   @Value("${spm.upload.inspect.threads:2}") int threads,
+                                   @Value("${spm.upload.inspect.queue-capacity:500}") int queueCapacity,
+                                   @Value("${spm.upload.inspect.max-text-chars:1000000}") int maxTextChars,
+                                   @Value("${spm.upload.inspect.max-inflated-size:64MB}") DataSize maxInflatedSize,
+                                   @Value("${spm.upload.inspect.sweep-interval-minutes:5}") long sweepIntervalMinutes) {
+        this.fileRepository = fileRepository;
+        this.fileTextRepository = fileTextRepository;
+        this.blobInspectionRepository = blobInspectionRepository;
+        this.submissionFileRepository = submissionFileRepository;
+        this.assignmentFileRepository = assignmentFileRepository;
+        this.courseMembership = courseMembership;
+        this.storage = storage;
+        this.writer = writer;
+        this.maxTextChars = maxTextChars;
+        this.maxInflatedBytes = maxInflatedSize.toBytes();
+        this.sweepIntervalMinutes = sweepIntervalMinutes;
+
+        AtomicInteger sequence = new AtomicInteger();
+        int poolSize = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+            Thread t = new Thread(r, "upload-inspector-" + sequence.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (sweepIntervalMinutes > 0) {
+            sweeper.scheduleWithFixedDelay(this::sweepSafely, 1, sweepIntervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * 新文件入队（当前事务提交后），队列已满时留给补漏扫描
+     */
+    public void enqueue(Long fileId) {
+        if (fileId == null) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> submit(fileId));
+    }
+
+    /**
+     * 查看检查结果与抽取的文本
+     * 抽取的文本就是文件内容，只有上传者、文件所挂作业或提交所在课程的任课教师、管理员可以查看，
+     * 其他人与文件不存在一样返回 404
+     */
+    public FileInspectionResponse getInspection(Long fileId, AuthenticatedPrincipal viewer) {
+        File file = fileRepository.findById(fileId)
+                .filter(f -> f.getDeleted() == null || f.getDeleted() == 0)
+                .filter(f -> canView(f, viewer))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "文件不存在"));
+        FileInspectionResponse response = new FileInspectionResponse();
+        response.setFileId(file.getId());
+        response.setStatus(file.getInspectionStatus());
+        response.setDetectedType(file.getDetectedType());
+        response.setMessage(file.getInspectionMessage());
+        response.setTextLength(file.getTextLength());
+        response.setInspectedAt(file.getInspectedAt());
+        if (file.getTextLength() != null) {
+            // 按文件保存的文本优先（早期文件、以另一种扩展名上传的同一内容），其次是按内容摘要共享的文本
+            FileText text = fileTextRepository.findById(fileId).orElse(null);
+            if (text != null) {
+                response.setText(text.getContent());
+                response.setTextTruncated(Boolean.TRUE.equals(text.getTruncated()));
+            } else if (file.getContentDigest() != null) {
+                blobInspectionRepository.findById(file.getContentDigest()).ifPresent(blob -> {
+                    response.setText(blob.getContent());
+                    response.setTextTruncated(Boolean.TRUE.equals(blob.getTruncated()));
+                });
+            }
+        }
+        return response;
+    }
+
+    private boolean canView(File file, AuthenticatedPrincipal viewer) {
+        if (viewer == null) {
+            return false;
+        }
+        if (viewer.isAdmin() || Objects.equals(file.getUploaderId(), viewer.userId())) {
+            return true;
+        }
+        if (!viewer.isTeacher()) {
+            return false;
+        }
+        for (Long courseId : submissionFileRepository.findCourseIdsByFileId(file.getId())) {
+            if (courseMembership.isTeacher(courseId, viewer.userId())) {
+                return true;
+            }
+        }
+        for (Long courseId : assignmentFileRepository.findCourseIdsByFileId(file.getId())) {
+            if (courseMembership.isTeacher(courseId, viewer.userId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 把待检查的文件补入队列，只填到队列满为止，返回本次入队数
+     */
+    public int sweep() {
+        int submitted = 0;
+        long afterId = 0L;
+        while (executor.getQueue().remainingCapacity() > 0) {
+            List<Long> ids = fileRepository.findIdsByInspectionStatus(
+                    File.INSPECTION_PENDING, afterId, PageRequest.of(0, SWEEP_BATCH));
+            if (ids.isEmpty()) {
+                break;
+            }
+            for (Long id : ids) {
+                if (queued.contains(id)) {
+                    continue;
+                }
+                if (!submit(id)) {
+                    return submitted;
+                }
+                submitted++;
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        if (submitted > 0) {
+            log.info("[inspect] re-queued {} pending files", submitted);
+        }
+        return submitted;
+    }
+
+    private void sweepSafely() {
+        try {
+            sweep();
+        } catch (Exception e) {
+            log.warn("[inspect] sweep failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean submit(Long fileId) {
+        if (!queued.add(fileId)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    inspect(fileId);
+                } catch (Exception e) {
+                    log.warn("[inspect] file {} failed: {}", fileId, e.getMessage());
+                } finally {
+                    queued.remove(fileId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            queued.remove(fileId);
+            log.debug("[inspect] queue full, file {} left for sweep", fileId);
+            return false;
+        }
+    }
+
+    /**
+     * 检查单个文件并记录结果（在检查线程上执行）
+     */
+    void inspect(Long fileId) {
+        File file = fileRepository.findById(fileId).orElse(null);
+        if (file == null || !File.INSPECTION_PENDING.equals(file.getInspectionStatus())
+                || (file.getDeleted() != null && file.getDeleted() != 0)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        String digest = file.getContentDigest();
+        BlobInspection known = digest != null ? blobInspectionRepository.findById(digest).orElse(null) : null;
+        BlobInspection blob = known != null ? known : digest != null ? new BlobInspection(digest, null) : null;
+        String textExtension = blob != null ? blob.getTextExtension() : null;
+
+        UploadInspectionWriter.Outcome outcome = examine(file, blob);
+        // 首次识别出类型，或第一次为该内容抽取文本时按内容摘要保存
+        if (blob != null && blob.getFamily() != null
+                && (known == null || !Objects.equals(textExtension, blob.getTextExtension()))) {
+            boolean stored;
+            try {
+                stored = writer.remember(blob);
+            } catch (DataAccessException e) {
+                log.debug("[inspect] blob {} recorded concurrently: {}", digest, e.getMessage());
+                stored = false;
+            }
+            if (!stored && outcome.textShared()) {
+                outcome = new UploadInspectionWriter.Outcome(outcome.status(), outcome.detectedType(),
+                        outcome.message(), outcome.text(), outcome.truncated(), false);
+            }
+        }
+        writer.record(fileId, outcome);
+        log.debug("[inspect] file {} {} {}{} in {}ms", fileId, outcome.status(), outcome.detectedType(),
+                known != null ? " (known content)" : "", System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 检查一个文件；blob 为该内容按摘要保存的检查结果（早期按 UUID 存放的文件为 null），
+     * 已识别过类型、已按同一扩展名抽取过文本时直接复用，否则把本次结果填入 blob
+     */
+    private UploadInspectionWriter.Outcome examine(File file, BlobInspection blob) {
+        String key = file.getStoragePath();
+        String extension = FileTypeSniffer.extensionOf(file.getOriginalName());
+        try {
+            FileTypeSniffer.Family family;
+            if (blob != null && blob.getFamily() != null) {
+                family = FileTypeSniffer.Family.valueOf(blob.getFamily());
+            } else {
+                long size = file.getFileSize() != null ? file.getFileSize() : FileTypeSniffer.HEADER_SIZE;
+                byte[] header;
+                try (InputStream in = storage.getRange(key, 0, Math.min(size, FileTypeSniffer.HEADER_SIZE))) {
+                    header = in.readNBytes(FileTypeSniffer.HEADER_SIZE);
+                }
+                family = FileTypeSniffer.sniff(header, header.length);
+                if (blob != null) {
+                    blob.setFamily(family.name());
+                }
+            }
+            String detected = family.name().toLowerCase(Locale.ROOT);
+            FileTypeSniffer.Family expected = FileTypeSniffer.expectedFamily(extension);
+            if (expected == null) {
+                return outcome(File.INSPECTION_OK, detected, "未知的扩展名，未做比对");
+            }
+            if (family != expected) {
+                return outcome(File.INSPECTION_MISMATCH, detected,
+                        "文件内容为 " + detected + "，与扩展名 ." + extension + " 不符");
+            }
+            if (!DocumentTextExtractor.supports(extension)) {
+                return outcome(File.INSPECTION_OK, detected, null);
+            }
+
+            boolean shared = blob != null
+                    && (blob.getTextExtension() == null || blob.getTextExtension().equals(extension));
+            if (!shared || blob.getTextExtension() == null) {
+                DocumentTextExtractor.Result result = DocumentTextExtractor.extract(
+                        extension, () -> storage.get(key), maxTextChars, maxInflatedBytes);
+                if (shared) {
+                    blob.setTextExtension(extension);
+                    blob.setRecognized(result.recognized());
+                    blob.setContent(result.recognized() ? result.text() : null);
+                    blob.setTruncated(result.truncated());
+                }
+                return textOutcome(family, detected, extension,
+                        result.recognized(), result.text(), result.truncated(), shared);
+            }
+            return textOutcome(family, detected, extension, Boolean.TRUE.equals(blob.getRecognized()),
+                    blob.getContent(), Boolean.TRUE.equals(blob.getTruncated()), true);
+        } catch (NoSuchFileException e) {
+            return outcome(File.INSPECTION_FAILED, null, "文件不存在");
+        } catch (IOException | RuntimeException e) {
+            return outcome(File.INSPECTION_FAILED, null, "无法解析: " + e.getMessage());
+        }
+    }
+
+    private static UploadInspectionWriter.Outcome textOutcome(FileTypeSniffer.Family family, String detected,
+                                                              String extension, boolean recognized, String text,
+                                                              boolean truncated, boolean shared) {
+        if (!recognized) {
+            return outcome(File.INSPECTION_MISMATCH, detected, "zip 包中没有 ." + extension + " 的主文档");
+        }
+        String type = family == FileTypeSniffer.Family.ZIP ? extension : detected;
+        return new UploadInspectionWriter.Outcome(File.INSPECTION_OK, type,
+                truncated ? "文本过长，已截断" : null, text, truncated, shared);
+    }
+
+    private static UploadInspectionWriter.Outcome outcome(String status, String detectedType, String message) {
+        return new UploadInspectionWriter.Outcome(status, detectedType, message, null, false, false);
+    }
+}
@@ -0,0 +1,88 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.model.BlobInspection;
+import com.usst.spm.demo.model.File;
+import com.usst.spm.demo.model.FileText;
+import com.usst.spm.demo.repository.BlobInspectionRepository;
+import com.usst.spm.demo.repository.FileRepository;
+import com.usst.spm.demo.repository.FileTextRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 上传后检查结果落库
+ */
+@Component
+class UploadInspectionWriter {
+
+    private final FileRepository fileRepository;
+    private final FileTextRepository fileTextRepository;
+    private final BlobInspectionRepository blobInspectionRepository;
+
+    UploadInspectionWriter(FileRepository fileRepository,
+                           FileTextRepository fileTextRepository,
+                           BlobInspectionRepository blobInspectionRepository) {
+        this.fileRepository = fileRepository;
+        this.fileTextRepository = fileTextRepository;
+        this.blobInspectionRepository = blobInspectionRepository;
+    }
+
+    /**
+     * 检查结果；text 为空表示没有抽取文本，textShared 表示文本已按内容摘要存于 blob_inspections，不再按文件保存
+     */
+    record Outcome(String status, String detectedType, String message, String text, boolean truncated,
+                   boolean textShared) {
+    }
+
+    /**
+     * 保存按内容摘要的检查结果，返回该行保存的是否就是这次抽取的文本（扩展名相同）。
+     * 已有的行只在还没有文本时补上文本；两个节点同时首次写入同一摘要时，后提交的一方抛唯一键冲突，由调用方处理
+     */
+    @Transactional
+    public boolean remember(BlobInspection inspection) {
+        BlobInspection current = blobInspectionRepository.findByIdForUpdate(inspection.getDigest()).orElse(null);
+        if (current == null) {
+            inspection.setInspectedAt(LocalDateTime.now());
+            blobInspectionRepository.save(inspection);
+            return true;
+        }
+        if (current.getTextExtension() == null && inspection.getTextExtension() != null) {
+            current.setTextExtension(inspection.getTextExtension());
+            current.setRecognized(inspection.getRecognized());
+            current.setContent(inspection.getContent());
+            current.setTruncated(inspection.getTruncated());
+            current.setInspectedAt(LocalDateTime.now());
+            blobInspectionRepository.save(current);
+            return true;
+        }
+        return Objects.equals(current.getTextExtension(), inspection.getTextExtension());
+    }
+
+    /**
+     * 只更新仍为 PENDING 且未删除的记录（检查期间文件被删除或已被其他节点处理时放弃）。
+     * 加行锁后再判断，不会把孤儿回收刚写入的软删除覆盖回去
+     */
+    @Transactional
+    public void record(Long fileId, Outcome outcome) {
+        File file = fileRepository.findByIdForUpdate(fileId).orElse(null);
+        if (file == null || !File.INSPECTION_PENDING.equals(file.getInspectionStatus())
+                || (file.getDeleted() != null && file.getDeleted() != 0)) {
+            return;
+        }
+        String message = outcome.message();
+        file.setInspectionStatus(outcome.status());
+        file.setDetectedType(outcome.detectedType());
+        file.setInspectionMessage(message != null && message.length() > 255 ? message.substring(0, 255) : message);
+        file.setInspectedAt(LocalDateTime.now());
+        if (outcome.text() != null) {
+            file.setTextLength(outcome.text().codePointCount(0, outcome.text().length()));
+            if (!outcome.textShared()) {
+                fileTextRepository.save(new FileText(fileId, outcome.text(), outcome.truncated()));
+            }
+        }
+        fileRepository.save(file);
+    }
+}
@@ -0,0 +1,203 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.UserCacheStats;
+import com.usst.spm.demo.model.User;
+import com.usst.spm.demo.repository.UserRepository;
+import com.usst.spm.demo.util.TransactionHooks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 用户摘要缓存（ID、学号、姓名、角色、状态），同时按ID和学号索引
+ * 列表转 DTO 时先用 getAll 批量取本页涉及的用户，未命中的合并成一次查询；按访问顺序 LRU 淘汰，条数有上限。
+ * 用户信息变更或删除后调用 evict（事务提交后生效）；失效之前已开始的加载结果不再写入，避免把旧数据放回缓存。
+ */
+@Component
+public class UserSummaryCache {
+
+    /**
+     * 用户摘要（不可变，不含密码）
+     */
+    public record UserSummary(Long id, String studentNo, String name, String role, Integer status) {
+
+        static UserSummary of(User user) {
+            return new UserSummary(user.getId(), user.getStudentNo(), user.getName(), user.getRole(), user.getStatus());
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final int maxEntries;
+
+    // 以下三项由 this 锁保护：userId -> 摘要（访问顺序，最旧的在前）、学号 -> userId、失效代数
+    private final LinkedHashMap<Long, UserSummary> byId = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Long> idByStudentNo = new HashMap<>();
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public UserSummaryCache(UserRepository userRepository,
+                            @Value("${spm.user.cache.max-entries:10000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * 按ID获取，未命中时查库
+     */
+    public Optional<UserSummary> get(Long userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        long loadGeneration;
+        synchronized (this) {
+            UserSummary cached = byId.get(userId);
+            if (cached != null) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        Optional<UserSummary> loaded = userRepository.findById(userId).map(UserSummary::of);
+        loaded.ifPresent(summary -> store(List.of(summary), loadGeneration));
+        return loaded;
+    }
+
+    /**
+     * 按学号获取，未命中时查库
+     */
+    public Optional<UserSummary> getByStudentNo(String studentNo) {
+        if (studentNo == null) {
+            return Optional.empty();
+        }
+        long loadGeneration;
+        synchronized (this) {
+            Long userId = idByStudentNo.get(studentNo);
+            UserSummary cached = userId != null ? byId.get(userId) : null;
+            if (cached != null) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        Optional<UserSummary> loaded = userRepository.findByStudentNo(studentNo).map(UserSummary::of);
+        loaded.ifPresent(summary -> store(List.of(summary), loadGeneration));
+        return loaded;
+    }
+
+    /**
+     * 批量获取，所有未命中的ID合并成一次查询；不存在的用户不在结果中
+     */
+    public Map<Long, UserSummary> getAll(Collection<Long> userIds) {
+        Map<Long, UserSummary> result = new HashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return result;
+        }
+        List<Long> missing = new ArrayList<>();
+        long loadGeneration;
+        synchronized (this) {
+            for (Long userId : userIds) {
+                if (userId == null || result.containsKey(userId)) {
+                    continue;
+                }
+                UserSummary cached = byId.get(userId);
+                if (cached != null) {
+                    result.put(userId, cached);
+                } else if (!missing.contains(userId)) {
+                    missing.add(userId);
+                }
+            }
+            loadGeneration = generation;
+        }
+        hits.add(result.size());
+        if (missing.isEmpty()) {
+            return result;
+        }
+        misses.add(missing.size());
+        List<UserSummary> loaded = new ArrayList<>(missing.size());
+        for (User user : userRepository.findAllById(missing)) {
+            UserSummary summary = UserSummary.of(user);
+            loaded.add(summary);
+            result.put(summary.id(), summary);
+        }
+        store(loaded, loadGeneration);
+        return result;
+    }
+
+    /**
+     * 用户信息变更或删除后失效（事务提交后执行）
+     */
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            synchronized (this) {
+                generation++;
+                UserSummary removed = byId.remove(userId);
+                if (removed != null) {
+                    idByStudentNo.remove(removed.studentNo(), removed.id());
+                }
+            }
+            invalidations.increment();
+        });
+    }
+
+    public UserCacheStats stats() {
+        UserCacheStats stats = new UserCacheStats();
+        synchronized (this) {
+            stats.setEntries(byId.size());
+        }
+        stats.setMaxEntries(maxEntries);
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        stats.setHits(hitCount);
+        stats.setMisses(missCount);
+        stats.setHitRate(hitCount + missCount == 0 ? 0 : (double) hitCount / (hitCount + missCount));
+        stats.setLoads(loads.sum());
+        stats.setEvictions(evictions.sum());
+        stats.setInvalidations(invalidations.sum());
+        return stats;
+    }
+
+    /**
+     * 写入查库结果；加载期间发生过失效则放弃写入，超出条数上限时淘汰最久未访问的
+     */
+    private void store(List<UserSummary> summaries, long loadGeneration) {
+        loads.add(summaries.size());
+        synchronized (this) {
+            if (generation != loadGeneration) {
+                return;
+            }
+            for (UserSummary summary : summaries) {
+                UserSummary previous = byId.put(summary.id(), summary);
+                if (previous != null && !previous.studentNo().equals(summary.studentNo())) {
+                    idByStudentNo.remove(previous.studentNo(), previous.id());
+                }
+                idByStudentNo.put(summary.studentNo(), summary.id());
+            }
+            Iterator<UserSummary> eldest = byId.values().iterator();
+            while (byId.size() > maxEntries && eldest.hasNext()) {
+                UserSummary victim = eldest.next();
+                eldest.remove();
+                idByStudentNo.remove(victim.studentNo(), victim.id());
+                evictions.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.usst.spm.demo.util;
+
+/**
+ * 当前登录用户，由 AuthInterceptor 从 JWT 解析一次后放入请求属性，控制器直接声明该类型的参数即可取到，
+ * 不再按学号查库。角色取自签发 Token 时的值，角色变更在 Token 过期重新登录后生效
+ */
+public record AuthenticatedPrincipal(Long userId, String studentNo, String role) {
+
+    /**
+     * 请求属性名
+     */
+    public static final String ATTRIBUTE = AuthenticatedPrincipal.class.getName();
+
+    public boolean isTeacher() {
+        return "TEACHER".equalsIgnoreCase(role);
+    }
+
+    public boolean isAdmin() {
+        return "ADMIN".equalsIgnoreCase(role);
+    }
+
+    public boolean isStudent() {
+        return "STUDENT".equalsIgnoreCase(role);
+    }
+
+    public boolean isTeacherOrAdmin() {
+        return isTeacher() || isAdmin();
+    }
+}
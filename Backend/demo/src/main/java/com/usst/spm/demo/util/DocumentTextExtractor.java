@@ -0,0 +1,465 @@
+package com.usst.spm.demo.util;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * 只用 JDK 从 txt / docx / xlsx / pptx 中抽取纯文本
+ * Office 2007+ 格式是 zip 包内的 XML：用 ZipInputStream 顺序解包、StAX 流式解析，不把整个文件读入内存；
+ * 解压总字节数和条目数都有上限，防止压缩炸弹。XML 解析禁用 DTD 与外部实体。
+ * txt 按 BOM 判断编码，没有 BOM 时先按 UTF-8 严格解码，失败再按 GB18030 解码。
+ */
+public final class DocumentTextExtractor {
+
+    private static final int MAX_ZIP_ENTRIES = 10_000;
+
+    private static final Pattern SHEET = Pattern.compile("xl/worksheets/sheet(\\d+)\\.xml");
+    private static final Pattern SLIDE = Pattern.compile("ppt/slides/slide(\\d+)\\.xml");
+
+    private static final Charset GB18030 = Charset.forName("GB18030");
+
+    private static final XMLInputFactory XML = XMLInputFactory.newFactory();
+
+    static {
+        XML.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private DocumentTextExtractor() {
+    }
+
+    /**
+     * 可重复打开的文件内容（xlsx 需要读两遍：共享字符串表可能位于工作表之后）
+     */
+    @FunctionalInterface
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * 抽取结果；recognized 为 false 表示 zip 包里没有该格式的主文档（扩展名与内容不符）
+     */
+    public record Result(String text, boolean truncated, boolean recognized) {
+    }
+
+    public static boolean supports(String extension) {
+        return switch (extension) {
+            case "txt", "docx", "xlsx", "pptx" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * 抽取文本，最多 maxChars 个字符；不支持的扩展名返回 null
+     */
+    public static Result extract(String extension, Source source, int maxChars, long maxInflatedBytes)
+            throws IOException {
+        return switch (extension) {
+            case "txt" -> text(source, maxChars);
+            case "docx" -> docx(source, maxChars, maxInflatedBytes);
+            case "pptx" -> pptx(source, maxChars, maxInflatedBytes);
+            case "xlsx" -> xlsx(source, maxChars, maxInflatedBytes);
+            default -> null;
+        };
+    }
+
+    private static Result text(Source source, int maxChars) throws IOException {
+        byte[] raw;
+        boolean more;
+        try (InputStream in = source.open()) {
+            // UTF-8 中一个字符最多 4 个字节
+            raw = in.readNBytes(maxChars * 4 + 4);
+            more = in.read() != -1;
+        }
+        int offset = 0;
+        Charset charset = null;
+        if (raw.length >= 3 && (raw[0] & 0xFF) == 0xEF && (raw[1] & 0xFF) == 0xBB && (raw[2] & 0xFF) == 0xBF) {
+            offset = 3;
+            charset = StandardCharsets.UTF_8;
+        } else if (raw.length >= 2 && (raw[0] & 0xFF) == 0xFE && (raw[1] & 0xFF) == 0xFF) {
+            offset = 2;
+            charset = StandardCharsets.UTF_16BE;
+        } else if (raw.length >= 2 && (raw[0] & 0xFF) == 0xFF && (raw[1] & 0xFF) == 0xFE) {
+            offset = 2;
+            charset = StandardCharsets.UTF_16LE;
+        }
+
+        String text;
+        if (charset != null) {
+            text = new String(raw, offset, raw.length - offset, charset);
+        } else {
+            text = strictUtf8(raw, more);
+            if (text == null) {
+                text = new String(raw, GB18030);
+            }
+        }
+        boolean truncated = more;
+        if (text.length() > maxChars) {
+            text = text.substring(0, maxChars);
+            truncated = true;
+        }
+        return new Result(text, truncated, true);
+    }
+
+    /**
+     * 严格按 UTF-8 解码，遇到非法字节返回 null；后面还有数据时末尾被截断的半个字符忽略
+     */
+    private static String strictUtf8(byte[] raw, boolean more) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharBuffer out = CharBuffer.allocate(raw.length);
+        CoderResult result = decoder.decode(ByteBuffer.wrap(raw), out, !more);
+        if (result.isError()) {
+            return null;
+        }
+        if (!more) {
+            decoder.flush(out);
+        }
+        out.flip();
+        return out.toString();
+    }
+
+    private static Result docx(Source source, int maxChars, long maxInflatedBytes) throws IOException {
+        TextSink sink = new TextSink(maxChars);
+        boolean[] found = {false};
+        boolean complete = eachEntry(source, maxInflatedBytes, (name, reader) -> {
+            if ("word/document.xml".equals(name)) {
+                found[0] = true;
+                paragraphs(reader, sink);
+                return false;
+            }
+            return true;
+        });
+        return new Result(sink.toString(), sink.truncated || !complete, found[0]);
+    }
+
+    private static Result pptx(Source source, int maxChars, long maxInflatedBytes) throws IOException {
+        Map<Integer, String> slides = new TreeMap<>();
+        boolean[] found = {false};
+        int[] collected = {0};
+        boolean complete = eachEntry(source, maxInflatedBytes, (name, reader) -> {
+            if ("ppt/presentation.xml".equals(name)) {
+                found[0] = true;
+                return true;
+            }
+            Matcher m = SLIDE.matcher(name);
+            if (m.matches() && collected[0] < maxChars) {
+                TextSink slide = new TextSink(maxChars - collected[0]);
+                paragraphs(reader, slide);
+                slides.put(Integer.parseInt(m.group(1)), slide.toString());
+                collected[0] += slide.length();
+            }
+            return true;
+        });
+        return join(slides, maxChars, !complete, found[0]);
+    }
+
+    private static Result xlsx(Source source, int maxChars, long maxInflatedBytes) throws IOException {
+        // 第一遍：共享字符串表
+        List<String> shared = new ArrayList<>();
+        boolean[] found = {false};
+        boolean complete = eachEntry(source, maxInflatedBytes, (name, reader) -> {
+            if ("xl/workbook.xml".equals(name)) {
+                found[0] = true;
+            } else if ("xl/sharedStrings.xml".equals(name)) {
+                sharedStrings(reader, shared, maxChars);
+            }
+            return true;
+        });
+        if (!found[0]) {
+            return new Result("", false, false);
+        }
+
+        // 第二遍：各工作表，单元格以制表符分隔，行以换行分隔
+        Map<Integer, String> sheets = new TreeMap<>();
+        int[] collected = {0};
+        complete &= eachEntry(source, maxInflatedBytes, (name, reader) -> {
+            Matcher m = SHEET.matcher(name);
+            if (m.matches() && collected[0] < maxChars) {
+                TextSink sheet = new TextSink(maxChars - collected[0]);
+                cells(reader, shared, sheet);
+                sheets.put(Integer.parseInt(m.group(1)), sheet.toString());
+                collected[0] += sheet.length();
+            }
+            return true;
+        });
+        return join(sheets, maxChars, !complete, true);
+    }
+
+    /**
+     * 段落文本：t 为文字，tab / br 为制表与换行，段落结束换行（docx 的 w:p、pptx 的 a:p）
+     */
+    private static void paragraphs(XMLStreamReader reader, TextSink sink) throws XMLStreamException {
+        while (reader.hasNext() && !sink.isFull()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "t" -> sink.append(reader.getElementText());
+                    case "tab" -> sink.append("\t");
+                    case "br", "cr" -> sink.append("\n");
+                    default -> {
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && "p".equals(reader.getLocalName())) {
+                sink.append("\n");
+            }
+        }
+    }
+
+    /**
+     * 共享字符串表：每个 si 是一个字符串（富文本由多个 r/t 组成，rPh 注音不计入）
+     */
+    private static void sharedStrings(XMLStreamReader reader, List<String> shared, int maxChars)
+            throws XMLStreamException {
+        StringBuilder current = null;
+        int phonetic = 0;
+        long total = 0;
+        while (reader.hasNext() && total < maxChars) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "si" -> current = new StringBuilder();
+                    case "rPh" -> phonetic++;
+                    case "t" -> {
+                        String text = reader.getElementText();
+                        if (current != null && phonetic == 0) {
+                            current.append(text);
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if ("rPh".equals(reader.getLocalName())) {
+                    phonetic--;
+                } else if ("si".equals(reader.getLocalName()) && current != null) {
+                    shared.add(current.toString());
+                    total += current.length();
+                    current = null;
+                }
+            }
+        }
+    }
+
+    private static void cells(XMLStreamReader reader, List<String> shared, TextSink sink)
+            throws XMLStreamException {
+        String type = null;
+        String value = null;
+        StringBuilder inline = new StringBuilder();
+        boolean firstInRow = true;
+        while (reader.hasNext() && !sink.isFull()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "row" -> firstInRow = true;
+                    case "c" -> {
+                        type = reader.getAttributeValue(null, "t");
+                        value = null;
+                        inline.setLength(0);
+                    }
+                    case "v" -> value = reader.getElementText();
+                    case "t" -> inline.append(reader.getElementText());
+                    default -> {
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "c" -> {
+                        String text = cellText(type, value, inline, shared);
+                        if (text != null && !text.isEmpty()) {
+                            if (!firstInRow) {
+                                sink.append("\t");
+                            }
+                            sink.append(text);
+                            firstInRow = false;
+                        }
+                    }
+                    case "row" -> {
+                        if (!firstInRow) {
+                            sink.append("\n");
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+    }
+
+    private static String cellText(String type, String value, StringBuilder inline, List<String> shared) {
+        if ("inlineStr".equals(type)) {
+            return inline.toString();
+        }
+        if ("s".equals(type)) {
+            try {
+                int index = Integer.parseInt(value.trim());
+                return index >= 0 && index < shared.size() ? shared.get(index) : null;
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+        return value;
+    }
+
+    private static Result join(Map<Integer, String> parts, int maxChars, boolean truncated, boolean recognized) {
+        TextSink sink = new TextSink(maxChars);
+        for (String part : parts.values()) {
+            if (sink.length() > 0) {
+                sink.append("\n");
+            }
+            sink.append(part);
+        }
+        return new Result(sink.toString(), truncated || sink.truncated || sink.isFull(), recognized);
+    }
+
+    /**
+     * 对 zip 包中每个 XML 条目回调（返回 false 停止）；解压总量超过上限时停止并返回 false
+     */
+    private static boolean eachEntry(Source source, long maxInflatedBytes, EntryHandler handler) throws IOException {
+        try (InputStream raw = source.open();
+             ZipInputStream zip = new ZipInputStream(new BufferedInputStream(raw), StandardCharsets.UTF_8)) {
+            LimitedStream limited = new LimitedStream(zip, maxInflatedBytes);
+            int entries = 0;
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (++entries > MAX_ZIP_ENTRIES) {
+                    return false;
+                }
+                String name = entry.getName();
+                if (entry.isDirectory() || !name.endsWith(".xml")) {
+                    continue;
+                }
+                XMLStreamReader reader = XML.createXMLStreamReader(limited);
+                try {
+                    if (!handler.handle(name, reader)) {
+                        return true;
+                    }
+                } finally {
+                    reader.close();
+                }
+            }
+            return true;
+        } catch (LimitExceededException e) {
+            return false;
+        } catch (XMLStreamException e) {
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof LimitExceededException
+                        || (cause instanceof XMLStreamException x && x.getNestedException() instanceof LimitExceededException)) {
+                    return false;
+                }
+            }
+            throw new IOException("XML 解析失败: " + e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            // 条目名不是合法的 UTF-8
+            throw new IOException("zip 条目名无法解析", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntryHandler {
+        boolean handle(String name, XMLStreamReader reader) throws XMLStreamException;
+    }
+
+    /**
+     * 有上限的文本缓冲
+     */
+    private static final class TextSink {
+
+        private final StringBuilder sb = new StringBuilder();
+        private final int max;
+        private boolean truncated;
+
+        TextSink(int max) {
+            this.max = max;
+        }
+
+        void append(String text) {
+            int room = max - sb.length();
+            if (text.length() > room) {
+                sb.append(text, 0, Math.max(0, room));
+                truncated = true;
+            } else {
+                sb.append(text);
+            }
+        }
+
+        boolean isFull() {
+            return sb.length() >= max;
+        }
+
+        int length() {
+            return sb.length();
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+
+    private static final class LimitExceededException extends IOException {
+        LimitExceededException() {
+            super("解压内容超过上限");
+        }
+    }
+
+    /**
+     * 统计从 zip 中读出的解压后字节数，超过上限时抛出异常；不关闭底层流（由 ZipInputStream 管理条目）
+     */
+    private static final class LimitedStream extends FilterInputStream {
+
+        private long remaining;
+
+        LimitedStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0 && --remaining < 0) {
+                throw new LimitExceededException();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                remaining -= n;
+                if (remaining < 0) {
+                    throw new LimitExceededException();
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
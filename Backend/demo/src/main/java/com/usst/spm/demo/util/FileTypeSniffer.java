@@ -0,0 +1,110 @@
+package com.usst.spm.demo.util;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 按文件头魔数判断文件大类，并与扩展名应有的大类比对
+ * Office 2007+ 格式（docx/xlsx/pptx）本身是 zip，魔数只能判断到 ZIP，具体是哪种由解包时的主文档确认；
+ * 文本文件没有魔数，按开头一段不含 NUL 且控制字符很少来判断。
+ */
+public final class FileTypeSniffer {
+
+    /**
+     * 判断所需的文件头长度
+     */
+    public static final int HEADER_SIZE = 8192;
+
+    public enum Family {
+        PDF, OLE, ZIP, RAR, TEXT, UNKNOWN
+    }
+
+    private static final Map<String, Family> EXPECTED = Map.ofEntries(
+            Map.entry("pdf", Family.PDF),
+            Map.entry("doc", Family.OLE),
+            Map.entry("xls", Family.OLE),
+            Map.entry("ppt", Family.OLE),
+            Map.entry("docx", Family.ZIP),
+            Map.entry("xlsx", Family.ZIP),
+            Map.entry("pptx", Family.ZIP),
+            Map.entry("zip", Family.ZIP),
+            Map.entry("rar", Family.RAR),
+            Map.entry("txt", Family.TEXT)
+    );
+
+    private static final byte[] PDF = {'%', 'P', 'D', 'F', '-'};
+    private static final byte[] OLE = {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1};
+    private static final byte[] ZIP = {'P', 'K', 0x03, 0x04};
+    private static final byte[] ZIP_EMPTY = {'P', 'K', 0x05, 0x06};
+    private static final byte[] RAR = {'R', 'a', 'r', '!', 0x1A, 0x07};
+
+    private FileTypeSniffer() {
+    }
+
+    /**
+     * 由文件头判断大类，header 为文件开头最多 length 个字节
+     */
+    public static Family sniff(byte[] header, int length) {
+        if (startsWith(header, length, PDF)) {
+            return Family.PDF;
+        }
+        if (startsWith(header, length, OLE)) {
+            return Family.OLE;
+        }
+        if (startsWith(header, length, ZIP) || startsWith(header, length, ZIP_EMPTY)) {
+            return Family.ZIP;
+        }
+        if (startsWith(header, length, RAR)) {
+            return Family.RAR;
+        }
+        return looksLikeText(header, length) ? Family.TEXT : Family.UNKNOWN;
+    }
+
+    /**
+     * 扩展名应有的大类，不认识的扩展名返回 null
+     */
+    public static Family expectedFamily(String extension) {
+        return extension == null ? null : EXPECTED.get(extension.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 文件名的扩展名（小写，不含点），没有时返回空串
+     */
+    public static String extensionOf(String fileName) {
+        int dot = fileName != null ? fileName.lastIndexOf('.') : -1;
+        return dot >= 0 ? fileName.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * 有 UTF-16 BOM，或者不含 NUL 且控制字符（制表、换行、换页、ESC 除外）不超过 2%
+     */
+    private static boolean looksLikeText(byte[] header, int length) {
+        if (length >= 2 && ((header[0] == (byte) 0xFE && header[1] == (byte) 0xFF)
+                || (header[0] == (byte) 0xFF && header[1] == (byte) 0xFE))) {
+            return true;
+        }
+        int control = 0;
+        for (int i = 0; i < length; i++) {
+            int b = header[i] & 0xFF;
+            if (b == 0) {
+                return false;
+            }
+            if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != 0x1B) {
+                control++;
+            }
+        }
+        return control * 50 <= length;
+    }
+
+    private static boolean startsWith(byte[] header, int length, byte[] magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,74 @@
+package com.usst.spm.demo.util;
+
+/**
+ * 访问频率估计（Count-Min Sketch，TinyLFU 的频率部分）
+ * DEPTH 行计数器，每行用不同种子散列定位，估计值取各行最小值；计数器上限 15（4 位即可表示）。
+ * 累计记录 10 × width 次后所有计数器减半，使频率随时间衰减，过去的热点不会永久占据缓存。
+ * 方法加锁，计数器总共只有几十 KB，锁内操作为常数时间。
+ */
+public final class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final byte[][] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param expectedKeys 预计同时活跃的键数量，宽度取不小于它的 2 的幂
+     */
+    public FrequencySketch(int expectedKeys) {
+        int width = Integer.highestOneBit(Math.max(64, expectedKeys - 1)) << 1;
+        this.table = new byte[DEPTH][width];
+        this.mask = width - 1;
+        this.sampleSize = 10 * width;
+    }
+
+    /**
+     * 记录一次访问
+     */
+    public synchronized void increment(long key) {
+        boolean added = false;
+        for (int i = 0; i < DEPTH; i++) {
+            int index = indexOf(key, i);
+            if (table[i][index] < MAX_COUNT) {
+                table[i][index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * 估计访问次数（可能偏高，不会偏低，衰减除外）
+     */
+    public synchronized int frequency(long key) {
+        int min = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            min = Math.min(min, table[i][indexOf(key, i)]);
+        }
+        return min;
+    }
+
+    private void reset() {
+        for (byte[] row : table) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] >>= 1;
+            }
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(long key, int row) {
+        long z = key * SEEDS[row];
+        z = (z ^ (z >>> 32)) * 0x94D049BB133111EBL;
+        return (int) (z ^ (z >>> 29)) & mask;
+    }
+}
@@ -1,66 +1,163 @@
 package com.usst.spm.demo.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * JWT 签发与校验
+ * 密钥由 spm.jwt.keys 配置（kid:Base64 密钥，逗号分隔），各节点配置相同即可互认 Token，重启也不会让已登录用户失效。
+ * 新 Token 用当前密钥签名并在头部写入 kid；校验时按 kid 选择密钥，轮换后旧密钥继续留在列表中用于校验，
+ * 等旧 Token 全部过期（一个有效期）后再移除。
+ */
 @Component
 public class JwtUtil {
 
-    // 签名密钥
-    private static final Key KEY = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    private static final Logger log = LoggerFactory.getLogger(JwtUtil.class);
 
     // 密钥有效期1小时
     private static final long EXPIRATION_TIME = 3600000;
 
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_ROLE = "role";
+
+    // 未配置密钥时使用的临时密钥 kid
+    private static final String EPHEMERAL_KEY_ID = "ephemeral";
+
+    // kid -> 签名密钥（不可变）
+    private final Map<String, Key> keys;
+    private final String currentKeyId;
+    private final Key currentKey;
+
+    // 解析器不可变、线程安全，全局共用一个，避免每次请求重新构建
+    private final JwtParser parser;
+
+    public JwtUtil(@Value("${spm.jwt.keys:}") String keys,
+                   @Value("${spm.jwt.current-key-id:}") String currentKeyId) {
+        Map<String, Key> parsed = parseKeys(keys);
+        if (parsed.isEmpty()) {
+            log.warn("[jwt] spm.jwt.keys is not configured, using a random key: tokens will not survive a restart "
+                    + "and are not accepted by other nodes");
+            parsed.put(EPHEMERAL_KEY_ID, Keys.secretKeyFor(SignatureAlgorithm.HS256));
+        }
+        String kid = currentKeyId == null || currentKeyId.isBlank()
+                ? parsed.keySet().iterator().next()
+                : currentKeyId.trim();
+        if (!parsed.containsKey(kid)) {
+            throw new IllegalStateException("spm.jwt.current-key-id 不在 spm.jwt.keys 中: " + kid);
+        }
+        this.keys = Collections.unmodifiableMap(parsed);
+        this.currentKeyId = kid;
+        this.currentKey = parsed.get(kid);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return resolveKey(header.getKeyId());
+                    }
+                })
+                .build();
+        log.info("[jwt] signing with key '{}', {} key(s) accepted for verification", kid, parsed.size());
+    }
+
     //生成 JWT Token
+    //@param userId 用户ID
     //@param studentNo 用户学号
     //@param role 用户角色
     //@return 生成的 JWT 字符串
-    public String generateToken(String studentNo, String role) {
+    public String generateToken(Long userId, String studentNo, String role) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("role", role);
+        claims.put(CLAIM_USER_ID, userId);
+        claims.put(CLAIM_ROLE, role);
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, currentKeyId)
                 .setClaims(claims)
                 .setSubject(studentNo)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(KEY)
+                .signWith(currentKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    //验证并解析 JWT Token
+    //验证并解析 JWT Token（签名与有效期一并校验，过期抛 ExpiredJwtException）
     //@param token JWT Token
     //@return Claims 对象，包含有效载荷
     public Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(KEY)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    //
-    public String getStudentNoFromToken(String token) {
-        return extractAllClaims(token).getSubject();
+    //验证并解析出当前用户，只验签一次
+    //@param token JWT Token
+    //@return 当前用户（用户ID、学号、角色）
+    public AuthenticatedPrincipal parsePrincipal(String token) {
+        Claims claims = extractAllClaims(token);
+        Object userId = claims.get(CLAIM_USER_ID);
+        if (!(userId instanceof Number) || claims.getSubject() == null) {
+            throw new MalformedJwtException("Token 缺少用户信息");
+        }
+        return new AuthenticatedPrincipal(((Number) userId).longValue(), claims.getSubject(),
+                claims.get(CLAIM_ROLE, String.class));
     }
 
-    //检查 Token 是否过期
-
-    public boolean isTokenExpired(String token) {
-        return extractAllClaims(token).getExpiration().before(new Date());
+    /**
+     * 按 kid 选择校验密钥；缺少 kid 或 kid 未知（密钥已移除或来自其他部署）时按签名无效处理
+     */
+    private Key resolveKey(String kid) {
+        Key key = kid != null ? keys.get(kid) : null;
+        if (key == null) {
+            throw new SignatureException("未知的签名密钥: " + kid);
+        }
+        return key;
     }
 
-    // 验证 Token 是否有效
-    public boolean validateToken(String token, String studentNo) {
-        final String tokenStudentNo = getStudentNoFromToken(token);
-        return (tokenStudentNo.equals(studentNo) && !isTokenExpired(token));
+    /**
+     * 解析 kid:Base64 密钥列表，保持配置顺序；密钥至少 256 位
+     */
+    private static Map<String, Key> parseKeys(String value) {
+        Map<String, Key> parsed = new LinkedHashMap<>();
+        if (value == null || value.isBlank()) {
+            return parsed;
+        }
+        for (String entry : value.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int colon = entry.indexOf(':');
+            if (colon <= 0 || colon == entry.length() - 1) {
+                throw new IllegalStateException("spm.jwt.keys 格式应为 kid:Base64密钥，逗号分隔");
+            }
+            String kid = entry.substring(0, colon).trim();
+            byte[] secret;
+            try {
+                secret = Decoders.BASE64.decode(entry.substring(colon + 1).trim());
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("spm.jwt.keys 中密钥 " + kid + " 不是有效的 Base64", e);
+            }
+            if (secret.length < 32) {
+                throw new IllegalStateException("spm.jwt.keys 中密钥 " + kid + " 过短，HS256 至少需要 256 位");
+            }
+            if (parsed.put(kid, Keys.hmacShaKeyFor(secret)) != null) {
+                throw new IllegalStateException("spm.jwt.keys 中 kid 重复: " + kid);
+            }
+        }
+        return parsed;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,111 @@
+package com.usst.spm.demo.util;
+
+import java.util.Arrays;
+
+/**
+ * MinHash 签名与 LSH 分带
+ * 文本先规范化（转小写，只保留字母和数字，对中文同样按字符处理），取长度为 SHINGLE_SIZE 的字符 shingle，
+ * 每个 shingle 经 NUM_HASHES 个带不同种子的 64 位混合函数取最小值得到签名。
+ * 签名按 BANDS 段、每段 ROWS_PER_BAND 行分带，任一段完全相同即成为候选对；
+ * 32 × 4 的分带使 Jaccard 约 0.4 以上的对大概率被召回。
+ */
+public final class MinHasher {
+
+    public static final int SHINGLE_SIZE = 5;
+    public static final int NUM_HASHES = 128;
+    public static final int BANDS = 32;
+    public static final int ROWS_PER_BAND = NUM_HASHES / BANDS;
+
+    private static final long[] SEEDS = new long[NUM_HASHES];
+
+    static {
+        // 固定种子，保证同一内容在不同进程中签名一致
+        long x = 0x5DEECE66DL;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            x += 0x9E3779B97F4A7C15L;
+            SEEDS[i] = mix(x);
+        }
+    }
+
+    private MinHasher() {
+    }
+
+    /**
+     * 计算签名；规范化后没有任何字符时返回 null（不参与比对）
+     */
+    public static int[] signature(String content) {
+        if (content == null || content.isEmpty()) {
+            return null;
+        }
+        int[] chars = normalize(content);
+        if (chars.length == 0) {
+            return null;
+        }
+        long[] mins = new long[NUM_HASHES];
+        // 按无符号比较，初始为无符号最大值
+        Arrays.fill(mins, -1L);
+        int shingles = Math.max(1, chars.length - SHINGLE_SIZE + 1);
+        int width = Math.min(SHINGLE_SIZE, chars.length);
+        for (int start = 0; start < shingles; start++) {
+            long h = 0x84222325CBF29CE4L;
+            for (int k = 0; k < width; k++) {
+                h = (h ^ chars[start + k]) * 0x100000001B3L;
+            }
+            for (int i = 0; i < NUM_HASHES; i++) {
+                long v = mix(h ^ SEEDS[i]);
+                if (Long.compareUnsigned(v, mins[i]) < 0) {
+                    mins[i] = v;
+                }
+            }
+        }
+        int[] signature = new int[NUM_HASHES];
+        for (int i = 0; i < NUM_HASHES; i++) {
+            signature[i] = (int) (mins[i] >>> 32);
+        }
+        return signature;
+    }
+
+    /**
+     * 由签名估计 Jaccard 相似度（相同位置相等的比例）
+     */
+    public static double estimate(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / NUM_HASHES;
+    }
+
+    /**
+     * 第 band 段的分桶键
+     */
+    public static long bandKey(int[] signature, int band) {
+        long h = band;
+        int offset = band * ROWS_PER_BAND;
+        for (int r = 0; r < ROWS_PER_BAND; r++) {
+            h = h * 0x100000001B3L + signature[offset + r];
+        }
+        return mix(h);
+    }
+
+    private static int[] normalize(String content) {
+        int[] out = new int[content.length()];
+        int n = 0;
+        for (int i = 0; i < content.length(); ) {
+            int cp = content.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.isLetterOrDigit(cp)) {
+                out[n++] = Character.toLowerCase(cp);
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,21 @@
+package com.usst.spm.demo.util;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 逐行输出的表格写入器（CSV / XLSX 导出共用）
+ * 实现类不缓存行数据，写完一行即可丢弃
+ */
+public interface TabularWriter {
+
+    /**
+     * 写入一行，Number 按数值单元格输出，null 输出空单元格，其余按字符串输出
+     */
+    void writeRow(List<?> cells) throws IOException;
+
+    /**
+     * 写入结尾并刷新，不关闭底层输出流
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,125 @@
+package com.usst.spm.demo;
+
+import com.usst.spm.demo.dto.RepublishRequest;
+import com.usst.spm.demo.model.Assignment;
+import com.usst.spm.demo.model.Course;
+import com.usst.spm.demo.repository.AssignmentRepository;
+import com.usst.spm.demo.repository.AssignmentVersionCounterRepository;
+import com.usst.spm.demo.repository.CourseRepository;
+import com.usst.spm.demo.service.AssignmentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 并发重新发布同一作业：走完整的重新发布事务（版本号分配、新版本写入 assignments），
+ * 每次得到不同且连续的版本号，uk_assign_origin_version 唯一索引不冲突
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AssignmentVersionAllocatorTests {
+
+    private static final int PARALLEL_REPUBLISHES = 50;
+    private static final long TEACHER_ID = 9_200_001L;
+
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    @Autowired
+    private AssignmentVersionCounterRepository counterRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Course course;
+    private Assignment original;
+
+    @BeforeEach
+    void setUp() {
+        course = new Course();
+        course.setName("重新发布课程");
+        course = courseRepository.save(course);
+
+        original = new Assignment();
+        original.setCourseId(course.getId());
+        original.setTitle("重新发布作业");
+        original.setTotalScore(100);
+        original.setStatus("CLOSED");
+        original.setVersion(1);
+        original.setDueAt(LocalDateTime.now().minusDays(1));
+        original = assignmentRepository.save(original);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM assignment_files WHERE assignment_id IN "
+                + "(SELECT id FROM assignments WHERE origin_id = ?)", original.getId());
+        jdbcTemplate.update("DELETE FROM assignments WHERE origin_id = ?", original.getId());
+        assignmentRepository.deleteById(original.getId());
+        counterRepository.deleteById(original.getId());
+        courseRepository.deleteById(course.getId());
+    }
+
+    @Test
+    void concurrentRepublishesGetDistinctConsecutiveVersions() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(PARALLEL_REPUBLISHES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < PARALLEL_REPUBLISHES; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return assignmentService.republishAssignment(original.getId(), request(), TEACHER_ID)
+                            .getVersion();
+                }));
+            }
+            start.countDown();
+
+            TreeSet<Integer> versions = new TreeSet<>();
+            for (Future<Integer> future : futures) {
+                versions.add(future.get(60, TimeUnit.SECONDS));
+            }
+
+            // 无重复：50 次重新发布得到 50 个不同版本号，且为 2..51 连续区间
+            assertEquals(PARALLEL_REPUBLISHES, versions.size());
+            assertEquals(2, versions.first());
+            assertEquals(PARALLEL_REPUBLISHES + 1, versions.last());
+
+            // 50 个新版本都已写入，且都挂在同一条链路上
+            assertEquals(versions, new TreeSet<>(jdbcTemplate.queryForList(
+                    "SELECT version FROM assignments WHERE origin_id = ?", Integer.class, original.getId())));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private RepublishRequest request() {
+        RepublishRequest request = new RepublishRequest();
+        request.setNewDueAt(LocalDateTime.now().plusDays(7));
+        request.setPublishImmediately(true);
+        request.setInheritAttachments(false);
+        return request;
+    }
+}
@@ -0,0 +1,203 @@
+package com.usst.spm.demo;
+
+import com.usst.spm.demo.dto.SubmissionReceipt;
+import com.usst.spm.demo.dto.SubmissionRequest;
+import com.usst.spm.demo.model.Assignment;
+import com.usst.spm.demo.model.Course;
+import com.usst.spm.demo.model.User;
+import com.usst.spm.demo.repository.AssignmentRepository;
+import com.usst.spm.demo.repository.CourseRepository;
+import com.usst.spm.demo.repository.UserRepository;
+import com.usst.spm.demo.service.SubmissionIntakeService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 截止高峰回放：500 名学生在截止前同时提交，每人因超时再带相同 Idempotency-Key 重试一次
+ * 使用 test 配置（独立内存数据库），收件日志写到临时目录；上下文随本类结束关闭，日志目录与写库进度一并清理。
+ */
+@SpringBootTest(properties = {
+        "spm.submission.intake.enabled=true",
+        "spm.submission.intake.node-id=" + SubmissionIntakeLoadTests.NODE_ID
+})
+@ActiveProfiles("test")
+@DirtiesContext
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SubmissionIntakeLoadTests {
+
+    static final String NODE_ID = "load-test";
+
+    private static final int STUDENTS = 500;
+    private static final int CLIENT_THREADS = 100;
+
+    private static Path logDir;
+
+    @DynamicPropertySource
+    static void intakeDir(DynamicPropertyRegistry registry) throws IOException {
+        logDir = Files.createTempDirectory("intake-load-test");
+        registry.add("spm.submission.intake.dir", logDir::toString);
+    }
+
+    @Autowired
+    private SubmissionIntakeService intakeService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Course course;
+    private Assignment assignment;
+    private final List<User> students = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        course = new Course();
+        course.setName("收件压测课程");
+        course = courseRepository.save(course);
+
+        assignment = new Assignment();
+        assignment.setCourseId(course.getId());
+        assignment.setTitle("收件压测作业");
+        assignment.setTotalScore(100);
+        assignment.setAllowResubmit(true);
+        assignment.setMaxResubmitCount(0);
+        assignment.setStatus("PUBLISHED");
+        assignment.setDueAt(LocalDateTime.now().plusMinutes(5));
+        assignment = assignmentRepository.save(assignment);
+
+        String prefix = "LT" + System.currentTimeMillis() % 1_000_000_000L + "-";
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            User user = new User();
+            user.setStudentNo(prefix + i);
+            user.setName("压测学生" + i);
+            user.setPassword("x");
+            user.setRole("STUDENT");
+            user.setStatus(1);
+            user.setDeleted(0);
+            users.add(user);
+        }
+        students.addAll(userRepository.saveAll(users));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        // 先删引用提交的正文与附件关联（fk_sub_content 等外键），再删提交
+        jdbcTemplate.update("DELETE FROM submission_contents WHERE submission_id IN "
+                + "(SELECT id FROM submissions WHERE assignment_id = ?)", assignment.getId());
+        jdbcTemplate.update("DELETE FROM submission_files WHERE submission_id IN "
+                + "(SELECT id FROM submissions WHERE assignment_id = ?)", assignment.getId());
+        jdbcTemplate.update("DELETE FROM submissions WHERE assignment_id = ?", assignment.getId());
+        assignmentRepository.deleteById(assignment.getId());
+        userRepository.deleteAll(students);
+        courseRepository.deleteById(course.getId());
+    }
+
+    @AfterAll
+    void tearDown() throws Exception {
+        // 先停掉写库线程并关闭日志，再删除写库进度与日志目录
+        intakeService.stop();
+        jdbcTemplate.update("DELETE FROM submission_intake_checkpoints WHERE node_id = ?", NODE_ID);
+        FileSystemUtils.deleteRecursively(logDir);
+    }
+
+    @Test
+    void deadlineSpikeIsAppliedExactlyOnceWithIntakeTimestamps() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENT_THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String[]>> futures = new ArrayList<>();
+        LocalDateTime spikeStart = LocalDateTime.now().withNano(0);
+        try {
+            for (User student : students) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    SubmissionRequest request = new SubmissionRequest();
+                    request.setContent("answer of " + student.getStudentNo());
+                    String key = "spike-" + student.getId();
+                    SubmissionReceipt first = intakeService.accept(assignment.getId(), student.getId(), request, key);
+                    SubmissionReceipt retry = intakeService.accept(assignment.getId(), student.getId(), request, key);
+                    return new String[]{first.getTicketId(), retry.getTicketId()};
+                }));
+            }
+            start.countDown();
+
+            Set<String> tickets = new HashSet<>();
+            for (Future<String[]> future : futures) {
+                String[] ids = future.get(60, TimeUnit.SECONDS);
+                assertEquals(ids[0], ids[1], "重试应返回同一张回执");
+                tickets.add(ids[0]);
+            }
+            assertEquals(STUDENTS, tickets.size());
+
+            // 等待后台线程写库完成
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(60);
+            List<String> remaining = new ArrayList<>(tickets);
+            while (!remaining.isEmpty() && System.currentTimeMillis() < deadline) {
+                remaining.removeIf(id -> !SubmissionReceipt.STATUS_PENDING.equals(
+                        intakeService.getReceipt(assignment.getId(), id).getStatus()));
+                Thread.sleep(100);
+            }
+            assertTrue(remaining.isEmpty(), remaining.size() + " submissions still pending");
+            for (String id : tickets) {
+                assertEquals(SubmissionReceipt.STATUS_APPLIED,
+                        intakeService.getReceipt(assignment.getId(), id).getStatus());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // 每名学生恰好一条提交、未被重复计为重提交，提交时间为收件时刻（不晚于截止时间）
+        Integer submissions = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM submissions WHERE assignment_id = ? AND deleted = 0",
+                Integer.class, assignment.getId());
+        assertEquals(STUDENTS, submissions);
+        Integer distinctStudents = jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT student_id) FROM submissions WHERE assignment_id = ?",
+                Integer.class, assignment.getId());
+        assertEquals(STUDENTS, distinctStudents);
+        Integer resubmitted = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM submissions WHERE assignment_id = ? AND resubmit_count > 0",
+                Integer.class, assignment.getId());
+        assertEquals(0, resubmitted);
+        Integer outOfWindow = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM submissions WHERE assignment_id = ? AND (submitted_at < ? OR submitted_at > ?)",
+                Integer.class, assignment.getId(), spikeStart, assignment.getDueAt());
+        assertEquals(0, outOfWindow);
+    }
+}
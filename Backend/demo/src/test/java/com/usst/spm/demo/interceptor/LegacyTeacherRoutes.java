@@ -0,0 +1,44 @@
+package com.usst.spm.demo.interceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * 改造前 TeacherAuthInterceptor.requiresTeacher 的实现（逐请求 URI 正则匹配），作为覆盖范围与基准的对照
+ */
+final class LegacyTeacherRoutes {
+
+    private LegacyTeacherRoutes() {
+    }
+
+    static boolean requiresTeacher(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        String method = request.getMethod();
+        if ("/api/assignments".equals(uri) && "POST".equalsIgnoreCase(method)) {
+            return true;
+        }
+        if (uri.matches("/api/assignments/\\d+/submissions(/archive|/\\d+)?") && "GET".equalsIgnoreCase(method)) {
+            return true;
+        }
+        if (uri.matches("/api/assignments/\\d+/submissions/\\d+/grade") && "POST".equalsIgnoreCase(method)) {
+            return true;
+        }
+        if (uri.matches("/api/assignments/\\d+/grades/bulk") && "POST".equalsIgnoreCase(method)) {
+            return true;
+        }
+        if (uri.matches("/api/assignments/\\d+/stats") && "GET".equalsIgnoreCase(method)) {
+            return true;
+        }
+        if (uri.matches("/api/assignments/\\d+/similarity")
+                && ("GET".equalsIgnoreCase(method) || "POST".equalsIgnoreCase(method))) {
+            return true;
+        }
+        if (("/api/files/cache/stats".equals(uri) || "/api/files/gc/report".equals(uri))
+                && "GET".equalsIgnoreCase(method)) {
+            return true;
+        }
+        return uri.startsWith("/api/announcements")
+                && ("POST".equalsIgnoreCase(method)
+                || "PUT".equalsIgnoreCase(method)
+                || "DELETE".equalsIgnoreCase(method));
+    }
+}
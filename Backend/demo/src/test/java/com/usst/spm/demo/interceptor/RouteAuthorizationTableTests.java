@@ -0,0 +1,77 @@
+package com.usst.spm.demo.interceptor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 启动时编译的策略表与原先逐请求正则匹配覆盖同样的教师接口
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RouteAuthorizationTableTests {
+
+    @Autowired
+    private RouteAuthorizationTable authorizationTable;
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    @Test
+    void policiesCoverFormerTeacherRoutes() throws Exception {
+        String[][] teacherRoutes = {
+                {"POST", "/api/assignments"},
+                {"GET", "/api/assignments/1/submissions"},
+                {"GET", "/api/assignments/1/submissions/archive"},
+                {"GET", "/api/assignments/1/submissions/2"},
+                {"POST", "/api/assignments/1/submissions/2/grade"},
+                {"POST", "/api/assignments/1/grades/bulk"},
+                {"GET", "/api/assignments/1/stats"},
+                {"GET", "/api/assignments/1/similarity"},
+                {"POST", "/api/assignments/1/similarity"},
+                {"GET", "/api/files/cache/stats"},
+                {"GET", "/api/files/gc/report"},
+                {"POST", "/api/announcements"},
+                {"PUT", "/api/announcements/1"},
+                {"DELETE", "/api/announcements/1"},
+        };
+        for (String[] route : teacherRoutes) {
+            MockHttpServletRequest request = new MockHttpServletRequest(route[0], route[1]);
+            assertTrue(LegacyTeacherRoutes.requiresTeacher(request), route[1]);
+            AccessPolicy policy = authorizationTable.policyFor(handlerOf(request));
+            assertTrue(policy.requiresCourseTeacher() || !policy.allowsRole("STUDENT"), route[0] + " " + route[1]);
+        }
+
+        String[][] openRoutes = {
+                {"GET", "/api/assignments/1"},
+                {"GET", "/api/assignments/1/submissions/me"},
+                {"POST", "/api/assignments/1/submissions"},
+                {"GET", "/api/announcements"},
+                {"GET", "/api/users/me"},
+        };
+        for (String[] route : openRoutes) {
+            MockHttpServletRequest request = new MockHttpServletRequest(route[0], route[1]);
+            assertFalse(LegacyTeacherRoutes.requiresTeacher(request), route[1]);
+            assertSame(AccessPolicy.NONE, authorizationTable.policyFor(handlerOf(request)), route[0] + " " + route[1]);
+        }
+    }
+
+    private Object handlerOf(MockHttpServletRequest request) throws Exception {
+        HandlerExecutionChain chain = handlerMapping.getHandler(request);
+        assertNotNull(chain, request.getMethod() + " " + request.getRequestURI());
+        assertTrue(chain.getHandler() instanceof HandlerMethod);
+        return chain.getHandler();
+    }
+}
@@ -0,0 +1,132 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.UploadInitRequest;
+import com.usst.spm.demo.dto.UploadSessionResponse;
+import com.usst.spm.demo.model.FileUploadSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * 分片校验失败的重传不能覆盖已登记分片的数据；完成上传登记失败时临时文件保留，可再次完成
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ChunkedUploadServiceTests {
+
+    private static final int CHUNK_SIZE = 256 * 1024;
+    private static final long UPLOADER_ID = 42L;
+
+    @Autowired
+    private ChunkedUploadService uploadService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoSpyBean
+    private FileBlobStore fileBlobStore;
+
+    private String uploadId;
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        if (uploadId != null) {
+            jdbcTemplate.update("DELETE FROM file_upload_chunks WHERE upload_id = ?", uploadId);
+            jdbcTemplate.update("DELETE FROM file_upload_sessions WHERE id = ?", uploadId);
+            Files.deleteIfExists(partPath());
+        }
+    }
+
+    @Test
+    void corruptRetryDoesNotOverwriteRecordedChunk() throws IOException {
+        UploadInitRequest request = new UploadInitRequest();
+        request.setFileName("report.pdf");
+        request.setFileSize(2L * CHUNK_SIZE);
+        request.setChunkSize(CHUNK_SIZE);
+        uploadId = uploadService.init(UPLOADER_ID, request).getUploadId();
+
+        byte[] chunk = new byte[CHUNK_SIZE];
+        Arrays.fill(chunk, (byte) 'a');
+        uploadService.writeChunk(uploadId, UPLOADER_ID, 0, new ByteArrayInputStream(chunk), crc32c(chunk));
+
+        // 重传同一分片，传输中损坏：校验失败
+        byte[] corrupt = chunk.clone();
+        corrupt[100] = 'x';
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> uploadService.writeChunk(
+                uploadId, UPLOADER_ID, 0, new ByteArrayInputStream(corrupt), crc32c(chunk)));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+
+        byte[] stored = new byte[CHUNK_SIZE];
+        try (RandomAccessFile part = new RandomAccessFile(partPath().toFile(), "r")) {
+            part.readFully(stored);
+        }
+        assertArrayEquals(chunk, stored);
+        UploadSessionResponse status = uploadService.getStatus(uploadId, UPLOADER_ID);
+        assertEquals(List.of(1), status.getMissingChunks());
+        try (var scratch = Files.list(partPath().getParent())) {
+            assertEquals(0, scratch.filter(p -> p.getFileName().toString().startsWith(uploadId + ".")
+                    && p.toString().endsWith(".chunk")).count());
+        }
+    }
+
+    @Test
+    void failedCompletionKeepsPartFileForRetry() throws IOException {
+        UploadInitRequest request = new UploadInitRequest();
+        request.setFileName("notes.txt");
+        request.setFileSize((long) CHUNK_SIZE);
+        request.setChunkSize(CHUNK_SIZE);
+        uploadId = uploadService.init(UPLOADER_ID, request).getUploadId();
+
+        byte[] chunk = new byte[CHUNK_SIZE];
+        Arrays.fill(chunk, (byte) 'r');
+        uploadService.writeChunk(uploadId, UPLOADER_ID, 0, new ByteArrayInputStream(chunk), crc32c(chunk));
+
+        doThrow(new ResponseStatusException(HttpStatus.CONFLICT, "文件存储正在清理，请重新上传"))
+                .doCallRealMethod()
+                .when(fileBlobStore).createFile(any(), any(), any(), any());
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> uploadService.complete(uploadId, UPLOADER_ID));
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        assertTrue(Files.exists(partPath()));
+        assertEquals(FileUploadSession.STATUS_UPLOADING, uploadService.getStatus(uploadId, UPLOADER_ID).getStatus());
+
+        UploadSessionResponse completed = uploadService.complete(uploadId, UPLOADER_ID);
+        assertEquals(FileUploadSession.STATUS_COMPLETED, completed.getStatus());
+        assertNotNull(completed.getFileId());
+        assertFalse(Files.exists(partPath()));
+    }
+
+    private Path partPath() {
+        return uploadService.partPath(uploadId);
+    }
+
+    private static String crc32c(byte[] data) {
+        CRC32C crc = new CRC32C();
+        crc.update(data);
+        return String.format("%08x", crc.getValue());
+    }
+}
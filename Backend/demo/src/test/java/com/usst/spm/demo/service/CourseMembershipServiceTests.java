@@ -0,0 +1,87 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.model.Course;
+import com.usst.spm.demo.model.CourseEnrollment;
+import com.usst.spm.demo.repository.CourseEnrollmentRepository;
+import com.usst.spm.demo.repository.CourseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 其他实例或直接改库造成的成员变更：加入课程在下一次校验时可见，任课教师与删除标记在快照过期后可见
+ */
+@SpringBootTest(properties = {
+        "spm.course.membership.ttl-seconds=1",
+        "spm.course.membership.recheck-interval-ms=0"
+})
+@ActiveProfiles("test")
+class CourseMembershipServiceTests {
+
+    private static final long TEACHER_ID = 9_000_001L;
+    private static final long OTHER_TEACHER_ID = 9_000_002L;
+    private static final long STUDENT_ID = 9_000_003L;
+
+    @Autowired
+    private CourseMembershipService courseMembership;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CourseEnrollmentRepository courseEnrollmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        course = new Course();
+        course.setName("成员缓存课程");
+        course.setTeacherId(TEACHER_ID);
+        course = courseRepository.save(course);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM course_enrollments WHERE course_id = ?", course.getId());
+        courseRepository.deleteById(course.getId());
+    }
+
+    @Test
+    void joinOnAnotherNodeIsVisibleOnNextCheck() {
+        assertFalse(courseMembership.isMember(course.getId(), STUDENT_ID));
+
+        // 另一个实例上加入课程：不经过本实例的 addStudent
+        CourseEnrollment enrollment = new CourseEnrollment();
+        enrollment.setCourseId(course.getId());
+        enrollment.setStudentId(STUDENT_ID);
+        enrollment.setRole("STUDENT");
+        enrollment.setStatus("ACTIVE");
+        courseEnrollmentRepository.save(enrollment);
+
+        assertTrue(courseMembership.isMember(course.getId(), STUDENT_ID));
+    }
+
+    @Test
+    void teacherChangeAndDeletionAreVisibleAfterTtl() throws InterruptedException {
+        assertTrue(courseMembership.isTeacher(course.getId(), TEACHER_ID));
+
+        jdbcTemplate.update("UPDATE course SET teacher_id = ?, deleted = 1 WHERE id = ?",
+                OTHER_TEACHER_ID, course.getId());
+        Thread.sleep(1_100);
+
+        assertFalse(courseMembership.isTeacher(course.getId(), TEACHER_ID));
+        assertTrue(courseMembership.isTeacher(course.getId(), OTHER_TEACHER_ID));
+        assertTrue(courseMembership.get(course.getId()).orElseThrow().isDeleted());
+    }
+}
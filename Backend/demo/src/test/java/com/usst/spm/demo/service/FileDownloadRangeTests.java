@@ -0,0 +1,40 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.service.FileDownloadService.ByteRange;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Range 头解析：重叠、相邻、乱序的区间合并后按起点排序，总量不超过文件大小
+ */
+class FileDownloadRangeTests {
+
+    private static final long SIZE = 1000;
+
+    @Test
+    void repeatedOpenRangesCollapseToWholeFile() {
+        List<ByteRange> ranges = FileDownloadService.parseRanges("bytes=0-,0-,0-,0-,0-,0-,0-,0-", SIZE);
+        assertEquals(List.of(new ByteRange(0, SIZE - 1)), ranges);
+    }
+
+    @Test
+    void overlappingAndAdjacentRangesAreMergedInOrder() {
+        List<ByteRange> ranges = FileDownloadService.parseRanges("bytes=500-599,0-99,50-149,150-199,-100", SIZE);
+        assertEquals(List.of(new ByteRange(0, 199), new ByteRange(500, 599), new ByteRange(900, 999)), ranges);
+    }
+
+    @Test
+    void disjointRangesAreKeptSorted() {
+        List<ByteRange> ranges = FileDownloadService.parseRanges("bytes=300-399, 100-199", SIZE);
+        assertEquals(List.of(new ByteRange(100, 199), new ByteRange(300, 399)), ranges);
+    }
+
+    @Test
+    void tooManyRangesAreIgnored() {
+        assertNull(FileDownloadService.parseRanges("bytes=" + "0-0,".repeat(16) + "1-1", SIZE));
+    }
+}
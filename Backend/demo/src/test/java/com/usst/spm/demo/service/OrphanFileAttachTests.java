@@ -0,0 +1,201 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.SubmissionRequest;
+import com.usst.spm.demo.model.Assignment;
+import com.usst.spm.demo.model.Course;
+import com.usst.spm.demo.model.File;
+import com.usst.spm.demo.model.User;
+import com.usst.spm.demo.repository.AssignmentRepository;
+import com.usst.spm.demo.repository.CourseRepository;
+import com.usst.spm.demo.repository.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 上传草稿附件、超过孤儿回收宽限期后才提交：文件在数据清除前应被恢复，清除后应明确拒绝
+ */
+@SpringBootTest(properties = {
+        "spm.storage.gc.interval-minutes=0",
+        "spm.storage.gc.max-ops-per-second=10000",
+        "spm.upload.inspect.sweep-interval-minutes=0"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class OrphanFileAttachTests {
+
+    private static Path storageRoot;
+
+    @DynamicPropertySource
+    static void storage(DynamicPropertyRegistry registry) throws IOException {
+        storageRoot = Files.createTempDirectory("orphan-attach-test");
+        registry.add("spm.storage.local.root", storageRoot::toString);
+    }
+
+    @AfterAll
+    static void removeStorage() {
+        FileSystemUtils.deleteRecursively(storageRoot.toFile());
+    }
+
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private FileBlobStore fileBlobStore;
+
+    @Autowired
+    private OrphanFileCollector collector;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Course course;
+    private Assignment assignment;
+    private User student;
+    private File draft;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        course = new Course();
+        course.setName("孤儿回收课程");
+        course = courseRepository.save(course);
+
+        assignment = new Assignment();
+        assignment.setCourseId(course.getId());
+        assignment.setTitle("孤儿回收作业");
+        assignment.setTotalScore(100);
+        assignment.setAllowResubmit(true);
+        assignment.setMaxResubmitCount(0);
+        assignment.setStatus("PUBLISHED");
+        assignment.setDueAt(LocalDateTime.now().plusDays(7));
+        assignment = assignmentRepository.save(assignment);
+
+        student = new User();
+        student.setStudentNo("GC" + System.currentTimeMillis() % 1_000_000_000L);
+        student.setName("草稿学生");
+        student.setPassword("x");
+        student.setRole("STUDENT");
+        student.setStatus(1);
+        student.setDeleted(0);
+        student = userRepository.save(student);
+
+        // 上传草稿：内容带时间戳，保证是新数据块
+        FileBlobStore.StoredBlob blob = fileBlobStore.write(new ByteArrayInputStream(
+                ("draft answer " + System.nanoTime()).getBytes(StandardCharsets.UTF_8)));
+        draft = fileBlobStore.createFile(blob, "draft.txt", "text/plain", student.getId());
+        awaitInspection(draft.getId());
+
+        // 超过宽限期仍未提交，回收把它判为孤儿
+        jdbcTemplate.update("UPDATE files SET created_at = ? WHERE id = ?",
+                LocalDateTime.now().minusHours(25), draft.getId());
+        collector.collect();
+        assertEquals(1, fileDeleted());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM submission_files WHERE file_id = ?", draft.getId());
+        jdbcTemplate.update("DELETE FROM submission_contents WHERE submission_id IN "
+                + "(SELECT id FROM submissions WHERE assignment_id = ?)", assignment.getId());
+        jdbcTemplate.update("DELETE FROM submissions WHERE assignment_id = ?", assignment.getId());
+        jdbcTemplate.update("DELETE FROM file_texts WHERE file_id = ?", draft.getId());
+        jdbcTemplate.update("DELETE FROM files WHERE id = ?", draft.getId());
+        jdbcTemplate.update("DELETE FROM blob_inspections WHERE digest = ?", draft.getContentDigest());
+        jdbcTemplate.update("DELETE FROM file_blobs WHERE digest = ?", draft.getContentDigest());
+        assignmentRepository.deleteById(assignment.getId());
+        userRepository.deleteById(student.getId());
+        courseRepository.deleteById(course.getId());
+    }
+
+    @Test
+    void attachingOrphanedDraftRevivesIt() {
+        assignmentService.submitAssignment(assignment.getId(), student.getId(), request());
+
+        assertEquals(0, fileDeleted());
+        assertNull(jdbcTemplate.queryForObject("SELECT orphaned_at FROM files WHERE id = ?",
+                LocalDateTime.class, draft.getId()));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT ref_count FROM file_blobs WHERE digest = ?",
+                Integer.class, draft.getContentDigest()));
+        assertNull(jdbcTemplate.queryForObject("SELECT orphaned_at FROM file_blobs WHERE digest = ?",
+                LocalDateTime.class, draft.getContentDigest()));
+
+        // 已被提交引用，之后的回收不再动它，隔离期满也不会删除数据
+        jdbcTemplate.update("UPDATE files SET created_at = ? WHERE id = ?",
+                LocalDateTime.now().minusDays(30), draft.getId());
+        collector.collect();
+        assertEquals(0, fileDeleted());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM file_blobs WHERE digest = ?",
+                Integer.class, draft.getContentDigest()));
+    }
+
+    @Test
+    void attachingPurgedDraftIsRejected() {
+        // 隔离期已满，数据块被删除
+        jdbcTemplate.update("UPDATE file_blobs SET orphaned_at = ? WHERE digest = ?",
+                LocalDateTime.now().minusDays(8), draft.getContentDigest());
+        collector.collect();
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM file_blobs WHERE digest = ?",
+                Integer.class, draft.getContentDigest()));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> assignmentService.submitAssignment(assignment.getId(), student.getId(), request()));
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM submission_files WHERE file_id = ?",
+                Integer.class, draft.getId()));
+    }
+
+    private SubmissionRequest request() {
+        SubmissionRequest request = new SubmissionRequest();
+        request.setContent("final answer");
+        request.setAttachmentIds(List.of(draft.getId()));
+        return request;
+    }
+
+    private int fileDeleted() {
+        return jdbcTemplate.queryForObject("SELECT deleted FROM files WHERE id = ?", Integer.class, draft.getId());
+    }
+
+    private void awaitInspection(Long fileId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            String status = jdbcTemplate.queryForObject("SELECT inspection_status FROM files WHERE id = ?",
+                    String.class, fileId);
+            if (!File.INSPECTION_PENDING.equals(status)) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.AssignmentResponse;
+import com.usst.spm.demo.model.Assignment;
+import com.usst.spm.demo.model.Course;
+import com.usst.spm.demo.model.Grade;
+import com.usst.spm.demo.model.Submission;
+import com.usst.spm.demo.repository.AssignmentRepository;
+import com.usst.spm.demo.repository.CourseRepository;
+import com.usst.spm.demo.repository.GradeRepository;
+import com.usst.spm.demo.repository.SubmissionRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 学生作业列表的查询次数基准：作业数从 N 增加到 2N（一半已提交、其中一半已批改）时，
+ * Hibernate 执行的语句数保持不变；以及不经截止调度器关闭的早期作业的截止状态
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class StudentAssignmentListQueryCountTests {
+
+    private static final int N = 20;
+    private static final long STUDENT_ID = 9_100_001L;
+
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Course course;
+    private final List<Long> assignmentIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        course = new Course();
+        course.setName("查询次数课程");
+        course = courseRepository.save(course);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (Long assignmentId : assignmentIds) {
+            jdbcTemplate.update("DELETE FROM grades WHERE submission_id IN "
+                    + "(SELECT id FROM submissions WHERE assignment_id = ?)", assignmentId);
+            jdbcTemplate.update("DELETE FROM submissions WHERE assignment_id = ?", assignmentId);
+        }
+        assignmentRepository.deleteAllById(assignmentIds);
+        courseRepository.deleteById(course.getId());
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithAssignments() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        addAssignments(N);
+        long forN = countStatements(statistics, null);
+        long filteredForN = countStatements(statistics, "graded");
+
+        addAssignments(N);
+        long for2N = countStatements(statistics, null);
+        long filteredFor2N = countStatements(statistics, "graded");
+
+        assertEquals(forN, for2N, "作业数翻倍后语句数不应增加");
+        assertEquals(filteredForN, filteredFor2N, "按状态筛选时作业数翻倍后语句数不应增加");
+        assertEquals(1, for2N);
+    }
+
+    @Test
+    void legacyAssignmentsPastDueAreEnded() {
+        addLegacyAssignment(null, LocalDateTime.now().minusDays(1));
+        addLegacyAssignment("ONGOING", LocalDateTime.now().minusDays(1));
+        addLegacyAssignment("ONGOING", LocalDateTime.now().plusDays(1));
+
+        List<AssignmentResponse> list = assignmentService.getAssignments(course.getId(), STUDENT_ID, null);
+        assertEquals(List.of("ended", "ended", "progress"),
+                list.stream().map(AssignmentResponse::getSubmissionStatus).toList());
+        assertEquals(2, assignmentService.getAssignments(course.getId(), STUDENT_ID, "ended").size());
+    }
+
+    private void addLegacyAssignment(String status, LocalDateTime dueAt) {
+        Assignment assignment = new Assignment();
+        assignment.setCourseId(course.getId());
+        assignment.setTitle("早期作业" + assignmentIds.size());
+        assignment.setTotalScore(100);
+        assignment.setDueAt(dueAt);
+        assignment = assignmentRepository.save(assignment);
+        // 早期数据的状态可能为空或 ONGOING，直接写库，不经实体默认值
+        jdbcTemplate.update("UPDATE assignments SET status = ? WHERE id = ?", status, assignment.getId());
+        assignmentIds.add(assignment.getId());
+    }
+
+    private long countStatements(Statistics statistics, String statusFilter) {
+        statistics.clear();
+        List<AssignmentResponse> list = assignmentService.getAssignments(course.getId(), STUDENT_ID, statusFilter);
+        long statements = statistics.getPrepareStatementCount();
+        if (statusFilter == null) {
+            assertEquals(assignmentIds.size(), list.size());
+        } else {
+            assertEquals(assignmentIds.size() / 4, list.size());
+        }
+        return statements;
+    }
+
+    /**
+     * 新增 count 个作业：每两个中提交一个，每两个提交中批改并发布一个
+     */
+    private void addAssignments(int count) {
+        for (int i = 0; i < count; i++) {
+            Assignment assignment = new Assignment();
+            assignment.setCourseId(course.getId());
+            assignment.setTitle("作业" + assignmentIds.size());
+            assignment.setTotalScore(100);
+            assignment.setStatus("PUBLISHED");
+            assignment.setDueAt(LocalDateTime.now().plusDays(1));
+            assignment = assignmentRepository.save(assignment);
+            assignmentIds.add(assignment.getId());
+            if (i % 2 == 0) {
+                Submission submission = new Submission();
+                submission.setAssignmentId(assignment.getId());
+                submission.setStudentId(STUDENT_ID);
+                submission.setSubmittedAt(LocalDateTime.now());
+                submission.setStatus("SUBMITTED");
+                submission = submissionRepository.save(submission);
+                if (i % 4 == 0) {
+                    Grade grade = new Grade();
+                    grade.setSubmissionId(submission.getId());
+                    grade.setScore(90);
+                    grade.setReleased(true);
+                    gradeRepository.save(grade);
+                }
+            }
+        }
+    }
+}
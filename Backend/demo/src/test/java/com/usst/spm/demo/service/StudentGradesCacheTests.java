@@ -0,0 +1,60 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.AssignmentResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * “我的成绩”缓存：条数有上限，调用方修改返回值不影响缓存
+ */
+class StudentGradesCacheTests {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Function<Long, List<AssignmentResponse>> loader = studentId -> {
+        loads.incrementAndGet();
+        AssignmentResponse response = new AssignmentResponse();
+        response.setId(studentId);
+        response.setScore(90);
+        return List.of(response);
+    };
+
+    @Test
+    void evictsLeastRecentlyUsedStudentBeyondLimit() {
+        StudentGradesCache cache = new StudentGradesCache(2);
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+        cache.get(1L, loader);
+        cache.get(3L, loader);
+        assertEquals(3, loads.get());
+
+        // 2 最久未访问，已被淘汰；1 与 3 仍在缓存中
+        cache.get(1L, loader);
+        cache.get(3L, loader);
+        assertEquals(3, loads.get());
+        cache.get(2L, loader);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void callerChangesDoNotLeakIntoCache() {
+        StudentGradesCache cache = new StudentGradesCache(10);
+        cache.get(1L, loader).get(0).setScore(0);
+        assertEquals(90, cache.get(1L, loader).get(0).getScore());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evictedStudentIsReloaded() {
+        StudentGradesCache cache = new StudentGradesCache(10);
+        cache.get(1L, loader);
+        cache.evictStudent(1L);
+        cache.get(1L, loader);
+        assertEquals(2, loads.get());
+    }
+}
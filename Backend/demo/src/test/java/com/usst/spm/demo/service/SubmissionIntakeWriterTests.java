@@ -0,0 +1,132 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.model.Assignment;
+import com.usst.spm.demo.model.Course;
+import com.usst.spm.demo.model.User;
+import com.usst.spm.demo.repository.AssignmentRepository;
+import com.usst.spm.demo.repository.CourseRepository;
+import com.usst.spm.demo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 提交日志写库：同一幂等键的提交先后由两个实例（或重启前后的同一实例）写库时只写入一次；
+ * 重新提交覆盖正文时清掉该提交的相似度签名
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SubmissionIntakeWriterTests {
+
+    @Autowired
+    private SubmissionIntakeWriter writer;
+
+    @MockitoSpyBean
+    private SimilarityDetectionService similarityDetectionService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Course course;
+    private Assignment assignment;
+    private User student;
+
+    @BeforeEach
+    void setUp() {
+        course = new Course();
+        course.setName("幂等写库课程");
+        course = courseRepository.save(course);
+
+        assignment = new Assignment();
+        assignment.setCourseId(course.getId());
+        assignment.setTitle("幂等写库作业");
+        assignment.setTotalScore(100);
+        assignment.setAllowResubmit(true);
+        assignment.setMaxResubmitCount(0);
+        assignment.setStatus("PUBLISHED");
+        assignment.setDueAt(LocalDateTime.now().plusDays(1));
+        assignment = assignmentRepository.save(assignment);
+
+        student = new User();
+        student.setStudentNo("IDEM" + System.currentTimeMillis() % 1_000_000_000L);
+        student.setName("幂等学生");
+        student.setPassword("x");
+        student.setRole("STUDENT");
+        student.setStatus(1);
+        student.setDeleted(0);
+        student = userRepository.save(student);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM submission_idempotency_keys WHERE scoped_key LIKE ?",
+                assignment.getId() + ":%");
+        jdbcTemplate.update("DELETE FROM submission_contents WHERE submission_id IN "
+                + "(SELECT id FROM submissions WHERE assignment_id = ?)", assignment.getId());
+        jdbcTemplate.update("DELETE FROM submissions WHERE assignment_id = ?", assignment.getId());
+        jdbcTemplate.update("DELETE FROM submission_intake_checkpoints WHERE node_id IN ('idem-a', 'idem-b')");
+        assignmentRepository.deleteById(assignment.getId());
+        userRepository.deleteById(student.getId());
+        courseRepository.deleteById(course.getId());
+    }
+
+    @Test
+    void sameIdempotencyKeyOnAnotherNodeIsWrittenOnce() {
+        String scopedKey = assignment.getId() + ":" + student.getId() + ":retry-1";
+
+        List<SubmissionIntakeWriter.Outcome> first = writer.write(List.of(entry("ticket-a", scopedKey)), "idem-a");
+        assertNotNull(first.get(0).submissionId());
+
+        // 另一个实例（内存中没有该幂等键）受理了同一请求的重试
+        List<SubmissionIntakeWriter.Outcome> retry = writer.write(List.of(entry("ticket-b", scopedKey)), "idem-b");
+        assertEquals(first.get(0).submissionId(), retry.get(0).submissionId());
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM submissions WHERE assignment_id = ?", Integer.class, assignment.getId()));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT resubmit_count FROM submissions WHERE assignment_id = ?", Integer.class, assignment.getId()));
+        assertEquals("ticket-a", jdbcTemplate.queryForObject(
+                "SELECT ticket_id FROM submission_idempotency_keys WHERE scoped_key = ?", String.class, scopedKey));
+    }
+
+    @Test
+    void resubmissionEvictsSimilaritySignature() {
+        String prefix = assignment.getId() + ":" + student.getId() + ":";
+        Long submissionId = writer.write(List.of(entry("ticket-1", prefix + "first")), "idem-a")
+                .get(0).submissionId();
+        verify(similarityDetectionService, never()).evictSignature(anyLong(), anyLong());
+
+        List<SubmissionIntakeWriter.Outcome> resubmit = writer.write(List.of(entry("ticket-2", prefix + "second")),
+                "idem-a");
+        assertEquals(submissionId, resubmit.get(0).submissionId());
+        verify(similarityDetectionService).evictSignature(assignment.getId(), submissionId);
+    }
+
+    private SubmissionIntakeLog.Entry entry(String ticketId, String scopedKey) {
+        return new SubmissionIntakeLog.Entry(1L, ticketId, scopedKey, assignment.getId(), student.getId(),
+                System.currentTimeMillis(), "answer", null);
+    }
+}
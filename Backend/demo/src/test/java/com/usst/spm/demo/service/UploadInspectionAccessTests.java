@@ -0,0 +1,157 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.model.Assignment;
+import com.usst.spm.demo.model.Course;
+import com.usst.spm.demo.model.File;
+import com.usst.spm.demo.model.Submission;
+import com.usst.spm.demo.model.SubmissionFile;
+import com.usst.spm.demo.repository.AssignmentRepository;
+import com.usst.spm.demo.repository.CourseRepository;
+import com.usst.spm.demo.repository.SubmissionFileRepository;
+import com.usst.spm.demo.repository.SubmissionRepository;
+import com.usst.spm.demo.util.AuthenticatedPrincipal;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 检查结果中的抽取文本就是文件内容：只有上传者、所在课程的任课教师与管理员能看到，其他人得到 404
+ */
+@SpringBootTest(properties = {
+        "spm.storage.gc.interval-minutes=0",
+        "spm.upload.inspect.sweep-interval-minutes=0"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class UploadInspectionAccessTests {
+
+    private static final long OWNER_ID = 9_300_001L;
+    private static final long OTHER_STUDENT_ID = 9_300_002L;
+    private static final long TEACHER_ID = 9_300_003L;
+    private static final long OTHER_TEACHER_ID = 9_300_004L;
+
+    private static Path storageRoot;
+
+    @DynamicPropertySource
+    static void storage(DynamicPropertyRegistry registry) throws IOException {
+        storageRoot = Files.createTempDirectory("inspection-access-test");
+        registry.add("spm.storage.local.root", storageRoot::toString);
+    }
+
+    @AfterAll
+    static void removeStorage() {
+        FileSystemUtils.deleteRecursively(storageRoot.toFile());
+    }
+
+    @Autowired
+    private FileBlobStore fileBlobStore;
+
+    @Autowired
+    private UploadInspectionService inspectionService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private SubmissionFileRepository submissionFileRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Course course;
+    private Assignment assignment;
+    private File essay;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        course = new Course();
+        course.setName("作文课程");
+        course.setTeacherId(TEACHER_ID);
+        course = courseRepository.save(course);
+
+        assignment = new Assignment();
+        assignment.setCourseId(course.getId());
+        assignment.setTitle("作文");
+        assignment.setTotalScore(100);
+        assignment.setStatus("PUBLISHED");
+        assignment.setDueAt(LocalDateTime.now().plusDays(1));
+        assignment = assignmentRepository.save(assignment);
+
+        FileBlobStore.StoredBlob blob = fileBlobStore.write(new ByteArrayInputStream(
+                ("我的作文 " + System.nanoTime()).getBytes(StandardCharsets.UTF_8)));
+        essay = fileBlobStore.createFile(blob, "essay.txt", "text/plain", OWNER_ID);
+
+        Submission submission = new Submission();
+        submission.setAssignmentId(assignment.getId());
+        submission.setStudentId(OWNER_ID);
+        submission.setSubmittedAt(LocalDateTime.now());
+        submission.setStatus("SUBMITTED");
+        submission = submissionRepository.save(submission);
+        SubmissionFile link = new SubmissionFile();
+        link.setSubmissionId(submission.getId());
+        link.setFileId(essay.getId());
+        link.setDeleted(0);
+        submissionFileRepository.save(link);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM submission_files WHERE file_id = ?", essay.getId());
+        jdbcTemplate.update("DELETE FROM submissions WHERE assignment_id = ?", assignment.getId());
+        jdbcTemplate.update("DELETE FROM file_texts WHERE file_id = ?", essay.getId());
+        jdbcTemplate.update("DELETE FROM files WHERE id = ?", essay.getId());
+        jdbcTemplate.update("DELETE FROM blob_inspections WHERE digest = ?", essay.getContentDigest());
+        jdbcTemplate.update("DELETE FROM file_blobs WHERE digest = ?", essay.getContentDigest());
+        assignmentRepository.deleteById(assignment.getId());
+        courseRepository.deleteById(course.getId());
+    }
+
+    @Test
+    void otherStudentsAndTeachersAreRefused() {
+        assertNotFound(new AuthenticatedPrincipal(OTHER_STUDENT_ID, "S2", "STUDENT"));
+        assertNotFound(new AuthenticatedPrincipal(OTHER_TEACHER_ID, "T2", "TEACHER"));
+    }
+
+    @Test
+    void ownerCourseTeacherAndAdminCanView() {
+        for (AuthenticatedPrincipal viewer : new AuthenticatedPrincipal[]{
+                new AuthenticatedPrincipal(OWNER_ID, "S1", "STUDENT"),
+                new AuthenticatedPrincipal(TEACHER_ID, "T1", "TEACHER"),
+                new AuthenticatedPrincipal(1L, "admin", "ADMIN")}) {
+            assertEquals(essay.getId(), inspectionService.getInspection(essay.getId(), viewer).getFileId());
+        }
+    }
+
+    private void assertNotFound(AuthenticatedPrincipal viewer) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> inspectionService.getInspection(essay.getId(), viewer));
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+    }
+}
@@ -0,0 +1,127 @@
+package com.usst.spm.demo.service;
+
+import com.usst.spm.demo.dto.FileInspectionResponse;
+import com.usst.spm.demo.model.File;
+import com.usst.spm.demo.util.AuthenticatedPrincipal;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 同一内容重复上传：检查结果与抽取的文本按内容摘要复用，不再读取存储、不再抽取
+ */
+@SpringBootTest(properties = {
+        "spm.storage.gc.interval-minutes=0",
+        "spm.upload.inspect.sweep-interval-minutes=0"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class UploadInspectionDigestTests {
+
+    private static Path storageRoot;
+
+    @DynamicPropertySource
+    static void storage(DynamicPropertyRegistry registry) throws IOException {
+        storageRoot = Files.createTempDirectory("inspection-digest-test");
+        registry.add("spm.storage.local.root", storageRoot::toString);
+    }
+
+    @AfterAll
+    static void removeStorage() {
+        FileSystemUtils.deleteRecursively(storageRoot.toFile());
+    }
+
+    @Autowired
+    private FileBlobStore fileBlobStore;
+
+    @Autowired
+    private UploadInspectionService inspectionService;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final AuthenticatedPrincipal ADMIN = new AuthenticatedPrincipal(1L, "admin", "ADMIN");
+
+    private final List<File> files = new ArrayList<>();
+    private String digest;
+
+    @AfterEach
+    void cleanUp() {
+        for (File file : files) {
+            jdbcTemplate.update("DELETE FROM file_texts WHERE file_id = ?", file.getId());
+            jdbcTemplate.update("DELETE FROM files WHERE id = ?", file.getId());
+        }
+        jdbcTemplate.update("DELETE FROM blob_inspections WHERE digest = ?", digest);
+        jdbcTemplate.update("DELETE FROM file_blobs WHERE digest = ?", digest);
+    }
+
+    @Test
+    void repeatedContentIsInspectedOnce() throws Exception {
+        String text = "第一章 作业答案 " + System.nanoTime();
+        FileBlobStore.StoredBlob blob = fileBlobStore.write(
+                new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+        digest = blob.digest();
+        File first = upload(blob, "answer.txt");
+        assertEquals(File.INSPECTION_OK, awaitInspection(first.getId()));
+
+        // 删掉存储对象：之后的检查若再读取存储就会失败
+        storage.delete(blob.key());
+        File second = upload(blob, "answer-copy.txt");
+        File renamed = upload(blob, "answer.pdf");
+        assertEquals(File.INSPECTION_OK, awaitInspection(second.getId()));
+        assertEquals(File.INSPECTION_MISMATCH, awaitInspection(renamed.getId()));
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM blob_inspections WHERE digest = ?",
+                Integer.class, digest));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM file_texts WHERE file_id IN (?, ?)",
+                Integer.class, first.getId(), second.getId()));
+        for (File file : List.of(first, second)) {
+            FileInspectionResponse response = inspectionService.getInspection(file.getId(), ADMIN);
+            assertEquals(text, response.getText());
+            assertEquals(text.codePointCount(0, text.length()), response.getTextLength());
+        }
+        assertNull(inspectionService.getInspection(renamed.getId(), ADMIN).getText());
+    }
+
+    private File upload(FileBlobStore.StoredBlob blob, String name) {
+        File file = fileBlobStore.createFile(blob, name, "text/plain", null);
+        files.add(file);
+        return file;
+    }
+
+    private String awaitInspection(Long fileId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        String status = File.INSPECTION_PENDING;
+        while (System.currentTimeMillis() < deadline) {
+            status = jdbcTemplate.queryForObject("SELECT inspection_status FROM files WHERE id = ?",
+                    String.class, fileId);
+            if (!File.INSPECTION_PENDING.equals(status)) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,78 @@
+package com.usst.spm.demo.util;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 签名密钥轮换：各节点配置相同密钥即可互认 Token，轮换后旧 Token 仍可校验，移除旧密钥后失效
+ */
+class JwtUtilTests {
+
+    private static final String OLD_KEY = "2026-04:" + secret("old-signing-key");
+    private static final String NEW_KEY = "2026-10:" + secret("new-signing-key");
+
+    @Test
+    void nodesWithSameKeysAcceptEachOthersTokens() {
+        JwtUtil nodeA = new JwtUtil(OLD_KEY, "");
+        JwtUtil nodeB = new JwtUtil(OLD_KEY, "");
+        AuthenticatedPrincipal principal = nodeB.parsePrincipal(nodeA.generateToken(7L, "S007", "STUDENT"));
+        assertEquals(new AuthenticatedPrincipal(7L, "S007", "STUDENT"), principal);
+    }
+
+    @Test
+    void rotationKeepsOldTokensValidUntilKeyIsRemoved() {
+        JwtUtil beforeRotation = new JwtUtil(OLD_KEY, "");
+        String oldToken = beforeRotation.generateToken(1L, "T001", "TEACHER");
+
+        JwtUtil afterRotation = new JwtUtil(NEW_KEY + "," + OLD_KEY, "2026-10");
+        assertEquals(1L, afterRotation.parsePrincipal(oldToken).userId());
+        String newToken = afterRotation.generateToken(1L, "T001", "TEACHER");
+        assertEquals("2026-10", kidOf(newToken));
+
+        // 仍在旧配置上的节点不认识新 kid
+        assertThrows(SignatureException.class, () -> beforeRotation.parsePrincipal(newToken));
+
+        JwtUtil oldKeyRemoved = new JwtUtil(NEW_KEY, "");
+        assertThrows(SignatureException.class, () -> oldKeyRemoved.parsePrincipal(oldToken));
+        assertEquals(1L, oldKeyRemoved.parsePrincipal(newToken).userId());
+    }
+
+    @Test
+    void tokenSignedWithAnotherSecretUnderSameKidIsRejected() {
+        JwtUtil forged = new JwtUtil("2026-10:" + secret("someone-elses-key"), "");
+        JwtUtil real = new JwtUtil(NEW_KEY, "");
+        assertThrows(JwtException.class, () -> real.parsePrincipal(forged.generateToken(1L, "T001", "ADMIN")));
+    }
+
+    @Test
+    void invalidConfigurationFailsFast() {
+        assertThrows(IllegalStateException.class, () -> new JwtUtil("short:" + Base64.getEncoder()
+                .encodeToString("too-short".getBytes(StandardCharsets.UTF_8)), ""));
+        assertThrows(IllegalStateException.class, () -> new JwtUtil(OLD_KEY, "missing"));
+        assertThrows(IllegalStateException.class, () -> new JwtUtil(OLD_KEY + "," + OLD_KEY, ""));
+        assertThrows(IllegalStateException.class, () -> new JwtUtil("no-separator", ""));
+    }
+
+    private static String kidOf(String token) {
+        String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))),
+                StandardCharsets.UTF_8);
+        int start = header.indexOf("\"kid\":\"") + 7;
+        return header.substring(start, header.indexOf('"', start));
+    }
+
+    private static String secret(String seed) {
+        byte[] bytes = new byte[32];
+        byte[] raw = seed.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = raw[i % raw.length];
+        }
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+}
@@ -38,6 +38,8 @@ CREATE TABLE IF NOT EXISTS course (
   -- 当前有效的邀请码（便于快速校验）
   invite_code VARCHAR(16),
   invite_expire_at DATETIME,
+  -- 单个上传文件的大小上限（字节），为空时使用全局默认值
+  max_upload_bytes BIGINT,
   created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
   updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   deleted TINYINT NOT NULL DEFAULT 0,
@@ -100,14 +102,23 @@ CREATE TABLE IF NOT EXISTS assignments (
   updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   deleted TINYINT NOT NULL DEFAULT 0,
   deleted_at DATETIME,
+  CONSTRAINT uk_assign_origin_version UNIQUE (origin_id, version),
   CONSTRAINT fk_assign_course FOREIGN KEY (course_id) REFERENCES course(id)
 );
 
+-- 作业版本号计数器：每条作业链路一行，重新发布时原子 +1 分配版本号
+CREATE TABLE IF NOT EXISTS assignment_version_counters (
+  origin_id BIGINT PRIMARY KEY,
+  current_version INT NOT NULL,
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
 CREATE TABLE IF NOT EXISTS submissions (
   id BIGINT PRIMARY KEY AUTO_INCREMENT,
   assignment_id BIGINT NOT NULL,
   student_id BIGINT NOT NULL,
-  content LONGTEXT,
+  content_length INT DEFAULT 0,
+  content_preview VARCHAR(255),
   status VARCHAR(16) DEFAULT 'SUBMITTED',
   submitted_at DATETIME DEFAULT CURRENT_TIMESTAMP,
   resubmit_count INT DEFAULT 0,
@@ -118,6 +129,64 @@ CREATE TABLE IF NOT EXISTS submissions (
   CONSTRAINT fk_sub_student FOREIGN KEY (student_id) REFERENCES users(id)
 );
 
+-- 提交正文：与 submissions 分表，只在查看单个提交时读取；encoding 为 PLAIN（UTF-8）或 DEFLATE（压缩后的 UTF-8）
+CREATE TABLE IF NOT EXISTS submission_contents (
+  submission_id BIGINT PRIMARY KEY,
+  encoding VARCHAR(16) NOT NULL DEFAULT 'PLAIN',
+  body LONGBLOB,
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT fk_sub_content FOREIGN KEY (submission_id) REFERENCES submissions(id)
+);
+
+-- 提交相似度检测：每次检测一行报告，命中的相似对（仅保留每个作业最新一次）
+CREATE TABLE IF NOT EXISTS similarity_reports (
+  id BIGINT PRIMARY KEY AUTO_INCREMENT,
+  assignment_id BIGINT NOT NULL,
+  status VARCHAR(16) NOT NULL,
+  submission_count INT,
+  candidate_pairs INT,
+  reported_pairs INT,
+  message VARCHAR(255),
+  started_at DATETIME,
+  finished_at DATETIME,
+  created_by BIGINT,
+  INDEX idx_similarity_report_assign (assignment_id, id)
+);
+
+CREATE TABLE IF NOT EXISTS similarity_pairs (
+  id BIGINT PRIMARY KEY AUTO_INCREMENT,
+  report_id BIGINT NOT NULL,
+  assignment_id BIGINT NOT NULL,
+  submission_a BIGINT NOT NULL,
+  submission_b BIGINT NOT NULL,
+  student_a BIGINT NOT NULL,
+  student_b BIGINT NOT NULL,
+  similarity DOUBLE NOT NULL,
+  INDEX idx_similarity_pair_report (report_id, similarity),
+  INDEX idx_similarity_pair_assign (assignment_id)
+);
+
+-- 提交收件日志写库进度：每个应用实例一行，与提交记录同一事务更新
+CREATE TABLE IF NOT EXISTS submission_intake_checkpoints (
+  node_id VARCHAR(64) PRIMARY KEY,
+  last_seq BIGINT NOT NULL,
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- 已写库的收件幂等键（作业ID:学生ID:Idempotency-Key）：与提交同一事务写入，唯一键保证重启后或跨实例重试不会重复提交
+CREATE TABLE IF NOT EXISTS submission_idempotency_keys (
+  id BIGINT PRIMARY KEY AUTO_INCREMENT,
+  scoped_key VARCHAR(200) NOT NULL,
+  ticket_id VARCHAR(36) NOT NULL,
+  status VARCHAR(16) NOT NULL,
+  submission_id BIGINT NULL,
+  message VARCHAR(255) NULL,
+  submitted_at DATETIME NOT NULL,
+  created_at DATETIME NOT NULL,
+  CONSTRAINT uk_idem_scoped_key UNIQUE (scoped_key),
+  INDEX idx_idem_created (created_at)
+);
+
 -- 文件表
 CREATE TABLE IF NOT EXISTS files (
   id BIGINT PRIMARY KEY AUTO_INCREMENT,
@@ -127,12 +196,90 @@ CREATE TABLE IF NOT EXISTS files (
   mime_type VARCHAR(128),
   file_size BIGINT,
   uploader_id BIGINT,
+  -- 内容 SHA-256，对应 file_blobs；早期按 UUID 存放的文件为空
+  content_digest CHAR(64),
+  -- 上传后检查：PENDING / OK / MISMATCH（内容与扩展名不符）/ FAILED，抽取的文本在 blob_inspections（按内容）或 file_texts
+  inspection_status VARCHAR(16),
+  detected_type VARCHAR(16),
+  inspection_message VARCHAR(255),
+  text_length INT,
+  inspected_at DATETIME,
+  -- 孤儿文件回收判定为无人引用的时间（同时置 deleted = 1）
+  orphaned_at DATETIME,
   created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
   updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   deleted TINYINT NOT NULL DEFAULT 0,
+  INDEX idx_file_digest (content_digest),
+  INDEX idx_file_inspection (inspection_status, id),
+  INDEX idx_file_orphaned (orphaned_at),
   CONSTRAINT fk_file_uploader FOREIGN KEY (uploader_id) REFERENCES users(id)
 );
 
+-- 内容寻址数据块：同一内容只存一份，ref_count 为引用它的 files 记录数，status/verified_at 由后台校验维护
+CREATE TABLE IF NOT EXISTS file_blobs (
+  digest CHAR(64) PRIMARY KEY,
+  size BIGINT NOT NULL,
+  storage_path VARCHAR(512) NOT NULL,
+  ref_count INT NOT NULL DEFAULT 0,
+  status VARCHAR(16) NOT NULL DEFAULT 'OK',
+  verified_at DATETIME,
+  -- 引用数降为 0 的时间，隔离期满后由孤儿文件回收删除
+  orphaned_at DATETIME,
+  created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  INDEX idx_blob_verified (verified_at),
+  INDEX idx_blob_orphaned (orphaned_at)
+);
+
+-- 按内容摘要保存的检查结果：文件头识别的类型、按扩展名（text_extension）抽取的纯文本（txt / docx / xlsx / pptx），
+-- 同一内容的重复上传直接复用
+CREATE TABLE IF NOT EXISTS blob_inspections (
+  digest CHAR(64) PRIMARY KEY,
+  family VARCHAR(16) NOT NULL,
+  text_extension VARCHAR(16),
+  recognized TINYINT(1),
+  content LONGTEXT,
+  truncated TINYINT(1),
+  inspected_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 按文件保存的抽取文本：早期按 UUID 存放的文件，或同一内容以不同扩展名上传时
+CREATE TABLE IF NOT EXISTS file_texts (
+  file_id BIGINT PRIMARY KEY,
+  content LONGTEXT,
+  truncated TINYINT(1) NOT NULL DEFAULT 0,
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT fk_file_text FOREIGN KEY (file_id) REFERENCES files(id)
+);
+
+-- 分片上传会话与已收到的分片（checksum 为 CRC32C）
+CREATE TABLE IF NOT EXISTS file_upload_sessions (
+  id VARCHAR(32) PRIMARY KEY,
+  uploader_id BIGINT NOT NULL,
+  course_id BIGINT,
+  original_name VARCHAR(255) NOT NULL,
+  mime_type VARCHAR(128),
+  total_size BIGINT NOT NULL,
+  chunk_size INT NOT NULL,
+  chunk_count INT NOT NULL,
+  status VARCHAR(16) NOT NULL DEFAULT 'UPLOADING',
+  file_id BIGINT,
+  created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  expires_at DATETIME,
+  INDEX idx_upload_status_expires (status, expires_at)
+);
+
+CREATE TABLE IF NOT EXISTS file_upload_chunks (
+  id BIGINT PRIMARY KEY AUTO_INCREMENT,
+  upload_id VARCHAR(32) NOT NULL,
+  chunk_index INT NOT NULL,
+  size INT NOT NULL,
+  checksum VARCHAR(8) NOT NULL,
+  created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE KEY uk_upload_chunk (upload_id, chunk_index)
+);
+
 -- 提交文件关联表
 CREATE TABLE IF NOT EXISTS submission_files (
   id BIGINT PRIMARY KEY AUTO_INCREMENT,
@@ -441,10 +588,11 @@ WHERE c.name = '项目管理与过程改进' COLLATE utf8mb4_general_ci
 -- 8.5 为这些作业批量生成学生提交与部分成绩
 
 -- 学生 S0001 与 S0002 的提交
-INSERT INTO submissions (assignment_id, student_id, content, status, submitted_at, resubmit_count, created_at, updated_at)
+INSERT INTO submissions (assignment_id, student_id, content_length, content_preview, status, submitted_at, resubmit_count, created_at, updated_at)
 SELECT 
   a.id,
   u.id,
+  CHAR_LENGTH(CONCAT(u.name, ' 对作业《', a.title, '》的提交内容示例。')),
   CONCAT(u.name, ' 对作业《', a.title, '》的提交内容示例。'),
   'SUBMITTED',
   DATE_SUB(CURRENT_TIMESTAMP, INTERVAL 1 DAY),
@@ -460,6 +608,14 @@ WHERE c.name = '项目管理与过程改进'
     WHERE s.assignment_id = a.id AND s.student_id = u.id AND s.deleted = 0
   );
 
+-- 示例提交的正文（内容较短，不压缩）
+INSERT INTO submission_contents (submission_id, encoding, body, updated_at)
+SELECT s.id, 'PLAIN', CONVERT(CONCAT(u.name, ' 对作业《', a.title, '》的提交内容示例。') USING utf8mb4), CURRENT_TIMESTAMP
+FROM submissions s
+JOIN assignments a ON s.assignment_id = a.id
+JOIN users u       ON s.student_id = u.id
+WHERE NOT EXISTS (SELECT 1 FROM submission_contents c WHERE c.submission_id = s.id);
+
 -- 给 S0002 的提交打分，模拟部分已批改
 INSERT INTO grades (submission_id, scorer_id, score, feedback, released, created_at, updated_at, deleted)
 SELECT 
@@ -0,0 +1,18 @@
+-- 作业版本号分配 - 数据库迁移脚本
+-- 执行前请备份数据库
+
+USE spm_course;
+
+-- 1. 版本号计数器表：每条作业链路一行，首次重新发布时按链路已有最大版本号初始化
+CREATE TABLE IF NOT EXISTS assignment_version_counters (
+  origin_id BIGINT PRIMARY KEY,
+  current_version INT NOT NULL,
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- 2. 同一链路内版本号唯一
+-- 添加前先确认没有历史重复版本（以下查询应返回空）：
+-- SELECT origin_id, version, COUNT(*) FROM assignments
+-- WHERE origin_id IS NOT NULL GROUP BY origin_id, version HAVING COUNT(*) > 1;
+ALTER TABLE assignments
+ADD UNIQUE INDEX uk_assign_origin_version (origin_id, version);
@@ -0,0 +1,35 @@
+-- 分片断点续传 - 数据库迁移脚本
+-- 执行前请备份数据库
+
+USE spm_course;
+
+-- 1. 课程单文件上传大小上限（字节），为空时使用全局默认值
+ALTER TABLE course ADD COLUMN max_upload_bytes BIGINT AFTER invite_expire_at;
+
+-- 2. 分片上传会话与已收到的分片（checksum 为 CRC32C）
+CREATE TABLE IF NOT EXISTS file_upload_sessions (
+  id VARCHAR(32) PRIMARY KEY,
+  uploader_id BIGINT NOT NULL,
+  course_id BIGINT,
+  original_name VARCHAR(255) NOT NULL,
+  mime_type VARCHAR(128),
+  total_size BIGINT NOT NULL,
+  chunk_size INT NOT NULL,
+  chunk_count INT NOT NULL,
+  status VARCHAR(16) NOT NULL DEFAULT 'UPLOADING',
+  file_id BIGINT,
+  created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  expires_at DATETIME,
+  INDEX idx_upload_status_expires (status, expires_at)
+);
+
+CREATE TABLE IF NOT EXISTS file_upload_chunks (
+  id BIGINT PRIMARY KEY AUTO_INCREMENT,
+  upload_id VARCHAR(32) NOT NULL,
+  chunk_index INT NOT NULL,
+  size INT NOT NULL,
+  checksum VARCHAR(8) NOT NULL,
+  created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE KEY uk_upload_chunk (upload_id, chunk_index)
+);
@@ -0,0 +1,22 @@
+-- 文件内容寻址去重存储 - 数据库迁移脚本
+-- 执行前请备份数据库
+
+USE spm_course;
+
+-- 1. 文件记录关联内容摘要（已有文件保持原路径，摘要为空）
+ALTER TABLE files
+  ADD COLUMN content_digest CHAR(64) AFTER uploader_id,
+  ADD INDEX idx_file_digest (content_digest);
+
+-- 2. 内容寻址数据块
+CREATE TABLE IF NOT EXISTS file_blobs (
+  digest CHAR(64) PRIMARY KEY,
+  size BIGINT NOT NULL,
+  storage_path VARCHAR(512) NOT NULL,
+  ref_count INT NOT NULL DEFAULT 0,
+  status VARCHAR(16) NOT NULL DEFAULT 'OK',
+  verified_at DATETIME,
+  created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  INDEX idx_blob_verified (verified_at)
+);
@@ -0,0 +1,17 @@
+-- 孤儿文件回收 - 数据库迁移脚本
+-- 执行前请备份数据库
+
+USE spm_course;
+
+-- 1. 文件记录增加孤儿判定时间
+ALTER TABLE files
+  ADD COLUMN orphaned_at DATETIME AFTER inspected_at,
+  ADD INDEX idx_file_orphaned (orphaned_at);
+
+-- 2. 数据块增加引用数归零时间
+ALTER TABLE file_blobs
+  ADD COLUMN orphaned_at DATETIME AFTER verified_at,
+  ADD INDEX idx_blob_orphaned (orphaned_at);
+
+-- 3. 已有的无人引用数据块从现在起进入隔离期
+UPDATE file_blobs SET orphaned_at = NOW() WHERE ref_count <= 0;
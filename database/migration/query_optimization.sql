@@ -0,0 +1,18 @@
+-- 查询性能优化 - 数据库迁移脚本
+-- 执行前请备份数据库
+
+USE spm_course;
+
+-- 1. 教师端作业统计：按课程分组统计提交/批改人数
+ALTER TABLE submissions
+ADD INDEX IF NOT EXISTS idx_sub_assignment_student (assignment_id, student_id, deleted);
+
+ALTER TABLE grades
+ADD INDEX IF NOT EXISTS idx_grade_submission (submission_id, deleted);
+
+ALTER TABLE assignments
+ADD INDEX IF NOT EXISTS idx_assign_course (course_id, deleted);
+
+-- 2. 作业截止调度：按状态 + 截止时间查找待截止/已过期的作业
+ALTER TABLE assignments
+ADD INDEX IF NOT EXISTS idx_assign_status_due (status, due_at);
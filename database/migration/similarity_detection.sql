@@ -0,0 +1,32 @@
+-- 提交相似度检测 - 数据库迁移脚本
+-- 执行前请备份数据库
+
+USE spm_course;
+
+-- 1. 检测报告与相似对（每个作业只保留最新一次检测的相似对）
+CREATE TABLE IF NOT EXISTS similarity_reports (
+  id BIGINT PRIMARY KEY AUTO_INCREMENT,
+  assignment_id BIGINT NOT NULL,
+  status VARCHAR(16) NOT NULL,
+  submission_count INT,
+  candidate_pairs INT,
+  reported_pairs INT,
+  message VARCHAR(255),
+  started_at DATETIME,
+  finished_at DATETIME,
+  created_by BIGINT,
+  INDEX idx_similarity_report_assign (assignment_id, id)
+);
+
+CREATE TABLE IF NOT EXISTS similarity_pairs (
+  id BIGINT PRIMARY KEY AUTO_INCREMENT,
+  report_id BIGINT NOT NULL,
+  assignment_id BIGINT NOT NULL,
+  submission_a BIGINT NOT NULL,
+  submission_b BIGINT NOT NULL,
+  student_a BIGINT NOT NULL,
+  student_b BIGINT NOT NULL,
+  similarity DOUBLE NOT NULL,
+  INDEX idx_similarity_pair_report (report_id, similarity),
+  INDEX idx_similarity_pair_assign (assignment_id)
+);
@@ -0,0 +1,15 @@
+-- 文件存储后端 - 数据库迁移脚本
+-- 执行前请备份数据库
+
+USE spm_course;
+
+-- 1. files.storage_path 由本地相对路径（uploads/xxx）改为对象键（相对存储根目录，如 blobs/ab/cd/{摘要}）
+UPDATE files SET storage_path = REPLACE(storage_path, '\\', '/') WHERE storage_path LIKE '%\\\\%';
+UPDATE files SET storage_path = SUBSTRING(storage_path, 9) WHERE storage_path LIKE 'uploads/%';
+
+-- 2. file_blobs.storage_path 同上
+UPDATE file_blobs SET storage_path = REPLACE(storage_path, '\\', '/') WHERE storage_path LIKE '%\\\\%';
+UPDATE file_blobs SET storage_path = SUBSTRING(storage_path, 9) WHERE storage_path LIKE 'uploads/%';
+
+-- 3. 改用 S3 兼容存储（spm.storage.backend=s3）时，先把 uploads/ 目录下的对象同步到桶中（.tmp/ 与 .partial/ 为本机临时文件，不需要同步），例如：
+--    mc mirror --exclude ".tmp/*" --exclude ".partial/*" uploads/ minio/spm-files
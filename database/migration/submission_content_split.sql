@@ -0,0 +1,32 @@
+-- 提交正文分表与压缩存储 - 数据库迁移脚本
+-- 执行前请备份数据库
+
+USE spm_course;
+
+-- 1. 提交正文表：encoding 为 PLAIN（UTF-8）或 DEFLATE（压缩后的 UTF-8）
+CREATE TABLE IF NOT EXISTS submission_contents (
+  submission_id BIGINT PRIMARY KEY,
+  encoding VARCHAR(16) NOT NULL DEFAULT 'PLAIN',
+  body LONGBLOB,
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT fk_sub_content FOREIGN KEY (submission_id) REFERENCES submissions(id)
+);
+
+-- 2. submissions 只保留字数与摘要
+ALTER TABLE submissions
+  ADD COLUMN content_length INT DEFAULT 0 AFTER student_id,
+  ADD COLUMN content_preview VARCHAR(255) AFTER content_length;
+
+-- 3. 迁移已有正文（按原文存放；之后重新提交的长正文由应用压缩）
+INSERT INTO submission_contents (submission_id, encoding, body, updated_at)
+SELECT s.id, 'PLAIN', CONVERT(s.content USING utf8mb4), CURRENT_TIMESTAMP
+FROM submissions s
+WHERE s.content IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM submission_contents c WHERE c.submission_id = s.id);
+
+UPDATE submissions
+SET content_length = COALESCE(CHAR_LENGTH(content), 0),
+    content_preview = LEFT(TRIM(REGEXP_REPLACE(content, '[[:space:]]+', ' ')), 120);
+
+-- 4. 确认迁移无误后删除原列
+ALTER TABLE submissions DROP COLUMN content;
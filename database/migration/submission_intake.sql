@@ -0,0 +1,25 @@
+-- 截止高峰提交收件 - 数据库迁移脚本
+-- 执行前请备份数据库
+
+USE spm_course;
+
+-- 1. 收件日志写库进度：每个应用实例一行，重启时只重放序号更大的日志记录
+CREATE TABLE IF NOT EXISTS submission_intake_checkpoints (
+  node_id VARCHAR(64) PRIMARY KEY,
+  last_seq BIGINT NOT NULL,
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- 2. 已写库的收件幂等键（作业ID:学生ID:Idempotency-Key）：与提交同一事务写入，唯一键保证重启后或跨实例重试不会重复提交（保留 24 小时）
+CREATE TABLE IF NOT EXISTS submission_idempotency_keys (
+  id BIGINT PRIMARY KEY AUTO_INCREMENT,
+  scoped_key VARCHAR(200) NOT NULL,
+  ticket_id VARCHAR(36) NOT NULL,
+  status VARCHAR(16) NOT NULL,
+  submission_id BIGINT NULL,
+  message VARCHAR(255) NULL,
+  submitted_at DATETIME NOT NULL,
+  created_at DATETIME NOT NULL,
+  CONSTRAINT uk_idem_scoped_key UNIQUE (scoped_key),
+  INDEX idx_idem_created (created_at)
+);
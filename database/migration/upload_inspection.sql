@@ -0,0 +1,37 @@
+-- 上传后检查（魔数比对、文本抽取） - 数据库迁移脚本
+-- 执行前请备份数据库
+
+USE spm_course;
+
+-- 1. 文件记录增加检查结果
+ALTER TABLE files
+  ADD COLUMN inspection_status VARCHAR(16) AFTER content_digest,
+  ADD COLUMN detected_type VARCHAR(16) AFTER inspection_status,
+  ADD COLUMN inspection_message VARCHAR(255) AFTER detected_type,
+  ADD COLUMN text_length INT AFTER inspection_message,
+  ADD COLUMN inspected_at DATETIME AFTER text_length,
+  ADD INDEX idx_file_inspection (inspection_status, id);
+
+-- 2. 抽取的文本
+CREATE TABLE IF NOT EXISTS file_texts (
+  file_id BIGINT PRIMARY KEY,
+  content LONGTEXT,
+  truncated TINYINT(1) NOT NULL DEFAULT 0,
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT fk_file_text FOREIGN KEY (file_id) REFERENCES files(id)
+);
+
+-- 3. 已有文件标记为待检查，由后台补漏扫描按队列容量逐批处理（更新时保留 updated_at，避免下载的 Last-Modified 变化）
+UPDATE files SET inspection_status = 'PENDING', updated_at = updated_at WHERE deleted = 0;
+
+-- 4. 按内容摘要保存的检查结果（文件头类型、按扩展名抽取的文本），同一内容的重复上传直接复用，不再抽取；
+--    之前按文件保存在 file_texts 的文本保留，查看时仍可读取
+CREATE TABLE IF NOT EXISTS blob_inspections (
+  digest CHAR(64) PRIMARY KEY,
+  family VARCHAR(16) NOT NULL,
+  text_extension VARCHAR(16),
+  recognized TINYINT(1),
+  content LONGTEXT,
+  truncated TINYINT(1),
+  inspected_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
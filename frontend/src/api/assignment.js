@@ -43,6 +43,15 @@ export function getMySubmission(id, studentId, courseId) {
   });
 }
 
+/**
+ * 查看单个提交的完整内容（教师端批改详情，名单中只有正文摘要）
+ * @param {number} id - 作业ID
+ * @param {number} submissionId - 提交ID
+ */
+export function getSubmissionDetail(id, submissionId) {
+  return request.get(`/assignments/${id}/submissions/${submissionId}`);
+}
+
 /**
  * 教师批改作业
  * @param {number} id - 作业ID
@@ -64,11 +73,23 @@ export function getMyGrades(studentId, courseId) {
 }
 
 /**
- * 获取作业的所有提交（教师端）
+ * 获取作业批改名单的一页（教师端）
+ * 后端按学生ID keyset 分页，本页已满时在响应头 X-Next-Cursor 中返回下一页的游标
  * @param {number} id - 作业ID
+ * @param {number} afterStudentId - 上一页返回的游标，首页不传
+ * @param {number} size - 每页条数
+ * @returns {Promise<{items: Array, nextCursor: string|null}>}
  */
-export function getSubmissions(id) {
-  return request.get(`/assignments/${id}/submissions`);
+export async function getSubmissions(id, afterStudentId, size = 100) {
+  const response = await request.get(`/assignments/${id}/submissions`, {
+    params: { afterStudentId, size },
+    rawResponse: true
+  });
+  const body = response.data;
+  return {
+    items: Array.isArray(body) ? body : (body?.data || []),
+    nextCursor: response.headers['x-next-cursor'] || null
+  };
 }
 
 // 创建新作业
@@ -62,6 +62,10 @@ request.interceptors.request.use(
 // 响应拦截器 - 处理标准响应格式 {code, message, data, timestamp, traceId}
 request.interceptors.response.use(
   response => {
+    // 需要读取响应头（如分页游标 X-Next-Cursor）的请求传 rawResponse: true，原样返回 axios 响应
+    if (response.config?.rawResponse) {
+      return response;
+    }
     const { data } = response;
     const url = response.config?.url || '';
     const isAuthRequest = url.includes('/auth/login') || url.includes('/auth/register');